@@ -0,0 +1,78 @@
+package com.example.engine.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (same method, mode and parameters) and
+ * flags every score that got worse by more than the threshold:
+ * <pre>
+ *   java -jar target/benchmarks.jar compare baseline.json target/jmh-result.json [threshold-percent]
+ * </pre>
+ * Throughput scores are worse when lower, time scores when higher. Exits with 1 if anything regressed,
+ * so a build step can fail on it.
+ */
+final class BenchmarkComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private BenchmarkComparison() {
+    }
+
+    static int run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: compare <baseline.json> <current.json> [threshold-percent]");
+            return 2;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> current = read(Path.of(args[1]));
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW        %s: %.3f %s%n", entry.getKey(), after.value, after.unit);
+                continue;
+            }
+            double change = (after.value - before.value) / before.value * 100;
+            // Positive when the result got worse, whichever direction that is for this mode
+            double worse = after.higherIsBetter ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "REGRESSED" : "ok",
+                    entry.getKey(), before.value, after.value, after.unit, change);
+        }
+        System.out.printf("%d of %d benchmarks regressed by more than %.1f%%%n", regressions, current.size(), threshold);
+        return regressions == 0 ? 0 : 1;
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            String mode = run.path("mode").asText();
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            String key = run.path("benchmark").asText() + " [" + mode + "]" + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key, new Score(metric.path("score").asDouble(), metric.path("scoreUnit").asText(), mode.equals("thrpt")));
+        }
+        return scores;
+    }
+
+    private record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
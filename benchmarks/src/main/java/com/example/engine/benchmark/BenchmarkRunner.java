@@ -0,0 +1,53 @@
+package com.example.engine.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH options, but writes results as JSON to
+ * {@value #DEFAULT_RESULT} unless {@code -rf}/{@code -rff} say otherwise. With {@code compare} as
+ * the first argument it compares two result files instead, see {@link BenchmarkComparison}; with
+ * {@code http} it puts a running server under connection-heavy load, see {@link HttpLoadTest}; with
+ * {@code replay} or {@code replay-http} it replays a recorded order flow, see {@link ReplayHarness}.
+ */
+public final class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("compare")) {
+            System.exit(BenchmarkComparison.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("http")) {
+            System.exit(HttpLoadTest.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("replay")) {
+            System.exit(ReplayHarness.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("replay-http")) {
+            System.exit(ReplayHarness.runHttp(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()
+                || options.shouldListResultFormats() || options.shouldListWithParams()) {
+            // Listing and help are handled by JMH's own main
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(options);
+        if (options.getResultFormat().hasValue() || options.getResult().hasValue()) {
+            new Runner(builder.build()).run();
+            return;
+        }
+        builder.resultFormat(ResultFormatType.JSON).result(DEFAULT_RESULT);
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.journal.DisabledOrderJournal;
+import com.example.engine.journal.OrderJournal;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.model.OrderPool;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.service.IntakeControl;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderServiceImpl;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.TradeRing;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Wires the engine by hand, as the application context would with default properties, so
+ * benchmarks do not pay for or depend on starting Spring.
+ */
+final class Engines {
+
+    static final BigDecimal TICK_SIZE = new BigDecimal("0.01");
+
+    private Engines() {
+    }
+
+    static OrderManager orderManager() {
+        return new OrderManager(new TradeRing(65536), new SymbolRegistry(1024, ""));
+    }
+
+    static OrderServiceImpl orderService(OrderManager orderManager, OrderJournal journal, int shards) {
+        return new OrderServiceImpl(orderManager, new TickSizeRegistry(TICK_SIZE, ""), new TradeRing(65536),
+                journal, OrderFlowRecorder.disabled(), new SnapshotStore(false, "snapshots", 2, Duration.ofMinutes(5)),
+                new OrderArchive(1 << 20, Duration.ofHours(1)), new OrderPool(0, 0), new EngineMetrics(), IntakeControl.unlimited(), shards, 65536, 3);
+    }
+
+    static OrderServiceImpl orderService(OrderManager orderManager, int shards) {
+        return orderService(orderManager, new DisabledOrderJournal(), shards);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.metrics.LatencyHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection-heavy load on the REST API: many keep-alive connections, each submitting orders with
+ * {@code POST /api/orders} one at a time, as fast as the server answers. Buys and sells of one lot
+ * alternate at one price per connection, spread over a few symbols, so books stay small.
+ * <pre>
+ *   java -jar target/benchmarks.jar http [url] [connections] [seconds] [warmup-seconds] [symbols]
+ * </pre>
+ * Run it against a server started with and without {@code spring.threads.virtual.enabled=true}.
+ * Connections beyond the server's request threads only get answered as threads free up, so the
+ * difference shows when requests block, e.g. with {@code order.journal.durability=SYNC}.
+ */
+final class HttpLoadTest {
+
+    // Client threads barely need a stack; thousands of them must fit next to the server
+    private static final long CLIENT_STACK_BYTES = 256 * 1024;
+
+    private final URI uri;
+    private final int symbols;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private HttpLoadTest(URI uri, int symbols) {
+        this.uri = uri;
+        this.symbols = symbols;
+    }
+
+    static int run(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/orders");
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int symbols = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+
+        HttpLoadTest test = new HttpLoadTest(uri, symbols);
+        CountDownLatch connected = new CountDownLatch(connections);
+        List<Thread> clients = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            int connection = i;
+            Thread client = new Thread(null, () -> test.runConnection(connection, connected),
+                    "http-client-" + i, CLIENT_STACK_BYTES);
+            client.setDaemon(true);
+            clients.add(client);
+            client.start();
+        }
+        connected.await();
+        Thread.sleep(warmupSeconds * 1000L);
+        long errorsBefore = test.errors.get();
+        test.measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        test.measuring = false;
+        long elapsed = System.nanoTime() - start;
+        test.running = false;
+        for (Thread client : clients) {
+            client.join(1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = test.latencies.snapshot();
+        System.out.printf("%d connections, %d orders in %.1f s (%.0f orders/s), %d errors%n", connections,
+                snapshot.getCount(), elapsed / 1e9, snapshot.getCount() / (elapsed / 1e9), test.errors.get() - errorsBefore);
+        System.out.printf("response ms: p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                snapshot.percentile(50) / 1e6, snapshot.percentile(99) / 1e6, snapshot.percentile(99.9) / 1e6,
+                snapshot.getMax() / 1e6);
+        return 0;
+    }
+
+    private void runConnection(int connection, CountDownLatch connected) {
+        String symbol = "LOAD" + connection % symbols;
+        boolean counted = false;
+        long sequence = 0;
+        while (running) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()));
+                socket.setTcpNoDelay(true);
+                if (!counted) {
+                    connected.countDown();
+                    counted = true;
+                }
+                OutputStream out = socket.getOutputStream();
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                while (running) {
+                    byte[] request = request(symbol, sequence++ % 2 == 0 ? "BUY" : "SELL");
+                    long sent = System.nanoTime();
+                    out.write(request);
+                    out.flush();
+                    int status = readResponse(in, null);
+                    if (status / 100 != 2) {
+                        errors.incrementAndGet();
+                    } else if (measuring) {
+                        latencies.record(System.nanoTime() - sent);
+                    }
+                }
+            } catch (IOException e) {
+                // Closed by the server, e.g. under overload: count it and reconnect
+                errors.incrementAndGet();
+                if (!counted) {
+                    connected.countDown();
+                    counted = true;
+                }
+            }
+        }
+    }
+
+    private byte[] request(String symbol, String side) {
+        String body = "{\"symbol\":\"" + symbol + "\",\"price\":100.00,\"quantity\":1,\"type\":\"" + side + "\"}";
+        return ("POST " + uri.getRawPath() + " HTTP/1.1\r\n"
+                + "Host: " + uri.getHost() + ":" + uri.getPort() + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "\r\n"
+                + body).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads one response, appending its body to {@code body}, or skipping it if that is null.
+     *
+     * @return the status code
+     */
+    static int readResponse(InputStream in, StringBuilder body) throws IOException {
+        return readResponse(in, body, null);
+    }
+
+    /**
+     * Reads one response like {@link #readResponse(InputStream, StringBuilder)}, also noting in
+     * {@code closing[0]}, unless it is null, whether the server closes the connection after it.
+     *
+     * @return the status code
+     */
+    static int readResponse(InputStream in, StringBuilder body, boolean[] closing) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        long contentLength = 0;
+        boolean chunked = false;
+        String header;
+        while (!(header = readLine(in)).isEmpty()) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = Long.parseLong(value);
+            } else if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked")) {
+                chunked = true;
+            } else if (name.equalsIgnoreCase("Connection") && closing != null) {
+                closing[0] = value.equalsIgnoreCase("close");
+            }
+        }
+        if (chunked) {
+            long chunk;
+            while ((chunk = Long.parseLong(readLine(in).trim(), 16)) > 0) {
+                readBody(in, chunk, body);
+                readLine(in);
+            }
+            readLine(in);
+        } else {
+            readBody(in, contentLength, body);
+        }
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void readBody(InputStream in, long bytes, StringBuilder body) throws IOException {
+        for (long left = bytes; left > 0; left--) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+            if (body != null) {
+                body.append((char) b);
+            }
+        }
+    }
+}
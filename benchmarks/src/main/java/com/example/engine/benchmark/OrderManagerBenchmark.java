@@ -0,0 +1,141 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.book.BookStorage;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.trade.TradeRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderManager#addOrder} plus {@link OrderManager#matchOrders} on one thread, the way a matching
+ * shard runs them, against books of different shapes. Every operation leaves the book the size it was,
+ * so each iteration measures the same shape. Each shape runs with heap and off-heap book storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderManagerBenchmark {
+
+    private static final String SYMBOL = "BENCH";
+    private static final long MID = 100_000;
+    private static final int QUANTITY = 10;
+
+    public enum Shape {
+        // 1000 levels a side, 5 orders each; a passive order in, the oldest resting order cancelled
+        DEEP(1000, 5),
+        // 5 levels a side, 2 orders each; same flow as DEEP
+        SHALLOW(5, 2),
+        // 10 levels a side, 10 orders each; every operation adds 1 to 3 orders and sweeps as many off the top
+        CROSSING(10, 10),
+        // 10 levels a side, 100 orders each; a passive order in, a random resting order cancelled
+        CANCEL_HEAVY(10, 100);
+
+        final int levels;
+        final int ordersPerLevel;
+
+        Shape(int levels, int ordersPerLevel) {
+            this.levels = levels;
+            this.ordersPerLevel = ordersPerLevel;
+        }
+    }
+
+    @Param
+    public Shape shape;
+
+    @Param
+    public BookStorage storage;
+
+    private OrderManager orderManager;
+    private int symbolId;
+    // Ids of resting orders, oldest first from position 'oldest'
+    private int[] resting;
+    private int oldest;
+    private long random = 0x9E3779B97F4A7C15L;
+    private boolean buySide;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymbolRegistry symbols = new SymbolRegistry(16, SYMBOL);
+        symbolId = symbols.idOf(SYMBOL);
+        orderManager = new OrderManager(new TradeRing(65536), symbols, storage, 4096);
+        resting = new int[shape.levels * shape.ordersPerLevel * 2];
+        int count = 0;
+        for (int order = 0; order < shape.ordersPerLevel; order++) {
+            for (int level = 0; level < shape.levels; level++) {
+                resting[count++] = add(Order.Type.BUY, bidPrice(level), QUANTITY);
+                resting[count++] = add(Order.Type.SELL, askPrice(level), QUANTITY);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addAndMatch() {
+        buySide = !buySide;
+        Order.Type side = buySide ? Order.Type.BUY : Order.Type.SELL;
+        int level = next(shape.levels);
+        long price = side == Order.Type.BUY ? bidPrice(level) : askPrice(level);
+        switch (shape) {
+            case DEEP, SHALLOW -> {
+                orderManager.cancelOrder(SYMBOL, resting[oldest]);
+                resting[oldest] = add(side, price, QUANTITY);
+                oldest = (oldest + 1) % resting.length;
+            }
+            case CANCEL_HEAVY -> {
+                int victim = next(resting.length);
+                orderManager.cancelOrder(SYMBOL, resting[victim]);
+                resting[victim] = add(side, price, QUANTITY);
+            }
+            case CROSSING -> {
+                // Refill the side about to be hit, then take as many whole orders off its top,
+                // priced past its deepest level so the aggressor never rests
+                int sweep = 1 + next(3);
+                Order.Type passive = buySide ? Order.Type.SELL : Order.Type.BUY;
+                for (int i = 0; i < sweep; i++) {
+                    add(passive, buySide ? askPrice(level) : bidPrice(level), QUANTITY);
+                }
+                add(side, buySide ? askPrice(shape.levels) : bidPrice(shape.levels), sweep * QUANTITY);
+            }
+        }
+    }
+
+    private int add(Order.Type side, long price, int quantity) {
+        Order order = new Order(SYMBOL, price, quantity, side);
+        order.setSymbolId(symbolId);
+        orderManager.addOrder(order);
+        orderManager.matchOrders(symbolId);
+        return order.getId();
+    }
+
+    private static long bidPrice(int level) {
+        return MID - 1 - level;
+    }
+
+    private static long askPrice(int level) {
+        return MID + 1 + level;
+    }
+
+    private int next(int bound) {
+        // xorshift: cheap next to what is measured
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) ((random >>> 1) % bound);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.dto.OrderPage;
+import com.example.engine.dto.OrderRequest;
+import com.example.engine.dto.OrderResponse;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderServiceImpl#getOrdersBySymbol} against a large resting book: the first page, an offset
+ * page from the middle of the book, and the same position reached by cursor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderQueryBenchmark {
+
+    private static final String SYMBOL = "BOOK";
+    private static final int LEVELS_PER_SIDE = 500;
+    private static final int PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"10000", "100000"})
+    public int bookSize;
+
+    private OrderServiceImpl orderService;
+    private Pageable firstPage;
+    private Pageable middlePage;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        OrderManager orderManager = Engines.orderManager();
+        orderService = Engines.orderService(orderManager, 1);
+        List<OrderRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < bookSize; i++) {
+            // Bids below 50.00 and asks from 50.01 up, so nothing crosses
+            boolean buy = i % 2 == 0;
+            int level = (i / 2) % LEVELS_PER_SIDE;
+            double price = buy ? 49.99 - level * 0.01 : 50.01 + level * 0.01;
+            batch.add(new OrderRequest(SYMBOL, Math.round(price * 100) / 100.0, 10, buy ? Order.Type.BUY : Order.Type.SELL));
+            if (batch.size() == BATCH_SIZE) {
+                orderService.addOrders(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            orderService.addOrders(batch);
+        }
+        while (orderManager.getSnapshot(SYMBOL).getOrderCount() < bookSize) {
+            Thread.sleep(10);
+        }
+        firstPage = PageRequest.of(0, PAGE_SIZE);
+        int middle = bookSize / PAGE_SIZE / 2;
+        middlePage = PageRequest.of(middle, PAGE_SIZE);
+        String cursor = "";
+        for (int page = 0; page < middle; page++) {
+            cursor = orderService.getOrdersBySymbol(SYMBOL, cursor, PAGE_SIZE).getNextCursor();
+        }
+        middleCursor = cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orderService.shutdownExecutor();
+    }
+
+    @Benchmark
+    public List<OrderResponse> firstPage() {
+        return orderService.getOrdersBySymbol(SYMBOL, firstPage);
+    }
+
+    @Benchmark
+    public List<OrderResponse> middlePageByOffset() {
+        return orderService.getOrdersBySymbol(SYMBOL, middlePage);
+    }
+
+    @Benchmark
+    public OrderPage middlePageByCursor() {
+        return orderService.getOrdersBySymbol(SYMBOL, middleCursor, PAGE_SIZE);
+    }
+}
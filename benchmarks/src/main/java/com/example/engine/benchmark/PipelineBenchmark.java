@@ -0,0 +1,142 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.dto.OrderRequest;
+import com.example.engine.journal.Durability;
+import com.example.engine.journal.MappedOrderJournal;
+import com.example.engine.journal.OrderJournal;
+import com.example.engine.model.Order;
+import com.example.engine.service.ExecutionListener;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The whole path of a REST order: {@link OrderServiceImpl#addOrder} (tick conversion, journal, shard
+ * hand-off) until the matching thread has filled it. Each operation enters a buy and a crossing sell
+ * for the calling thread's own symbol and waits for the sell's fill, so the score is the time from
+ * request to match, and throughput follows from it. Thread counts above the shard count share shards.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"1", "4"})
+    public int shards;
+
+    @Param({"off", "async"})
+    public String journal;
+
+    private final AtomicInteger clients = new AtomicInteger();
+    private OrderServiceImpl orderService;
+    private OrderManager orderManager;
+    private OrderJournal orderJournal;
+    private Path journalDir;
+    // Id of the last sell filled, per symbol id
+    private AtomicIntegerArray lastFilledSell;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        orderManager = Engines.orderManager();
+        if ("async".equals(journal)) {
+            journalDir = Files.createTempDirectory("engine-bench-journal");
+            orderJournal = new MappedOrderJournal(journalDir.toString(), DataSize.ofMegabytes(64),
+                    Durability.ASYNC, Duration.ofMillis(1));
+            orderService = Engines.orderService(orderManager, orderJournal, shards);
+        } else {
+            orderService = Engines.orderService(orderManager, shards);
+        }
+        lastFilledSell = new AtomicIntegerArray(orderManager.getSymbolRegistry().getCapacity());
+        orderManager.addExecutionListener(new ExecutionListener() {
+            @Override
+            public void onFill(Order order, long price, int quantity) {
+                if (order.getType() == Order.Type.SELL && order.getStatus() == Order.Status.FILLED) {
+                    lastFilledSell.set(order.getSymbolId(), order.getId());
+                }
+            }
+
+            @Override
+            public void onCancel(Order order) {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orderService.shutdownExecutor();
+        if (orderJournal instanceof MappedOrderJournal mapped) {
+            mapped.close();
+            FileSystemUtils.deleteRecursively(journalDir.toFile());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private OrderRequest buy;
+        private OrderRequest sell;
+        private int symbolId;
+
+        @Setup(Level.Trial)
+        public void setup(PipelineBenchmark benchmark) {
+            // Symbol ids are dealt out to shards in turn, so consecutive clients land on different shards
+            String symbol = "SYM" + benchmark.clients.getAndIncrement();
+            symbolId = benchmark.orderManager.getSymbolRegistry().register(symbol);
+            buy = new OrderRequest(symbol, 100.00, 10, Order.Type.BUY);
+            sell = new OrderRequest(symbol, 100.00, 10, Order.Type.SELL);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int addToMatched_1Thread(Client client) {
+        return roundTrip(client);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int addToMatched_2Threads(Client client) {
+        return roundTrip(client);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int addToMatched_4Threads(Client client) {
+        return roundTrip(client);
+    }
+
+    private int roundTrip(Client client) {
+        orderService.addOrder(client.buy);
+        int sellId = orderService.addOrder(client.sell).getId();
+        while (lastFilledSell.get(client.symbolId) != sellId) {
+            // Yield rather than spin: on small machines the shard needs this core
+            Thread.yield();
+        }
+        return sellId;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.engine.benchmark;
+
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.metrics.LatencyHistogram;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.recorder.OrderFlowReplay;
+import com.example.engine.service.OrderManager;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a recording made with {@code order.recorder.enabled=true}.
+ * <pre>
+ *   java -jar target/benchmarks.jar replay &lt;recording&gt; [runs]
+ *   java -jar target/benchmarks.jar replay-http &lt;recording&gt; [url] [connections] [tick-size]
+ * </pre>
+ * {@code replay} runs the commands against a fresh {@link OrderManager} on one thread, as fast as it
+ * goes, several times over. It reports throughput and per-command latency of each run and fails
+ * unless every run ends with the same trades and books.
+ * <p>
+ * {@code replay-http} sends the same commands to a running server through the REST API, so the
+ * numbers include HTTP, JSON and the shard hand-off. Commands of one symbol share a connection and
+ * go one at a time, keeping their recorded order; the server assigns new order ids, which cancels
+ * and amends are mapped to. Batch orders go one by one, and prices are sent in units of
+ * {@code tick-size} (0.01 by default). Results over HTTP are not checked for determinism: the
+ * server interleaves symbols as its shards run.
+ */
+final class ReplayHarness {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private ReplayHarness() {
+    }
+
+    static int run(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: replay <recording> [runs]");
+            return 2;
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        OrderFlowReplay replay = OrderFlowReplay.load(Path.of(args[0]));
+        System.out.printf("%d commands from %s%n", replay.getCommandCount(), args[0]);
+
+        OrderFlowReplay.Result first = null;
+        boolean deterministic = true;
+        for (int i = 1; i <= runs; i++) {
+            OrderFlowReplay.Result result = replay.run();
+            LatencyHistogram.Snapshot latency = result.latency();
+            System.out.printf("run %d: %.0f commands/s, %d trades; command us: p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    i, result.commandsPerSecond(), result.trades(), latency.percentile(50) / 1e3,
+                    latency.percentile(99) / 1e3, latency.percentile(99.9) / 1e3, latency.getMax() / 1e3);
+            if (first == null) {
+                first = result;
+                System.out.printf("trades %s%nbooks  %s%n", result.tradeDigest(), result.bookDigest());
+            } else if (!result.sameOutcome(first)) {
+                deterministic = false;
+                System.out.printf("run %d DIVERGED: trades %s, books %s%n", i, result.tradeDigest(), result.bookDigest());
+            }
+        }
+        System.out.println(deterministic ? "All runs produced identical trades and books" : "Runs diverged");
+        return deterministic ? 0 : 1;
+    }
+
+    static int runHttp(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: replay-http <recording> [url] [connections] [tick-size]");
+            return 2;
+        }
+        URI uri = URI.create(args.length > 1 ? args[1] : "http://localhost:8080/api/orders");
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        BigDecimal tickSize = new BigDecimal(args.length > 3 ? args[3] : "0.01");
+        List<List<JournalRecord>> streams = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            streams.add(new ArrayList<>());
+        }
+        OrderFlowRecorder.read(Path.of(args[0]), record ->
+                streams.get(Math.floorMod(record.getSymbol().hashCode(), connections)).add(record));
+
+        HttpReplay replay = new HttpReplay(uri, tickSize);
+        List<Thread> clients = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            List<JournalRecord> stream = streams.get(i);
+            Thread client = new Thread(() -> replay.send(stream), "replay-client-" + i);
+            clients.add(client);
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram.Snapshot snapshot = replay.latencies.snapshot();
+        System.out.printf("%d commands over %d connections in %.1f s (%.0f commands/s); %d refused, %d skipped, %d failed%n",
+                snapshot.getCount(), connections, elapsed / 1e9, snapshot.getCount() / (elapsed / 1e9),
+                replay.refused.get(), replay.skipped.get(), replay.failed.get());
+        System.out.printf("response ms: p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                snapshot.percentile(50) / 1e6, snapshot.percentile(99) / 1e6, snapshot.percentile(99.9) / 1e6,
+                snapshot.getMax() / 1e6);
+        return replay.failed.get() == 0 ? 0 : 1;
+    }
+
+    private static final class HttpReplay {
+        private final URI uri;
+        private final BigDecimal tickSize;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        // Recorded order id to the id the server gave the order this time
+        private final Map<Integer, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicLong refused = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        HttpReplay(URI uri, BigDecimal tickSize) {
+            this.uri = uri;
+            this.tickSize = tickSize;
+        }
+
+        void send(List<JournalRecord> stream) {
+            StringBuilder body = new StringBuilder(256);
+            boolean[] closing = new boolean[1];
+            int next = 0;
+            while (next < stream.size()) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()));
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    // The server closes keep-alive connections after so many requests and says so in
+                    // the last response, so the next request goes out on a new connection
+                    closing[0] = false;
+                    while (next < stream.size() && !closing[0]) {
+                        JournalRecord record = stream.get(next++);
+                        byte[] request = request(record);
+                        if (request == null) {
+                            skipped.incrementAndGet();
+                            continue;
+                        }
+                        body.setLength(0);
+                        long sent = System.nanoTime();
+                        out.write(request);
+                        out.flush();
+                        int status = HttpLoadTest.readResponse(in, body, closing);
+                        latencies.record(System.nanoTime() - sent);
+                        accepted(record, status, body);
+                    }
+                } catch (IOException e) {
+                    // The request may have reached the engine, and sending it again could submit an
+                    // order twice, so the rest of this client's stream is given up
+                    failed.incrementAndGet();
+                    System.err.println("Replay connection failed: " + e);
+                    return;
+                }
+            }
+        }
+
+        private void accepted(JournalRecord record, int status, CharSequence body) {
+            if (status / 100 != 2) {
+                // e.g. a cancel of an order that already filled this time round
+                refused.incrementAndGet();
+            } else if (record.getKind() == JournalRecord.Kind.NEW_ORDER
+                    || record.getKind() == JournalRecord.Kind.BATCH_ORDER) {
+                Matcher id = ID.matcher(body);
+                if (id.find()) {
+                    ids.put(record.getOrderId(), Integer.parseInt(id.group(1)));
+                }
+            }
+        }
+
+        /**
+         * The request for one command, or null for a cancel or amend of an order the server never accepted
+         * and for a dead-letter record, which the engine wrote and no client sent.
+         */
+        private byte[] request(JournalRecord record) {
+            return switch (record.getKind()) {
+                case NEW_ORDER, BATCH_ORDER -> {
+                    StringBuilder json = new StringBuilder(160)
+                            .append("{\"symbol\":\"").append(record.getSymbol())
+                            .append("\",\"price\":").append(decimal(record.getPrice()))
+                            .append(",\"quantity\":").append(record.getQuantity())
+                            .append(",\"type\":\"").append(record.getSide())
+                            .append("\",\"timeInForce\":\"").append(record.getTimeInForce())
+                            .append("\",\"market\":").append(record.isMarket());
+                    if (record.getStopPrice() != 0) {
+                        json.append(",\"stopPrice\":").append(decimal(record.getStopPrice()));
+                    }
+                    yield http("POST", uri.getRawPath(), json.append('}').toString());
+                }
+                case CANCEL -> {
+                    Integer id = ids.get(record.getOrderId());
+                    yield id == null ? null : http("DELETE", uri.getRawPath() + "/" + id, null);
+                }
+                case AMEND -> {
+                    Integer id = ids.get(record.getOrderId());
+                    if (id == null) {
+                        yield null;
+                    }
+                    StringBuilder json = new StringBuilder("{");
+                    if (record.getPrice() != OrderManager.KEEP_PRICE) {
+                        json.append("\"price\":").append(decimal(record.getPrice()));
+                    }
+                    if (record.getQuantity() != OrderManager.KEEP_QUANTITY) {
+                        json.append(json.length() > 1 ? "," : "").append("\"quantity\":").append(record.getQuantity());
+                    }
+                    yield http("PATCH", uri.getRawPath() + "/" + id, json.append('}').toString());
+                }
+                case DEAD_LETTER -> null;
+            };
+        }
+
+        private String decimal(long ticks) {
+            return tickSize.multiply(BigDecimal.valueOf(ticks)).toPlainString();
+        }
+
+        private byte[] http(String method, String path, String body) {
+            StringBuilder request = new StringBuilder(256)
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(uri.getHost()).append(':').append(uri.getPort()).append("\r\n");
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                request.append("Content-Type: application/json\r\n")
+                        .append("Content-Length: ").append(bytes.length).append("\r\n\r\n")
+                        .append(body);
+            } else {
+                request.append("\r\n");
+            }
+            return request.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.engine.archive;
+
+import com.example.engine.collection.IntIntHashMap;
+import com.example.engine.model.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Terminal (filled or cancelled) orders, kept in fixed-size primitive columns instead of live
+ * {@link Order} objects so heap use stays flat however many orders pass through.
+ * <p>
+ * Rows form a ring: once {@code order.archive.capacity} orders are archived the oldest row is
+ * overwritten, and rows older than {@code order.archive.retention} are dropped. An id index maps
+ * order ids to rows. Matching threads append under a short write lock; lookups use an optimistic
+ * read that only falls back to the read lock if an append raced with it.
+ */
+@Component
+public class OrderArchive {
+
+    private final int capacity;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final StampedLock lock = new StampedLock();
+
+    private final int[] ids;
+    private final int[] symbolIds;
+    private final long[] prices;
+    private final int[] quantities;
+    private final byte[] sides;
+    private final byte[] statuses;
+    private final long[] timestamps;
+    private final long[] archivedAt;
+    // Sized to the ring, so it never grows under a concurrent lookup
+    private final IntIntHashMap index;
+
+    private final List<String> symbols = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> symbolIndex = new HashMap<>();
+    private long head;
+    private int size;
+
+    @Autowired
+    public OrderArchive(
+            @Value("${order.archive.capacity:1048576}") int capacity,
+            @Value("${order.archive.retention:1h}") Duration retention
+    ) {
+        this(capacity, retention, Clock.systemUTC());
+    }
+
+    OrderArchive(int capacity, Duration retention, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Archive capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        ids = new int[capacity];
+        symbolIds = new int[capacity];
+        prices = new long[capacity];
+        quantities = new int[capacity];
+        sides = new byte[capacity];
+        statuses = new byte[capacity];
+        timestamps = new long[capacity];
+        archivedAt = new long[capacity];
+        index = new IntIntHashMap(capacity);
+    }
+
+    /**
+     * Archives a terminal order. Only the order's columns are kept, not the object itself.
+     */
+    public void add(Order order) {
+        long now = clock.millis();
+        long stamp = lock.writeLock();
+        try {
+            expire(now);
+            int row = (int) (head % capacity);
+            if (size == capacity) {
+                // Full: the row being reused holds the oldest order
+                index.remove(ids[row]);
+                size--;
+            }
+            ids[row] = order.getId();
+            symbolIds[row] = symbolId(order.getSymbol());
+            prices[row] = order.getPrice();
+            quantities[row] = order.getQuantity();
+            sides[row] = (byte) order.getType().ordinal();
+            statuses[row] = (byte) order.getStatus().ordinal();
+            timestamps[row] = order.getTimestamp();
+            archivedAt[row] = now;
+            index.put(order.getId(), row);
+            head++;
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Rebuilds an archived order as a detached copy, if it is still within retention.
+     */
+    public Optional<Order> find(int id) {
+        long stamp = lock.tryOptimisticRead();
+        Order order = read(id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                order = read(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(order);
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private Order read(int id) {
+        // May run against a concurrent append: every read is
+        // bounds-safe and the result is discarded unless validated
+        int row = index.get(id);
+        if (row < 0 || row >= capacity || ids[row] != id
+                || archivedAt[row] < clock.millis() - retentionMillis) {
+            return null;
+        }
+        int symbolId = symbolIds[row];
+        if (symbolId < 0 || symbolId >= symbols.size()) {
+            return null;
+        }
+        Order order = new Order(id, symbols.get(symbolId), prices[row], quantities[row],
+                Order.Type.values()[sides[row]], timestamps[row]);
+        order.setStatus(Order.Status.values()[statuses[row]]);
+        return order;
+    }
+
+    private void expire(long now) {
+        long cutoff = now - retentionMillis;
+        while (size > 0) {
+            int oldest = (int) ((head - size) % capacity);
+            if (archivedAt[oldest] >= cutoff) {
+                return;
+            }
+            index.remove(ids[oldest]);
+            size--;
+        }
+    }
+
+    private int symbolId(String symbol) {
+        // Plain lookup first: the capturing lambda below would allocate on every append
+        Integer known = symbolIndex.get(symbol);
+        if (known != null) {
+            return known;
+        }
+        return symbolIndex.computeIfAbsent(symbol, s -> {
+            symbols.add(s);
+            return symbols.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+
+/**
+ * Position just after an order in the book's listing order (bids best first, then asks best first).
+ * It names the order by price, timestamp and id rather than by offset, so paging through later
+ * snapshots neither repeats nor skips orders that stayed in the book.
+ */
+public record BookCursor(Order.Type side, long price, long timestamp, int orderId) {
+
+    public String encode() {
+        return side.name() + ':' + price + ':' + timestamp + ':' + orderId;
+    }
+
+    public static BookCursor parse(String value) {
+        String[] parts = value.split(":");
+        try {
+            if (parts.length != 4) {
+                throw new IllegalArgumentException();
+            }
+            return new BookCursor(Order.Type.valueOf(parts[0]), Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + value);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.engine.book;
+
+import com.example.engine.collection.LongIntHashMap;
+import com.example.engine.model.Order;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One side (bids or asks) of a symbol's book: price levels sorted best first,
+ * each holding a FIFO queue of orders.
+ * <p>
+ * The best and worst levels are cached and levels are linked best to worst, so peeking and stepping
+ * past an emptied best level are O(1). A primitive map from price to level finds a level, and
+ * closing one only unlinks it, so both are O(1) at any depth. Opening a level inside the book walks
+ * from the best level to its neighbours, which costs the new level's depth; a new best or worst
+ * level is linked in O(1). Orders live in an {@link OrderStore}, shared with the other side of the book, and are queued
+ * and addressed by int handle. Closed levels are kept for reuse, so once a side has grown to its
+ * working size adding, filling and removing orders allocates nothing.
+ * Not thread-safe: a side is owned by whichever thread matches its symbol.
+ */
+public final class BookSide implements Iterable<Order> {
+
+    private static final int INITIAL_LEVELS = 16;
+
+    private final Order.Type side;
+    private final OrderStore orders;
+    // A trigger index of untriggered stops, keyed by stop
+    // price with the next stop to fire as the best level
+    private final boolean stops;
+    // Id of the open level at each price
+    private final LongIntHashMap levelIndex = new LongIntHashMap(INITIAL_LEVELS);
+    private int levelCount;
+    private PriceLevel best;
+    private PriceLevel worst;
+    private int size;
+    // Every level ever opened, by id; closed ones are linked through next for reuse
+    private PriceLevel[] levelsById = new PriceLevel[INITIAL_LEVELS];
+    private int levelIds;
+    private PriceLevel freeLevels;
+
+    public BookSide(Order.Type side) {
+        this(side, new HeapOrderStore(16), false);
+    }
+
+    BookSide(Order.Type side, OrderStore orders) {
+        this(side, orders, false);
+    }
+
+    private BookSide(Order.Type side, OrderStore orders, boolean stops) {
+        this.side = side;
+        this.orders = orders;
+        this.stops = stops;
+    }
+
+    /**
+     * A trigger index for the side's stop orders: levels are keyed by stop price and ordered by when
+     * they fire, lowest first for buy stops and highest first for sell stops.
+     */
+    public static BookSide triggers(Order.Type side) {
+        return triggers(side, new HeapOrderStore(16));
+    }
+
+    static BookSide triggers(Order.Type side, OrderStore orders) {
+        return new BookSide(side, orders, true);
+    }
+
+    public Order.Type getSide() {
+        return side;
+    }
+
+    public OrderStore orders() {
+        return orders;
+    }
+
+    /**
+     * @return the order's handle in {@link #orders()}
+     */
+    public int add(Order order) {
+        long price = stops ? order.getStopPrice() : order.getPrice();
+        int id = levelIndex.get(price);
+        PriceLevel level = id == LongIntHashMap.MISSING ? openLevel(price) : levelsById[id];
+        int handle = orders.allocate(order);
+        level.append(orders, handle);
+        size++;
+        return handle;
+    }
+
+    /**
+     * Reduces a resting order by a filled quantity, unlinking it once nothing is left. An unlinked
+     * order keeps its handle until the book releases it.
+     *
+     * @return true if the order was unlinked from the book
+     */
+    public boolean fill(int handle, int quantity) {
+        int remaining = orders.quantity(handle) - quantity;
+        PriceLevel level = levelOf(handle);
+        level.totalQuantity -= quantity;
+        level.snapshot = null;
+        if (remaining == 0) {
+            orders.update(handle, 0, Order.Status.FILLED);
+            unlink(handle);
+            return true;
+        }
+        orders.update(handle, remaining, Order.Status.PARTIALLY_FILLED);
+        return false;
+    }
+
+    /**
+     * Lowers the open quantity of a resting order in place, so it keeps its time priority.
+     */
+    public void reduce(int handle, int quantity) {
+        int open = orders.quantity(handle);
+        if (quantity <= 0 || quantity > open) {
+            throw new IllegalArgumentException("Reduced quantity must be between 1 and " + open);
+        }
+        PriceLevel level = levelOf(handle);
+        level.totalQuantity -= open - quantity;
+        level.snapshot = null;
+        orders.update(handle, quantity, orders.status(handle));
+    }
+
+    /**
+     * Takes an order out of its level. Its handle stays allocated until {@link #release} frees it.
+     */
+    public void unlink(int handle) {
+        PriceLevel level = levelOf(handle);
+        level.unlink(orders, handle);
+        size--;
+        if (level.isEmpty()) {
+            closeLevel(level);
+        }
+    }
+
+    /**
+     * Frees an unlinked order's handle, which must not be used afterwards.
+     */
+    public void release(int handle) {
+        orders.free(handle);
+    }
+
+    /**
+     * Whether the levels an incoming order of the opposite side may trade with hold its whole
+     * quantity. Only level totals are summed, so no resting order is visited.
+     */
+    public boolean canFill(Order incoming) {
+        long needed = incoming.getQuantity();
+        for (PriceLevel level = best; level != null && incoming.acceptsPrice(level.price); level = level.next) {
+            needed -= level.totalQuantity;
+            if (needed <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public PriceLevel bestLevel() {
+        return best;
+    }
+
+    public Order peek() {
+        return best == null ? null : orders.order(best.head);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int levelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Snapshots of every level, best first, reusing the
+     * snapshot of each level unchanged since it was taken.
+     */
+    LevelSnapshot[] snapshotLevels() {
+        LevelSnapshot[] snapshots = new LevelSnapshot[levelCount];
+        int i = 0;
+        for (PriceLevel level = best; level != null; level = level.next) {
+            snapshots[i++] = level.snapshot(orders);
+        }
+        return snapshots;
+    }
+
+    public Stream<Order> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterates resting orders in price-time priority. Off-heap orders come back as copies.
+     */
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<>() {
+            private PriceLevel level = best;
+            private int handle = best == null ? OrderStore.NIL : best.head;
+
+            @Override
+            public boolean hasNext() {
+                return handle != OrderStore.NIL;
+            }
+
+            @Override
+            public Order next() {
+                if (handle == OrderStore.NIL) {
+                    throw new NoSuchElementException();
+                }
+                Order order = orders.order(handle);
+                handle = orders.next(handle);
+                if (handle == OrderStore.NIL) {
+                    level = level.next;
+                    handle = level == null ? OrderStore.NIL : level.head;
+                }
+                return order;
+            }
+        };
+    }
+
+    /**
+     * Buy levels are best at the highest price and sell levels at the lowest, so negating sell
+     * prices makes "higher key is better" hold on both sides. Trigger indexes run the other way.
+     */
+    private long key(long price) {
+        return (side == Order.Type.BUY) != stops ? price : -price;
+    }
+
+    private PriceLevel levelOf(int handle) {
+        return levelsById[orders.level(handle)];
+    }
+
+    private PriceLevel openLevel(long price) {
+        PriceLevel level = freeLevels;
+        if (level == null) {
+            if (levelIds == levelsById.length) {
+                levelsById = Arrays.copyOf(levelsById, levelIds * 2);
+            }
+            level = new PriceLevel(levelIds, price);
+            levelsById[levelIds++] = level;
+        } else {
+            freeLevels = level.next;
+            level.price = price;
+            level.snapshot = null;
+        }
+        levelIndex.put(price, level.id);
+        levelCount++;
+        // The neighbour with better priority precedes the new level in the linked walk
+        long key = key(price);
+        PriceLevel prev;
+        PriceLevel next;
+        if (worst == null || key < key(worst.price)) {
+            prev = worst;
+            next = null;
+        } else {
+            prev = null;
+            next = best;
+            while (key < key(next.price)) {
+                prev = next;
+                next = next.next;
+            }
+        }
+        level.prev = prev;
+        level.next = next;
+        if (prev != null) {
+            prev.next = level;
+        } else {
+            best = level;
+        }
+        if (next != null) {
+            next.prev = level;
+        } else {
+            worst = level;
+        }
+        return level;
+    }
+
+    private void closeLevel(PriceLevel level) {
+        if (level.prev != null) {
+            level.prev.next = level.next;
+        } else {
+            best = level.next;
+        }
+        if (level.next != null) {
+            level.next.prev = level.prev;
+        } else {
+            worst = level.prev;
+        }
+        levelIndex.remove(level.price);
+        levelCount--;
+        level.prev = null;
+        level.next = freeLevels;
+        freeLevels = level;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+
+/**
+ * Immutable view of one symbol's book as of a publish, shared by any number of readers.
+ * Levels are ordered best first on each side; the listing order used for paging is all bids,
+ * then all asks.
+ */
+public final class BookSnapshot {
+
+    private static final LevelSnapshot[] NO_LEVELS = new LevelSnapshot[0];
+    private static final Order.Type[] SIDES = {Order.Type.BUY, Order.Type.SELL};
+
+    private final String symbol;
+    private final long version;
+    private final LevelSnapshot[][] sides;
+    private final int orderCount;
+
+    BookSnapshot(String symbol, long version, LevelSnapshot[] bids, LevelSnapshot[] asks) {
+        this.symbol = symbol;
+        this.version = version;
+        this.sides = new LevelSnapshot[][]{bids, asks};
+        int count = 0;
+        for (LevelSnapshot[] levels : sides) {
+            for (LevelSnapshot level : levels) {
+                count += level.size();
+            }
+        }
+        this.orderCount = count;
+    }
+
+    public static BookSnapshot empty(String symbol) {
+        return new BookSnapshot(symbol, 0, NO_LEVELS, NO_LEVELS);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Increases every time the owning book publishes a changed snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public LevelSnapshot[] levels(Order.Type side) {
+        return sides[side.ordinal()].clone();
+    }
+
+    public int levelCount(Order.Type side) {
+        return sides[side.ordinal()].length;
+    }
+
+    /**
+     * The {@code i}-th best level on a side, so reading the top N levels is O(N).
+     */
+    public LevelSnapshot level(Order.Type side, int i) {
+        return sides[side.ordinal()][i];
+    }
+
+    /**
+     * Visits up to {@code limit} orders following {@code after} (from the start if null).
+     *
+     * @return the cursor to continue from, or null if this page reached the end of the book
+     */
+    public BookCursor page(BookCursor after, int limit, Visitor visitor) {
+        if (after == null) {
+            return walk(0, 0, 0, limit, visitor);
+        }
+        int side = after.side().ordinal();
+        LevelSnapshot[] levels = sides[side];
+        int level = firstLevelNotBetter(levels, after.side(), after.price());
+        int index = level < levels.length && levels[level].getPrice() == after.price()
+                ? levels[level].indexAfter(after.timestamp(), after.orderId())
+                : 0;
+        return walk(side, level, index, limit, visitor);
+    }
+
+    /**
+     * Visits up to {@code limit} orders after skipping
+     * {@code offset}, stepping over whole levels by their size.
+     *
+     * @return the cursor to continue from, or null if this page reached the end of the book
+     */
+    public BookCursor page(long offset, int limit, Visitor visitor) {
+        long remaining = offset;
+        for (int side = 0; side < sides.length; side++) {
+            LevelSnapshot[] levels = sides[side];
+            for (int level = 0; level < levels.length; level++) {
+                if (remaining < levels[level].size()) {
+                    return walk(side, level, (int) remaining, limit, visitor);
+                }
+                remaining -= levels[level].size();
+            }
+        }
+        return null;
+    }
+
+    private BookCursor walk(int side, int level, int index, int limit, Visitor visitor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        int visited = 0;
+        LevelSnapshot last = null;
+        int lastSide = 0;
+        int lastIndex = 0;
+        for (; side < sides.length; side++, level = 0, index = 0) {
+            LevelSnapshot[] levels = sides[side];
+            for (; level < levels.length; level++, index = 0) {
+                LevelSnapshot snapshot = levels[level];
+                for (; index < snapshot.size(); index++) {
+                    if (visited == limit) {
+                        // More orders follow, so hand back a cursor at the last one visited
+                        return new BookCursor(SIDES[lastSide], last.getPrice(), last.timestamp(lastIndex), last.id(lastIndex));
+                    }
+                    visitor.visit(SIDES[side], snapshot, index);
+                    visited++;
+                    last = snapshot;
+                    lastSide = side;
+                    lastIndex = index;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int firstLevelNotBetter(LevelSnapshot[] levels, Order.Type side, long price) {
+        int low = 0;
+        int high = levels.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long levelPrice = levels[mid].getPrice();
+            boolean better = side == Order.Type.BUY ? levelPrice > price : levelPrice < price;
+            if (better) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(Order.Type side, LevelSnapshot level, int index);
+    }
+}
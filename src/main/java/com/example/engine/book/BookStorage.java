@@ -0,0 +1,14 @@
+package com.example.engine.book;
+
+/**
+ * Where books keep their resting orders.
+ */
+public enum BookStorage {
+    /** As order objects on the heap; see {@link HeapOrderStore}. */
+    HEAP,
+    /**
+     * In fixed-width slots of direct memory, out of the
+     * collector's sight; see {@link OffHeapOrderStore}.
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,150 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the booked {@link Order} objects themselves, with the queue links in parallel primitive
+ * arrays. Freed handles are linked through next, so once the store has grown to its peak size
+ * booking and removing orders allocates nothing.
+ */
+public final class HeapOrderStore extends OrderStore {
+
+    private Order[] orders;
+    private int[] prev;
+    private int[] next;
+    private int[] levels;
+    private int used;
+    private int free = NIL;
+    private int size;
+
+    public HeapOrderStore(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity);
+        orders = new Order[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        levels = new int[capacity];
+    }
+
+    @Override
+    public boolean retainsOrders() {
+        return true;
+    }
+
+    @Override
+    public Order order(int handle) {
+        return orders[handle];
+    }
+
+    @Override
+    public Order view(int handle) {
+        return orders[handle];
+    }
+
+    @Override
+    public int id(int handle) {
+        return orders[handle].getId();
+    }
+
+    @Override
+    public long price(int handle) {
+        return orders[handle].getPrice();
+    }
+
+    @Override
+    public int quantity(int handle) {
+        return orders[handle].getQuantity();
+    }
+
+    @Override
+    public long timestamp(int handle) {
+        return orders[handle].getTimestamp();
+    }
+
+    @Override
+    public Order.Type type(int handle) {
+        return orders[handle].getType();
+    }
+
+    @Override
+    public Order.Status status(int handle) {
+        return orders[handle].getStatus();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    int allocate(Order order) {
+        int handle = free;
+        if (handle != NIL) {
+            free = next[handle];
+        } else {
+            if (used == orders.length) {
+                grow();
+            }
+            handle = used++;
+        }
+        orders[handle] = order;
+        prev[handle] = NIL;
+        next[handle] = NIL;
+        size++;
+        return handle;
+    }
+
+    @Override
+    void free(int handle) {
+        orders[handle] = null;
+        next[handle] = free;
+        free = handle;
+        size--;
+    }
+
+    @Override
+    void update(int handle, int quantity, Order.Status status) {
+        Order order = orders[handle];
+        order.setQuantity(quantity);
+        order.setStatus(status);
+    }
+
+    @Override
+    int prev(int handle) {
+        return prev[handle];
+    }
+
+    @Override
+    void setPrev(int handle, int prev) {
+        this.prev[handle] = prev;
+    }
+
+    @Override
+    int next(int handle) {
+        return next[handle];
+    }
+
+    @Override
+    void setNext(int handle, int next) {
+        this.next[handle] = next;
+    }
+
+    @Override
+    int level(int handle) {
+        return levels[handle];
+    }
+
+    @Override
+    void setLevel(int handle, int level) {
+        levels[handle] = level;
+    }
+
+    private void grow() {
+        int capacity = orders.length * 2;
+        orders = Arrays.copyOf(orders, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+    }
+}
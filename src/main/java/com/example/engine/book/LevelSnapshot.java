@@ -0,0 +1,81 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+
+/**
+ * Immutable copy of one price level's orders, in time priority. A level keeps its snapshot until
+ * it next changes, so publishing a book only copies the levels touched since the last publish.
+ */
+public final class LevelSnapshot {
+
+    private final long price;
+    private final long totalQuantity;
+    private final int[] ids;
+    private final int[] quantities;
+    private final long[] timestamps;
+    private final byte[] statuses;
+
+    LevelSnapshot(PriceLevel level, OrderStore orders) {
+        this.price = level.price;
+        this.totalQuantity = level.totalQuantity;
+        int count = level.orderCount;
+        ids = new int[count];
+        quantities = new int[count];
+        timestamps = new long[count];
+        statuses = new byte[count];
+        int i = 0;
+        for (int handle = level.head; handle != OrderStore.NIL; handle = orders.next(handle), i++) {
+            ids[i] = orders.id(handle);
+            quantities[i] = orders.quantity(handle);
+            timestamps[i] = orders.timestamp(handle);
+            statuses[i] = (byte) orders.status(handle).ordinal();
+        }
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public int quantity(int i) {
+        return quantities[i];
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public Order.Status status(int i) {
+        return Order.Status.values()[statuses[i]];
+    }
+
+    /**
+     * Index of the first order queued after an order with this timestamp and id, which need not
+     * still be in the level.
+     */
+    int indexAfter(long timestamp, int id) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Long.compare(timestamps[mid], timestamp);
+            if (cmp < 0 || (cmp == 0 && ids[mid] <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
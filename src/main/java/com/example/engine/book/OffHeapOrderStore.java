@@ -0,0 +1,304 @@
+package com.example.engine.book;
+
+import com.example.engine.concurrent.ConcurrentIntLongMap;
+import com.example.engine.model.Order;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Keeps resting orders in fixed-width slots of direct memory, allocated in chunks, instead of as
+ * objects. Queue links and free-list links are slot handles held in the slots themselves, so a
+ * book of millions of orders adds nothing for the collector to trace or promote: the heap only
+ * holds the chunk table and the book's primitive index arrays.
+ * <p>
+ * Only GTC limit orders rest in a book, so a slot holds just the fields that vary: id, price,
+ * open quantity, timestamp, side and status. Symbol and symbol id are the store's own.
+ * <p>
+ * The owning thread is the only writer. Each slot starts with a sequence number that is odd while
+ * the order fields are written, so {@link #read} can copy a slot from any thread and retry if it
+ * raced a write; fences order the plain buffer accesses, as in {@code StampedLock.validate}. The
+ * store also records every order it holds in a shared directory from order id to
+ * {@code symbolId << 32 | handle}, so other threads can find resting orders by id. Chunks are kept
+ * for reuse once allocated; the direct memory is only returned when the store is collected.
+ */
+public final class OffHeapOrderStore extends OrderStore {
+
+    static final int SLOT_BYTES = 48;
+    private static final int SEQUENCE = 0;
+    private static final int PRICE = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int ID = 24;
+    private static final int QUANTITY = 28;
+    private static final int PREV = 32;
+    private static final int NEXT = 36;
+    private static final int LEVEL = 40;
+    private static final int TYPE = 44;
+    private static final int STATUS = 45;
+
+    private static final Order.Type[] TYPES = Order.Type.values();
+    private static final Order.Status[] STATUSES = Order.Status.values();
+
+    private final String symbol;
+    private final int symbolId;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final ConcurrentIntLongMap directory;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    // The owner's chunk table as other threads see it; replaced, never mutated, when a chunk is added
+    private volatile ByteBuffer[] published = chunks;
+    private final Order view = new Order();
+    private int used;
+    private int free = NIL;
+    private int size;
+
+    /**
+     * @param chunkSlots slots per chunk of direct memory, rounded up to a power of two
+     * @param directory  shared by the stores of every symbol
+     */
+    public OffHeapOrderStore(String symbol, int symbolId, int chunkSlots, ConcurrentIntLongMap directory) {
+        this.symbol = symbol;
+        this.symbolId = symbolId;
+        int slots = Integer.highestOneBit(Math.max(2, chunkSlots) * 2 - 1);
+        this.chunkShift = Integer.numberOfTrailingZeros(slots);
+        this.chunkMask = slots - 1;
+        this.directory = directory;
+    }
+
+    /**
+     * Directory entry for an order held in {@code handle} of the store of {@code symbolId}.
+     */
+    public static long location(int symbolId, int handle) {
+        return (long) symbolId << 32 | (handle & 0xFFFFFFFFL);
+    }
+
+    public static int symbolIdOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    public static int handleOf(long location) {
+        return (int) location;
+    }
+
+    @Override
+    public boolean retainsOrders() {
+        return false;
+    }
+
+    @Override
+    public Order order(int handle) {
+        return copy(chunk(handle), offset(handle), new Order());
+    }
+
+    @Override
+    public Order view(int handle) {
+        return copy(chunk(handle), offset(handle), view);
+    }
+
+    /**
+     * A consistent copy of the order in this slot, safe to call from any thread.
+     *
+     * @return the copy, or null if the slot no longer holds order {@code id}
+     */
+    public Order read(int handle, int id) {
+        ByteBuffer[] chunks = published;
+        int chunk = handle >>> chunkShift;
+        if (handle < 0 || chunk >= chunks.length) {
+            return null;
+        }
+        ByteBuffer slots = chunks[chunk];
+        int base = offset(handle);
+        while (true) {
+            long sequence = slots.getLong(base + SEQUENCE);
+            VarHandle.acquireFence();
+            if ((sequence & 1) == 0) {
+                int slotId = slots.getInt(base + ID);
+                long price = slots.getLong(base + PRICE);
+                int quantity = slots.getInt(base + QUANTITY);
+                long timestamp = slots.getLong(base + TIMESTAMP);
+                byte type = slots.get(base + TYPE);
+                byte status = slots.get(base + STATUS);
+                VarHandle.loadLoadFence();
+                if (slots.getLong(base + SEQUENCE) == sequence) {
+                    if (slotId != id) {
+                        return null;
+                    }
+                    Order order = new Order(id, symbol, price, quantity, TYPES[type], timestamp);
+                    order.setSymbolId(symbolId);
+                    order.setStatus(STATUSES[status]);
+                    return order;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public int id(int handle) {
+        return chunk(handle).getInt(offset(handle) + ID);
+    }
+
+    @Override
+    public long price(int handle) {
+        return chunk(handle).getLong(offset(handle) + PRICE);
+    }
+
+    @Override
+    public int quantity(int handle) {
+        return chunk(handle).getInt(offset(handle) + QUANTITY);
+    }
+
+    @Override
+    public long timestamp(int handle) {
+        return chunk(handle).getLong(offset(handle) + TIMESTAMP);
+    }
+
+    @Override
+    public Order.Type type(int handle) {
+        return TYPES[chunk(handle).get(offset(handle) + TYPE)];
+    }
+
+    @Override
+    public Order.Status status(int handle) {
+        return STATUSES[chunk(handle).get(offset(handle) + STATUS)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Direct memory reserved so far, in bytes.
+     */
+    public long reservedBytes() {
+        return (long) published.length * (chunkMask + 1) * SLOT_BYTES;
+    }
+
+    @Override
+    int allocate(Order order) {
+        int handle = free;
+        if (handle != NIL) {
+            free = next(handle);
+        } else {
+            if (used == chunks.length << chunkShift) {
+                addChunk();
+            }
+            handle = used++;
+        }
+        ByteBuffer slots = chunk(handle);
+        int base = offset(handle);
+        beginWrite(slots, base);
+        slots.putInt(base + ID, order.getId());
+        slots.putLong(base + PRICE, order.getPrice());
+        slots.putInt(base + QUANTITY, order.getQuantity());
+        slots.putLong(base + TIMESTAMP, order.getTimestamp());
+        slots.put(base + TYPE, (byte) order.getType().ordinal());
+        slots.put(base + STATUS, (byte) order.getStatus().ordinal());
+        endWrite(slots, base);
+        slots.putInt(base + PREV, NIL);
+        slots.putInt(base + NEXT, NIL);
+        size++;
+        directory.put(order.getId(), location(symbolId, handle));
+        return handle;
+    }
+
+    @Override
+    void free(int handle) {
+        ByteBuffer slots = chunk(handle);
+        int base = offset(handle);
+        // Drop the directory entry first, so a reader that
+        // finds the slot cleared finds no entry either
+        directory.remove(slots.getInt(base + ID), location(symbolId, handle));
+        beginWrite(slots, base);
+        slots.putInt(base + ID, 0);
+        endWrite(slots, base);
+        slots.putInt(base + NEXT, free);
+        free = handle;
+        size--;
+    }
+
+    @Override
+    void update(int handle, int quantity, Order.Status status) {
+        ByteBuffer slots = chunk(handle);
+        int base = offset(handle);
+        beginWrite(slots, base);
+        slots.putInt(base + QUANTITY, quantity);
+        slots.put(base + STATUS, (byte) status.ordinal());
+        endWrite(slots, base);
+    }
+
+    @Override
+    int prev(int handle) {
+        return chunk(handle).getInt(offset(handle) + PREV);
+    }
+
+    @Override
+    void setPrev(int handle, int prev) {
+        chunk(handle).putInt(offset(handle) + PREV, prev);
+    }
+
+    @Override
+    int next(int handle) {
+        return chunk(handle).getInt(offset(handle) + NEXT);
+    }
+
+    @Override
+    void setNext(int handle, int next) {
+        chunk(handle).putInt(offset(handle) + NEXT, next);
+    }
+
+    @Override
+    int level(int handle) {
+        return chunk(handle).getInt(offset(handle) + LEVEL);
+    }
+
+    @Override
+    void setLevel(int handle, int level) {
+        chunk(handle).putInt(offset(handle) + LEVEL, level);
+    }
+
+    private Order copy(ByteBuffer slots, int base, Order order) {
+        order.setId(slots.getInt(base + ID));
+        order.setSymbol(symbol);
+        order.setSymbolId(symbolId);
+        order.setPrice(slots.getLong(base + PRICE));
+        order.setQuantity(slots.getInt(base + QUANTITY));
+        order.setTimestamp(slots.getLong(base + TIMESTAMP));
+        order.setType(TYPES[slots.get(base + TYPE)]);
+        order.setStatus(STATUSES[slots.get(base + STATUS)]);
+        return order;
+    }
+
+    private ByteBuffer chunk(int handle) {
+        return chunks[handle >>> chunkShift];
+    }
+
+    private int offset(int handle) {
+        return (handle & chunkMask) * SLOT_BYTES;
+    }
+
+    private void addChunk() {
+        int bytes = (chunkMask + 1) * SLOT_BYTES;
+        // Aligned so sequence numbers are never torn
+        ByteBuffer chunk = ByteBuffer.allocateDirect(bytes + Long.BYTES - 1)
+                .alignedSlice(Long.BYTES)
+                .order(ByteOrder.nativeOrder());
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = chunk;
+        chunks = grown;
+        published = grown;
+    }
+
+    private static void beginWrite(ByteBuffer slots, int base) {
+        slots.putLong(base + SEQUENCE, slots.getLong(base + SEQUENCE) + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    private static void endWrite(ByteBuffer slots, int base) {
+        VarHandle.releaseFence();
+        slots.putLong(base + SEQUENCE, slots.getLong(base + SEQUENCE) + 1);
+    }
+}
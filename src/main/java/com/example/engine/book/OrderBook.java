@@ -0,0 +1,246 @@
+package com.example.engine.book;
+
+import com.example.engine.collection.IntIntHashMap;
+import com.example.engine.model.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Both sides of one symbol's book plus an index from order id to its handle in the book's
+ * {@link OrderStore}, so cancels and amends find an order in O(1) instead of scanning levels.
+ * Untriggered stop orders wait in a separate trigger index per side, sorted by stop price, and are
+ * not part of published snapshots; they are always kept on the heap, whatever store the resting
+ * orders use. Not thread-safe: a book is owned by whichever thread matches its symbol. Other
+ * threads read the immutable {@link BookSnapshot} the owner last published.
+ */
+public final class OrderBook {
+
+    public static final long NO_TRADE = Long.MIN_VALUE;
+
+    private final String symbol;
+    private final OrderStore orders;
+    private final BookSide buys;
+    private final BookSide sells;
+    private final IntIntHashMap index = new IntIntHashMap(64);
+    private final OrderStore stopOrders = new HeapOrderStore(16);
+    private final BookSide buyStops = BookSide.triggers(Order.Type.BUY, stopOrders);
+    private final BookSide sellStops = BookSide.triggers(Order.Type.SELL, stopOrders);
+    private final IntIntHashMap stopIndex = new IntIntHashMap(16);
+    private final List<Order> triggered = new ArrayList<>();
+    private long lastTradePrice = NO_TRADE;
+    private volatile BookSnapshot published;
+    private boolean dirty;
+
+    public OrderBook(String symbol) {
+        this(symbol, new HeapOrderStore(64));
+    }
+
+    public OrderBook(String symbol, OrderStore orders) {
+        this.symbol = symbol;
+        this.orders = orders;
+        this.buys = new BookSide(Order.Type.BUY, orders);
+        this.sells = new BookSide(Order.Type.SELL, orders);
+        this.published = BookSnapshot.empty(symbol);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public BookSide getBuys() {
+        return buys;
+    }
+
+    public BookSide getSells() {
+        return sells;
+    }
+
+    public BookSide side(Order.Type type) {
+        return type == Order.Type.BUY ? buys : sells;
+    }
+
+    /**
+     * The resting orders of both sides, by handle.
+     */
+    public OrderStore orders() {
+        return orders;
+    }
+
+    /**
+     * Books an order. A store that does not retain orders copies it, so the caller may reuse it.
+     *
+     * @return the order's handle in {@link #orders()}
+     */
+    public int add(Order order) {
+        int handle = side(order.getType()).add(order);
+        index.put(order.getId(), handle);
+        dirty = true;
+        return handle;
+    }
+
+    /**
+     * Fills a resting order, dropping it from its level and the index once nothing is left. The
+     * handle of a filled order stays readable until {@link #release} frees it.
+     *
+     * @return true if the order left the book
+     */
+    public boolean fill(int handle, int quantity) {
+        dirty = true;
+        if (side(orders.type(handle)).fill(handle, quantity)) {
+            index.remove(orders.id(handle));
+            return true;
+        }
+        return false;
+    }
+
+    public long getLastTradePrice() {
+        return lastTradePrice;
+    }
+
+    public void setLastTradePrice(long lastTradePrice) {
+        this.lastTradePrice = lastTradePrice;
+    }
+
+    public BookSide stops(Order.Type type) {
+        return type == Order.Type.BUY ? buyStops : sellStops;
+    }
+
+    /**
+     * Whether the last trade price has reached the stop's trigger: at or above it for a buy stop,
+     * at or below it for a sell stop.
+     */
+    public boolean isTriggered(Order stop) {
+        if (lastTradePrice == NO_TRADE) {
+            return false;
+        }
+        return stop.getType() == Order.Type.BUY ? lastTradePrice >= stop.getStopPrice() : lastTradePrice <= stop.getStopPrice();
+    }
+
+    public void addStop(Order order) {
+        stopIndex.put(order.getId(), stops(order.getType()).add(order));
+    }
+
+    /**
+     * Takes an untriggered stop out of its trigger index.
+     *
+     * @return the removed order, or null if no such stop is waiting
+     */
+    public Order removeStop(int orderId) {
+        int handle = stopIndex.remove(orderId);
+        if (handle == IntIntHashMap.MISSING) {
+            return null;
+        }
+        Order order = stopOrders.order(handle);
+        BookSide stops = stops(order.getType());
+        stops.unlink(handle);
+        stops.release(handle);
+        return order;
+    }
+
+    /**
+     * Takes every stop the last trade price triggers out of the trigger index, buy stops before sell
+     * stops, each side in trigger price order and then in time priority. Only the fired stops are
+     * visited. The returned list is reused by the next call.
+     */
+    public List<Order> takeTriggeredStops() {
+        triggered.clear();
+        if (lastTradePrice != NO_TRADE) {
+            takeTriggered(buyStops);
+            takeTriggered(sellStops);
+        }
+        return triggered;
+    }
+
+    private void takeTriggered(BookSide stops) {
+        PriceLevel level = stops.bestLevel();
+        while (level != null && (stops.getSide() == Order.Type.BUY ? lastTradePrice >= level.price : lastTradePrice <= level.price)) {
+            int handle = level.head;
+            Order order = stopOrders.order(handle);
+            stopIndex.remove(order.getId());
+            // Unlinking the level's last order closes it and moves the best level on
+            stops.unlink(handle);
+            stops.release(handle);
+            triggered.add(order);
+            level = stops.bestLevel();
+        }
+    }
+
+    /**
+     * @return the order's handle, or {@link OrderStore#NIL} if it is not resting in this book
+     */
+    public int find(int orderId) {
+        int handle = index.get(orderId);
+        return handle == IntIntHashMap.MISSING ? OrderStore.NIL : handle;
+    }
+
+    /**
+     * Takes a resting order out of its level and the index without changing its status. The handle
+     * stays readable until {@link #release} frees it.
+     *
+     * @return the order's handle, or {@link OrderStore#NIL} if it is not resting in this book
+     */
+    public int unlink(int orderId) {
+        int handle = index.remove(orderId);
+        if (handle == IntIntHashMap.MISSING) {
+            return OrderStore.NIL;
+        }
+        side(orders.type(handle)).unlink(handle);
+        dirty = true;
+        return handle;
+    }
+
+    /**
+     * Takes a resting order out of the book without changing its status.
+     *
+     * @return the removed order, a copy if the store does not retain orders, or null if it is not
+     * resting in this book
+     */
+    public Order remove(int orderId) {
+        int handle = unlink(orderId);
+        if (handle == OrderStore.NIL) {
+            return null;
+        }
+        Order order = orders.order(handle);
+        release(handle);
+        return order;
+    }
+
+    /**
+     * Frees the handle of an order that left the book, once nothing reads it any more.
+     */
+    public void release(int handle) {
+        orders.free(handle);
+    }
+
+    /**
+     * Lowers the open quantity of a resting order in place, keeping its time priority.
+     */
+    public void reduce(int handle, int quantity) {
+        side(orders.type(handle)).reduce(handle, quantity);
+        dirty = true;
+    }
+
+    /**
+     * Makes the current state visible to readers if it changed since the last publish. Only levels
+     * changed in between are copied.
+     */
+    public BookSnapshot publish() {
+        if (dirty) {
+            published = new BookSnapshot(symbol, published.getVersion() + 1, buys.snapshotLevels(), sells.snapshotLevels());
+            dirty = false;
+        }
+        return published;
+    }
+
+    /**
+     * The last published snapshot; safe to call from any thread.
+     */
+    public BookSnapshot snapshot() {
+        return published;
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
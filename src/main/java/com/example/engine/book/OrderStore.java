@@ -0,0 +1,67 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+
+/**
+ * Storage for the resting orders of one book. Each order gets an int handle; the price level
+ * queues are linked through handles and every field matching reads is read by handle, so the
+ * storage behind them can be heap objects or fixed-width off-heap slots. Freed handles are reused.
+ * Not thread-safe: a store is owned by the thread that matches its book.
+ */
+public abstract class OrderStore {
+
+    public static final int NIL = -1;
+
+    /**
+     * Whether the store keeps the {@link Order} objects it is given. An off-heap store copies them
+     * into its slots instead, and the order object can be reused once it is booked.
+     */
+    public abstract boolean retainsOrders();
+
+    /**
+     * The order at this handle: the booked instance if the store retains orders, otherwise a new copy.
+     */
+    public abstract Order order(int handle);
+
+    /**
+     * Like {@link #order(int)}, but an off-heap store fills one reused instance instead of copying,
+     * so the result is only valid until the next call.
+     */
+    public abstract Order view(int handle);
+
+    public abstract int id(int handle);
+
+    public abstract long price(int handle);
+
+    public abstract int quantity(int handle);
+
+    public abstract long timestamp(int handle);
+
+    public abstract Order.Type type(int handle);
+
+    public abstract Order.Status status(int handle);
+
+    /**
+     * Number of orders currently held.
+     */
+    public abstract int size();
+
+    abstract int allocate(Order order);
+
+    abstract void free(int handle);
+
+    abstract void update(int handle, int quantity, Order.Status status);
+
+    abstract int prev(int handle);
+
+    abstract void setPrev(int handle, int prev);
+
+    abstract int next(int handle);
+
+    abstract void setNext(int handle, int next);
+
+    // Id of the PriceLevel the order queues in, unique within its side
+    abstract int level(int handle);
+
+    abstract void setLevel(int handle, int level);
+}
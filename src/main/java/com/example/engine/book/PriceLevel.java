@@ -0,0 +1,109 @@
+package com.example.engine.book;
+
+/**
+ * All resting orders at one price on one side of the book, kept in time priority as a queue of
+ * {@link OrderStore} handles. Levels are also linked to their neighbours so matching can walk from
+ * the best level outwards without touching the sorted index. Closed levels are reused by their side.
+ */
+public final class PriceLevel {
+
+    // Stable for the life of the object, so orders can name their level by id
+    final int id;
+    long price;
+    int head = OrderStore.NIL;
+    int tail = OrderStore.NIL;
+    int orderCount;
+    long totalQuantity;
+
+    PriceLevel prev;
+    PriceLevel next;
+    // Last published copy of this level; cleared whenever the level changes
+    LevelSnapshot snapshot;
+
+    PriceLevel(int id, long price) {
+        this.id = id;
+        this.price = price;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    /**
+     * Handle of the earliest order, or {@link OrderStore#NIL} if the level is empty.
+     */
+    public int getHead() {
+        return head;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public PriceLevel getNext() {
+        return next;
+    }
+
+    public boolean isEmpty() {
+        return head == OrderStore.NIL;
+    }
+
+    LevelSnapshot snapshot(OrderStore orders) {
+        if (snapshot == null) {
+            snapshot = new LevelSnapshot(this, orders);
+        }
+        return snapshot;
+    }
+
+    void append(OrderStore orders, int handle) {
+        long timestamp = orders.timestamp(handle);
+        // Orders normally arrive in timestamp order, so this is an O(1) append at the
+        // tail. Walk back only if an order stamped earlier reaches the book late, to
+        // keep Order.compareTo semantics.
+        int after = tail;
+        while (after != OrderStore.NIL && orders.timestamp(after) > timestamp) {
+            after = orders.prev(after);
+        }
+        int next = after == OrderStore.NIL ? head : orders.next(after);
+        orders.setLevel(handle, id);
+        orders.setPrev(handle, after);
+        orders.setNext(handle, next);
+        if (next != OrderStore.NIL) {
+            orders.setPrev(next, handle);
+        } else {
+            tail = handle;
+        }
+        if (after != OrderStore.NIL) {
+            orders.setNext(after, handle);
+        } else {
+            head = handle;
+        }
+        orderCount++;
+        totalQuantity += orders.quantity(handle);
+        snapshot = null;
+    }
+
+    void unlink(OrderStore orders, int handle) {
+        int prev = orders.prev(handle);
+        int next = orders.next(handle);
+        if (prev != OrderStore.NIL) {
+            orders.setNext(prev, next);
+        } else {
+            head = next;
+        }
+        if (next != OrderStore.NIL) {
+            orders.setPrev(next, prev);
+        } else {
+            tail = prev;
+        }
+        orderCount--;
+        totalQuantity -= orders.quantity(handle);
+        snapshot = null;
+        orders.setPrev(handle, OrderStore.NIL);
+        orders.setNext(handle, OrderStore.NIL);
+    }
+}
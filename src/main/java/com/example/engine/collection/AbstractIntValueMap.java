@@ -0,0 +1,101 @@
+package com.example.engine.collection;
+
+/**
+ * Probing shared by the primitive hash maps: open addressing over a power-of-two table with linear
+ * probing and backward-shift deletion, so no tombstones build up. Values are non-negative ints,
+ * stored plus one so that 0 marks an empty slot; each map keeps its keys in a column of its own.
+ * Keys are not boxed and entries are not objects, so puts and removes do not allocate once the
+ * table has grown to the peak size; a map that never holds more than its initial capacity never
+ * grows at all. Not thread-safe.
+ */
+abstract class AbstractIntValueMap {
+
+    public static final int MISSING = -1;
+
+    // Value + 1, so that 0 marks an empty slot
+    int[] values;
+    int mask;
+    private int size;
+
+    /**
+     * @param initialCapacity entries the map holds before it first grows; the table is kept at
+     *                        most half full
+     */
+    AbstractIntValueMap(int initialCapacity) {
+        reset(Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) << 1);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * The table slot a key with this scrambled hash starts probing at.
+     */
+    final int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * The slot the key in slot {@code i} starts probing at.
+     */
+    abstract int home(int i);
+
+    abstract void moveKey(int from, int to);
+
+    /**
+     * Rebuilds the table at the given capacity: {@link #reset}, then put every old entry back.
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Checks a value about to be put, doubling the table first if it is half full.
+     */
+    final void beforePut(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative: " + value);
+        }
+        if (size >= values.length / 2) {
+            resize(values.length * 2);
+        }
+    }
+
+    final void store(int i, int value) {
+        if (values[i] == 0) {
+            size++;
+        }
+        values[i] = value + 1;
+    }
+
+    /**
+     * @return the value removed from slot {@code i}, or {@link #MISSING} if the slot is empty
+     */
+    final int removeAt(int i) {
+        int removed = values[i] - 1;
+        if (removed == MISSING) {
+            return MISSING;
+        }
+        // Shift later entries of the probe run back into the hole so lookups never stop early
+        int hole = i;
+        for (int j = (hole + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = home(j);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                moveKey(j, hole);
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = 0;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Empties the value table at the given capacity; the subclass allocates its keys to match.
+     */
+    final void reset(int capacity) {
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+}
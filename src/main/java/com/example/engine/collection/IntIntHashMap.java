@@ -0,0 +1,77 @@
+package com.example.engine.collection;
+
+/**
+ * Map from int keys to non-negative int values; see {@link AbstractIntValueMap}.
+ */
+public final class IntIntHashMap extends AbstractIntValueMap {
+
+    private int[] keys;
+
+    /**
+     * @param initialCapacity entries the map holds before it first grows
+     */
+    public IntIntHashMap(int initialCapacity) {
+        super(initialCapacity);
+        keys = new int[values.length];
+    }
+
+    /**
+     * @return the key's value, or {@link #MISSING}
+     */
+    public int get(int key) {
+        return values[find(key)] - 1;
+    }
+
+    public void put(int key, int value) {
+        beforePut(value);
+        int i = find(key);
+        keys[i] = key;
+        store(i, value);
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    public int remove(int key) {
+        return removeAt(find(key));
+    }
+
+    /**
+     * The key's slot, or the empty slot ending its probe run.
+     */
+    private int find(int key) {
+        int i = slot(hash(key));
+        while (values[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    @Override
+    int home(int i) {
+        return slot(hash(keys[i]));
+    }
+
+    @Override
+    void moveKey(int from, int to) {
+        keys[to] = keys[from];
+    }
+
+    @Override
+    void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        reset(capacity);
+        keys = new int[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                put(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        // Order ids are sequential, so scramble them to avoid long probe runs
+        return key * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.engine.collection;
+
+/**
+ * Map from long keys to non-negative int values; see {@link AbstractIntValueMap}.
+ */
+public final class LongIntHashMap extends AbstractIntValueMap {
+
+    private long[] keys;
+
+    /**
+     * @param initialCapacity entries the map holds before it first grows
+     */
+    public LongIntHashMap(int initialCapacity) {
+        super(initialCapacity);
+        keys = new long[values.length];
+    }
+
+    /**
+     * @return the key's value, or {@link #MISSING}
+     */
+    public int get(long key) {
+        return values[find(key)] - 1;
+    }
+
+    public void put(long key, int value) {
+        beforePut(value);
+        int i = find(key);
+        keys[i] = key;
+        store(i, value);
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    public int remove(long key) {
+        return removeAt(find(key));
+    }
+
+    /**
+     * The key's slot, or the empty slot ending its probe run.
+     */
+    private int find(long key) {
+        int i = slot(hash(key));
+        while (values[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    @Override
+    int home(int i) {
+        return slot(hash(keys[i]));
+    }
+
+    @Override
+    void moveKey(int from, int to) {
+        keys[to] = keys[from];
+    }
+
+    @Override
+    void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        reset(capacity);
+        keys = new long[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                put(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // Prices are dense runs of ticks, so scramble them to avoid long probe runs
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
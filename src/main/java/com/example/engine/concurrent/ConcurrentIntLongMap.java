@@ -0,0 +1,115 @@
+package com.example.engine.concurrent;
+
+/**
+ * Thread-safe map from int keys to long values, striped as described in {@link StripedIntMap}:
+ * neither keys nor values are boxed. A separate occupancy table marks used slots, so every long is
+ * a valid value.
+ */
+public final class ConcurrentIntLongMap extends StripedIntMap<ConcurrentIntLongMap.Stripe> {
+
+    public ConcurrentIntLongMap() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize entries to size the tables for up front
+     */
+    public ConcurrentIntLongMap(int expectedSize) {
+        super(expectedSize, Stripe::new);
+    }
+
+    /**
+     * @return the key's value, or {@code absent} if it has none
+     */
+    public long get(int key, long absent) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int i = stripe.find(key);
+            return stripe.used[i] ? stripe.values[i] : absent;
+        }
+    }
+
+    public void put(int key, long value) {
+        Stripe stripe = stripeFor(key);
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.put(key, value);
+        }
+        if (added) {
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the key only while it still maps to {@code expected}.
+     *
+     * @return true if the entry was removed
+     */
+    public boolean remove(int key, long expected) {
+        Stripe stripe = stripeFor(key);
+        boolean removed;
+        synchronized (stripe) {
+            int i = stripe.find(key);
+            removed = stripe.used[i] && stripe.values[i] == expected;
+            if (removed) {
+                stripe.removeAt(i);
+            }
+        }
+        if (removed) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    static final class Stripe extends StripedIntMap.Stripe {
+        long[] values;
+        boolean[] used;
+
+        Stripe(int expectedSize) {
+            super(expectedSize);
+            values = new long[keys.length];
+            used = new boolean[keys.length];
+        }
+
+        /**
+         * @return true if the key was not present
+         */
+        boolean put(int key, long value) {
+            int i = claim(key);
+            boolean added = !used[i];
+            values[i] = value;
+            used[i] = true;
+            return added;
+        }
+
+        @Override
+        boolean used(int i) {
+            return used[i];
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int i) {
+            used[i] = false;
+        }
+
+        @Override
+        void grow() {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            reset(oldKeys.length * 2);
+            values = new long[keys.length];
+            used = new boolean[keys.length];
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.engine.concurrent;
+
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe map from int keys to values that neither boxes keys nor allocates entries, so threads
+ * that must not allocate (matching threads) can remove from it. Striped as described in
+ * {@link StripedIntMap}; a null value marks an unused slot.
+ */
+public final class ConcurrentIntMap<V> extends StripedIntMap<ConcurrentIntMap.Stripe> {
+
+    public ConcurrentIntMap() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize entries to size the tables for up front
+     */
+    public ConcurrentIntMap(int expectedSize) {
+        super(expectedSize, Stripe::new);
+    }
+
+    public V get(int key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            return cast(stripe.values[stripe.find(key)]);
+        }
+    }
+
+    /**
+     * @return the previous value, or null
+     */
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Value must not be null");
+        }
+        Stripe stripe = stripeFor(key);
+        Object previous;
+        synchronized (stripe) {
+            previous = stripe.put(key, value);
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return cast(previous);
+    }
+
+    /**
+     * @return the removed value, or null if there was none
+     */
+    public V remove(int key) {
+        Stripe stripe = stripeFor(key);
+        Object removed;
+        synchronized (stripe) {
+            int i = stripe.find(key);
+            removed = stripe.values[i];
+            if (removed != null) {
+                stripe.removeAt(i);
+            }
+        }
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return cast(removed);
+    }
+
+    /**
+     * Removes every entry whose value matches; each stripe is locked while it is scanned.
+     */
+    public void removeIf(Predicate<? super V> filter) {
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripe(s);
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.values.length; ) {
+                    Object value = stripe.values[i];
+                    if (value != null && filter.test(cast(value))) {
+                        // Backward shift may move a later entry into slot i, so look at it again
+                        stripe.removeAt(i);
+                        size.decrementAndGet();
+                    } else {
+                        i++;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    static final class Stripe extends StripedIntMap.Stripe {
+        Object[] values;
+
+        Stripe(int expectedSize) {
+            super(expectedSize);
+            values = new Object[keys.length];
+        }
+
+        Object put(int key, Object value) {
+            int i = claim(key);
+            Object previous = values[i];
+            values[i] = value;
+            return previous;
+        }
+
+        @Override
+        boolean used(int i) {
+            return values[i] != null;
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int i) {
+            values[i] = null;
+        }
+
+        @Override
+        void grow() {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            reset(oldKeys.length * 2);
+            values = new Object[keys.length];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
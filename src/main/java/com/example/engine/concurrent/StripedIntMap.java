@@ -0,0 +1,129 @@
+package com.example.engine.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Striping and probing shared by {@link ConcurrentIntMap} and {@link ConcurrentIntLongMap}.
+ * <p>
+ * Keys are spread over a fixed number of stripes, each an open-addressing table with linear probing
+ * and backward-shift deletion guarded by its own monitor. Sequential keys such as order ids land on
+ * different stripes, so writers on different threads rarely meet. A stripe only allocates when it
+ * doubles, i.e. until the map has grown to its peak size. Each map keeps its values in a column
+ * beside the stripe's keys and says which slots are used.
+ */
+abstract class StripedIntMap<S extends StripedIntMap.Stripe> {
+
+    static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param expectedSize entries to size the tables for up front
+     */
+    StripedIntMap(int expectedSize, IntFunction<S> newStripe) {
+        int perStripe = Math.max(2, expectedSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = newStripe.apply(perStripe);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    final S stripe(int index) {
+        return (S) stripes[index];
+    }
+
+    final S stripeFor(int key) {
+        // Same scrambling as the tables, taking the top bits for the stripe
+        int h = key * 0x9E3779B9;
+        return stripe((h ^ (h >>> 16)) >>> 26);
+    }
+
+    abstract static class Stripe {
+        int[] keys;
+        int mask;
+        int size;
+
+        Stripe(int expectedSize) {
+            reset(Integer.highestOneBit(expectedSize * 2 - 1) << 1);
+        }
+
+        abstract boolean used(int i);
+
+        /**
+         * Moves the value in slot {@code from} to slot {@code to}.
+         */
+        abstract void move(int from, int to);
+
+        abstract void clear(int i);
+
+        /**
+         * Doubles the table: {@link #reset} to twice the capacity, then put the old entries back.
+         */
+        abstract void grow();
+
+        /**
+         * The key's slot, or the empty slot ending its probe run.
+         */
+        final int find(int key) {
+            int i = slot(key);
+            while (used(i) && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        /**
+         * The slot to store {@code key}'s value in, doubling the table first if it is half full. If
+         * the key is new the slot is still unused, but the key is written and counted.
+         */
+        final int claim(int key) {
+            if (size >= keys.length / 2) {
+                grow();
+            }
+            int i = find(key);
+            if (!used(i)) {
+                keys[i] = key;
+                size++;
+            }
+            return i;
+        }
+
+        final void removeAt(int i) {
+            int hole = i;
+            for (int j = (hole + 1) & mask; used(j); j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    move(j, hole);
+                    hole = j;
+                }
+            }
+            clear(hole);
+            size--;
+        }
+
+        /**
+         * Empties the key table at the given capacity; the subclass allocates its values to match.
+         */
+        final void reset(int capacity) {
+            keys = new int[capacity];
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        private int slot(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
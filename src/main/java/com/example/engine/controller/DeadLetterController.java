@@ -0,0 +1,56 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Operator access to orders that failed every processing attempt. Replay and discard work in
+ * batches of at most 1000: the given {@code ids}, or else the oldest orders, optionally of one symbol.
+ */
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+public class DeadLetterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterController.class);
+
+    private final OrderService orderService;
+
+    public DeadLetterController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<DeadLetterResponse>> getDeadLetters(
+            @RequestParam(required = false) String symbol,
+            @RequestParam(defaultValue = "0") int afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        logger.debug("Listing dead letters for symbol '{}' after {}, limit {}", symbol, afterId, limit);
+        return ResponseEntity.ok(orderService.getDeadLetters(symbol, afterId, limit));
+    }
+
+    @PostMapping("/replay")
+    public ResponseEntity<List<DeadLetterResponse>> replay(
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) List<Integer> ids,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<DeadLetterResponse> replayed = orderService.replayDeadLetters(symbol, ids, limit);
+        logger.info("Replayed {} dead letters", replayed.size());
+        return ResponseEntity.ok(replayed);
+    }
+
+    @PostMapping("/discard")
+    public ResponseEntity<List<DeadLetterResponse>> discard(
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) List<Integer> ids,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<DeadLetterResponse> discarded = orderService.discardDeadLetters(symbol, ids, limit);
+        logger.info("Discarded {} dead letters", discarded.size());
+        return ResponseEntity.ok(discarded);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.DepthResponse;
+import com.example.engine.service.OrderService;
+import com.example.engine.stream.StreamHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/depth")
+public class DepthController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepthController.class);
+
+    private final OrderService orderService;
+    private final StreamHub streamHub;
+
+    public DepthController(OrderService orderService, StreamHub streamHub) {
+        this.orderService = orderService;
+        this.streamHub = streamHub;
+    }
+
+    @GetMapping("/{symbol}")
+    public ResponseEntity<DepthResponse> getDepth(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "10") int levels) {
+        logger.debug("Fetching {} depth levels for symbol '{}'", levels, symbol);
+        return ResponseEntity.ok(orderService.getDepth(symbol, levels));
+    }
+
+    /**
+     * Server-sent events: a full book first, then conflated level changes. A client that falls
+     * behind skips to a fresh full book.
+     */
+    @GetMapping(path = "/{symbol}/stream", produces = "text/event-stream")
+    public SseEmitter streamDepth(@PathVariable String symbol) {
+        logger.info("Opening depth stream for symbol '{}'", symbol);
+        SseSink sink = new SseSink();
+        return sink.attach(streamHub.subscribeDepth(symbol, sink));
+    }
+}
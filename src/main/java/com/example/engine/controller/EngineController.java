@@ -0,0 +1,28 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.EngineStatsResponse;
+import com.example.engine.metrics.EngineStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/engine")
+public class EngineController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngineController.class);
+    private static final int MAX_BOOKS = 1000;
+
+    private final EngineStats engineStats;
+
+    public EngineController(EngineStats engineStats) {
+        this.engineStats = engineStats;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<EngineStatsResponse> getStats(@RequestParam(defaultValue = "20") int books) {
+        logger.debug("Fetching engine stats with the {} largest books", books);
+        return ResponseEntity.ok(engineStats.snapshot(Math.min(books, MAX_BOOKS)));
+    }
+}
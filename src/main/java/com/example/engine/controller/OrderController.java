@@ -1,27 +1,41 @@
 package com.example.engine.controller;
 
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.BatchOrderResult;
+import com.example.engine.dto.OrderBatchRequest;
+import com.example.engine.dto.OrderPage;
 import com.example.engine.dto.OrderRequest;
 import com.example.engine.dto.OrderResponse;
+import com.example.engine.dto.OrderResult;
+import com.example.engine.service.OrderRejectedException;
 import com.example.engine.service.OrderService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final OrderService orderService;
+    private final Duration ackTimeout;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, @Value("${order.ack.timeout:1s}") Duration ackTimeout) {
         this.orderService = orderService;
+        this.ackTimeout = ackTimeout;
     }
 
     @PostMapping
@@ -32,6 +46,29 @@ public class OrderController {
         return ResponseEntity.status(201).body(response);
     }
 
+    /**
+     * With {@code ack=match} the response waits, without holding a request thread, until the order
+     * has been matched: 201 with the fills and trades, or 202 with the order as accepted if that
+     * takes longer than {@code order.ack.timeout}.
+     */
+    @PostMapping(params = "ack=match")
+    public CompletableFuture<ResponseEntity<OrderResult>> addOrderAwaitingMatch(@Valid @RequestBody OrderRequest request) {
+        logger.debug("Received new order request awaiting match: {}", request);
+        return orderService.addOrderAwaitingMatch(request, ackTimeout)
+                .thenApply(result -> ResponseEntity.status(result.isMatched() ? 201 : 202).body(result));
+    }
+
+    /**
+     * Accepts up to 10,000 orders; each result says whether that order was accepted, in request order.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchOrderResult>> addOrders(@Valid @RequestBody OrderBatchRequest request) {
+        logger.debug("Received batch of {} orders", request.getOrders().size());
+        List<BatchOrderResult> results = orderService.addOrders(request.getOrders());
+        logger.info("Batch of {} orders processed", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable int id) {
         logger.info("Fetching order by ID: {}", id);
@@ -43,14 +80,81 @@ public class OrderController {
                 });
     }
 
+    /**
+     * Cancels are applied asynchronously in sequence with matching, hence 202 rather than 200.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<OrderResponse> cancelOrder(@PathVariable int id) {
+        logger.info("Cancelling order {}", id);
+        return orderService.cancelOrder(id)
+                .map(response -> ResponseEntity.accepted().body(response))
+                .orElseGet(() -> {
+                    logger.warn("Order not found for ID: {}", id);
+                    return ResponseEntity.notFound().build();
+                });
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<OrderResponse> amendOrder(@PathVariable int id, @Valid @RequestBody AmendRequest request) {
+        logger.debug("Amending order {}: {}", id, request);
+        return orderService.amendOrder(id, request)
+                .map(response -> ResponseEntity.accepted().body(response))
+                .orElseGet(() -> {
+                    logger.warn("Order not found for ID: {}", id);
+                    return ResponseEntity.notFound().build();
+                });
+    }
+
+    /**
+     * Pages with {@code page}/{@code size} offsets, or, when {@code cursor} is present (empty for the
+     * first page), continues after the cursor; the next cursor comes back in {@code X-Next-Cursor}.
+     */
     @GetMapping("/symbol/{symbol}")
     public ResponseEntity<List<OrderResponse>> getOrdersBySymbol(
             @PathVariable String symbol,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            logger.debug("Fetching orders for symbol '{}' after cursor '{}', size {}", symbol, cursor, size);
+            OrderPage orders = orderService.getOrdersBySymbol(symbol, cursor, size);
+            logger.info("Returning {} orders for symbol '{}'", orders.getOrders().size(), symbol);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (orders.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, orders.getNextCursor());
+            }
+            return response.body(orders.getOrders());
+        }
         logger.debug("Fetching orders for symbol '{}', page {}, size {}", symbol, page, size);
         List<OrderResponse> orders = orderService.getOrdersBySymbol(symbol, PageRequest.of(page, size));
         logger.info("Returning {} orders for symbol '{}'", orders.size(), symbol);
         return ResponseEntity.ok(orders);
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidOrder(IllegalArgumentException e) {
+        logger.warn("Rejected order request: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleConflict(IllegalStateException e) {
+        logger.warn("Rejected order request: {}", e.getMessage());
+        return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * Intake rejections: 429 when the symbol is over its rate limit, 503 when the engine is
+     * overloaded, both with a {@code Retry-After} in whole seconds and the exact hint in the body.
+     */
+    @ExceptionHandler(OrderRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(OrderRejectedException e) {
+        // Debug only: under overload this fires at the full offered rate
+        logger.debug("Rejected order request: {}", e.getMessage());
+        int status = e.getReason() == OrderRejectedException.Reason.RATE_LIMITED ? 429 : 503;
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Map.of("error", e.getMessage(), "retryAfterMillis", String.valueOf(e.getRetryAfterMillis())));
+    }
 }
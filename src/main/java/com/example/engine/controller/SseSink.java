@@ -0,0 +1,46 @@
+package com.example.engine.controller;
+
+import com.example.engine.stream.StreamSubscriber;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Writes a stream subscriber's events to a server-sent events response. The JSON is already
+ * encoded, once per event for all subscribers, so it is written as is.
+ */
+final class SseSink implements StreamSubscriber.Sink {
+
+    private final SseEmitter emitter = new SseEmitter(0L);
+
+    /**
+     * Unregisters the subscriber once the client goes away.
+     */
+    SseEmitter attach(StreamSubscriber subscriber) {
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    @Override
+    public void send(String event, String json) throws IOException {
+        emitter.send(SseEmitter.event().name(event).data(json, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void complete() {
+        emitter.complete();
+    }
+
+    @Override
+    public void fail(String reason) {
+        emitter.completeWithError(new IOException(reason));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.OrderResponse;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderService;
+import com.example.engine.stream.StreamEvent;
+import com.example.engine.stream.StreamHub;
+import com.example.engine.stream.StreamSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+/**
+ * Server-sent event streams of executions and order status changes; see {@link StreamHub}.
+ */
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamController.class);
+
+    private final OrderService orderService;
+    private final StreamHub streamHub;
+
+    public StreamController(OrderService orderService, StreamHub streamHub) {
+        this.orderService = orderService;
+        this.streamHub = streamHub;
+    }
+
+    /**
+     * Every execution of the symbol from now on, as {@code trade} events.
+     */
+    @GetMapping(path = "/trades/{symbol}", produces = "text/event-stream")
+    public SseEmitter streamTrades(@PathVariable String symbol) {
+        logger.info("Opening trade stream for symbol '{}'", symbol);
+        SseSink sink = new SseSink();
+        return sink.attach(streamHub.subscribeTrades(symbol, sink));
+    }
+
+    /**
+     * The order's current state as an {@code order} event, then its {@code fill} and {@code cancel}
+     * events; the stream completes once the order is filled or cancelled.
+     */
+    @GetMapping(path = "/orders/{id}", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamOrder(@PathVariable int id) {
+        SseSink sink = new SseSink();
+        // Subscribed before the lookup, so a change in between is streamed rather than lost
+        StreamSubscriber subscriber = streamHub.subscribeOrder(id, sink);
+        SseEmitter emitter = sink.attach(subscriber);
+        Optional<OrderResponse> order = orderService.getOrderById(id);
+        if (order.isEmpty()) {
+            subscriber.close();
+            logger.warn("Order not found for ID: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        logger.info("Opening status stream for order {}", id);
+        streamHub.send(subscriber, new StreamEvent("order", order.get()));
+        if (order.get().getStatus() == Order.Status.FILLED || order.get().getStatus() == Order.Status.CANCELLED) {
+            streamHub.finish(subscriber);
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/trades")
+public class TradeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeController.class);
+
+    private final OrderService orderService;
+
+    public TradeController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @GetMapping("/{symbol}")
+    public ResponseEntity<List<TradeResponse>> getRecentTrades(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "50") int limit) {
+        logger.debug("Fetching up to {} recent trades for symbol '{}'", limit, symbol);
+        List<TradeResponse> trades = orderService.getRecentTrades(symbol, limit);
+        logger.info("Returning {} trades for symbol '{}'", trades.size(), symbol);
+        return ResponseEntity.ok(trades);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.engine.depth;
+
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.book.LevelSnapshot;
+import com.example.engine.dto.DepthLevel;
+import com.example.engine.dto.DepthResponse;
+import com.example.engine.dto.DepthUpdate;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.TickSizeRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams conflated market-depth changes to subscribers. Every {@code order.depth.interval} it
+ * compares each subscribed symbol's latest published book snapshot with the one it last sent and
+ * emits one update per changed level, however many fills touched the level in between.
+ * <p>
+ * Diffing runs on this publisher's thread and compares level snapshots by identity first, which
+ * works because unchanged levels keep the same snapshot object across publishes.
+ */
+@Component
+public class DepthPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepthPublisher.class);
+
+    private final OrderManager orderManager;
+    private final TickSizeRegistry tickSizes;
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public DepthPublisher(OrderManager orderManager, TickSizeRegistry tickSizes,
+                          @Value("${order.depth.interval:100ms}") Duration interval) {
+        this.orderManager = orderManager;
+        this.tickSizes = tickSizes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "depth-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::publishSafely, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Receives a full update with every level first, then deltas.
+     */
+    @FunctionalInterface
+    public interface Subscriber {
+        void accept(DepthUpdate update) throws Exception;
+    }
+
+    public void subscribe(String symbol, Subscriber subscriber) {
+        feeds.computeIfAbsent(symbol, Feed::new).joining.add(subscriber);
+    }
+
+    public void unsubscribe(String symbol, Subscriber subscriber) {
+        Feed feed = feeds.get(symbol);
+        if (feed != null) {
+            feed.joining.remove(subscriber);
+            feed.subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Sends the subscriber a full update again next round instead of the deltas in between, e.g.
+     * because it could not take the last one.
+     */
+    public void resync(String symbol, Subscriber subscriber) {
+        Feed feed = feeds.get(symbol);
+        if (feed != null && feed.subscribers.remove(subscriber)) {
+            feed.joining.add(subscriber);
+        }
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (Exception e) {
+            logger.error("Depth publishing failed", e);
+        }
+    }
+
+    /**
+     * One publishing round; runs on the publisher thread, or on a test driving rounds itself.
+     */
+    public void publish() {
+        for (Feed feed : feeds.values()) {
+            if (feed.subscribers.isEmpty() && feed.joining.isEmpty()) {
+                feed.last = null;
+                continue;
+            }
+            BookSnapshot current = orderManager.getSnapshot(feed.symbol);
+            BigDecimal tickSize = tickSizes.tickSize(feed.symbol);
+            if (feed.last != null && current.getVersion() != feed.last.getVersion() && !feed.subscribers.isEmpty()) {
+                DepthUpdate delta = diff(feed.last, current, tickSize);
+                if (!delta.getBids().isEmpty() || !delta.getAsks().isEmpty()) {
+                    send(feed, feed.subscribers, delta);
+                }
+            }
+            if (!feed.joining.isEmpty()) {
+                DepthResponse image = DepthResponse.fromSnapshot(current, Integer.MAX_VALUE, tickSize);
+                DepthUpdate full = new DepthUpdate(feed.symbol, current.getVersion(), true, image.getBids(), image.getAsks());
+                List<Subscriber> joined = new ArrayList<>(feed.joining);
+                feed.joining.removeAll(joined);
+                feed.subscribers.addAll(joined);
+                send(feed, joined, full);
+            }
+            feed.last = current;
+        }
+    }
+
+    private void send(Feed feed, List<Subscriber> subscribers, DepthUpdate update) {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.accept(update);
+            } catch (Exception e) {
+                logger.debug("Dropping depth subscriber for '{}': {}", feed.symbol, e.getMessage());
+                unsubscribe(feed.symbol, subscriber);
+            }
+        }
+    }
+
+    /**
+     * Levels that differ between two snapshots of a book,
+     * best first per side; removed levels have quantity 0.
+     */
+    static DepthUpdate diff(BookSnapshot previous, BookSnapshot current, BigDecimal tickSize) {
+        return new DepthUpdate(current.getSymbol(), current.getVersion(), false,
+                diffSide(previous, current, Order.Type.BUY, tickSize),
+                diffSide(previous, current, Order.Type.SELL, tickSize));
+    }
+
+    private static List<DepthLevel> diffSide(BookSnapshot previous, BookSnapshot current, Order.Type side,
+                                             BigDecimal tickSize) {
+        List<DepthLevel> changes = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        int oldCount = previous.levelCount(side);
+        int newCount = current.levelCount(side);
+        // Both sides are sorted best first, so merge them by price
+        while (i < oldCount || j < newCount) {
+            LevelSnapshot before = i < oldCount ? previous.level(side, i) : null;
+            LevelSnapshot after = j < newCount ? current.level(side, j) : null;
+            int order = before == null ? 1 : after == null ? -1 : comparePriority(side, before.getPrice(), after.getPrice());
+            if (order < 0) {
+                changes.add(DepthLevel.removed(before.getPrice(), tickSize));
+                i++;
+            } else if (order > 0) {
+                changes.add(DepthLevel.fromLevel(after, tickSize));
+                j++;
+            } else {
+                if (before != after && (before.getTotalQuantity() != after.getTotalQuantity() || before.size() != after.size())) {
+                    changes.add(DepthLevel.fromLevel(after, tickSize));
+                }
+                i++;
+                j++;
+            }
+        }
+        return changes;
+    }
+
+    private static int comparePriority(Order.Type side, long a, long b) {
+        return side == Order.Type.BUY ? Long.compare(b, a) : Long.compare(a, b);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Feed {
+        final String symbol;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        final List<Subscriber> joining = new CopyOnWriteArrayList<>();
+        // Snapshot the subscribers' view was last brought up to; only touched by the publisher thread
+        BookSnapshot last;
+
+        Feed(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.engine.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * New price and/or open quantity for a resting order; a missing field keeps its current value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmendRequest {
+
+    @Min(0)
+    private Double price;
+
+    @Min(1)
+    private Integer quantity;
+
+    public long priceInTicks(String symbol, BigDecimal tickSize) {
+        return OrderRequest.toTicks(symbol, price, tickSize);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one order in a batch: the accepted order, or why it was rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResult {
+    private OrderResponse order;
+    private String error;
+
+    public static BatchOrderResult accepted(OrderResponse order) {
+        return new BatchOrderResult(order, null);
+    }
+
+    public static BatchOrderResult rejected(String error) {
+        return new BatchOrderResult(null, error);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.engine.dto;
+
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.book.LevelSnapshot;
+import com.example.engine.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size of one symbol's published book.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDepth {
+    private String symbol;
+    private int bidLevels;
+    private int askLevels;
+    private int bidOrders;
+    private int askOrders;
+
+    public static BookDepth fromSnapshot(BookSnapshot snapshot) {
+        return new BookDepth(snapshot.getSymbol(),
+                snapshot.levelCount(Order.Type.BUY), snapshot.levelCount(Order.Type.SELL),
+                orders(snapshot, Order.Type.BUY), orders(snapshot, Order.Type.SELL));
+    }
+
+    private static int orders(BookSnapshot snapshot, Order.Type side) {
+        int orders = 0;
+        for (LevelSnapshot level : snapshot.levels(side)) {
+            orders += level.size();
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.engine.dto;
+
+import com.example.engine.model.Order;
+import com.example.engine.service.DeadLetterQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterResponse {
+    private int orderId;
+    private String symbol;
+    private double price;
+    private int quantity;
+    private Order.Type type;
+    private int attempts;
+    private String error;
+    private Instant deadLetteredAt;
+
+    public static DeadLetterResponse fromDeadLetter(DeadLetterQueue.DeadLetter letter, BigDecimal tickSize) {
+        Order order = letter.order();
+        return new DeadLetterResponse(order.getId(), order.getSymbol(),
+                tickSize.multiply(BigDecimal.valueOf(order.getPrice())).doubleValue(), order.getQuantity(),
+                order.getType(), letter.attempts(), letter.error(), Instant.ofEpochMilli(letter.deadLetteredAt()));
+    }
+}
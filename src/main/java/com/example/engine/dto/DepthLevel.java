@@ -0,0 +1,30 @@
+package com.example.engine.dto;
+
+import com.example.engine.book.LevelSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthLevel {
+    private double price;
+    // Total open quantity at the price; 0 in an update means the level is gone
+    private long quantity;
+    private int orders;
+
+    public static DepthLevel fromLevel(LevelSnapshot level, BigDecimal tickSize) {
+        return new DepthLevel(toPrice(level.getPrice(), tickSize), level.getTotalQuantity(), level.size());
+    }
+
+    public static DepthLevel removed(long price, BigDecimal tickSize) {
+        return new DepthLevel(toPrice(price, tickSize), 0, 0);
+    }
+
+    private static double toPrice(long ticks, BigDecimal tickSize) {
+        return tickSize.multiply(BigDecimal.valueOf(ticks)).doubleValue();
+    }
+}
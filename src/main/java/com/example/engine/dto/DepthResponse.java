@@ -0,0 +1,40 @@
+package com.example.engine.dto;
+
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthResponse {
+    private String symbol;
+    // Book snapshot version the levels were read from
+    private long version;
+    private List<DepthLevel> bids;
+    private List<DepthLevel> asks;
+
+    /**
+     * Aggregated top {@code levels} levels per side, best first.
+     */
+    public static DepthResponse fromSnapshot(BookSnapshot snapshot, int levels, BigDecimal tickSize) {
+        return new DepthResponse(snapshot.getSymbol(), snapshot.getVersion(),
+                topLevels(snapshot, Order.Type.BUY, levels, tickSize),
+                topLevels(snapshot, Order.Type.SELL, levels, tickSize));
+    }
+
+    private static List<DepthLevel> topLevels(BookSnapshot snapshot, Order.Type side, int levels, BigDecimal tickSize) {
+        int count = Math.min(levels, snapshot.levelCount(side));
+        List<DepthLevel> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(DepthLevel.fromLevel(snapshot.level(side, i), tickSize));
+        }
+        return result;
+    }
+}
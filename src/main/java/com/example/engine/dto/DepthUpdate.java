@@ -0,0 +1,22 @@
+package com.example.engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One conflated batch of level changes for a symbol. A {@code full} update carries every level
+ * and replaces the subscriber's book; otherwise it carries only levels that changed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthUpdate {
+    private String symbol;
+    private long version;
+    private boolean full;
+    private List<DepthLevel> bids;
+    private List<DepthLevel> asks;
+}
@@ -0,0 +1,35 @@
+package com.example.engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact view of engine load; rates are over the last second, latencies since startup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngineStatsResponse {
+    private double ordersPerSecond;
+    private double tradesPerSecond;
+    private long ordersReceived;
+    private long trades;
+    // Items waiting in each matching shard's ring
+    private int[] queueDepths;
+    // Intake rejects new orders from a shard reaching the high
+    // watermark until it drains to the low one; 0 when off
+    private int queueHighWatermark;
+    private int queueLowWatermark;
+    // New orders turned away by intake control since startup
+    private long rateLimited;
+    private long overloaded;
+    private int deadLetters;
+    // Keyed by stage, see metrics.Stage
+    private Map<String, StageLatency> latency;
+    // Largest books first
+    private List<BookDepth> books;
+}
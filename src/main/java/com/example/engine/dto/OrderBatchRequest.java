@@ -0,0 +1,20 @@
+package com.example.engine.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchRequest {
+
+    @NotEmpty
+    @Size(max = 10_000)
+    private List<@Valid OrderRequest> orders;
+}
@@ -0,0 +1,16 @@
+package com.example.engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderResponse> orders;
+    // Null once the page reached the end of the book
+    private String nextCursor;
+}
@@ -8,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,4 +26,75 @@ public class OrderRequest {
 
     @NotNull
     private Order.Type type;
+
+    // Optional: defaults to IOC for market orders and GTC for limit orders
+    private Order.TimeInForce timeInForce;
+
+    // Market orders take no price and trade at whatever the opposite side offers
+    private boolean market;
+
+    // Optional: makes this a stop (market) or stop-limit
+    // order that waits until a trade reaches this price
+    @Min(0)
+    private double stopPrice;
+
+    public OrderRequest(String symbol, double price, int quantity, Order.Type type) {
+        this.symbol = symbol;
+        this.price = price;
+        this.quantity = quantity;
+        this.type = type;
+    }
+
+    /**
+     * Converts the decimal price into whole ticks, rejecting prices that are not on the tick ladder.
+     * Market orders have no price and come out as 0.
+     */
+    public long priceInTicks(BigDecimal tickSize) {
+        if (market) {
+            if (price != 0) {
+                throw new IllegalArgumentException("Market orders take no price: " + price);
+            }
+            return 0;
+        }
+        return toTicks(symbol, price, tickSize);
+    }
+
+    /**
+     * The stop price in whole ticks, or 0 if this is not a stop order.
+     */
+    public long stopPriceInTicks(BigDecimal tickSize) {
+        if (stopPrice == 0) {
+            return 0;
+        }
+        long ticks = toTicks(symbol, stopPrice, tickSize);
+        if (ticks == 0) {
+            throw new IllegalArgumentException("Stop price must be at least one tick for " + symbol);
+        }
+        return ticks;
+    }
+
+    /**
+     * The requested time in force, or the default for the order kind. A market order's remainder
+     * has no price to rest at, so it cannot be GTC.
+     */
+    public Order.TimeInForce resolveTimeInForce() {
+        if (timeInForce == null) {
+            return market ? Order.TimeInForce.IOC : Order.TimeInForce.GTC;
+        }
+        if (market && timeInForce == Order.TimeInForce.GTC) {
+            throw new IllegalArgumentException("Market orders must be IOC or FOK");
+        }
+        return timeInForce;
+    }
+
+    static long toTicks(String symbol, double price, BigDecimal tickSize) {
+        // valueOf goes through the shortest decimal representation, so 100.07 stays exactly 100.07
+        BigDecimal decimal = BigDecimal.valueOf(price);
+        BigDecimal[] division = decimal.divideAndRemainder(tickSize);
+        if (division[1].signum() != 0) {
+            throw new IllegalArgumentException(
+                    "Price " + decimal.toPlainString() + " is not a multiple of tick size " + tickSize.toPlainString() + " for " + symbol);
+        }
+        return division[0].longValueExact();
+    }
 }
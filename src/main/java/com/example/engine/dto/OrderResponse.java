@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,17 +16,30 @@ public class OrderResponse {
     private double price;
     private int quantity;
     private Order.Type type;
+    private Order.Status status;
+    private Order.TimeInForce timeInForce;
+    private boolean market;
+    // 0 unless this is a stop order that had not triggered when the response was built
+    private double stopPrice;
+
+    public OrderResponse(int id, String symbol, double price, int quantity, Order.Type type, Order.Status status) {
+        this(id, symbol, price, quantity, type, status, Order.TimeInForce.GTC, false, 0);
+    }
 
-    public static OrderResponse fromOrder(Order order) {
+    public static OrderResponse fromOrder(Order order, BigDecimal tickSize) {
         if (order == null) {
             throw new IllegalArgumentException("Order must not be null");
         }
         return new OrderResponse(
                 order.getId(),
                 order.getSymbol(),
-                order.getPrice(),
+                tickSize.multiply(BigDecimal.valueOf(order.getPrice())).doubleValue(),
                 order.getQuantity(),
-                order.getType()
+                order.getType(),
+                order.getStatus(),
+                order.getTimeInForce(),
+                order.isMarket(),
+                tickSize.multiply(BigDecimal.valueOf(order.getStopPrice())).doubleValue()
         );
     }
 }
@@ -0,0 +1,28 @@
+package com.example.engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * What became of a new order once matching got to it: the order as it stands afterwards and the
+ * trades it took part in on arrival. If matching had not got to it in time, {@code matched} is
+ * false and the order is as accepted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResult {
+    private OrderResponse order;
+    private boolean matched;
+    private int filledQuantity;
+    // Quantity still working in the book; 0 once the order is filled or cancelled
+    private int remainingQuantity;
+    private List<TradeResponse> trades;
+
+    public static OrderResult pending(OrderResponse order) {
+        return new OrderResult(order, false, 0, order.getQuantity(), List.of());
+    }
+}
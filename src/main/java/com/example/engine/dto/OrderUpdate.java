@@ -0,0 +1,39 @@
+package com.example.engine.dto;
+
+import com.example.engine.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A fill or cancel of one order, as streamed to its subscribers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderUpdate {
+    private int id;
+    private String symbol;
+    private Order.Status status;
+    // Open quantity after this change
+    private int quantity;
+    // Price and quantity of this fill; 0 for a cancel
+    private double fillPrice;
+    private int fillQuantity;
+
+    public static OrderUpdate fromOrder(Order order, long fillPrice, int fillQuantity, BigDecimal tickSize) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order must not be null");
+        }
+        return new OrderUpdate(
+                order.getId(),
+                order.getSymbol(),
+                order.getStatus(),
+                order.getQuantity(),
+                tickSize.multiply(BigDecimal.valueOf(fillPrice)).doubleValue(),
+                fillQuantity
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.engine.dto;
+
+import com.example.engine.metrics.LatencyHistogram;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latency of one engine stage since startup, in microseconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StageLatency {
+    private long count;
+    private double mean;
+    private double p50;
+    private double p99;
+    private double p999;
+    private double max;
+
+    public static StageLatency fromSnapshot(LatencyHistogram.Snapshot snapshot) {
+        return new StageLatency(snapshot.getCount(), micros(snapshot.getMean()), micros(snapshot.percentile(50)),
+                micros(snapshot.percentile(99)), micros(snapshot.percentile(99.9)), micros(snapshot.getMax()));
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+}
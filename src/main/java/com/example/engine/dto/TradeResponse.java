@@ -0,0 +1,37 @@
+package com.example.engine.dto;
+
+import com.example.engine.model.Order;
+import com.example.engine.trade.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeResponse {
+    private long sequence;
+    private String symbol;
+    private double price;
+    private int quantity;
+    private Order.Type aggressor;
+    private int buyOrderId;
+    private int sellOrderId;
+
+    public static TradeResponse fromTrade(Trade trade, BigDecimal tickSize) {
+        if (trade == null) {
+            throw new IllegalArgumentException("Trade must not be null");
+        }
+        return new TradeResponse(
+                trade.getSequence(),
+                trade.getSymbol(),
+                tickSize.multiply(BigDecimal.valueOf(trade.getPrice())).doubleValue(),
+                trade.getQuantity(),
+                trade.getAggressor(),
+                trade.getBuyOrderId(),
+                trade.getSellOrderId()
+        );
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.engine.gateway;
+
+import com.example.engine.concurrent.ConcurrentIntMap;
+import com.example.engine.journal.Durability;
+import com.example.engine.model.Order;
+import com.example.engine.service.ExecutionListener;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderRejectedException;
+import com.example.engine.service.OrderService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Binary order entry over TCP, next to the REST API. One thread runs a selector (epoll on Linux)
+ * over every connection, decodes frames in place with flyweights and hands orders to
+ * {@link OrderService#submitOrder}, the same pipeline REST orders take. Acks and rejects are written
+ * by this thread; execution reports are encoded by the matching threads into the connection's send
+ * buffer and flushed here.
+ * <p>
+ * An ack is queued before its order reaches matching, so it always precedes the order's executions,
+ * and it only leaves once {@code submitOrder} returned, i.e. after the order is journaled when the
+ * journal is on. Submitting runs on the selector thread, so the gateway refuses to start with SYNC
+ * journal durability, where every order would hold up all connections until its fsync. Orders stay
+ * in the book when their connection closes.
+ */
+@Component
+@ConditionalOnProperty(name = "order.gateway.enabled", havingValue = "true")
+public class BinaryGateway implements ExecutionListener, Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryGateway.class);
+
+    private static final int RECEIVE_BUFFER_SIZE = 64 * 1024;
+    private static final int SYMBOL_CACHE_SIZE = 1024;
+
+    private final OrderService orderService;
+    private final OrderManager orderManager;
+    private final int sendBufferSize;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    // Working orders entered through the gateway, by engine
+    // order id; looked up by matching threads without boxing
+    private final ConcurrentIntMap<Owner> owners = new ConcurrentIntMap<>();
+    // Sessions with executions waiting to be written
+    private final Queue<GatewaySession> flushQueue = new ConcurrentLinkedQueue<>();
+
+    // Only touched by the gateway thread
+    private final NewOrderMessage newOrder = new NewOrderMessage();
+    private final CancelMessage cancel = new CancelMessage();
+    private final long[] symbolKeys = new long[SYMBOL_CACHE_SIZE];
+    private final String[] symbolNames = new String[SYMBOL_CACHE_SIZE];
+
+    private volatile boolean running = true;
+
+    public BinaryGateway(OrderService orderService, OrderManager orderManager,
+                         @Value("${order.gateway.port:9001}") int port,
+                         @Value("${order.gateway.send-buffer:1MB}") DataSize sendBuffer,
+                         @Value("${order.journal.enabled:false}") boolean journaled,
+                         @Value("${order.journal.durability:ASYNC}") Durability durability) throws IOException {
+        if (journaled && durability == Durability.SYNC) {
+            // Orders are submitted on the selector thread, so
+            // waiting for each fsync would stall every connection
+            throw new IllegalStateException("order.gateway.enabled needs order.journal.durability ASYNC or NONE, not SYNC");
+        }
+        this.orderService = orderService;
+        this.orderManager = orderManager;
+        this.sendBufferSize = (int) sendBuffer.toBytes();
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        orderManager.addExecutionListener(this);
+        this.thread = new Thread(this, "order-gateway");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("Binary order gateway listening on port {}", getPort());
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                flushQueued();
+                Set<SelectionKey> keys = selector.selectedKeys();
+                for (SelectionKey key : keys) {
+                    handle(key);
+                }
+                keys.clear();
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                logger.error("Gateway selector failed", e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        GatewaySession session = (GatewaySession) key.attachment();
+        try {
+            if (key.isReadable()) {
+                read(session);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(session);
+            }
+        } catch (IOException e) {
+            disconnect(session, e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new GatewaySession(channel, key, RECEIVE_BUFFER_SIZE, sendBufferSize));
+        logger.info("Gateway connection from {}", channel.getRemoteAddress());
+    }
+
+    private void read(GatewaySession session) throws IOException {
+        ByteBuffer in = session.in;
+        if (session.channel.read(in) < 0) {
+            disconnect(session, "closed by peer");
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= Protocol.HEADER_LENGTH) {
+            int start = in.position();
+            int length = in.getShort(start + Protocol.LENGTH_OFFSET) & 0xFFFF;
+            if (length >= Protocol.HEADER_LENGTH && length <= in.capacity() && in.remaining() < length) {
+                break;
+            }
+            if (length < Protocol.HEADER_LENGTH || !dispatchSafely(session, in, start, length)) {
+                disconnect(session, "malformed frame of type " + in.get(start + Protocol.TYPE_OFFSET) + ", length " + length);
+                return;
+            }
+            in.position(start + length);
+        }
+        in.compact();
+        // Acks and rejects for everything read go out in one write
+        flush(session);
+    }
+
+    /**
+     * A frame the engine fails on is rejected on its own, so one bad order cannot stop the thread
+     * that serves every connection.
+     *
+     * @return false if the frame breaks the protocol
+     */
+    private boolean dispatchSafely(GatewaySession session, ByteBuffer in, int start, int length) {
+        try {
+            return dispatch(session, in, start, length);
+        } catch (RuntimeException e) {
+            logger.error("Gateway frame of type {} failed", in.get(start + Protocol.TYPE_OFFSET), e);
+            if (length >= Protocol.CLIENT_ORDER_ID_OFFSET + Long.BYTES) {
+                session.reject(in.getLong(start + Protocol.CLIENT_ORDER_ID_OFFSET), Protocol.UNAVAILABLE);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return false if the frame breaks the protocol
+     */
+    private boolean dispatch(GatewaySession session, ByteBuffer in, int start, int length) {
+        byte type = in.get(start + Protocol.TYPE_OFFSET);
+        if (type == Protocol.NEW_ORDER && length == NewOrderMessage.LENGTH) {
+            onNewOrder(session, newOrder.wrap(in, start));
+            return true;
+        }
+        if (type == Protocol.CANCEL && length == CancelMessage.LENGTH) {
+            onCancel(session, cancel.wrap(in, start));
+            return true;
+        }
+        return false;
+    }
+
+    private void onNewOrder(GatewaySession session, NewOrderMessage message) {
+        long clientOrderId = message.clientOrderId();
+        Order.Type side = message.side() == Protocol.SIDE_BUY ? Order.Type.BUY
+                : message.side() == Protocol.SIDE_SELL ? Order.Type.SELL : null;
+        String symbol = symbol(message.symbolKey());
+        if (side == null || symbol == null || message.quantity() <= 0 || message.price() < 0) {
+            session.reject(clientOrderId, Protocol.INVALID_MESSAGE);
+            return;
+        }
+        Order order;
+        try {
+            order = orderService.createOrder(symbol, message.price(), message.quantity(), side);
+        } catch (OrderRejectedException e) {
+            session.reject(clientOrderId, e.getReason() == OrderRejectedException.Reason.RATE_LIMITED
+                    ? Protocol.RATE_LIMITED : Protocol.OVERLOADED);
+            return;
+        } catch (IllegalArgumentException e) {
+            session.reject(clientOrderId, Protocol.INVALID_MESSAGE);
+            return;
+        }
+        // The order may be recycled once submitted, so only its id is used from here on
+        int orderId = order.getId();
+        owners.put(orderId, new Owner(session, clientOrderId));
+        // Queued before the order can reach matching, so no execution report overtakes it
+        if (!session.ack(clientOrderId, orderId)) {
+            owners.remove(orderId);
+            return;
+        }
+        try {
+            orderService.submitOrder(order);
+        } catch (RuntimeException e) {
+            // Only happens while shutting down; the reject follows the ack that is still unsent
+            owners.remove(orderId);
+            session.reject(clientOrderId, Protocol.UNAVAILABLE);
+            logger.error("Gateway order {} was not queued", orderId, e);
+        }
+    }
+
+    /**
+     * A cancel has no ack: the order's CANCELLED execution report confirms it, and a cancel that
+     * loses the race against a fill is answered by the fill.
+     */
+    private void onCancel(GatewaySession session, CancelMessage message) {
+        long clientOrderId = message.clientOrderId();
+        int orderId = message.orderId();
+        Owner owner = owners.get(orderId);
+        if (owner == null || owner.session() != session) {
+            session.reject(clientOrderId, Protocol.UNKNOWN_ORDER);
+            return;
+        }
+        try {
+            if (orderService.cancelOrder(orderId).isEmpty()) {
+                session.reject(clientOrderId, Protocol.UNKNOWN_ORDER);
+            }
+        } catch (IllegalStateException e) {
+            session.reject(clientOrderId, Protocol.ORDER_TERMINAL);
+        } catch (RuntimeException e) {
+            session.reject(clientOrderId, Protocol.UNAVAILABLE);
+            logger.error("Gateway cancel of order {} was not queued", orderId, e);
+        }
+    }
+
+    @Override
+    public void onFill(Order order, long price, int quantity) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        Owner owner = order.getStatus() == Order.Status.FILLED ? owners.remove(order.getId()) : owners.get(order.getId());
+        if (owner != null) {
+            report(owner, order, price, quantity);
+        }
+    }
+
+    @Override
+    public void onCancel(Order order) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        Owner owner = owners.remove(order.getId());
+        if (owner != null) {
+            report(owner, order, 0, 0);
+        }
+    }
+
+    private void report(Owner owner, Order order, long price, int quantity) {
+        GatewaySession session = owner.session();
+        session.execution(owner.clientOrderId(), order.getId(), (byte) order.getStatus().ordinal(),
+                price, quantity, order.getQuantity());
+        if (session.flushQueued.compareAndSet(false, true)) {
+            flushQueue.offer(session);
+            selector.wakeup();
+        }
+    }
+
+    private void flushQueued() {
+        GatewaySession session;
+        while ((session = flushQueue.poll()) != null) {
+            session.flushQueued.set(false);
+            try {
+                flush(session);
+            } catch (IOException e) {
+                disconnect(session, e.getMessage());
+            }
+        }
+    }
+
+    private void flush(GatewaySession session) throws IOException {
+        if (session.isClosed()) {
+            return;
+        }
+        if (session.isOverflowed()) {
+            disconnect(session, "send buffer of " + sendBufferSize + " bytes is full");
+            return;
+        }
+        boolean pending = session.flush();
+        session.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void disconnect(GatewaySession session, String reason) {
+        if (session.isClosed()) {
+            return;
+        }
+        logger.info("Closing gateway connection: {}", reason);
+        session.close();
+        owners.removeIf(owner -> owner.session() == session);
+    }
+
+    /**
+     * Symbols come from a small cache keyed by their packed
+     * bytes, so a known symbol costs no allocation.
+     */
+    private String symbol(long key) {
+        int slot = (int) (key ^ (key >>> 32)) * 0x9E3779B9 >>> 22;
+        for (int i = 0; i < SYMBOL_CACHE_SIZE; i++) {
+            int probe = (slot + i) & (SYMBOL_CACHE_SIZE - 1);
+            if (symbolNames[probe] == null) {
+                String symbol = NewOrderMessage.symbol(key);
+                if (symbol != null) {
+                    symbolKeys[probe] = key;
+                    symbolNames[probe] = symbol.intern();
+                }
+                return symbol;
+            }
+            if (symbolKeys[probe] == key) {
+                return symbolNames[probe];
+            }
+        }
+        // Cache full; still correct, just allocates
+        return NewOrderMessage.symbol(key);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        orderManager.removeExecutionListener(this);
+        selector.wakeup();
+        thread.join(5_000);
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Error closing gateway: {}", e.getMessage());
+        }
+    }
+
+    private record Owner(GatewaySession session, long clientOrderId) {
+    }
+}
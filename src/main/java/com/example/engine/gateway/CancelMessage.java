@@ -0,0 +1,42 @@
+package com.example.engine.gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over a cancel frame.
+ * <pre>
+ *   3  i64  client order id, echoed in a reject
+ *  11  i32  engine order id from the new order's ack
+ * </pre>
+ */
+public final class CancelMessage {
+
+    public static final int LENGTH = 15;
+
+    private static final int CLIENT_ORDER_ID_OFFSET = 3;
+    private static final int ORDER_ID_OFFSET = 11;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    public CancelMessage wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long clientOrderId() {
+        return buffer.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+    }
+
+    public int orderId() {
+        return buffer.getInt(offset + ORDER_ID_OFFSET);
+    }
+
+    public static void encode(ByteBuffer buffer, long clientOrderId, int orderId) {
+        buffer.putShort((short) LENGTH)
+                .put(Protocol.CANCEL)
+                .putLong(clientOrderId)
+                .putInt(orderId);
+    }
+}
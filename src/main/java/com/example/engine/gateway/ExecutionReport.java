@@ -0,0 +1,72 @@
+package com.example.engine.gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over an execution report, sent for every fill and for the cancel of an order entered
+ * on the connection.
+ * <pre>
+ *   3  i64  client order id of the order
+ *  11  i32  engine order id
+ *  15  u8   order status after this execution, the ordinal of Order.Status
+ *  16  i64  trade price in ticks, 0 for a cancel
+ *  24  i32  quantity filled by this execution, 0 for a cancel
+ *  28  i32  quantity still open
+ * </pre>
+ */
+public final class ExecutionReport {
+
+    public static final int LENGTH = 32;
+
+    private static final int CLIENT_ORDER_ID_OFFSET = 3;
+    private static final int ORDER_ID_OFFSET = 11;
+    private static final int STATUS_OFFSET = 15;
+    private static final int PRICE_OFFSET = 16;
+    private static final int QUANTITY_OFFSET = 24;
+    private static final int LEAVES_OFFSET = 28;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    public ExecutionReport wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long clientOrderId() {
+        return buffer.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+    }
+
+    public int orderId() {
+        return buffer.getInt(offset + ORDER_ID_OFFSET);
+    }
+
+    public byte status() {
+        return buffer.get(offset + STATUS_OFFSET);
+    }
+
+    public long price() {
+        return buffer.getLong(offset + PRICE_OFFSET);
+    }
+
+    public int quantity() {
+        return buffer.getInt(offset + QUANTITY_OFFSET);
+    }
+
+    public int leavesQuantity() {
+        return buffer.getInt(offset + LEAVES_OFFSET);
+    }
+
+    public static void encode(ByteBuffer buffer, long clientOrderId, int orderId, byte status,
+                              long price, int quantity, int leavesQuantity) {
+        buffer.putShort((short) LENGTH)
+                .put(Protocol.EXECUTION)
+                .putLong(clientOrderId)
+                .putInt(orderId)
+                .put(status)
+                .putLong(price)
+                .putInt(quantity)
+                .putInt(leavesQuantity);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.engine.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One client connection. The receive buffer belongs to the gateway thread; the send
+ * buffer is also written by matching threads reporting executions, so every access to
+ * it holds this session's lock.
+ */
+final class GatewaySession {
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer in;
+    private final ByteBuffer out;
+    // Set while the session waits in the gateway's flush queue, so it is queued at most once
+    final AtomicBoolean flushQueued = new AtomicBoolean();
+    private boolean overflowed;
+    private volatile boolean closed;
+
+    GatewaySession(SocketChannel channel, SelectionKey key, int receiveBufferSize, int sendBufferSize) {
+        this.channel = channel;
+        this.key = key;
+        this.in = ByteBuffer.allocateDirect(receiveBufferSize).order(Protocol.BYTE_ORDER);
+        this.out = ByteBuffer.allocateDirect(sendBufferSize).order(Protocol.BYTE_ORDER);
+    }
+
+    synchronized boolean ack(long clientOrderId, int orderId) {
+        if (!reserve(AckMessage.LENGTH)) {
+            return false;
+        }
+        AckMessage.encode(out, clientOrderId, orderId);
+        return true;
+    }
+
+    synchronized boolean reject(long clientOrderId, byte reason) {
+        if (!reserve(RejectMessage.LENGTH)) {
+            return false;
+        }
+        RejectMessage.encode(out, clientOrderId, reason);
+        return true;
+    }
+
+    synchronized boolean execution(long clientOrderId, int orderId, byte status, long price, int quantity, int leaves) {
+        if (!reserve(ExecutionReport.LENGTH)) {
+            return false;
+        }
+        ExecutionReport.encode(out, clientOrderId, orderId, status, price, quantity, leaves);
+        return true;
+    }
+
+    private boolean reserve(int length) {
+        if (closed || overflowed) {
+            return false;
+        }
+        if (out.remaining() < length) {
+            // A client that stops reading is cut off rather than buffered without bound
+            overflowed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes as much pending output as the socket takes; called on the gateway thread only.
+     *
+     * @return true if output is still pending
+     */
+    synchronized boolean flush() throws IOException {
+        out.flip();
+        try {
+            channel.write(out);
+        } finally {
+            out.compact();
+        }
+        return out.position() > 0;
+    }
+
+    synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with a connection that failed to close
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.engine.gateway;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Measures new-order to ack round trips through the binary gateway over one connection, with one
+ * order in flight at a time. Buys and sells of one lot alternate at one price, so every second
+ * order trades and the book stays small. Only needs the JDK and this package on the class path:
+ * <pre>
+ *   java -cp target/classes com.example.engine.gateway.LoadTestClient \
+ *       [host] [port] [orders] [warmup] [symbol]
+ * </pre>
+ */
+public final class LoadTestClient {
+
+    private static final long PRICE = 10_000;
+
+    private LoadTestClient() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9001;
+        int orders = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        String symbol = args.length > 4 ? args[4] : "LOAD";
+
+        long[] latencies = new long[orders];
+        long elapsed;
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer out = ByteBuffer.allocateDirect(NewOrderMessage.LENGTH).order(Protocol.BYTE_ORDER);
+            ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024).order(Protocol.BYTE_ORDER);
+            AckMessage ack = new AckMessage();
+            long start = System.nanoTime();
+            for (int i = 0; i < warmup + orders; i++) {
+                if (i == warmup) {
+                    start = System.nanoTime();
+                }
+                out.clear();
+                NewOrderMessage.encode(out, i, i % 2 == 0 ? Protocol.SIDE_BUY : Protocol.SIDE_SELL, 1, PRICE, symbol);
+                out.flip();
+                long sent = System.nanoTime();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                awaitAck(channel, in, ack, i);
+                if (i >= warmup) {
+                    latencies[i - warmup] = System.nanoTime() - sent;
+                }
+            }
+            elapsed = System.nanoTime() - start;
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("%d orders in %.1f s (%.0f orders/s)%n", orders, elapsed / 1e9, orders / (elapsed / 1e9));
+        System.out.printf("round trip us: p50 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e3);
+    }
+
+    private static void awaitAck(SocketChannel channel, ByteBuffer in, AckMessage ack, long clientOrderId) throws IOException {
+        while (true) {
+            in.flip();
+            while (in.remaining() >= Protocol.HEADER_LENGTH) {
+                int start = in.position();
+                int length = in.getShort(start + Protocol.LENGTH_OFFSET) & 0xFFFF;
+                if (in.remaining() < length) {
+                    break;
+                }
+                in.position(start + length);
+                byte type = in.get(start + Protocol.TYPE_OFFSET);
+                if (type == Protocol.REJECT) {
+                    throw new IllegalStateException("Order " + clientOrderId + " rejected with reason "
+                            + new RejectMessage().wrap(in, start).reason());
+                }
+                if (type == Protocol.ACK && ack.wrap(in, start).clientOrderId() == clientOrderId) {
+                    in.compact();
+                    return;
+                }
+                // Execution reports are not timed
+            }
+            in.compact();
+            if (channel.read(in) < 0) {
+                throw new EOFException("Gateway closed the connection");
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e3;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.engine.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight over a new-order frame; getters read straight
+ * from the wrapped buffer, so decoding copies nothing.
+ * <pre>
+ *   3  i64  client order id, echoed in acks, rejects and execution reports
+ *  11  u8   side, {@link Protocol#SIDE_BUY} or {@link Protocol#SIDE_SELL}
+ *  12  i32  quantity
+ *  16  i64  limit price in ticks
+ *  24  8    symbol, ASCII padded with zeros
+ * </pre>
+ */
+public final class NewOrderMessage {
+
+    public static final int LENGTH = 32;
+
+    private static final int CLIENT_ORDER_ID_OFFSET = 3;
+    private static final int SIDE_OFFSET = 11;
+    private static final int QUANTITY_OFFSET = 12;
+    private static final int PRICE_OFFSET = 16;
+    private static final int SYMBOL_OFFSET = 24;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    public NewOrderMessage wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long clientOrderId() {
+        return buffer.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+    }
+
+    public byte side() {
+        return buffer.get(offset + SIDE_OFFSET);
+    }
+
+    public int quantity() {
+        return buffer.getInt(offset + QUANTITY_OFFSET);
+    }
+
+    public long price() {
+        return buffer.getLong(offset + PRICE_OFFSET);
+    }
+
+    /**
+     * The symbol's bytes read as one number, for looking it up without building a string.
+     */
+    public long symbolKey() {
+        return buffer.getLong(offset + SYMBOL_OFFSET);
+    }
+
+    public static void encode(ByteBuffer buffer, long clientOrderId, byte side, int quantity, long price, String symbol) {
+        buffer.putShort((short) LENGTH)
+                .put(Protocol.NEW_ORDER)
+                .putLong(clientOrderId)
+                .put(side)
+                .putInt(quantity)
+                .putLong(price)
+                .putLong(symbolKey(symbol));
+    }
+
+    /**
+     * Packs a symbol the way it sits in the frame; throws if it is longer than
+     * {@value Protocol#SYMBOL_LENGTH} bytes or not ASCII.
+     */
+    public static long symbolKey(String symbol) {
+        byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length == 0 || bytes.length > Protocol.SYMBOL_LENGTH || !symbol.equals(new String(bytes, StandardCharsets.US_ASCII))) {
+            throw new IllegalArgumentException("Symbol must be 1 to " + Protocol.SYMBOL_LENGTH + " ASCII characters: " + symbol);
+        }
+        long key = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            key |= (bytes[i] & 0xFFL) << (8 * i);
+        }
+        return key;
+    }
+
+    /**
+     * The symbol for a key from {@link #symbolKey()}, or null if the bytes are not a valid symbol.
+     */
+    public static String symbol(long key) {
+        byte[] bytes = new byte[Protocol.SYMBOL_LENGTH];
+        int length = 0;
+        while (length < bytes.length && (key >>> (8 * length) & 0xFF) != 0) {
+            bytes[length] = (byte) (key >>> (8 * length));
+            if (bytes[length] <= ' ') {
+                return null;
+            }
+            length++;
+        }
+        // Nothing may follow the zero padding
+        if (length == 0 || (length < bytes.length && key >>> (8 * length) != 0)) {
+            return null;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
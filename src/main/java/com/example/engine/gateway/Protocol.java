@@ -0,0 +1,50 @@
+package com.example.engine.gateway;
+
+import java.nio.ByteOrder;
+
+/**
+ * Wire format of the binary order-entry gateway. Every message is a fixed-layout little-endian frame:
+ * <pre>
+ *   0  u16  frame length, header included
+ *   2  u8   message type
+ *   3  ...  body, at the offsets given by each message's flyweight
+ * </pre>
+ * Prices are whole ticks of the symbol's tick size, as everywhere inside the engine.
+ */
+public final class Protocol {
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int LENGTH_OFFSET = 0;
+    public static final int TYPE_OFFSET = 2;
+    public static final int HEADER_LENGTH = 3;
+    // Every client message starts its body with the client's u64 order id
+    public static final int CLIENT_ORDER_ID_OFFSET = HEADER_LENGTH;
+
+    // Client to gateway
+    public static final byte NEW_ORDER = 'N';
+    public static final byte CANCEL = 'C';
+
+    // Gateway to client
+    public static final byte ACK = 'A';
+    public static final byte REJECT = 'J';
+    public static final byte EXECUTION = 'E';
+
+    public static final byte SIDE_BUY = 'B';
+    public static final byte SIDE_SELL = 'S';
+
+    // Reject reasons
+    public static final byte INVALID_MESSAGE = 1;
+    public static final byte UNKNOWN_ORDER = 2;
+    public static final byte ORDER_TERMINAL = 3;
+    public static final byte UNAVAILABLE = 4;
+    // Turned away by intake control; the order was not entered and may be sent again later
+    public static final byte RATE_LIMITED = 5;
+    public static final byte OVERLOADED = 6;
+
+    // Symbols are at most this many ASCII bytes, padded with zeros
+    public static final int SYMBOL_LENGTH = 8;
+
+    private Protocol() {
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.engine.gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over a reject frame.
+ * <pre>
+ *   3  i64  client order id of the rejected message
+ *  11  u8   reason, one of the reject reasons in {@link Protocol}
+ * </pre>
+ */
+public final class RejectMessage {
+
+    public static final int LENGTH = 12;
+
+    private static final int CLIENT_ORDER_ID_OFFSET = 3;
+    private static final int REASON_OFFSET = 11;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    public RejectMessage wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long clientOrderId() {
+        return buffer.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+    }
+
+    public byte reason() {
+        return buffer.get(offset + REASON_OFFSET);
+    }
+
+    public static void encode(ByteBuffer buffer, long clientOrderId, byte reason) {
+        buffer.putShort((short) LENGTH)
+                .put(Protocol.REJECT)
+                .putLong(clientOrderId)
+                .put(reason);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.engine.journal;
+
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.book.LevelSnapshot;
+import com.example.engine.book.OrderBook;
+import com.example.engine.model.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column copy of resting orders, untriggered stops and dead-lettered orders, plus each symbol's last
+ * trade price, written to a snapshot off the matching threads. Resting orders come from the immutable {@link BookSnapshot}s a
+ * shard published at the snapshot barrier, so copying them never pauses matching; only stops, which
+ * those snapshots leave out, are copied on the matching thread. Nothing is shared with the live books.
+ */
+public final class BookImage {
+
+    public static final int MARKET_FLAG = 1 << 2;
+    public static final int DEAD_LETTER_FLAG = 1 << 3;
+
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> symbolIndex = new HashMap<>();
+    private final List<Long> lastTradePrices = new ArrayList<>();
+    private int size;
+    private int[] symbolIds;
+    private int[] ids;
+    private long[] prices;
+    private long[] stopPrices;
+    private byte[] flags;
+    private int[] quantities;
+    private byte[] sides;
+    private byte[] statuses;
+    private long[] timestamps;
+
+    public BookImage(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        symbolIds = new int[capacity];
+        ids = new int[capacity];
+        prices = new long[capacity];
+        stopPrices = new long[capacity];
+        flags = new byte[capacity];
+        quantities = new int[capacity];
+        sides = new byte[capacity];
+        statuses = new byte[capacity];
+        timestamps = new long[capacity];
+    }
+
+    /**
+     * Records a symbol's last trade price; call before adding its orders.
+     */
+    public void addSymbol(String symbol, long lastTradePrice) {
+        lastTradePrices.set(symbolIndex(symbol), lastTradePrice);
+    }
+
+    public void add(Order order) {
+        if (size == ids.length) {
+            grow();
+        }
+        symbolIds[size] = symbolIndex(order.getSymbol());
+        ids[size] = order.getId();
+        prices[size] = order.getPrice();
+        stopPrices[size] = order.getStopPrice();
+        flags[size] = (byte) (order.getTimeInForce().ordinal() | (order.isMarket() ? MARKET_FLAG : 0));
+        quantities[size] = order.getQuantity();
+        sides[size] = (byte) order.getType().ordinal();
+        statuses[size] = (byte) order.getStatus().ordinal();
+        timestamps[size] = order.getTimestamp();
+        size++;
+    }
+
+    /**
+     * Adds an order that is waiting in the dead-letter queue rather than in a book.
+     */
+    public void addDeadLetter(Order order) {
+        add(order);
+        flags[size - 1] |= DEAD_LETTER_FLAG;
+    }
+
+    /**
+     * Adds the resting orders of a published book, each side best level first. Resting orders are
+     * always GTC limits with no stop price, so the level snapshots carry all a snapshot needs.
+     */
+    public void add(BookSnapshot book) {
+        int symbol = symbolIndex(book.getSymbol());
+        for (Order.Type side : Order.Type.values()) {
+            for (int l = 0; l < book.levelCount(side); l++) {
+                LevelSnapshot level = book.level(side, l);
+                for (int i = 0; i < level.size(); i++) {
+                    if (size == ids.length) {
+                        grow();
+                    }
+                    symbolIds[size] = symbol;
+                    ids[size] = level.id(i);
+                    prices[size] = level.getPrice();
+                    stopPrices[size] = 0;
+                    flags[size] = (byte) Order.TimeInForce.GTC.ordinal();
+                    quantities[size] = level.quantity(i);
+                    sides[size] = (byte) side.ordinal();
+                    statuses[size] = (byte) level.status(i).ordinal();
+                    timestamps[size] = level.timestamp(i);
+                    size++;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    public long lastTradePrice(int symbol) {
+        return lastTradePrices.get(symbol);
+    }
+
+    public int symbolId(int i) {
+        return symbolIds[i];
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public long price(int i) {
+        return prices[i];
+    }
+
+    public long stopPrice(int i) {
+        return stopPrices[i];
+    }
+
+    /**
+     * Time in force ordinal in the low bits, plus {@link #MARKET_FLAG} and {@link #DEAD_LETTER_FLAG}.
+     */
+    public byte flags(int i) {
+        return flags[i];
+    }
+
+    public int quantity(int i) {
+        return quantities[i];
+    }
+
+    public byte side(int i) {
+        return sides[i];
+    }
+
+    public byte status(int i) {
+        return statuses[i];
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    private int symbolIndex(String symbol) {
+        return symbolIndex.computeIfAbsent(symbol, s -> {
+            symbols.add(s);
+            lastTradePrices.add(OrderBook.NO_TRADE);
+            return symbols.size() - 1;
+        });
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        stopPrices = Arrays.copyOf(stopPrices, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        sides = Arrays.copyOf(sides, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+}
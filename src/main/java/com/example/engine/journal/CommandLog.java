@@ -0,0 +1,35 @@
+package com.example.engine.journal;
+
+import com.example.engine.model.Order;
+
+/**
+ * Somewhere accepted orders, cancels and amends are written in the order they are handed to the
+ * shards: the {@link OrderJournal}, and the order-flow recorder.
+ */
+public interface CommandLog {
+
+    boolean isEnabled();
+
+    /**
+     * Appends one record. Cancels carry no price or quantity; amends carry the new values and the
+     * timestamp the order is re-queued with if it loses priority.
+     *
+     * @return the log position just past the record
+     */
+    long append(JournalRecord.Kind kind, int orderId, String symbol, Order.Type side, Order.TimeInForce timeInForce,
+                boolean market, long price, long stopPrice, int quantity, long timestamp);
+
+    default long append(JournalRecord.Kind kind, int orderId, String symbol, Order.Type side,
+                        long price, int quantity, long timestamp) {
+        return append(kind, orderId, symbol, side, Order.TimeInForce.GTC, false, price, 0, quantity, timestamp);
+    }
+
+    default long append(JournalRecord.Kind kind, Order order) {
+        return append(kind, order.getId(), order.getSymbol(), order.getType(), order.getTimeInForce(),
+                order.isMarket(), order.getPrice(), order.getStopPrice(), order.getQuantity(), order.getTimestamp());
+    }
+
+    default long append(Order order) {
+        return append(JournalRecord.Kind.NEW_ORDER, order);
+    }
+}
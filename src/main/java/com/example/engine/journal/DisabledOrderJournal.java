@@ -0,0 +1,45 @@
+package com.example.engine.journal;
+
+import com.example.engine.model.Order;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Used when {@code order.journal.enabled} is off: orders live only on the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "order.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class DisabledOrderJournal implements OrderJournal {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public long append(JournalRecord.Kind kind, int orderId, String symbol, Order.Type side,
+                       Order.TimeInForce timeInForce, boolean market, long price, long stopPrice, int quantity,
+                       long timestamp) {
+        return 0;
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+    }
+
+    @Override
+    public long replay(long fromPosition, Consumer<JournalRecord> handler) {
+        return 0;
+    }
+
+    @Override
+    public long getPosition() {
+        return 0;
+    }
+
+    @Override
+    public void truncateBefore(long position) {
+    }
+}
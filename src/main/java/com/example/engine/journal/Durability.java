@@ -0,0 +1,13 @@
+package com.example.engine.journal;
+
+/**
+ * How far an accepted order must get before {@code addOrder} acknowledges it.
+ */
+public enum Durability {
+    /** Written to the mapped segment; the OS decides when pages reach disk. */
+    NONE,
+    /** Written to the mapped segment; the flusher forces it to disk within one flush interval. */
+    ASYNC,
+    /** Acknowledged only after the group commit that forces it to disk. */
+    SYNC
+}
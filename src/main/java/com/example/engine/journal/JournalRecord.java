@@ -0,0 +1,42 @@
+package com.example.engine.journal;
+
+import com.example.engine.model.Order;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One decoded journal entry. Replay reuses a single instance for every record.
+ */
+@Data
+@NoArgsConstructor
+public class JournalRecord {
+
+    private Kind kind;
+    private long position;
+    private int orderId;
+    private String symbol;
+    private long price;
+    private int quantity;
+    private Order.Type side;
+    private Order.TimeInForce timeInForce = Order.TimeInForce.GTC;
+    private boolean market;
+    private long stopPrice;
+    private long timestamp;
+
+    public Order toOrder() {
+        Order order = new Order(orderId, symbol, price, quantity, side, timestamp);
+        order.setTimeInForce(timeInForce);
+        order.setMarket(market);
+        order.setStopPrice(stopPrice);
+        return order;
+    }
+
+    public enum Kind {
+        NEW_ORDER, CANCEL, AMEND,
+        // A new order from a batch whose matching waits for the group's closing NEW_ORDER record
+        BATCH_ORDER,
+        // An order that failed every processing attempt;
+        // replay leaves its earlier records out of the books
+        DEAD_LETTER
+    }
+}
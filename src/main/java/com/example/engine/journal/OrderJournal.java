@@ -0,0 +1,32 @@
+package com.example.engine.journal;
+
+import java.util.function.Consumer;
+
+/**
+ * Write-ahead log of accepted orders, cancels and amends, replayed on startup to rebuild the books.
+ */
+public interface OrderJournal extends CommandLog {
+
+    /**
+     * Blocks until everything up to {@code position} is as durable as the configured
+     * {@link Durability} requires.
+     */
+    void awaitDurable(long position) throws InterruptedException;
+
+    /**
+     * Feeds every intact record at or after {@code fromPosition} to {@code handler}, in append order.
+     *
+     * @return the number of records replayed
+     */
+    long replay(long fromPosition, Consumer<JournalRecord> handler);
+
+    /**
+     * Position the next record will be written at.
+     */
+    long getPosition();
+
+    /**
+     * Deletes whole segments that end at or before {@code position}, once a snapshot covers them.
+     */
+    void truncateBefore(long position);
+}
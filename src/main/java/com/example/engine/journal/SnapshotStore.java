@@ -0,0 +1,284 @@
+package com.example.engine.journal;
+
+import com.example.engine.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Compact binary snapshots of all resting orders, untriggered stops and dead-lettered orders, named
+ * after the journal position they cover.
+ * <p>
+ * Layout, little-endian:
+ * {@code magic, version, journal position, order id counter, section count, sections, magic}, where
+ * each section (one per shard) is {@code symbol table, order count, orders}, each symbol table
+ * entry is {@code symbol, last trade price} and each order is
+ * {@code symbol index, id, price, quantity, side, status, timestamp, stop price, flags}. Version 3
+ * files, which never set {@link BookImage#DEAD_LETTER_FLAG}, and version 2 files, without last trade
+ * prices, stop prices and flags, still load. Files are written to a temporary name, forced and
+ * renamed, so a snapshot is either complete or absent.
+ */
+@Component
+public class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 4;
+    private static final int ORDER_BYTES = 39;
+    private static final int V2_ORDER_BYTES = 30;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int retain;
+    private final Duration interval;
+
+    public SnapshotStore(
+            @Value("${order.snapshot.enabled:false}") boolean enabled,
+            @Value("${order.snapshot.dir:snapshots}") String directory,
+            @Value("${order.snapshot.retain:2}") int retain,
+            @Value("${order.snapshot.interval:5m}") Duration interval
+    ) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.retain = Math.max(1, retain);
+        this.interval = interval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Header of a snapshot file.
+     */
+    public record Snapshot(Path path, long journalPosition, int orderCounter, long orderCount) {
+    }
+
+    public Snapshot write(long journalPosition, int orderCounter, List<BookImage> images) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, journalPosition, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long orderCount = images.stream().mapToLong(BookImage::size).sum();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(journalPosition).putInt(orderCounter);
+            buffer.putInt(images.size());
+            for (BookImage image : images) {
+                ensureWritable(channel, buffer, Integer.BYTES);
+                buffer.putInt(image.symbols().size());
+                for (String symbol : image.symbols()) {
+                    ensureWritable(channel, buffer, Short.BYTES + 2 * symbol.length() + Long.BYTES);
+                    buffer.putShort((short) symbol.length());
+                    for (int i = 0; i < symbol.length(); i++) {
+                        buffer.putChar(symbol.charAt(i));
+                    }
+                }
+                for (int s = 0; s < image.symbols().size(); s++) {
+                    ensureWritable(channel, buffer, Long.BYTES);
+                    buffer.putLong(image.lastTradePrice(s));
+                }
+                ensureWritable(channel, buffer, Integer.BYTES);
+                buffer.putInt(image.size());
+                for (int i = 0; i < image.size(); i++) {
+                    ensureWritable(channel, buffer, ORDER_BYTES);
+                    buffer.putInt(image.symbolId(i)).putInt(image.id(i)).putLong(image.price(i))
+                            .putInt(image.quantity(i)).put(image.side(i)).put(image.status(i)).putLong(image.timestamp(i))
+                            .putLong(image.stopPrice(i)).put(image.flags(i));
+                }
+            }
+            ensureWritable(channel, buffer, Integer.BYTES);
+            buffer.putInt(MAGIC);
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        applyRetention();
+        return new Snapshot(target, journalPosition, orderCounter, orderCount);
+    }
+
+    /**
+     * Streams the orders of the newest complete snapshot to {@code sink}.
+     *
+     * @return its header, or null if there is no snapshot
+     */
+    public Snapshot loadLatest(Consumer<Order> sink) throws IOException {
+        return loadLatest(sink, (symbol, price) -> { });
+    }
+
+    /**
+     * Streams the orders of the newest complete snapshot to {@code sink}, after handing each symbol's
+     * last trade price to {@code lastTradePrices}.
+     *
+     * @return its header, or null if there is no snapshot
+     */
+    public Snapshot loadLatest(Consumer<Order> sink, ObjLongConsumer<String> lastTradePrices) throws IOException {
+        return loadLatest(sink, lastTradePrices, order -> { });
+    }
+
+    /**
+     * Streams the newest complete snapshot like {@link #loadLatest(Consumer, ObjLongConsumer)}, but
+     * hands dead-lettered orders to {@code deadLetters} instead of {@code sink}.
+     *
+     * @return its header, or null if there is no snapshot
+     */
+    public Snapshot loadLatest(Consumer<Order> sink, ObjLongConsumer<String> lastTradePrices,
+            Consumer<Order> deadLetters) throws IOException {
+        List<Path> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        Path path = snapshots.get(snapshots.size() - 1);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            ensureReadable(channel, buffer, 24);
+            int version = buffer.getInt() == MAGIC ? buffer.getInt() : -1;
+            if (version < 2 || version > VERSION) {
+                throw new IOException("Not a version 2 to " + VERSION + " snapshot: " + path);
+            }
+            int orderBytes = version == 2 ? V2_ORDER_BYTES : ORDER_BYTES;
+            long journalPosition = buffer.getLong();
+            int orderCounter = buffer.getInt();
+            int sections = buffer.getInt();
+            long orderCount = 0;
+            for (int section = 0; section < sections; section++) {
+                ensureReadable(channel, buffer, Integer.BYTES);
+                String[] symbols = new String[buffer.getInt()];
+                for (int s = 0; s < symbols.length; s++) {
+                    ensureReadable(channel, buffer, Short.BYTES);
+                    char[] chars = new char[buffer.getShort()];
+                    ensureReadable(channel, buffer, 2 * chars.length);
+                    for (int c = 0; c < chars.length; c++) {
+                        chars[c] = buffer.getChar();
+                    }
+                    symbols[s] = new String(chars);
+                }
+                if (version > 2) {
+                    for (String symbol : symbols) {
+                        ensureReadable(channel, buffer, Long.BYTES);
+                        lastTradePrices.accept(symbol, buffer.getLong());
+                    }
+                }
+                ensureReadable(channel, buffer, Integer.BYTES);
+                int count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    ensureReadable(channel, buffer, orderBytes);
+                    String symbol = symbols[buffer.getInt()];
+                    int id = buffer.getInt();
+                    long price = buffer.getLong();
+                    int quantity = buffer.getInt();
+                    Order.Type side = Order.Type.values()[buffer.get()];
+                    Order.Status status = Order.Status.values()[buffer.get()];
+                    long timestamp = buffer.getLong();
+                    Order order = new Order(id, symbol, price, quantity, side, timestamp);
+                    order.setStatus(status);
+                    byte flags = 0;
+                    if (version > 2) {
+                        order.setStopPrice(buffer.getLong());
+                        flags = buffer.get();
+                        order.setTimeInForce(Order.TimeInForce.values()[flags & 3]);
+                        order.setMarket((flags & BookImage.MARKET_FLAG) != 0);
+                    }
+                    if ((flags & BookImage.DEAD_LETTER_FLAG) != 0) {
+                        deadLetters.accept(order);
+                    } else {
+                        sink.accept(order);
+                    }
+                }
+                orderCount += count;
+            }
+            ensureReadable(channel, buffer, Integer.BYTES);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+            return new Snapshot(path, journalPosition, orderCounter, orderCount);
+        }
+    }
+
+    /**
+     * Journal position covered by the oldest snapshot kept, i.e. where replay may have to start.
+     */
+    public long oldestRetainedPosition() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? 0 : positionOf(snapshots.get(0));
+    }
+
+    private void applyRetention() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - retain; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+            logger.info("Deleted old snapshot {}", snapshots.get(i).getFileName());
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(positionOf(a), positionOf(b)))
+                    .toList();
+        }
+    }
+
+    private static long positionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void ensureWritable(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void ensureReadable(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        buffer.flip();
+    }
+}
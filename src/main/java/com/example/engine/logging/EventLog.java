@@ -0,0 +1,185 @@
+package com.example.engine.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Garbage-free asynchronous logging for hot paths, used like an SLF4J logger:
+ * <pre>
+ *   private static final EventLog events = EventLog.getLog(MyClass.class);
+ *   events.info("Order {} filled at {}").arg(id).arg(price).log();
+ * </pre>
+ * The caller claims a preallocated event in a ring shared by all logs, stores the message pattern
+ * and up to {@value #MAX_ARGS} arguments as primitives or references, and commits it. Nothing is
+ * boxed, formatted or allocated on the calling thread. One background thread hands committed
+ * events to SLF4J in order. If the ring is full the event is dropped and counted rather than
+ * making the caller wait. Reference arguments are read when the event is written out, so pass
+ * only immutable values such as strings and enums.
+ */
+public final class EventLog {
+
+    public static final int MAX_ARGS = 8;
+    private static final int CAPACITY = 1 << 14;
+
+    private static final Ring RING = new Ring(CAPACITY);
+
+    private final Logger logger;
+
+    private EventLog(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static EventLog getLog(Class<?> type) {
+        return new EventLog(LoggerFactory.getLogger(type));
+    }
+
+    public Event info(String pattern) {
+        return logger.isInfoEnabled() ? RING.claim(logger, Level.INFO, pattern) : Event.DISABLED;
+    }
+
+    public Event warn(String pattern) {
+        return logger.isWarnEnabled() ? RING.claim(logger, Level.WARN, pattern) : Event.DISABLED;
+    }
+
+    public Event error(String pattern) {
+        return logger.isErrorEnabled() ? RING.claim(logger, Level.ERROR, pattern) : Event.DISABLED;
+    }
+
+    /**
+     * Events dropped because the ring was full, since startup.
+     */
+    public static long droppedEvents() {
+        return RING.dropped.get();
+    }
+
+    /**
+     * A claimed slot of the ring. Add arguments in pattern
+     * order, then call {@link #log()} exactly once.
+     */
+    public static final class Event {
+
+        static final Event DISABLED = new Event(null);
+        // Marks argument positions holding a primitive
+        private static final Object PRIMITIVE = new Object();
+
+        private final Ring ring;
+        private final long[] primitives = new long[MAX_ARGS];
+        private final Object[] references = new Object[MAX_ARGS];
+        private long sequence;
+        private Logger logger;
+        private Level level;
+        private String pattern;
+        private int argCount;
+
+        private Event(Ring ring) {
+            this.ring = ring;
+        }
+
+        public Event arg(long value) {
+            if (ring != null && argCount < MAX_ARGS) {
+                primitives[argCount] = value;
+                references[argCount++] = PRIMITIVE;
+            }
+            return this;
+        }
+
+        public Event arg(Object value) {
+            if (ring != null && argCount < MAX_ARGS) {
+                references[argCount++] = value;
+            }
+            return this;
+        }
+
+        public void log() {
+            if (ring != null) {
+                ring.commit(this);
+            }
+        }
+
+        private void writeOut() {
+            Object[] args = new Object[argCount];
+            for (int i = 0; i < argCount; i++) {
+                args[i] = references[i] == PRIMITIVE ? (Object) primitives[i] : references[i];
+                references[i] = null;
+            }
+            switch (level) {
+                case ERROR -> logger.error(pattern, args);
+                case WARN -> logger.warn(pattern, args);
+                default -> logger.info(pattern, args);
+            }
+        }
+    }
+
+    private static final class Ring implements Runnable {
+
+        private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final Event[] events;
+        private final int mask;
+        // Sequence of the event each slot holds once committed
+        private final AtomicLongArray committed;
+        private final AtomicLong claimed = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        Ring(int capacity) {
+            this.events = new Event[capacity];
+            this.mask = capacity - 1;
+            this.committed = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                events[i] = new Event(this);
+                committed.set(i, -1);
+            }
+            Thread thread = new Thread(this, "event-log");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Event claim(Logger logger, Level level, String pattern) {
+            long sequence;
+            do {
+                sequence = claimed.get();
+                if (sequence - written.get() >= events.length) {
+                    dropped.incrementAndGet();
+                    return Event.DISABLED;
+                }
+            } while (!claimed.compareAndSet(sequence, sequence + 1));
+            Event event = events[(int) (sequence & mask)];
+            event.sequence = sequence;
+            event.logger = logger;
+            event.level = level;
+            event.pattern = pattern;
+            event.argCount = 0;
+            return event;
+        }
+
+        void commit(Event event) {
+            committed.lazySet((int) (event.sequence & mask), event.sequence);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            while (true) {
+                int index = (int) (next & mask);
+                if (committed.get(index) != next) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    events[index].writeOut();
+                } catch (RuntimeException e) {
+                    // A failing appender must not stop the ring
+                }
+                next++;
+                written.lazySet(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.engine.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per {@link Stage}, plus the count of orders taken in. Recording is safe from
+ * any thread, matching threads included: it takes no lock and allocates nothing.
+ */
+@Component
+public class EngineMetrics {
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final LongAdder ordersReceived = new LongAdder();
+
+    public EngineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     *
+     * @return the current {@link System#nanoTime()}, to chain the next stage from
+     */
+    public long recordSince(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        histograms[stage.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Counts orders accepted at ingress; called on request threads only.
+     */
+    public void ordersReceived(int count) {
+        ordersReceived.add(count);
+    }
+
+    public long getOrdersReceived() {
+        return ordersReceived.sum();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.engine.metrics;
+
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.dto.BookDepth;
+import com.example.engine.dto.EngineStatsResponse;
+import com.example.engine.dto.StageLatency;
+import com.example.engine.model.Order;
+import com.example.engine.service.IntakeControl;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderService;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.trade.TradeRing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine load for {@code /api/engine/stats} and Micrometer. A ticker thread snapshots the stage
+ * histograms and computes per-second rates once a second, so neither scrapes nor stats requests
+ * walk the histograms themselves.
+ * <p>
+ * Micrometer meters, all prefixed {@code engine.}: {@code latency} per stage and
+ * quantile, {@code stage.count}, {@code orders.received}, {@code trades},
+ * {@code orders.rate}, {@code trades.rate}, {@code queue.depth} per shard,
+ * {@code queue.high.watermark}, {@code queue.low.watermark}, {@code orders.rejected}
+ * per reason, {@code dead.letters}, and {@code book.orders}/{@code book.levels} per
+ * side for the first {@code order.metrics.book-symbols} symbols.
+ */
+@Component
+public class EngineStats implements MeterBinder {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final EngineMetrics metrics;
+    private final OrderService orderService;
+    private final OrderManager orderManager;
+    private final TradeRing tradeRing;
+    private final IntakeControl intake;
+    private final int maxBookSymbols;
+    private final ScheduledExecutorService ticker;
+
+    private volatile LatencyHistogram.Snapshot[] latencies;
+    private volatile double ordersPerSecond;
+    private volatile double tradesPerSecond;
+    private long lastOrders;
+    private long lastTrades;
+    private long lastTick = System.nanoTime();
+    // Set once bound; symbols get book meters as they appear
+    private volatile MeterRegistry registry;
+    private int symbolsWithMeters;
+
+    public EngineStats(EngineMetrics metrics, OrderService orderService, OrderManager orderManager, TradeRing tradeRing,
+                       IntakeControl intake, @Value("${order.metrics.book-symbols:100}") int maxBookSymbols) {
+        this.metrics = metrics;
+        this.orderService = orderService;
+        this.orderManager = orderManager;
+        this.tradeRing = tradeRing;
+        this.intake = intake;
+        this.maxBookSymbols = maxBookSymbols;
+        this.latencies = snapshotLatencies();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "engine-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param maxBooks how many of the largest books to list
+     */
+    public EngineStatsResponse snapshot(int maxBooks) {
+        Map<String, StageLatency> latency = new LinkedHashMap<>();
+        LatencyHistogram.Snapshot[] current = latencies;
+        for (Stage stage : Stage.values()) {
+            latency.put(stage.getTag(), StageLatency.fromSnapshot(current[stage.ordinal()]));
+        }
+        List<BookDepth> books = orderManager.getSymbols().stream()
+                .map(symbol -> BookDepth.fromSnapshot(orderManager.getSnapshot(symbol)))
+                .sorted(Comparator.comparingInt((BookDepth book) -> book.getBidOrders() + book.getAskOrders()).reversed())
+                .limit(Math.max(0, maxBooks))
+                .toList();
+        return new EngineStatsResponse(ordersPerSecond, tradesPerSecond, metrics.getOrdersReceived(),
+                tradeRing.getPublishedCount(), orderService.getQueueDepths(), intake.getHighWatermark(),
+                intake.getLowWatermark(), intake.getRateLimitedCount(), intake.getOverloadedCount(),
+                orderService.getDeadLetterCount(), latency, books);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            for (double quantile : QUANTILES) {
+                TimeGauge.builder("engine.latency", this, TimeUnit.NANOSECONDS,
+                                stats -> stats.latencies[stage.ordinal()].percentile(quantile * 100))
+                        .tag("stage", stage.getTag())
+                        .tag("quantile", Double.toString(quantile))
+                        .register(registry);
+            }
+            TimeGauge.builder("engine.latency.max", this, TimeUnit.NANOSECONDS,
+                            stats -> stats.latencies[stage.ordinal()].getMax())
+                    .tag("stage", stage.getTag())
+                    .register(registry);
+            FunctionCounter.builder("engine.stage.count", this, stats -> stats.latencies[stage.ordinal()].getCount())
+                    .tag("stage", stage.getTag())
+                    .register(registry);
+        }
+        FunctionCounter.builder("engine.orders.received", metrics, EngineMetrics::getOrdersReceived).register(registry);
+        FunctionCounter.builder("engine.trades", tradeRing, TradeRing::getPublishedCount).register(registry);
+        Gauge.builder("engine.orders.rate", this, stats -> stats.ordersPerSecond).baseUnit("orders/s").register(registry);
+        Gauge.builder("engine.trades.rate", this, stats -> stats.tradesPerSecond).baseUnit("trades/s").register(registry);
+        int shards = orderService.getQueueDepths().length;
+        for (int shard = 0; shard < shards; shard++) {
+            int index = shard;
+            Gauge.builder("engine.queue.depth", orderService, service -> service.getQueueDepths()[index])
+                    .tag("shard", Integer.toString(shard))
+                    .register(registry);
+        }
+        Gauge.builder("engine.queue.high.watermark", intake, IntakeControl::getHighWatermark).register(registry);
+        Gauge.builder("engine.queue.low.watermark", intake, IntakeControl::getLowWatermark).register(registry);
+        FunctionCounter.builder("engine.orders.rejected", intake, IntakeControl::getRateLimitedCount)
+                .tag("reason", "rate-limited")
+                .register(registry);
+        FunctionCounter.builder("engine.orders.rejected", intake, IntakeControl::getOverloadedCount)
+                .tag("reason", "overloaded")
+                .register(registry);
+        Gauge.builder("engine.dead.letters", orderService, OrderService::getDeadLetterCount).register(registry);
+        this.registry = registry;
+    }
+
+    private void tick() {
+        latencies = snapshotLatencies();
+        long now = System.nanoTime();
+        long orders = metrics.getOrdersReceived();
+        long trades = tradeRing.getPublishedCount();
+        double seconds = (now - lastTick) / 1e9;
+        ordersPerSecond = (orders - lastOrders) / seconds;
+        tradesPerSecond = (trades - lastTrades) / seconds;
+        lastOrders = orders;
+        lastTrades = trades;
+        lastTick = now;
+        registerBookMeters();
+    }
+
+    private void registerBookMeters() {
+        MeterRegistry meters = registry;
+        if (meters == null) {
+            return;
+        }
+        SymbolRegistry symbols = orderManager.getSymbolRegistry();
+        int limit = Math.min(symbols.size(), maxBookSymbols);
+        for (; symbolsWithMeters < limit; symbolsWithMeters++) {
+            String symbol = symbols.symbol(symbolsWithMeters);
+            for (Order.Type side : Order.Type.values()) {
+                String tag = side == Order.Type.BUY ? "bid" : "ask";
+                Gauge.builder("engine.book.orders", orderManager, manager -> orders(manager.getSnapshot(symbol), side))
+                        .tags("symbol", symbol, "side", tag)
+                        .register(meters);
+                Gauge.builder("engine.book.levels", orderManager, manager -> manager.getSnapshot(symbol).levelCount(side))
+                        .tags("symbol", symbol, "side", tag)
+                        .register(meters);
+            }
+        }
+    }
+
+    private static double orders(BookSnapshot snapshot, Order.Type side) {
+        BookDepth depth = BookDepth.fromSnapshot(snapshot);
+        return side == Order.Type.BUY ? depth.getBidOrders() : depth.getAskOrders();
+    }
+
+    private LatencyHistogram.Snapshot[] snapshotLatencies() {
+        LatencyHistogram.Snapshot[] snapshots = new LatencyHistogram.Snapshot[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            snapshots[stage.ordinal()] = metrics.histogram(stage).snapshot();
+        }
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+}
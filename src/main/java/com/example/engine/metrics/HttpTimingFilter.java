@@ -0,0 +1,36 @@
+package com.example.engine.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times REST requests end to end into {@link Stage#HTTP}; compared with {@link Stage#INGRESS} it
+ * shows what request decoding, validation and response encoding cost. Streaming requests are
+ * left out, they last as long as the client stays subscribed.
+ */
+public class HttpTimingFilter extends OncePerRequestFilter {
+
+    private final EngineMetrics metrics;
+
+    public HttpTimingFilter(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                metrics.recordSince(Stage.HTTP, start);
+            }
+        }
+    }
+}
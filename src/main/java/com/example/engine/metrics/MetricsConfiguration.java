@@ -0,0 +1,16 @@
+package com.example.engine.metrics;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<HttpTimingFilter> httpTimingFilter(EngineMetrics metrics) {
+        FilterRegistrationBean<HttpTimingFilter> registration = new FilterRegistrationBean<>(new HttpTimingFilter(metrics));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
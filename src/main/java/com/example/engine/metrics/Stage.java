@@ -0,0 +1,26 @@
+package com.example.engine.metrics;
+
+/**
+ * Steps an order goes through, each with its own latency histogram in {@link EngineMetrics}.
+ */
+public enum Stage {
+    // Whole REST request as the servlet filter sees it, decoding and encoding included
+    HTTP,
+    // OrderService call from request to queued: validation, tick conversion, journal and hand-off
+    INGRESS,
+    // Waiting for room in the shard ring and the ingress
+    // lock that orders journal appends with shard hand-offs
+    LOCK_WAIT,
+    // Waiting for the journal to make a record durable
+    JOURNAL_WAIT,
+    // From order creation until its matching thread picks it up
+    QUEUE_WAIT,
+    // Booking and matching an order (or a batch group) on the matching thread
+    MATCH;
+
+    private final String tag = name().toLowerCase().replace('_', '-');
+
+    public String getTag() {
+        return tag;
+    }
+}
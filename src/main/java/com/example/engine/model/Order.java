@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Data
@@ -14,27 +15,80 @@ public class Order implements Comparable<Order> {
     private static final AtomicInteger COUNTER = new AtomicInteger();
     private int id;
     private String symbol;
-    private double price;
+    // Dense id from SymbolRegistry, stamped at ingress; -1 until then
+    private int symbolId = -1;
+    // Price in ticks of the symbol's tick size, see TickSizeRegistry
+    private long price;
     private int quantity;
     private Type type;
     private long timestamp;
+    private Status status = Status.NEW;
+    private TimeInForce timeInForce = TimeInForce.GTC;
+    // Market orders carry no price of their own (0) and take any price the opposite side offers
+    private boolean market;
+    // Trigger price in ticks of a stop order still waiting
+    // for it; 0 for other orders and once triggered
+    private long stopPrice;
 
-    public Order(String symbol, double price, int quantity, Type type) {
+    public Order(int id, String symbol, long price, int quantity, Type type, long timestamp) {
+        this.id = id;
+        this.symbol = symbol;
+        this.price = price;
+        this.quantity = quantity;
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
+    public Order(String symbol, long price, int quantity, Type type) {
+        this.id = COUNTER.incrementAndGet();
+        this.symbol = symbol;
+        this.price = price;
+        this.quantity = quantity;
+        this.type = type;
+        // Use System.currentTimeMillis() for more readable
+        // timestamps or System.nanoTime() for precision
+        this.timestamp = System.nanoTime();
+    }
+
+    /**
+     * Turns a recycled order into a new one, with a fresh id and timestamp; see {@link OrderPool}.
+     * The id changes first: a reader on another thread that copies the fields and then re-reads the
+     * id behind a load fence sees a new id whenever it saw any new field.
+     */
+    Order reset(String symbol, int symbolId, long price, int quantity, Type type) {
         this.id = COUNTER.incrementAndGet();
+        VarHandle.storeStoreFence();
         this.symbol = symbol;
+        this.symbolId = symbolId;
         this.price = price;
         this.quantity = quantity;
         this.type = type;
-        // Use System.currentTimeMillis() for more readable timestamps or System.nanoTime() for precision
         this.timestamp = System.nanoTime();
+        this.status = Status.NEW;
+        this.timeInForce = TimeInForce.GTC;
+        this.market = false;
+        this.stopPrice = 0;
+        return this;
+    }
+
+    /**
+     * Makes sure ids handed out from now on are above
+     * {@code id}, e.g. after replaying recovered orders.
+     */
+    public static void advanceCounterTo(int id) {
+        COUNTER.accumulateAndGet(id, Math::max);
+    }
+
+    public static int lastIssuedId() {
+        return COUNTER.get();
     }
 
     @Override
     public int compareTo(Order other) {
         // Buy orders: higher price prioritized; Sell orders: lower price prioritized
         int priceComparison = (this.type == Type.BUY)
-                ? Double.compare(other.price, this.price)
-                : Double.compare(this.price, other.price);
+                ? Long.compare(other.price, this.price)
+                : Long.compare(this.price, other.price);
 
         if (priceComparison != 0) {
             return priceComparison;
@@ -46,12 +100,37 @@ public class Order implements Comparable<Order> {
     @Override
     public String toString() {
         return String.format(
-                "Order{id=%d, symbol='%s', price=%.2f, quantity=%d, type=%s}",
-                id, symbol, price, quantity, type
+                "Order{id=%d, symbol='%s', price=%s, quantity=%d, type=%s, timeInForce=%s, status=%s}",
+                id, symbol, market ? "MARKET" : Long.toString(price), quantity, type, timeInForce, status
         );
     }
 
+    public boolean isTerminal() {
+        return status == Status.FILLED || status == Status.CANCELLED;
+    }
+
+    /**
+     * Whether the order may trade at {@code price}: market orders take any price, limit orders
+     * only their own or better.
+     */
+    public boolean acceptsPrice(long price) {
+        return market || (type == Type.BUY ? price <= this.price : price >= this.price);
+    }
+
     public enum Type {
         BUY, SELL
     }
+
+    /**
+     * How long an order's unfilled remainder lives: GTC rests in the book until filled
+     * or cancelled, IOC is cancelled once it has taken what it can, and FOK trades its
+     * whole quantity at once or not at all.
+     */
+    public enum TimeInForce {
+        GTC, IOC, FOK
+    }
+
+    public enum Status {
+        NEW, PARTIALLY_FILLED, FILLED, CANCELLED
+    }
 }
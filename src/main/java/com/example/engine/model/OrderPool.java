@@ -0,0 +1,79 @@
+package com.example.engine.model;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recycles {@link Order} instances so a steady order flow does not keep allocating them. Terminal
+ * orders are released once nothing refers to them any more and handed out again, reset, as new
+ * orders. When empty the pool falls back to allocating; when full released orders are dropped.
+ * A capacity of 0 turns pooling off.
+ * <p>
+ * Acquire and release are short critical sections over a preallocated array, so neither allocates.
+ */
+@Component
+public final class OrderPool {
+
+    private final Order[] free;
+    private int size;
+
+    /**
+     * @param capacity    most idle orders kept for reuse; 0 turns pooling off
+     * @param preallocate orders created up front, so even the first ones come from the pool
+     */
+    public OrderPool(
+            @Value("${order.pool.capacity:0}") int capacity,
+            @Value("${order.pool.preallocate:0}") int preallocate
+    ) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Pool capacity must not be negative: " + capacity);
+        }
+        this.free = new Order[capacity];
+        for (int i = Math.min(capacity, preallocate); i > 0; i--) {
+            free[size++] = new Order();
+        }
+    }
+
+    public boolean isEnabled() {
+        return free.length > 0;
+    }
+
+    /**
+     * A new order with a fresh id and timestamp, recycled if one is available.
+     */
+    public Order acquire(String symbol, int symbolId, long price, int quantity, Order.Type type) {
+        Order order = null;
+        if (free.length > 0) {
+            synchronized (this) {
+                if (size > 0) {
+                    order = free[--size];
+                    free[size] = null;
+                }
+            }
+        }
+        if (order == null) {
+            order = new Order(symbol, price, quantity, type);
+            order.setSymbolId(symbolId);
+            return order;
+        }
+        return order.reset(symbol, symbolId, price, quantity, type);
+    }
+
+    /**
+     * Returns an order for reuse. The caller must hold the only remaining reference to it.
+     */
+    public void release(Order order) {
+        if (free.length == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (size < free.length) {
+                free[size++] = order;
+            }
+        }
+    }
+
+    public synchronized int available() {
+        return size;
+    }
+}
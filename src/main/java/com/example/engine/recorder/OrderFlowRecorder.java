@@ -0,0 +1,402 @@
+package com.example.engine.recorder;
+
+import com.example.engine.journal.CommandLog;
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.model.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Records the inbound command stream, every order, cancel and amend in the order it was handed to
+ * the shards, to a compact binary file for {@link OrderFlowReplay} to run offline. Unlike the
+ * journal it is never truncated and never waited on: records are copied into a buffer, and the
+ * flusher thread writes out full buffers, and once per flush interval the current one, so a crash
+ * loses at most the last interval. Callers never do I/O and never see it fail. If a write fails,
+ * or the file falls {@value #MAX_BUFFERS} buffers behind, recording stops with an error logged
+ * and the file keeps what was written until then.
+ * <p>
+ * Each run writes a new file, {@code order-flow-<epoch millis>.rec}, starting with a 16-byte header
+ * (magic, version, start time in epoch millis). Record layout, little-endian, unpadded:
+ * <pre>
+ *  0 short length
+ *  2 byte  kind
+ *  3 byte  side in bit 0, time in force in bits 1-2, market flag in bit 3, stop flag in bit 4
+ *  4 long  arrival sequence, from 0
+ * 12 int   order id
+ * 16 int   quantity
+ * 20 long  price (ticks)
+ * 28 long  timestamp
+ * 36 long  stop price (ticks), only if the stop flag is set
+ * 36/44 byte[] symbol, UTF-8, to the end of the record
+ * </pre>
+ * Orders turned away by intake control never reach the shards and are not recorded.
+ */
+@Component
+public class OrderFlowRecorder implements CommandLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderFlowRecorder.class);
+
+    static final int MAGIC = 0x574F4C46; // "FLOW"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_SIZE = 16;
+    static final int HEADER_SIZE = 36;
+    private static final int MARKET_FLAG = 1 << 3;
+    private static final int STOP_FLAG = 1 << 4;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    // Buffers filled but not yet written, plus the one being filled; two unless the disk falls behind
+    private static final int MAX_BUFFERS = 16;
+
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final int bufferSize;
+    // Guards the buffers and the sequence; held only to copy a record in
+    private final ReentrantLock lock = new ReentrantLock();
+    // Orders file writes; callers appending never take it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Deque<ByteBuffer> filled = new ArrayDeque<>();
+    private final Deque<ByteBuffer> free = new ArrayDeque<>();
+    private final FileChannel channel;
+    private final Path file;
+    private final Thread flusher;
+    private ByteBuffer buffer;
+    private int allocated;
+    private long sequence;
+    // Set once a write fails; later buffers are dropped so the file never has a gap. Guarded by writeLock
+    private boolean failed;
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    public OrderFlowRecorder(
+            @Value("${order.recorder.enabled:false}") boolean enabled,
+            @Value("${order.recorder.dir:recordings}") String directory,
+            @Value("${order.recorder.buffer:1MB}") DataSize bufferSize,
+            @Value("${order.recorder.flush-interval:1s}") Duration flushInterval
+    ) throws IOException {
+        this.enabled = enabled;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.bufferSize = (int) Math.min(bufferSize.toBytes(), Integer.MAX_VALUE);
+        if (!enabled) {
+            this.channel = null;
+            this.file = null;
+            this.flusher = null;
+            return;
+        }
+        if (bufferSize.toBytes() < 1024 || bufferSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recorder buffer size out of range: " + bufferSize);
+        }
+        long start = System.currentTimeMillis();
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        this.file = dir.resolve("order-flow-" + start + ".rec");
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        // Allocated up front, so that while the disk keeps up appending never allocates
+        this.buffer = takeBuffer();
+        free.add(takeBuffer());
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(start);
+        this.recording = true;
+        this.flusher = new Thread(this::runFlusher, "recorder-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        logger.info("Recording order flow to {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Records nothing; for wiring the engine by hand in tests and tools.
+     */
+    public static OrderFlowRecorder disabled() {
+        try {
+            return new OrderFlowRecorder(false, "", DataSize.ofMegabytes(1), Duration.ofSeconds(1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return whether commands are recorded: false if recording is off, or stopped after a failure
+     */
+    @Override
+    public boolean isEnabled() {
+        return recording;
+    }
+
+    /**
+     * @return the number of records written so far, including this one, or 0 if none was written
+     */
+    @Override
+    public long append(JournalRecord.Kind kind, int orderId, String symbol, Order.Type side,
+                       Order.TimeInForce timeInForce, boolean market, long price, long stopPrice, int quantity,
+                       long timestamp) {
+        if (!recording) {
+            return 0;
+        }
+        byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_SIZE + (stopPrice != 0 ? Long.BYTES : 0) + symbolBytes.length;
+        String stopped = null;
+        lock.lock();
+        try {
+            if (!recording) {
+                return 0;
+            }
+            if (length > Math.min(Short.MAX_VALUE, bufferSize)) {
+                stopped = "a record for symbol " + symbol + " does not fit in a buffer";
+                recording = false;
+                return 0;
+            }
+            if (buffer.remaining() < length) {
+                ByteBuffer next = takeBuffer();
+                if (next == null) {
+                    stopped = "the file is " + MAX_BUFFERS + " buffers behind";
+                    recording = false;
+                    return 0;
+                }
+                filled.add(buffer);
+                buffer = next;
+                LockSupport.unpark(flusher);
+            }
+            buffer.putShort((short) length);
+            buffer.put((byte) kind.ordinal());
+            buffer.put((byte) (side.ordinal() | timeInForce.ordinal() << 1 | (market ? MARKET_FLAG : 0)
+                    | (stopPrice != 0 ? STOP_FLAG : 0)));
+            buffer.putLong(sequence);
+            buffer.putInt(orderId);
+            buffer.putInt(quantity);
+            buffer.putLong(price);
+            buffer.putLong(timestamp);
+            if (stopPrice != 0) {
+                buffer.putLong(stopPrice);
+            }
+            buffer.put(symbolBytes);
+            return ++sequence;
+        } finally {
+            lock.unlock();
+            if (stopped != null) {
+                logger.error("Stopped recording order flow to {}: {}", file, stopped);
+            }
+        }
+    }
+
+    /**
+     * Writes everything recorded so far to the file.
+     */
+    public void flush() {
+        if (enabled) {
+            writeOut(true);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // For tests that make writes fail
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * A free buffer, allocating one if fewer than {@value #MAX_BUFFERS} exist; null if none is left.
+     * Called with the lock held.
+     */
+    private ByteBuffer takeBuffer() {
+        ByteBuffer next = free.poll();
+        if (next == null && allocated < MAX_BUFFERS) {
+            next = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+            allocated++;
+        }
+        return next;
+    }
+
+    /**
+     * Writes the filled buffers, and with {@code current} also what the buffer being filled holds.
+     */
+    private void writeOut(boolean current) {
+        writeLock.lock();
+        try {
+            boolean swapped = false;
+            while (true) {
+                ByteBuffer out;
+                lock.lock();
+                try {
+                    out = filled.poll();
+                    if (out == null && current && !swapped && buffer.position() > 0) {
+                        // With nothing queued every other buffer is free, so this never comes back empty
+                        out = buffer;
+                        buffer = takeBuffer();
+                        swapped = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (out == null) {
+                    return;
+                }
+                write(out);
+                lock.lock();
+                try {
+                    free.add(out);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes one buffer out and clears it; once a write has failed, buffers are only cleared.
+     * Called with the write lock held.
+     */
+    private void write(ByteBuffer out) {
+        out.flip();
+        try {
+            while (!failed && out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException e) {
+            failed = true;
+            recording = false;
+            logger.error("Stopped recording order flow to {}: writing failed", file, e);
+        } finally {
+            out.clear();
+        }
+    }
+
+    private void runFlusher() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            // Woken early when a buffer fills; the current one is only written on the interval
+            boolean interval = System.nanoTime() - nextFlush >= 0;
+            if (interval) {
+                nextFlush = System.nanoTime() + flushIntervalNanos;
+            }
+            try {
+                writeOut(interval);
+            } catch (Exception e) {
+                logger.error("Order flow flush failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        lock.lock();
+        try {
+            recording = false;
+        } finally {
+            lock.unlock();
+        }
+        writeOut(true);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Closing order flow recording failed", e);
+        }
+        logger.info("Recorded {} commands to {}", sequence, file.toAbsolutePath());
+    }
+
+    /**
+     * Feeds every complete record of a recording to {@code handler}, in arrival order. Each record
+     * is a new instance with its arrival sequence as the position, so the handler may keep it.
+     * A record cut short at the end of the file, as after a crash, ends the read.
+     *
+     * @return the number of records read
+     */
+    public static long read(Path file, Consumer<JournalRecord> handler) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.position() < FILE_HEADER_SIZE && channel.read(buffer) >= 0) {
+                // Keep reading until the header is in
+            }
+            buffer.flip();
+            if (buffer.remaining() < FILE_HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an order flow recording: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported order flow recording version " + version + ": " + file);
+            }
+            buffer.getLong();
+            long count = 0;
+            while (true) {
+                if (buffer.remaining() < HEADER_SIZE || buffer.remaining() < buffer.getShort(buffer.position())) {
+                    buffer.compact();
+                    int read = channel.read(buffer);
+                    buffer.flip();
+                    if (read < 0) {
+                        break;
+                    }
+                    continue;
+                }
+                int start = buffer.position();
+                int length = buffer.getShort();
+                if (length < HEADER_SIZE) {
+                    buffer.position(start);
+                    break;
+                }
+                handler.accept(decode(buffer, count, length));
+                buffer.position(start + length);
+                count++;
+            }
+            if (buffer.hasRemaining()) {
+                logger.warn("Ignoring {} bytes of a torn record at the end of {}", buffer.remaining(), file);
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading order flow recording " + file + " failed", e);
+        }
+    }
+
+    private static JournalRecord decode(ByteBuffer buffer, long index, int length) {
+        byte kind = buffer.get();
+        byte flags = buffer.get();
+        int timeInForce = (flags >> 1) & 3;
+        int symbolOffset = HEADER_SIZE + ((flags & STOP_FLAG) != 0 ? Long.BYTES : 0);
+        if (kind < 0 || kind >= JournalRecord.Kind.values().length || timeInForce >= Order.TimeInForce.values().length
+                || length < symbolOffset) {
+            throw new IllegalStateException("Corrupt order flow record after " + index + " records");
+        }
+        JournalRecord record = new JournalRecord();
+        record.setKind(JournalRecord.Kind.values()[kind]);
+        record.setSide(Order.Type.values()[flags & 1]);
+        record.setTimeInForce(Order.TimeInForce.values()[timeInForce]);
+        record.setMarket((flags & MARKET_FLAG) != 0);
+        record.setPosition(buffer.getLong());
+        record.setOrderId(buffer.getInt());
+        record.setQuantity(buffer.getInt());
+        record.setPrice(buffer.getLong());
+        record.setTimestamp(buffer.getLong());
+        record.setStopPrice(symbolOffset > HEADER_SIZE ? buffer.getLong() : 0);
+        byte[] symbol = new byte[length - symbolOffset];
+        buffer.get(symbol);
+        record.setSymbol(new String(symbol, StandardCharsets.UTF_8));
+        return record;
+    }
+}
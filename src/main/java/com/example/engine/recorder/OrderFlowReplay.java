@@ -0,0 +1,164 @@
+package com.example.engine.recorder;
+
+import com.example.engine.book.BookSide;
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.metrics.LatencyHistogram;
+import com.example.engine.model.Order;
+import com.example.engine.service.CommandReplayer;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.trade.Trade;
+import com.example.engine.trade.TradeRing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Runs a recorded command stream against a fresh {@link OrderManager} on the calling thread, as
+ * fast as it goes, applying each command through {@link CommandReplayer} as journal recovery does.
+ * The recording is read into memory first, so the run measures matching only.
+ * <p>
+ * Every run digests the trade sequence (everything but the trades' wall-clock timestamps) and
+ * the final books, resting and stop orders in priority order, so two runs of one recording can be
+ * checked for identical results.
+ */
+public final class OrderFlowReplay {
+
+    private static final int TRADE_RING_CAPACITY = 1 << 16;
+
+    private final List<JournalRecord> commands;
+    private final int symbolCount;
+
+    public OrderFlowReplay(List<JournalRecord> commands) {
+        this.commands = commands;
+        Set<String> symbols = new TreeSet<>();
+        for (JournalRecord command : commands) {
+            symbols.add(command.getSymbol());
+        }
+        this.symbolCount = symbols.size();
+    }
+
+    public static OrderFlowReplay load(Path recording) {
+        List<JournalRecord> commands = new ArrayList<>();
+        OrderFlowRecorder.read(recording, commands::add);
+        return new OrderFlowReplay(commands);
+    }
+
+    public int getCommandCount() {
+        return commands.size();
+    }
+
+    public Result run() {
+        TradeRing tradeRing = new TradeRing(TRADE_RING_CAPACITY);
+        OrderManager orderManager = new OrderManager(tradeRing, new SymbolRegistry(Math.max(symbolCount, 1), ""));
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+        Trade trade = new Trade();
+        Digest trades = new Digest();
+        LatencyHistogram latencies = new LatencyHistogram();
+        CommandReplayer replayer = new CommandReplayer(orderManager);
+        commands.forEach(replayer::scan);
+        long elapsed = 0;
+        for (JournalRecord command : commands) {
+            long start = System.nanoTime();
+            replayer.apply(command);
+            long took = System.nanoTime() - start;
+            latencies.record(took);
+            elapsed += took;
+            // Drained after every command, outside the timing, so the ring never laps the digest
+            digestTrades(cursor, trade, trades);
+            if (cursor.getMissed() > 0) {
+                throw new IllegalStateException("Command " + command.getPosition() + " traded more than "
+                        + TRADE_RING_CAPACITY + " times");
+            }
+        }
+        // A batch cut off at the end of the recording never reached its matching record
+        long start = System.nanoTime();
+        replayer.finish();
+        elapsed += System.nanoTime() - start;
+        digestTrades(cursor, trade, trades);
+        return new Result(commands.size(), tradeRing.getPublishedCount(), elapsed, latencies.snapshot(),
+                trades.hex(), digestBooks(orderManager));
+    }
+
+    private static void digestTrades(TradeRing.Cursor cursor, Trade trade, Digest digest) {
+        while (cursor.poll(trade)) {
+            digest.put(trade.getSequence()).put(trade.getSymbol()).put(trade.getPrice()).put(trade.getQuantity())
+                    .put(trade.getAggressor().ordinal()).put(trade.getBuyOrderId()).put(trade.getSellOrderId());
+        }
+    }
+
+    /**
+     * Digest of the resting and stop orders of every book; also usable on the live engine's books
+     * once it is idle, to check a replay against them.
+     */
+    static String digestBooks(OrderManager orderManager) {
+        Digest books = new Digest();
+        for (String symbol : new TreeSet<>(orderManager.getSymbols())) {
+            books.put(symbol).put(orderManager.getLastTradePrice(symbol));
+            digestSide(books, orderManager.getBuyOrders(symbol));
+            digestSide(books, orderManager.getSellOrders(symbol));
+            digestSide(books, orderManager.getStopOrders(symbol, Order.Type.BUY));
+            digestSide(books, orderManager.getStopOrders(symbol, Order.Type.SELL));
+        }
+        return books.hex();
+    }
+
+    private static void digestSide(Digest digest, BookSide side) {
+        digest.put(side.size());
+        for (Order order : side) {
+            digest.put(order.getId()).put(order.getPrice()).put(order.getQuantity()).put(order.getTimestamp());
+        }
+    }
+
+    /**
+     * Outcome of one run. Latencies are per command, in nanoseconds.
+     */
+    public record Result(long commands, long trades, long elapsedNanos, LatencyHistogram.Snapshot latency,
+                         String tradeDigest, String bookDigest) {
+
+        public double commandsPerSecond() {
+            return commands / (elapsedNanos / 1e9);
+        }
+
+        public boolean sameOutcome(Result other) {
+            return tradeDigest.equals(other.tradeDigest) && bookDigest.equals(other.bookDigest);
+        }
+    }
+
+    private static final class Digest {
+        private final MessageDigest sha;
+        private final ByteBuffer scratch = ByteBuffer.allocate(Long.BYTES);
+
+        Digest() {
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Digest put(long value) {
+            sha.update(scratch.clear().putLong(value).array());
+            return this;
+        }
+
+        Digest put(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            put(bytes.length);
+            sha.update(bytes);
+            return this;
+        }
+
+        String hex() {
+            return HexFormat.of().formatHex(sha.digest());
+        }
+    }
+}
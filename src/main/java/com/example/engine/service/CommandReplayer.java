@@ -0,0 +1,145 @@
+package com.example.engine.service;
+
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.model.Order;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Applies journaled or recorded commands to an {@link OrderManager} the way the matching shards
+ * applied them live, one record at a time in append order. A batch's orders are booked without
+ * matching and the book is crossed once its closing record arrives, as the shard did after the
+ * whole group.
+ * <p>
+ * An order that was dead-lettered never reached its book, but its DEAD_LETTER record is appended
+ * after the order's own record. So when the records are first passed to {@link #scan}, orders are
+ * left out up to their last DEAD_LETTER record. A dead-lettered order that was replayed comes back as
+ * a later NEW_ORDER record and is applied then.
+ */
+public final class CommandReplayer {
+
+    private final OrderManager orderManager;
+    private final Consumer<Order> accepted;
+    // Symbol of the batch whose closing record is still to come, if any
+    private String openBatch;
+    // Position of each order's last DEAD_LETTER record, from scan()
+    private final Map<Integer, Long> deadLetteredAt = new HashMap<>();
+    // Orders dead-lettered and neither replayed nor discarded since, by id
+    private final Map<Integer, Order> deadLettered = new LinkedHashMap<>();
+
+    /**
+     * @param accepted gets every new order before it reaches the
+     *                 book, as the live order map did on intake
+     */
+    public CommandReplayer(OrderManager orderManager, Consumer<Order> accepted) {
+        this.orderManager = orderManager;
+        this.accepted = accepted;
+    }
+
+    public CommandReplayer(OrderManager orderManager) {
+        this(orderManager, order -> { });
+    }
+
+    /**
+     * Notes where orders were dead-lettered; call for every record before applying any of them.
+     */
+    public void scan(JournalRecord record) {
+        if (record.getKind() == JournalRecord.Kind.DEAD_LETTER) {
+            deadLetteredAt.put(record.getOrderId(), record.getPosition());
+        }
+    }
+
+    /**
+     * Restores an order the snapshot replay starts from had dead-lettered, so later records replay or
+     * discard it as they would one dead-lettered in the journal; call before applying any record.
+     */
+    public void restoreDeadLettered(Order order) {
+        deadLettered.put(order.getId(), order);
+    }
+
+    public void apply(JournalRecord record) {
+        String symbol = record.getSymbol();
+        JournalRecord.Kind kind = record.getKind();
+        if (kind == JournalRecord.Kind.DEAD_LETTER) {
+            // Appended by the shard outside the ingress lock, so it may fall between a batch's records
+            deadLettered.put(record.getOrderId(), record.toOrder());
+            return;
+        }
+        boolean inBatch = symbol.equals(openBatch) && (kind == JournalRecord.Kind.BATCH_ORDER || kind == JournalRecord.Kind.NEW_ORDER);
+        if (!inBatch) {
+            finish();
+        }
+        switch (kind) {
+            case NEW_ORDER -> {
+                Order order = accept(record);
+                if (inBatch) {
+                    if (order != null) {
+                        book(order);
+                    }
+                    orderManager.matchOrders(symbol);
+                    openBatch = null;
+                } else if (order != null) {
+                    orderManager.matchIncoming(order);
+                }
+            }
+            case BATCH_ORDER -> {
+                Order order = accept(record);
+                if (order != null) {
+                    book(order);
+                }
+                openBatch = symbol;
+            }
+            case CANCEL -> {
+                deadLettered.remove(record.getOrderId());
+                orderManager.cancelOrder(symbol, record.getOrderId());
+            }
+            case AMEND -> orderManager.amendOrder(symbol, record.getOrderId(), record.getPrice(), record.getQuantity(),
+                    record.getTimestamp());
+        }
+    }
+
+    /**
+     * Orders dead-lettered at the end of the records, oldest id first; call after {@link #finish}.
+     */
+    public Collection<Order> getDeadLettered() {
+        return new TreeMap<>(deadLettered).values();
+    }
+
+    /**
+     * @return the new order, or null if it was dead-lettered later on
+     */
+    private Order accept(JournalRecord record) {
+        Long deadLettered = deadLetteredAt.get(record.getOrderId());
+        if (deadLettered != null && record.getPosition() < deadLettered) {
+            return null;
+        }
+        this.deadLettered.remove(record.getOrderId());
+        Order order = record.toOrder();
+        accepted.accept(order);
+        return order;
+    }
+
+    /**
+     * Crosses the book of a batch torn off before its closing record, as by a crash mid-append.
+     */
+    public void finish() {
+        if (openBatch != null) {
+            orderManager.matchOrders(openBatch);
+            openBatch = null;
+        }
+    }
+
+    private void book(Order order) {
+        // Orders that cannot rest as they are match on arrival even within a batch
+        if (order.isMarket() || order.getTimeInForce() != Order.TimeInForce.GTC || order.getStopPrice() != 0) {
+            orderManager.matchIncoming(order);
+        } else {
+            orderManager.addOrder(order);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.engine.service;
+
+import com.example.engine.model.Order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Orders that failed every processing attempt, kept by order id, oldest first, until an operator
+ * replays or discards them. Matching shards add; admin requests list and take. Dead-lettered orders
+ * stay working orders meanwhile: they are neither in a book nor recycled.
+ */
+public class DeadLetterQueue {
+
+    private final ConcurrentSkipListMap<Integer, DeadLetter> letters = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param attempts      processing attempts made, all failed
+     * @param error         the last attempt's failure
+     * @param deadLetteredAt epoch millis
+     */
+    public record DeadLetter(Order order, int attempts, String error, long deadLetteredAt) {
+    }
+
+    void add(DeadLetter letter) {
+        letters.put(letter.order().getId(), letter);
+    }
+
+    /**
+     * Up to {@code limit} letters with ids above {@code afterId}, for one symbol or, if null, all.
+     */
+    public List<DeadLetter> list(String symbol, int afterId, int limit) {
+        List<DeadLetter> page = new ArrayList<>();
+        for (DeadLetter letter : letters.tailMap(afterId, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (symbol == null || symbol.equals(letter.order().getSymbol())) {
+                page.add(letter);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Removes and returns up to {@code limit} letters: those with the given ids if any
+     * are given, otherwise the oldest for {@code symbol} (or any symbol if null). Each
+     * letter is taken by one caller only.
+     */
+    List<DeadLetter> take(String symbol, Collection<Integer> ids, int limit) {
+        List<DeadLetter> taken = new ArrayList<>();
+        if (ids != null && !ids.isEmpty()) {
+            for (int id : ids) {
+                if (taken.size() == limit) {
+                    break;
+                }
+                DeadLetter letter = letters.remove(id);
+                if (letter != null) {
+                    taken.add(letter);
+                }
+            }
+            return taken;
+        }
+        for (DeadLetter letter : letters.values()) {
+            if (taken.size() == limit) {
+                break;
+            }
+            if ((symbol == null || symbol.equals(letter.order().getSymbol()))
+                    && letters.remove(letter.order().getId(), letter)) {
+                taken.add(letter);
+            }
+        }
+        return taken;
+    }
+
+    public int size() {
+        return letters.size();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.engine.service;
+
+import com.example.engine.model.Order;
+
+/**
+ * Told about every fill and cancel, on the matching thread of the order's symbol, so it
+ * must not block. The order must not be kept past the call: with off-heap books a
+ * resting order is a reused view.
+ */
+public interface ExecutionListener {
+
+    /**
+     * @param order    the order after the fill, with its remaining quantity and new status
+     * @param price    trade price in ticks
+     * @param quantity quantity filled by this trade
+     */
+    void onFill(Order order, long price, int quantity);
+
+    void onCancel(Order order);
+}
@@ -0,0 +1,147 @@
+package com.example.engine.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for new orders, checked before an order gets an id, so rejected orders cost
+ * neither journal space nor shard time. Cancels and amends are never turned away: they only take
+ * load off the book.
+ * <ul>
+ *   <li>Queue watermarks: once a shard's ring holds {@code order.intake.high-watermark} items, new
+ *   orders for its symbols are rejected as {@link OrderRejectedException.Reason#OVERLOADED} until it
+ *   has drained to {@code order.intake.low-watermark}. Queue wait is then bounded by the high
+ *   watermark over the shard's matching rate instead of growing with the backlog.</li>
+ *   <li>Per-symbol rate limit: a token bucket of {@code order.intake.symbol-burst} tokens refilled at
+ *   {@code order.intake.symbol-rate} per second; orders without a token are rejected as
+ *   {@link OrderRejectedException.Reason#RATE_LIMITED}, with the time until the next token.</li>
+ * </ul>
+ * Both are off at 0. The bucket is kept as a single theoretical arrival time per symbol id (the
+ * generic cell rate algorithm), so admitting an order is one CAS and allocates nothing.
+ */
+@Component
+public class IntakeControl {
+
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final long overloadRetryMillis;
+    // Nanoseconds per token, and how far ahead of now the bucket may be booked; 0 when unlimited
+    private final long emissionNanos;
+    private final long burstNanos;
+    // Per symbol id: when the bucket will be full again, in nanos since construction
+    private final AtomicLongArray theoreticalArrival;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+
+    /**
+     * @param symbolRate    orders per second admitted per symbol; 0 turns rate limiting off
+     * @param symbolBurst   orders a symbol may send at once after
+     *                      being idle; 0 means one second's worth
+     * @param highWatermark shard queue depth at which new orders are rejected; 0 turns shedding off
+     * @param lowWatermark  shard queue depth at which new orders are accepted again
+     * @param retryAfter    retry hint given with overload rejections
+     */
+    @Autowired
+    public IntakeControl(
+            SymbolRegistry symbols,
+            @Value("${order.intake.symbol-rate:0}") int symbolRate,
+            @Value("${order.intake.symbol-burst:0}") int symbolBurst,
+            @Value("${order.intake.high-watermark:0}") int highWatermark,
+            @Value("${order.intake.low-watermark:0}") int lowWatermark,
+            @Value("${order.intake.retry-after:1s}") Duration retryAfter
+    ) {
+        this(symbols.getCapacity(), symbolRate, symbolBurst, highWatermark, lowWatermark, retryAfter, System::nanoTime);
+    }
+
+    IntakeControl(int symbolCapacity, int symbolRate, int symbolBurst, int highWatermark, int lowWatermark,
+                  Duration retryAfter, LongSupplier nanoClock) {
+        if (symbolRate < 0 || symbolBurst < 0) {
+            throw new IllegalArgumentException("Symbol rate and burst must not be negative: " + symbolRate + ", " + symbolBurst);
+        }
+        if (highWatermark < 0 || (highWatermark > 0 && (lowWatermark < 0 || lowWatermark >= highWatermark))) {
+            throw new IllegalArgumentException("Low watermark must be below the high watermark: "
+                    + lowWatermark + ", " + highWatermark);
+        }
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.overloadRetryMillis = retryAfter.toMillis();
+        this.emissionNanos = symbolRate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / symbolRate;
+        this.burstNanos = emissionNanos * (symbolBurst == 0 ? symbolRate : symbolBurst);
+        this.theoreticalArrival = symbolRate == 0 ? null : new AtomicLongArray(symbolCapacity);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * Admits every order; for wiring the engine by hand in tests and tools.
+     */
+    public static IntakeControl unlimited() {
+        return new IntakeControl(0, 0, 0, 0, 0, Duration.ZERO, System::nanoTime);
+    }
+
+    /**
+     * Admits one new order for the symbol, or throws.
+     *
+     * @param shard the shard the symbol's orders go to
+     * @throws OrderRejectedException if the shard is overloaded or the symbol is over its rate
+     */
+    public void admit(int symbolId, String symbol, MatchingShard shard) {
+        if (highWatermark > 0 && shard.isShedding(highWatermark, lowWatermark)) {
+            overloaded.increment();
+            throw new OrderRejectedException(OrderRejectedException.Reason.OVERLOADED,
+                    "Engine overloaded, shard " + shard.getIndex() + " queue is above " + highWatermark, overloadRetryMillis);
+        }
+        if (theoreticalArrival != null) {
+            long waitNanos = takeToken(symbolId);
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                throw new OrderRejectedException(OrderRejectedException.Reason.RATE_LIMITED,
+                        "Symbol " + symbol + " is over its rate limit", Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            }
+        }
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    private long takeToken(int symbolId) {
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long arrival = theoreticalArrival.get(symbolId);
+            long next = Math.max(arrival, now) + emissionNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(symbolId, arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    public long getOverloadedCount() {
+        return overloaded.sum();
+    }
+}
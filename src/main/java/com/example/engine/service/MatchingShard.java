@@ -0,0 +1,241 @@
+package com.example.engine.service;
+
+import com.example.engine.concurrent.MpscRingBuffer;
+import com.example.engine.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A single matching thread fed by its own bounded ring. Every symbol hashed to this shard is
+ * only ever touched by this thread, so books need no locks and orders for one symbol are
+ * processed exactly in the order they were submitted.
+ */
+public class MatchingShard implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchingShard.class);
+
+    private static final int SPIN_TRIES = 1_000;
+    private static final int YIELD_TRIES = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Upper bound on items processed between drain callbacks while the ring never empties
+    private static final int MAX_DRAIN_BATCH = 256;
+    // Resolution of scheduled tasks; the idle loop never parks longer than this either
+    private static final long TIMER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int TIMER_SLOTS = 1024;
+
+    private final int index;
+    // Holds orders, or Runnables that must run on this shard in sequence with them
+    private final MpscRingBuffer<Object> ring;
+    private final Consumer<Order> handler;
+    private final Runnable onDrain;
+    private final Thread thread;
+    // Delayed tasks; only touched by the shard thread
+    private final TimerWheel timers = new TimerWheel(TIMER_TICK_NANOS, TIMER_SLOTS, System.nanoTime());
+    private final Consumer<Runnable> timerRunner = this::runTimer;
+
+    private volatile boolean running = true;
+    private volatile boolean sleeping;
+    // Set from reaching the intake high watermark until drained to the low one
+    private volatile boolean shedding;
+
+    public MatchingShard(int index, int ringCapacity, Consumer<Order> handler) {
+        this(index, ringCapacity, handler, () -> { });
+    }
+
+    /**
+     * @param onDrain runs on the shard thread once the ring is drained, or after every
+     *                {@value #MAX_DRAIN_BATCH} items if it never is, to publish batched results
+     */
+    public MatchingShard(int index, int ringCapacity, Consumer<Order> handler, Runnable onDrain) {
+        this.index = index;
+        this.ring = new MpscRingBuffer<>(ringCapacity);
+        this.handler = handler;
+        this.onDrain = onDrain;
+        this.thread = new Thread(this, "matching-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Hands an order to the shard, waiting for ring space if the shard has fallen behind.
+     */
+    public void submit(Order order) throws InterruptedException {
+        publish(order);
+    }
+
+    /**
+     * Runs a task on the shard thread after everything submitted before it.
+     */
+    public void execute(Runnable task) throws InterruptedException {
+        publish(task);
+    }
+
+    /**
+     * Runs a task on the shard thread once {@code delayNanos} have passed, without holding up
+     * anything queued meanwhile. Only call this from the shard thread itself.
+     */
+    public void schedule(Runnable task, long delayNanos) {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("Tasks can only be scheduled from shard " + index + "'s own thread");
+        }
+        timers.schedule(task, System.nanoTime() + delayNanos);
+    }
+
+    /**
+     * Waits, holding nothing, until the ring has room for {@code slots} more items.
+     */
+    void awaitCapacity(int slots) throws InterruptedException {
+        while (!hasCapacity(slots)) {
+            if (!running) {
+                throw new IllegalStateException("Matching shard " + index + " is stopped");
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Whether {@code slots} more items fit in the ring right now. Only the shard thread frees space,
+     * so the answer holds for a caller that excludes the other producers; a request larger than the
+     * ring counts as fitting once the ring is empty.
+     */
+    boolean hasCapacity(int slots) {
+        return ring.capacity() - ring.size() >= Math.min(slots, ring.capacity());
+    }
+
+    /**
+     * Hands an order or a task to the shard; used where the caller already holds either.
+     */
+    void publish(Object item) throws InterruptedException {
+        while (!ring.offer(item)) {
+            if (!running) {
+                throw new IllegalStateException("Matching shard " + index + " is stopped");
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.yield();
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        int batch = 0;
+        while (running) {
+            if (timers.size() > 0) {
+                int ran = timers.advance(System.nanoTime(), timerRunner);
+                if (ran > 0) {
+                    idle = 0;
+                    batch += ran;
+                }
+            }
+            Object item = ring.poll();
+            if (item != null) {
+                idle = 0;
+                try {
+                    if (item instanceof Order order) {
+                        handler.accept(order);
+                    } else {
+                        ((Runnable) item).run();
+                    }
+                } catch (Exception e) {
+                    logger.error("Unexpected processing error on shard {}", index, e);
+                }
+                if (++batch >= MAX_DRAIN_BATCH) {
+                    batch = 0;
+                    drained();
+                }
+            } else {
+                if (batch > 0) {
+                    batch = 0;
+                    drained();
+                }
+                idle = idle(idle);
+            }
+        }
+        logger.info("Matching shard {} stopped with {} pending orders", index, ring.size());
+    }
+
+    private void runTimer(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            logger.error("Scheduled task failed on shard {}", index, e);
+        }
+    }
+
+    private void drained() {
+        try {
+            onDrain.run();
+        } catch (Exception e) {
+            logger.error("Drain callback failed on shard {}", index, e);
+        }
+    }
+
+    private int idle(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            sleeping = true;
+            // Re-check after advertising that we sleep so a concurrent submit cannot be missed
+            if (ring.isEmpty()) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            sleeping = false;
+            return idle;
+        }
+        return idle + 1;
+    }
+
+    public void stop(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(unit.toMillis(timeout));
+    }
+
+    /**
+     * Whether new orders should be turned away: from when the queue reaches {@code high} items until
+     * it has drained to {@code low}, so intake does not flap around a single threshold. Called by
+     * producers; racing updates only move the switch a little early or late.
+     */
+    public boolean isShedding(int high, int low) {
+        int depth = ring.size();
+        if (shedding) {
+            if (depth <= low) {
+                shedding = false;
+                logger.info("Shard {} drained to {} queued items, accepting new orders again", index, depth);
+            }
+        } else if (depth >= high) {
+            shedding = true;
+            logger.warn("Shard {} has {} queued items, rejecting new orders until it drains to {}", index, depth, low);
+        }
+        return shedding;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getQueueDepth() {
+        return ring.size();
+    }
+
+    public int getCapacity() {
+        return ring.capacity();
+    }
+}
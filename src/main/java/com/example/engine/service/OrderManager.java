@@ -1,76 +1,491 @@
 package com.example.engine.service;
 
+import com.example.engine.book.BookSide;
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.book.BookStorage;
+import com.example.engine.book.HeapOrderStore;
+import com.example.engine.book.OffHeapOrderStore;
+import com.example.engine.book.OrderBook;
+import com.example.engine.book.OrderStore;
+import com.example.engine.book.PriceLevel;
+import com.example.engine.concurrent.ConcurrentIntLongMap;
 import com.example.engine.model.Order;
+import com.example.engine.trade.TradeRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
+/**
+ * Holds the books of every symbol in an array indexed by {@link SymbolRegistry} id. Each symbol
+ * must only be mutated by a single thread (its matching shard), so book operations take no locks;
+ * the array slots are atomic only so other threads see a book once its shard opened it.
+ * <p>
+ * With {@link BookStorage#OFF_HEAP} storage books copy resting orders into direct memory, and the
+ * order objects are handed back through the resting listener for reuse. Other threads then find
+ * resting orders through {@link #findResting(int)}.
+ */
 @Component
 public class OrderManager {
 
-    private final Map<String, PriorityQueue<Order>> buyOrders = new ConcurrentHashMap<>();
-    private final Map<String, PriorityQueue<Order>> sellOrders = new ConcurrentHashMap<>();
-    private final Map<String, ReentrantLock> symbolLocks = new ConcurrentHashMap<>();
+    // Amend values that leave the order's current price or quantity as it is when the amend runs
+    public static final long KEEP_PRICE = -1;
+    public static final int KEEP_QUANTITY = 0;
 
+    private final SymbolRegistry symbols;
+    private final AtomicReferenceArray<OrderBook> books;
+    private final TradeRing tradeRing;
+    private final BookStorage storage;
+    private final int chunkSlots;
+    // Where each off-heap resting order sits; null for heap books
+    private final ConcurrentIntLongMap restingDirectory;
+    private volatile Consumer<Order> terminalListener = order -> { };
+    private volatile Consumer<Order> restingListener = order -> { };
+    // Copied on change so the matching loop iterates without allocating
+    private volatile ExecutionListener[] executionListeners = new ExecutionListener[0];
+
+    public OrderManager(TradeRing tradeRing, SymbolRegistry symbols) {
+        this(tradeRing, symbols, BookStorage.HEAP, 0);
+    }
+
+    /**
+     * @param chunkSlots order slots per chunk of direct memory, for off-heap storage
+     */
+    @Autowired
+    public OrderManager(TradeRing tradeRing, SymbolRegistry symbols,
+                        @Value("${order.book.storage:HEAP}") BookStorage storage,
+                        @Value("${order.book.off-heap.chunk-slots:4096}") int chunkSlots) {
+        this.tradeRing = tradeRing;
+        this.symbols = symbols;
+        this.books = new AtomicReferenceArray<>(symbols.getCapacity());
+        this.storage = storage;
+        this.chunkSlots = chunkSlots;
+        this.restingDirectory = storage == BookStorage.OFF_HEAP ? new ConcurrentIntLongMap() : null;
+    }
+
+    public BookStorage getStorage() {
+        return storage;
+    }
+
+    public SymbolRegistry getSymbolRegistry() {
+        return symbols;
+    }
+
+    /**
+     * Called on the matching thread whenever an order leaves the book filled or cancelled.
+     */
+    public void setTerminalListener(Consumer<Order> terminalListener) {
+        this.terminalListener = terminalListener;
+    }
+
+    /**
+     * Called on the matching thread when an order comes to rest in a book that copied it off the
+     * heap. The book no longer refers to the order object, so it can be reused.
+     */
+    public void setRestingListener(Consumer<Order> restingListener) {
+        this.restingListener = restingListener;
+    }
+
+    public synchronized void addExecutionListener(ExecutionListener listener) {
+        ExecutionListener[] listeners = Arrays.copyOf(executionListeners, executionListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        executionListeners = listeners;
+    }
+
+    public synchronized void removeExecutionListener(ExecutionListener listener) {
+        executionListeners = Arrays.stream(executionListeners)
+                .filter(l -> l != listener)
+                .toArray(ExecutionListener[]::new);
+    }
+
+    /**
+     * Books the order without matching it; a stop order goes into its side's trigger index.
+     */
     public void addOrder(Order order) {
-        ReentrantLock lock = symbolLocks.computeIfAbsent(order.getSymbol(), s -> new ReentrantLock());
-        lock.lock();
-        try {
-            PriorityQueue<Order> queue = getQueue(order.getSymbol(), order.getType());
-            queue.offer(order);
-        } finally {
-            lock.unlock();
+        OrderBook book = openBook(order);
+        if (order.getStopPrice() != 0) {
+            book.addStop(order);
+        } else {
+            rest(book, order);
+        }
+    }
+
+    private void rest(OrderBook book, Order order) {
+        book.add(order);
+        if (!book.orders().retainsOrders()) {
+            restingListener.accept(order);
+        }
+    }
+
+    /**
+     * Matches an incoming order straight against the opposite side, before it is ever booked, so an
+     * order that trades in full never touches its own side. Only a GTC limit remainder rests; IOC and
+     * market remainders are cancelled, and a FOK order that the crossing levels cannot fill in full is
+     * cancelled without trading. Equivalent to {@link #addOrder} followed by {@link #matchOrders(int)}
+     * on an uncrossed book, with the incoming order as the aggressor.
+     * <p>
+     * A stop order waits in its side's trigger index until a trade reaches its stop
+     * price, unless the last trade already has. Stops that trades trigger, here or in
+     * {@link #matchOrders(int)}, are then matched the same way, in the order
+     * {@link OrderBook#takeTriggeredStops()} gives them.
+     */
+    public void matchIncoming(Order order) {
+        OrderBook book = openBook(order);
+        if (order.getStopPrice() != 0) {
+            if (!book.isTriggered(order)) {
+                book.addStop(order);
+                return;
+            }
+            order.setStopPrice(0);
         }
+        match(book, order);
+        fireStops(book);
+    }
+
+    /**
+     * Matches the stops triggered by the last trade, then those their own trades trigger, until a
+     * pass fires none. Costs nothing per untriggered stop.
+     */
+    private void fireStops(OrderBook book) {
+        List<Order> fired = book.takeTriggeredStops();
+        while (!fired.isEmpty()) {
+            for (int i = 0; i < fired.size(); i++) {
+                Order stop = fired.get(i);
+                stop.setStopPrice(0);
+                match(book, stop);
+            }
+            fired = book.takeTriggeredStops();
+        }
+    }
+
+    private void match(OrderBook book, Order order) {
+        BookSide opposite = book.side(order.getType() == Order.Type.BUY ? Order.Type.SELL : Order.Type.BUY);
+        if (order.getTimeInForce() == Order.TimeInForce.FOK && !opposite.canFill(order)) {
+            cancelIncoming(order);
+            return;
+        }
+        boolean buy = order.getType() == Order.Type.BUY;
+        String symbol = book.getSymbol();
+        OrderStore orders = book.orders();
+        PriceLevel level = opposite.bestLevel();
+        while (level != null && order.getQuantity() > 0 && order.acceptsPrice(level.getPrice())) {
+            int resting = level.getHead();
+            int restingId = orders.id(resting);
+            int matchedQty = Math.min(order.getQuantity(), orders.quantity(resting));
+            long tradePrice = level.getPrice();
+            book.setLastTradePrice(tradePrice);
+            tradeRing.publish(symbol,
+                    tradePrice,
+                    matchedQty,
+                    order.getType(),
+                    buy ? order.getId() : restingId,
+                    buy ? restingId : order.getId(),
+                    System.nanoTime());
+
+            // Fills are reported buy side first, as matchOrders does
+            if (buy) {
+                fillIncoming(order, tradePrice, matchedQty);
+                fill(book, resting, tradePrice, matchedQty);
+            } else {
+                fill(book, resting, tradePrice, matchedQty);
+                fillIncoming(order, tradePrice, matchedQty);
+            }
+            level = opposite.bestLevel();
+        }
+        if (order.getQuantity() == 0) {
+            terminalListener.accept(order);
+        } else if (order.getTimeInForce() == Order.TimeInForce.GTC && !order.isMarket()) {
+            rest(book, order);
+        } else {
+            cancelIncoming(order);
+        }
+    }
+
+    private void fillIncoming(Order order, long price, int quantity) {
+        order.setQuantity(order.getQuantity() - quantity);
+        order.setStatus(order.getQuantity() == 0 ? Order.Status.FILLED : Order.Status.PARTIALLY_FILLED);
+        for (ExecutionListener listener : executionListeners) {
+            listener.onFill(order, price, quantity);
+        }
+    }
+
+    private void cancelIncoming(Order order) {
+        order.setStatus(Order.Status.CANCELLED);
+        for (ExecutionListener listener : executionListeners) {
+            listener.onCancel(order);
+        }
+        terminalListener.accept(order);
+    }
+
+    private OrderBook openBook(Order order) {
+        int symbolId = order.getSymbolId();
+        if (symbolId == SymbolRegistry.UNKNOWN) {
+            // Built outside the ingress path, e.g. read back from the journal
+            symbolId = symbols.register(order.getSymbol());
+            order.setSymbolId(symbolId);
+            order.setSymbol(symbols.symbol(symbolId));
+        }
+        return openBook(symbolId);
+    }
+
+    private OrderBook openBook(int symbolId) {
+        OrderBook book = books.get(symbolId);
+        if (book == null) {
+            // Only the symbol's own shard opens its book, so this cannot race
+            String symbol = symbols.symbol(symbolId);
+            book = new OrderBook(symbol, storage == BookStorage.OFF_HEAP
+                    ? new OffHeapOrderStore(symbol, symbolId, chunkSlots, restingDirectory)
+                    : new HeapOrderStore(64));
+            books.set(symbolId, book);
+        }
+        return book;
     }
 
     public void matchOrders(String symbol) {
-        ReentrantLock lock = symbolLocks.computeIfAbsent(symbol, s -> new ReentrantLock());
-        lock.lock();
-        try {
-            PriorityQueue<Order> buys = buyOrders.get(symbol);
-            PriorityQueue<Order> sells = sellOrders.get(symbol);
-            if (buys == null || sells == null || buys.isEmpty() || sells.isEmpty()) return;
-
-            // While there are buy and sell orders and top buy price >= top sell price
-            while (!buys.isEmpty() && !sells.isEmpty() && buys.peek().getPrice() >= sells.peek().getPrice()) {
-                Order buy = buys.peek();   // highest priority buy order (highest price, earliest time)
-                Order sell = sells.peek(); // highest priority sell order (lowest price, earliest time)
-
-                // Calculate matched quantity as min of buy and sell quantities
-                int matchedQty = Math.min(buy.getQuantity(), sell.getQuantity());
-
-                // Reduce quantities by matched amount to reflect partial or full matches
-                buy.setQuantity(buy.getQuantity() - matchedQty);
-                sell.setQuantity(sell.getQuantity() - matchedQty);
-
-                // Remove fully matched buy orders from queue
-                if (buy.getQuantity() == 0) buys.poll();
-
-                // Remove fully matched sell orders from queue
-                if (sell.getQuantity() == 0) sells.poll();
+        int symbolId = symbols.idOf(symbol);
+        if (symbolId != SymbolRegistry.UNKNOWN) {
+            matchOrders(symbolId);
+        }
+    }
+
+    public void matchOrders(int symbolId) {
+        OrderBook book = books.get(symbolId);
+        if (book == null) return;
+        crossBook(book);
+        fireStops(book);
+    }
+
+    private void crossBook(OrderBook book) {
+        String symbol = book.getSymbol();
+        OrderStore orders = book.orders();
+        BookSide buys = book.getBuys();
+        BookSide sells = book.getSells();
+        // Walk the best levels inwards while top buy price >= top sell price
+        PriceLevel bid = buys.bestLevel();
+        PriceLevel ask = sells.bestLevel();
+        while (bid != null && ask != null && bid.getPrice() >= ask.getPrice()) {
+            int buy = bid.getHead();   // earliest order at the highest bid
+            int sell = ask.getHead();  // earliest order at the lowest ask
+
+            // Calculate matched quantity as min of buy and sell quantities
+            int matchedQty = Math.min(orders.quantity(buy), orders.quantity(sell));
+
+            // The later order is the aggressor and trades at the resting order's price
+            boolean buyAggressor = orders.timestamp(buy) > orders.timestamp(sell);
+            long tradePrice = buyAggressor ? ask.getPrice() : bid.getPrice();
+            book.setLastTradePrice(tradePrice);
+            tradeRing.publish(symbol,
+                    tradePrice,
+                    matchedQty,
+                    buyAggressor ? Order.Type.BUY : Order.Type.SELL,
+                    orders.id(buy),
+                    orders.id(sell),
+                    System.nanoTime());
+
+            // Reduce both orders; fully matched ones leave
+            // their level, and emptied levels leave the book
+            fill(book, buy, tradePrice, matchedQty);
+            fill(book, sell, tradePrice, matchedQty);
+
+            bid = buys.bestLevel();
+            ask = sells.bestLevel();
+        }
+    }
+
+    private void fill(OrderBook book, int handle, long price, int quantity) {
+        boolean removed = book.fill(handle, quantity);
+        // An off-heap order leaving the book is copied for the terminal listener to keep; a
+        // partial fill only needs a view. Heap books hand out the booked order either way.
+        Order order = removed ? book.orders().order(handle) : book.orders().view(handle);
+        for (ExecutionListener listener : executionListeners) {
+            listener.onFill(order, price, quantity);
+        }
+        if (removed) {
+            terminalListener.accept(order);
+            // Freed only now, so a lookup never misses an order between book and archive
+            book.release(handle);
+        }
+    }
+
+    /**
+     * Cancels a resting order or an untriggered stop.
+     *
+     * @return the cancelled order, or null if it is no longer resting (already filled or cancelled)
+     */
+    public Order cancelOrder(String symbol, int orderId) {
+        OrderBook book = book(symbol);
+        if (book == null) {
+            return null;
+        }
+        int handle = book.unlink(orderId);
+        Order order = handle != OrderStore.NIL ? book.orders().order(handle) : book.removeStop(orderId);
+        if (order == null) {
+            return null;
+        }
+        order.setStatus(Order.Status.CANCELLED);
+        for (ExecutionListener listener : executionListeners) {
+            listener.onCancel(order);
+        }
+        terminalListener.accept(order);
+        if (handle != OrderStore.NIL) {
+            book.release(handle);
+        }
+        return order;
+    }
+
+    /**
+     * Amends a resting order. Lowering only the quantity keeps the order's place in its level;
+     * a new price or a larger quantity re-queues it at the back of its level with the given
+     * timestamp, and a new price may cross the book, so matching runs again.
+     * Pass {@link #KEEP_PRICE} or {@link #KEEP_QUANTITY} to leave either unchanged.
+     *
+     * @return the amended order, or null if it is no longer resting
+     */
+    public Order amendOrder(String symbol, int orderId, long price, int quantity, long timestamp) {
+        OrderBook book = book(symbol);
+        int handle = book == null ? OrderStore.NIL : book.find(orderId);
+        if (handle == OrderStore.NIL) {
+            return null;
+        }
+        OrderStore orders = book.orders();
+        long currentPrice = orders.price(handle);
+        int currentQuantity = orders.quantity(handle);
+        if (price == KEEP_PRICE) {
+            price = currentPrice;
+        }
+        if (quantity == KEEP_QUANTITY) {
+            quantity = currentQuantity;
+        }
+        if (price == currentPrice && quantity <= currentQuantity) {
+            book.reduce(handle, quantity);
+            return orders.order(handle);
+        }
+        book.unlink(orderId);
+        Order order = orders.order(handle);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        order.setTimestamp(timestamp);
+        // Re-booked before the old handle is freed, so the order never goes missing to lookups
+        book.add(order);
+        book.release(handle);
+        matchOrders(order.getSymbolId());
+        return order;
+    }
+
+    /**
+     * Finds an order resting in an off-heap book, from any thread.
+     *
+     * @return a copy of the order as it rests now, or null if it is not resting in an off-heap book
+     */
+    public Order findResting(int orderId) {
+        if (restingDirectory == null) {
+            return null;
+        }
+        long location = restingDirectory.get(orderId, -1);
+        while (location != -1) {
+            OrderBook book = books.get(OffHeapOrderStore.symbolIdOf(location));
+            if (book != null && book.orders() instanceof OffHeapOrderStore orders) {
+                Order order = orders.read(OffHeapOrderStore.handleOf(location), orderId);
+                if (order != null) {
+                    return order;
+                }
+            }
+            // The slot was freed or reused since; an amended order has moved to a new one
+            long moved = restingDirectory.get(orderId, -1);
+            if (moved == location) {
+                return null;
             }
-        } finally {
-            lock.unlock();
+            location = moved;
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the symbol's book to readers if it changed.
+     * Must run on the thread that owns the symbol.
+     */
+    public void publishSnapshot(int symbolId) {
+        OrderBook book = books.get(symbolId);
+        if (book != null) {
+            book.publish();
+        }
+    }
+
+    /**
+     * Publishes every changed book; only safe while no shard is running, e.g. after recovery.
+     */
+    public void publishSnapshots() {
+        for (int id = 0; id < symbols.size(); id++) {
+            publishSnapshot(id);
         }
     }
 
-    public PriorityQueue<Order> getBuyOrders(String symbol) {
-        return buyOrders.getOrDefault(symbol, emptyQueue());
+    /**
+     * The symbol's last published book, readable from any thread without touching the live book.
+     */
+    public BookSnapshot getSnapshot(String symbol) {
+        OrderBook book = book(symbol);
+        return book == null ? BookSnapshot.empty(symbol) : book.snapshot();
+    }
+
+    /**
+     * Every symbol that has had a book opened.
+     */
+    public Set<String> getSymbols() {
+        Set<String> open = new HashSet<>();
+        for (int id = 0; id < symbols.size(); id++) {
+            OrderBook book = books.get(id);
+            if (book != null) {
+                open.add(book.getSymbol());
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Untriggered stops of one side, next to fire first.
+     * Like the live book, only safe on the symbol's shard.
+     */
+    public BookSide getStopOrders(String symbol, Order.Type side) {
+        OrderBook book = book(symbol);
+        return book == null ? BookSide.triggers(side) : book.stops(side);
+    }
+
+    public long getLastTradePrice(String symbol) {
+        OrderBook book = book(symbol);
+        return book == null ? OrderBook.NO_TRADE : book.getLastTradePrice();
+    }
+
+    /**
+     * Sets the price stops compare against, e.g. from a
+     * snapshot, before anything else touches the symbol.
+     */
+    public void restoreLastTradePrice(String symbol, long price) {
+        openBook(symbols.register(symbol)).setLastTradePrice(price);
+    }
+
+    public BookSide getBuyOrders(String symbol) {
+        OrderBook book = book(symbol);
+        return book == null ? emptySide(Order.Type.BUY) : book.getBuys();
     }
 
-    public PriorityQueue<Order> getSellOrders(String symbol) {
-        return sellOrders.getOrDefault(symbol, emptyQueue());
+    public BookSide getSellOrders(String symbol) {
+        OrderBook book = book(symbol);
+        return book == null ? emptySide(Order.Type.SELL) : book.getSells();
     }
 
-    private PriorityQueue<Order> getQueue(String symbol, Order.Type type) {
-        Map<String, PriorityQueue<Order>> map = (type == Order.Type.BUY) ? buyOrders : sellOrders;
-        return map.computeIfAbsent(symbol, k -> new PriorityQueue<>());
+    private OrderBook book(String symbol) {
+        int symbolId = symbols.idOf(symbol);
+        return symbolId == SymbolRegistry.UNKNOWN ? null : books.get(symbolId);
     }
 
-    private PriorityQueue<Order> emptyQueue() {
-        return new PriorityQueue<>();
+    private BookSide emptySide(Order.Type type) {
+        return new BookSide(type);
     }
 }
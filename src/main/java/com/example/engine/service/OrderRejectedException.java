@@ -0,0 +1,34 @@
+package com.example.engine.service;
+
+/**
+ * An order turned away at intake, before it got an id or reached the journal, so the client can
+ * simply send it again after {@link #getRetryAfterMillis()}.
+ * <p>
+ * Carries no stack trace: under overload it is thrown at the full offered rate.
+ */
+public class OrderRejectedException extends RuntimeException {
+
+    public enum Reason {
+        // The symbol is over its token-bucket rate limit
+        RATE_LIMITED,
+        // The symbol's matching shard is above its queue high watermark
+        OVERLOADED
+    }
+
+    private final Reason reason;
+    private final long retryAfterMillis;
+
+    public OrderRejectedException(Reason reason, String message, long retryAfterMillis) {
+        super(message, null, false, false);
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
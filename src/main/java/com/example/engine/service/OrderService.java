@@ -1,16 +1,96 @@
 package com.example.engine.service;
 
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.BatchOrderResult;
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.dto.DepthResponse;
+import com.example.engine.dto.OrderPage;
 import com.example.engine.dto.OrderRequest;
 import com.example.engine.dto.OrderResponse;
+import com.example.engine.dto.OrderResult;
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.model.Order;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface OrderService {
     OrderResponse addOrder(OrderRequest request);
 
+    /**
+     * Accepts an order like {@link #addOrder} and completes once its shard has matched
+     * it, with its fills and trades, or after {@code timeout} with the order as
+     * accepted. No thread waits meanwhile.
+     */
+    CompletableFuture<OrderResult> addOrderAwaitingMatch(OrderRequest request, Duration timeout);
+
+    /**
+     * Accepts many orders at once; results are in request order.
+     */
+    List<BatchOrderResult> addOrders(List<OrderRequest> requests);
+
+    /**
+     * A new order for another ingress to fill in and {@link #submitOrder submit}, taken from the
+     * order pool when pooling is on. Price is in ticks.
+     *
+     * @throws OrderRejectedException if intake control turns the order away
+     */
+    Order createOrder(String symbol, long price, int quantity, Order.Type type);
+
+    /**
+     * Queues an order built by another ingress, such as the binary gateway, with its
+     * price already in ticks. Once submitted the caller must not touch the order again:
+     * it may be recycled as soon as it is terminal.
+     */
+    void submitOrder(Order order);
+
     Optional<OrderResponse> getOrderById(int id);
 
+    Optional<OrderResponse> cancelOrder(int id);
+
+    Optional<OrderResponse> amendOrder(int id, AmendRequest request);
+
     List<OrderResponse> getOrdersBySymbol(String symbol, Pageable pageable);
+
+    /**
+     * Pages through resting orders after {@code cursor} (from the start if null).
+     */
+    OrderPage getOrdersBySymbol(String symbol, String cursor, int size);
+
+    List<TradeResponse> getRecentTrades(String symbol, int limit);
+
+    /**
+     * Aggregated quantity and order count of the best {@code levels} price levels per side.
+     */
+    DepthResponse getDepth(String symbol, int levels);
+
+    /**
+     * Orders and tasks waiting in each matching shard's ring, by shard index.
+     */
+    int[] getQueueDepths();
+
+    /**
+     * Orders that failed every processing attempt.
+     */
+    int getDeadLetterCount();
+
+    /**
+     * Dead-lettered orders with ids above {@code afterId},
+     * oldest first, for one symbol or all if null.
+     */
+    List<DeadLetterResponse> getDeadLetters(String symbol, int afterId, int limit);
+
+    /**
+     * Takes up to {@code limit} dead-lettered orders, those in {@code ids} if given, otherwise the
+     * oldest for {@code symbol} (any if null), and queues them for processing again.
+     */
+    List<DeadLetterResponse> replayDeadLetters(String symbol, List<Integer> ids, int limit);
+
+    /**
+     * Takes dead-lettered orders as {@link #replayDeadLetters} does and cancels them.
+     */
+    List<DeadLetterResponse> discardDeadLetters(String symbol, List<Integer> ids, int limit);
 }
@@ -1,8 +1,32 @@
 package com.example.engine.service;
 
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.book.BookCursor;
+import com.example.engine.book.BookSnapshot;
+import com.example.engine.book.BookStorage;
+import com.example.engine.concurrent.ConcurrentIntMap;
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.BatchOrderResult;
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.dto.DepthResponse;
+import com.example.engine.dto.OrderPage;
 import com.example.engine.dto.OrderRequest;
 import com.example.engine.dto.OrderResponse;
+import com.example.engine.dto.OrderResult;
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.journal.BookImage;
+import com.example.engine.journal.CommandLog;
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.journal.OrderJournal;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.logging.EventLog;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.metrics.Stage;
 import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.trade.Trade;
+import com.example.engine.trade.TradeRing;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,132 +34,1067 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.LongStream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
+    // For lines logged per order: matching threads must not format or box
+    private static final EventLog events = EventLog.getLog(OrderServiceImpl.class);
+    private static final String ORDER_PATTERN = "Order{id={}, symbol='{}', price={}, quantity={}, type={}, status={}}";
+    private static final int MAX_RECENT_TRADES = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_DEPTH_LEVELS = 1000;
+    private static final int MAX_DEAD_LETTER_BATCH = 1000;
+    // Wait before the next attempt at an order that failed, per failed attempt so far
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
 
-    private final Map<Integer, Order> allOrders = new ConcurrentHashMap<>();
-    private final BlockingQueue<Order> orderQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<Order> deadLetterQueue = new LinkedBlockingQueue<>();
+    // Orders still working (resting or in flight); filled and cancelled ones move to the archive
+    private final ConcurrentIntMap<Order> allOrders = new ConcurrentIntMap<>();
+    // Orders whose submitter waits for the match outcome, until it is sent or times out
+    private final ConcurrentIntMap<PendingAck> pendingAcks = new ConcurrentIntMap<>(64);
+    private final DeadLetterQueue deadLetters = new DeadLetterQueue();
+    // By symbol id, set while one of the symbol's orders
+    // waits for a retry; only touched by the symbol's shard
+    private final Backlog[] backlogs;
 
-    private final ExecutorService executorService;
+    private final MatchingShard[] shards;
+    // Symbols changed since each shard last published its books; only touched by that shard's thread
+    private final List<TouchedSymbols> touchedSymbols = new ArrayList<>();
     private final OrderManager orderManager;
+    private final SymbolRegistry symbols;
+    private final TickSizeRegistry tickSizes;
+    private final TradeRing tradeRing;
+    private final OrderJournal journal;
+    private final OrderFlowRecorder recorder;
+    private final SnapshotStore snapshotStore;
+    private final OrderArchive archive;
+    private final OrderPool orderPool;
+    private final EngineMetrics metrics;
+    private final IntakeControl intake;
+    private final ScheduledExecutorService snapshotScheduler;
+    // Journal and recorder appends and shard hand-off happen under one lock so replay
+    // sees exactly the order matching saw. It is only taken once the target ring has
+    // room, so nobody waits on a full ring while holding it.
+    private final ReentrantLock ingressLock = new ReentrantLock();
     private final int maxRetryAttempts;
 
     public OrderServiceImpl(
             OrderManager orderManager,
-            @Value("${order.processor.pool-size:4}") int poolSize,
+            TickSizeRegistry tickSizes,
+            TradeRing tradeRing,
+            OrderJournal journal,
+            OrderFlowRecorder recorder,
+            SnapshotStore snapshotStore,
+            OrderArchive archive,
+            OrderPool orderPool,
+            EngineMetrics metrics,
+            IntakeControl intake,
+            @Value("${order.processor.shard-count:4}") int shardCount,
+            @Value("${order.processor.ring-capacity:65536}") int ringCapacity,
             @Value("${order.processor.retry-count:3}") int maxRetryAttempts
     ) {
         this.orderManager = orderManager;
+        this.symbols = orderManager.getSymbolRegistry();
+        this.tickSizes = tickSizes;
+        this.tradeRing = tradeRing;
+        this.journal = journal;
+        this.recorder = recorder;
+        this.snapshotStore = snapshotStore;
+        this.archive = archive;
+        this.orderPool = orderPool;
+        this.metrics = metrics;
+        this.intake = intake;
         this.maxRetryAttempts = maxRetryAttempts;
-        this.executorService = Executors.newFixedThreadPool(poolSize);
-        for (int i = 0; i < poolSize; i++) {
-            executorService.submit(this::processOrders);
+        this.backlogs = new Backlog[symbols.getCapacity()];
+        orderManager.setTerminalListener(this::archive);
+        orderManager.setRestingListener(this::rested);
+        this.shards = new MatchingShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            TouchedSymbols touched = new TouchedSymbols();
+            touchedSymbols.add(touched);
+            shards[i] = new MatchingShard(i, ringCapacity, this::processOrder, () -> publishBooks(touched));
         }
-        logger.info("Order processor started with pool size: {}, max retries: {}", poolSize, maxRetryAttempts);
+        if (intake.getHighWatermark() > shards[0].getCapacity()) {
+            logger.warn("Intake high watermark {} is above the ring capacity {}; a full ring blocks submitters instead",
+                    intake.getHighWatermark(), shards[0].getCapacity());
+        }
+        recover();
+        orderManager.publishSnapshots();
+        for (MatchingShard shard : shards) {
+            shard.start();
+        }
+        this.snapshotScheduler = snapshotsEnabled() ? startSnapshotScheduler() : null;
+        logger.info("Order processor started with {} shards, ring capacity: {}, max retries: {}, order pool: {}",
+                shardCount, shards[0].getCapacity(), maxRetryAttempts, orderPool.isEnabled() ? orderPool.available() + " idle" : "off");
     }
 
     @Override
     public OrderResponse addOrder(OrderRequest request) {
-        Order order = new Order(request.getSymbol(), request.getPrice(), request.getQuantity(), request.getType());
+        long start = System.nanoTime();
+        long price = request.priceInTicks(tickSizes.tickSize(request.getSymbol()));
+        Order order = newOrder(request, price);
+        // Built first: once queued, a pooled order may be filled and recycled at any moment
+        OrderResponse response = toResponse(order);
         allOrders.put(order.getId(), order);
         enqueueOrder(order);
-        return OrderResponse.fromOrder(order);
+        metrics.ordersReceived(1);
+        metrics.recordSince(Stage.INGRESS, start);
+        return response;
     }
 
-    private void enqueueOrder(Order order) {
+    /**
+     * The shard completes the future right after matching the order; see {@link #completeAck}.
+     */
+    @Override
+    public CompletableFuture<OrderResult> addOrderAwaitingMatch(OrderRequest request, Duration timeout) {
+        long start = System.nanoTime();
+        long price = request.priceInTicks(tickSizes.tickSize(request.getSymbol()));
+        Order order = newOrder(request, price);
+        OrderResponse response = toResponse(order);
+        int id = order.getId();
+        // Registered before the order is queued, so the shard cannot get to it first
+        PendingAck ack = new PendingAck(response);
+        pendingAcks.put(id, ack);
+        ack.future.completeOnTimeout(OrderResult.pending(response), timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> pendingAcks.remove(id));
+        allOrders.put(id, order);
+        try {
+            enqueueOrder(order);
+        } catch (RuntimeException e) {
+            ack.future.completeExceptionally(e);
+            throw e;
+        }
+        metrics.ordersReceived(1);
+        metrics.recordSince(Stage.INGRESS, start);
+        return ack.future;
+    }
+
+    @Override
+    public Order createOrder(String symbol, long price, int quantity, Order.Type type) {
+        int symbolId = symbols.admit(symbol);
+        // Before the order takes an id or a pooled instance, so a rejection leaves no trace
+        intake.admit(symbolId, symbol, shardFor(symbolId));
+        return orderPool.acquire(symbols.symbol(symbolId), symbolId, price, quantity, type);
+    }
+
+    @Override
+    public void submitOrder(Order order) {
+        long start = System.nanoTime();
+        if (order.getSymbolId() == SymbolRegistry.UNKNOWN) {
+            int symbolId = symbols.admit(order.getSymbol());
+            order.setSymbolId(symbolId);
+            order.setSymbol(symbols.symbol(symbolId));
+        }
+        allOrders.put(order.getId(), order);
+        enqueueOrder(order);
+        metrics.ordersReceived(1);
+        metrics.recordSince(Stage.INGRESS, start);
+    }
+
+    /**
+     * Resolves the symbol's id once here; the order carries
+     * it, and the shared symbol string, from now on.
+     */
+    private Order newOrder(OrderRequest request, long price) {
+        Order.TimeInForce timeInForce = request.resolveTimeInForce();
+        long stopPrice = request.stopPriceInTicks(tickSizes.tickSize(request.getSymbol()));
+        Order order = createOrder(request.getSymbol(), price, request.getQuantity(), request.getType());
+        order.setTimeInForce(timeInForce);
+        order.setMarket(request.isMarket());
+        order.setStopPrice(stopPrice);
+        return order;
+    }
+
+    /**
+     * Orders are grouped by symbol. Each group is journaled and handed to its shard as one task
+     * under a single sequencing step, and the shard matches once after adding the whole group.
+     */
+    @Override
+    public List<BatchOrderResult> addOrders(List<OrderRequest> requests) {
+        BatchOrderResult[] results = new BatchOrderResult[requests.size()];
+        Map<String, List<Order>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            OrderRequest request = requests.get(i);
+            try {
+                long price = request.priceInTicks(tickSizes.tickSize(request.getSymbol()));
+                Order order = newOrder(request, price);
+                allOrders.put(order.getId(), order);
+                groups.computeIfAbsent(order.getSymbol(), s -> new ArrayList<>()).add(order);
+                results[i] = BatchOrderResult.accepted(toResponse(order));
+            } catch (IllegalArgumentException | IllegalStateException | OrderRejectedException e) {
+                results[i] = BatchOrderResult.rejected(e.getMessage());
+            }
+        }
+        enqueueBatch(groups);
+        metrics.ordersReceived(groups.values().stream().mapToInt(List::size).sum());
+        return List.of(results);
+    }
+
+    private void enqueueBatch(Map<String, List<Order>> groups) {
+        boolean sequenced = journal.isEnabled() || recorder.isEnabled();
         try {
-            orderQueue.put(order);
-            logger.info("Order queued: {}", order);
+            long position = 0;
+            if (sequenced) {
+                int[] slots = new int[shards.length];
+                for (List<Order> group : groups.values()) {
+                    slots[shardFor(group.get(0).getSymbolId()).getIndex()]++;
+                }
+                lockIngress(slots);
+            }
+            try {
+                for (List<Order> group : groups.values()) {
+                    if (sequenced) {
+                        for (int i = 0; i < group.size(); i++) {
+                            Order order = group.get(i);
+                            // Only the group's last record triggers
+                            // matching on replay, as it does live
+                            JournalRecord.Kind kind = i < group.size() - 1 ? JournalRecord.Kind.BATCH_ORDER : JournalRecord.Kind.NEW_ORDER;
+                            position = journal.append(kind, order);
+                            recorder.append(kind, order);
+                        }
+                    }
+                    shardFor(group.get(0).getSymbolId()).publish((Runnable) () -> processBatch(group));
+                }
+            } finally {
+                if (sequenced) {
+                    ingressLock.unlock();
+                }
+            }
+            awaitDurable(position);
+            logger.info("Batch queued: {} orders for {} symbols", groups.values().stream().mapToInt(List::size).sum(), groups.size());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.error("Interrupted while enqueuing order", e);
+            logger.error("Interrupted while enqueuing batch", e);
             throw new RuntimeException("Order queuing failed", e);
         }
     }
 
+    private void enqueueOrder(Order order) {
+        // Logged before the hand-off, while this thread still owns the order
+        withOrder(events.info("Order queued: " + ORDER_PATTERN), order).log();
+        sequence(order.getSymbolId(), order, log -> log.append(order));
+    }
+
+    /**
+     * Cancels and amends are not applied here: they are journaled and queued behind everything
+     * already accepted for the symbol, then applied by its shard, which is the only thread that
+     * knows whether the order is still resting. A cancel that finds the order dead-lettered
+     * discards it, as recovery does when it replays the cancel.
+     */
     @Override
-    public Optional<OrderResponse> getOrderById(int id) {
-        return Optional.ofNullable(allOrders.get(id))
-                .map(OrderResponse::fromOrder);
+    public Optional<OrderResponse> cancelOrder(int id) {
+        Order order = liveOrder(id);
+        if (order == null) {
+            return Optional.empty();
+        }
+        requireLive(order);
+        // Tasks capture copies, never the order: a pooled order may be recycled before they run
+        String symbol = order.getSymbol();
+        int symbolId = order.getSymbolId();
+        Order.Type type = order.getType();
+        OrderResponse response = toResponse(order);
+        if (!isCurrent(order, id)) {
+            return liveOrder(id) == null ? Optional.empty() : cancelOrder(id);
+        }
+        long timestamp = System.nanoTime();
+        Runnable cancel = () -> {
+            touch(symbolId);
+            if (orderManager.cancelOrder(symbol, id) == null && !discardDeadLetter(id)) {
+                events.info("Cancel ignored, order {} is no longer resting").arg(id).log();
+            }
+        };
+        sequence(symbolId, inSymbolOrder(symbolId, cancel), log -> log.append(JournalRecord.Kind.CANCEL, id,
+                symbol, type, OrderManager.KEEP_PRICE, OrderManager.KEEP_QUANTITY, timestamp));
+        logger.info("Cancel queued for order {}", id);
+        return Optional.of(response);
     }
 
     @Override
-    public List<OrderResponse> getOrdersBySymbol(String symbol, Pageable pageable) {
-        Stream<Order> orderStream = Stream.concat(
-                orderManager.getBuyOrders(symbol).stream(),
-                orderManager.getSellOrders(symbol).stream()
-        );
-        return orderStream
-                .sorted()
-                .skip(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .map(OrderResponse::fromOrder)
-                .collect(Collectors.toList());
+    public Optional<OrderResponse> amendOrder(int id, AmendRequest request) {
+        Order order = liveOrder(id);
+        if (order == null) {
+            return Optional.empty();
+        }
+        if (request.getPrice() == null && request.getQuantity() == null) {
+            throw new IllegalArgumentException("Amend must change the price or the quantity");
+        }
+        requireLive(order);
+        String symbol = order.getSymbol();
+        int symbolId = order.getSymbolId();
+        Order.Type type = order.getType();
+        OrderResponse response = toResponse(order);
+        if (!isCurrent(order, id)) {
+            return liveOrder(id) == null ? Optional.empty() : amendOrder(id, request);
+        }
+        long price = request.getPrice() == null ? OrderManager.KEEP_PRICE
+                : request.priceInTicks(symbol, tickSizes.tickSize(symbol));
+        int quantity = request.getQuantity() == null ? OrderManager.KEEP_QUANTITY : request.getQuantity();
+        long timestamp = System.nanoTime();
+        Runnable amend = () -> {
+            touch(symbolId);
+            if (orderManager.amendOrder(symbol, id, price, quantity, timestamp) == null) {
+                events.info("Amend ignored, order {} is no longer resting").arg(id).log();
+            }
+        };
+        sequence(symbolId, inSymbolOrder(symbolId, amend), log -> log.append(JournalRecord.Kind.AMEND, id,
+                symbol, type, price, quantity, timestamp));
+        logger.info("Amend queued for order {}: price {}, quantity {}", id, price, quantity);
+        return Optional.of(response);
     }
 
-    private void processOrders() {
-        while (!Thread.currentThread().isInterrupted()) {
+    /**
+     * The working order with this id, or null if there is none; archived orders are
+     * rejected as terminal. An order resting in an off-heap book is no longer in the
+     * live map and comes back as a copy.
+     */
+    private Order liveOrder(int id) {
+        Order order = allOrders.get(id);
+        if (order == null) {
+            order = orderManager.findResting(id);
+        }
+        if (order == null) {
+            archive.find(id).ifPresent(this::requireLive);
+        }
+        return order;
+    }
+
+    /**
+     * True if {@code order} is still working order {@code id}, so values just read from it belong
+     * to that order: once terminal, a pooled order may be recycled under a new id at any time.
+     * With off-heap books an order also leaves the live map when it comes to rest, and copies of
+     * resting orders are never recycled, so there only a changed id means the order moved on.
+     */
+    private boolean isCurrent(Order order, int id) {
+        // Keeps the id re-read after the field reads before it, pairing with the fence in Order.reset
+        VarHandle.loadLoadFence();
+        Order live = allOrders.get(id);
+        return order.getId() == id
+                && (live == order || live == null && orderManager.getStorage() == BookStorage.OFF_HEAP);
+    }
+
+    /**
+     * An off-heap book copied the order into its slots, so the object can go back to the pool.
+     */
+    private void rested(Order order) {
+        allOrders.remove(order.getId());
+        orderPool.release(order);
+    }
+
+    private void archive(Order order) {
+        // Archive first, so a concurrent lookup that misses the live map finds the order there
+        archive.add(order);
+        allOrders.remove(order.getId());
+        orderPool.release(order);
+    }
+
+    private void requireLive(Order order) {
+        // Only a fast early rejection; the shard re-checks when the command reaches it
+        if (order.isTerminal()) {
+            throw new IllegalStateException("Order " + order.getId() + " is already " + order.getStatus());
+        }
+    }
+
+    /**
+     * Queues an order or a task on the symbol's shard, first writing it to the journal and the
+     * order-flow recorder when they are on.
+     */
+    private void sequence(int symbolId, Object command, ToLongFunction<CommandLog> append) {
+        MatchingShard shard = shardFor(symbolId);
+        try {
+            boolean journaled = journal.isEnabled();
+            if (journaled || recorder.isEnabled()) {
+                long position;
+                lockIngress(shard);
+                try {
+                    position = append.applyAsLong(journal);
+                    append.applyAsLong(recorder);
+                    shard.publish(command);
+                } finally {
+                    ingressLock.unlock();
+                }
+                if (journaled) {
+                    awaitDurable(position);
+                }
+            } else {
+                shard.publish(command);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while enqueuing {}", command, e);
+            throw new RuntimeException("Order queuing failed", e);
+        }
+    }
+
+    /**
+     * Takes the ingress lock once the shard's ring has room for the command, so the lock is never
+     * held while a full ring drains: a saturated shard only holds up the callers queuing to it.
+     */
+    private void lockIngress(MatchingShard shard) throws InterruptedException {
+        long start = System.nanoTime();
+        while (true) {
+            shard.awaitCapacity(1);
+            ingressLock.lock();
+            if (shard.hasCapacity(1)) {
+                break;
+            }
+            ingressLock.unlock();
+        }
+        metrics.recordSince(Stage.LOCK_WAIT, start);
+    }
+
+    /**
+     * As {@link #lockIngress(MatchingShard)} for several commands at once, {@code slots[i]} of them
+     * going to shard {@code i}.
+     */
+    private void lockIngress(int[] slots) throws InterruptedException {
+        long start = System.nanoTime();
+        while (true) {
+            for (int i = 0; i < slots.length; i++) {
+                shards[i].awaitCapacity(slots[i]);
+            }
+            ingressLock.lock();
+            if (hasCapacity(slots)) {
+                break;
+            }
+            ingressLock.unlock();
+        }
+        metrics.recordSince(Stage.LOCK_WAIT, start);
+    }
+
+    private boolean hasCapacity(int[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            if (!shards[i].hasCapacity(slots[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void awaitDurable(long position) throws InterruptedException {
+        long start = System.nanoTime();
+        journal.awaitDurable(position);
+        metrics.recordSince(Stage.JOURNAL_WAIT, start);
+    }
+
+    /**
+     * Rebuilds the books on this thread before any shard starts: loads the newest
+     * snapshot, then replays the journal written after it, so matching runs in exactly
+     * the order records were accepted. Dead letters come from both, since the journal
+     * behind a snapshot may be gone.
+     */
+    private void recover() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long fromPosition = 0;
+        int counter = 0;
+        List<Order> snapshotDeadLetters = new ArrayList<>();
+        if (snapshotStore.isEnabled()) {
             try {
-                Order order = orderQueue.take();
-                if (!attemptProcessing(order)) {
-                    deadLetterQueue.offer(order);
-                    logger.error("Moved to dead-letter queue: {}", order);
+                SnapshotStore.Snapshot snapshot = snapshotStore.loadLatest(order -> {
+                    allOrders.put(order.getId(), order);
+                    orderManager.addOrder(order);
+                }, orderManager::restoreLastTradePrice, snapshotDeadLetters::add);
+                if (snapshot != null) {
+                    fromPosition = snapshot.journalPosition();
+                    counter = snapshot.orderCounter();
+                    logger.info("Loaded {} resting orders from {} in {} ms", snapshot.orderCount(),
+                            snapshot.path().getFileName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Snapshot recovery failed", e);
+            }
+        }
+        long replayStart = System.nanoTime();
+        int[] maxId = {counter};
+        CommandReplayer replayer = new CommandReplayer(orderManager, order -> allOrders.put(order.getId(), order));
+        snapshotDeadLetters.forEach(replayer::restoreDeadLettered);
+        // A first pass finds the dead-lettered orders, which never reached their books live either
+        journal.replay(fromPosition, record -> {
+            replayer.scan(record);
+            if (record.getKind() == JournalRecord.Kind.NEW_ORDER || record.getKind() == JournalRecord.Kind.BATCH_ORDER) {
+                maxId[0] = Math.max(maxId[0], record.getOrderId());
+            }
+        });
+        long replayed = journal.replay(fromPosition, replayer::apply);
+        replayer.finish();
+        for (Order order : replayer.getDeadLettered()) {
+            int symbolId = symbols.register(order.getSymbol());
+            order.setSymbolId(symbolId);
+            order.setSymbol(symbols.symbol(symbolId));
+            allOrders.put(order.getId(), order);
+            deadLetters.add(new DeadLetterQueue.DeadLetter(order, 0, "Dead-lettered before restart", System.currentTimeMillis()));
+        }
+        Order.advanceCounterTo(maxId[0]);
+        long end = System.nanoTime();
+        logger.info("Replayed {} journal records from position {} in {} ms; startup recovery took {} ms", replayed,
+                fromPosition, TimeUnit.NANOSECONDS.toMillis(end - replayStart), TimeUnit.NANOSECONDS.toMillis(end - start));
+    }
+
+    private boolean snapshotsEnabled() {
+        return journal.isEnabled() && snapshotStore.isEnabled();
+    }
+
+    private ScheduledExecutorService startSnapshotScheduler() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "book-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = snapshotStore.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                logger.info("Processor thread interrupted, shutting down");
             } catch (Exception e) {
-                logger.error("Unexpected processing error", e);
+                logger.error("Snapshot failed", e);
             }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    /**
+     * Snapshots every book at one journal position and truncates the journal behind the oldest
+     * retained snapshot. At the snapshot barrier each shard only publishes its books copy-on-write and
+     * copies its untriggered stops and dead letters; copying resting orders out of the published
+     * books, encoding and writing happen on the calling thread.
+     */
+    public SnapshotStore.Snapshot takeSnapshot() throws IOException, InterruptedException {
+        if (!snapshotsEnabled()) {
+            throw new IllegalStateException("Snapshots need order.journal.enabled and order.snapshot.enabled");
         }
+        long start = System.nanoTime();
+        BookImage[] images = new BookImage[shards.length];
+        List<List<BookSnapshot>> books = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            books.add(new ArrayList<>());
+        }
+        long[] pauses = new long[shards.length];
+        CountDownLatch captured = new CountDownLatch(shards.length);
+        long position;
+        int counter;
+        int[] barriers = new int[shards.length];
+        Arrays.fill(barriers, 1);
+        lockIngress(barriers);
+        try {
+            // Everything journaled before this position is ahead of the barrier in each shard's ring
+            position = journal.getPosition();
+            counter = Order.lastIssuedId();
+            for (MatchingShard shard : shards) {
+                shard.execute(() -> {
+                    long pauseStart = System.nanoTime();
+                    images[shard.getIndex()] = captureBooks(shard, books.get(shard.getIndex()));
+                    pauses[shard.getIndex()] = System.nanoTime() - pauseStart;
+                    captured.countDown();
+                });
+            }
+        } finally {
+            ingressLock.unlock();
+        }
+        captured.await();
+        for (int i = 0; i < images.length; i++) {
+            for (BookSnapshot book : books.get(i)) {
+                images[i].add(book);
+            }
+        }
+        SnapshotStore.Snapshot snapshot = snapshotStore.write(position, counter, List.of(images));
+        journal.truncateBefore(snapshotStore.oldestRetainedPosition());
+        logger.info("Snapshot of {} resting orders at journal position {} took {} ms (longest shard pause {} us)",
+                snapshot.orderCount(), position, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                TimeUnit.NANOSECONDS.toMicros(LongStream.of(pauses).max().orElse(0)));
+        return snapshot;
     }
 
-    private boolean attemptProcessing(Order order) {
-        for (int attempt = 1; attempt <= maxRetryAttempts; attempt++) {
-            try {
-                orderManager.addOrder(order);
-                orderManager.matchOrders(order.getSymbol());
-                logger.info("Order processed (attempt {}): {}", attempt, order);
-                return true;
-            } catch (Exception e) {
-                logger.warn("Attempt {} failed for order {}: {}", attempt, order.getId(), e.getMessage());
-                backoff(attempt);
+    /**
+     * Runs at the barrier on the shard thread. Publishing a book only copies the levels changed
+     * since the shard last drained; the published snapshots are kept for the caller to copy from.
+     * Untriggered stops and dead letters are not in them, so those are copied here.
+     */
+    private BookImage captureBooks(MatchingShard shard, List<BookSnapshot> books) {
+        BookImage image = new BookImage(16);
+        for (int symbolId = shard.getIndex(); symbolId < symbols.size(); symbolId += shards.length) {
+            // Everything journaled before the barrier must be in
+            // the books, including commands held up by a retry
+            settle(symbolId);
+            String symbol = symbols.symbol(symbolId);
+            image.addSymbol(symbol, orderManager.getLastTradePrice(symbol));
+            orderManager.publishSnapshot(symbolId);
+            books.add(orderManager.getSnapshot(symbol));
+            orderManager.getStopOrders(symbol, Order.Type.BUY).forEach(image::add);
+            orderManager.getStopOrders(symbol, Order.Type.SELL).forEach(image::add);
+        }
+        // A letter missing here was taken for a replay or discard that either ran ahead of the
+        // barrier or is journaled after it, so recovery still sees where the order went
+        for (DeadLetterQueue.DeadLetter letter : deadLetters.list(null, 0, Integer.MAX_VALUE)) {
+            if (shardFor(letter.order().getSymbolId()) == shard) {
+                image.addDeadLetter(letter.order());
             }
         }
-        return false;
+        return image;
     }
 
-    private void backoff(int attempt) {
+    private MatchingShard shardFor(int symbolId) {
+        // Ids are dense, so dealing them out in turn spreads symbols evenly
+        return shards[symbolId % shards.length];
+    }
+
+    @Override
+    public Optional<OrderResponse> getOrderById(int id) {
+        Order order = allOrders.get(id);
+        if (order != null) {
+            OrderResponse response = toResponse(order);
+            if (isCurrent(order, id)) {
+                return Optional.of(response);
+            }
+        }
+        Order resting = orderManager.findResting(id);
+        if (resting != null) {
+            return Optional.of(toResponse(resting));
+        }
+        return archive.find(id).map(this::toResponse);
+    }
+
+    /**
+     * Reads the symbol's last published snapshot, so queries never touch the live book; skipping
+     * whole levels by their size makes offset paging O(levels + page) instead of a full sort.
+     */
+    @Override
+    public List<OrderResponse> getOrdersBySymbol(String symbol, Pageable pageable) {
+        BookSnapshot snapshot = orderManager.getSnapshot(symbol);
+        List<OrderResponse> page = new ArrayList<>(Math.min(pageable.getPageSize(), snapshot.getOrderCount()));
+        snapshot.page(pageable.getOffset(), pageable.getPageSize(), collector(symbol, page));
+        return page;
+    }
+
+    @Override
+    public OrderPage getOrdersBySymbol(String symbol, String cursor, int size) {
+        int bounded = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        BookCursor after = cursor == null || cursor.isEmpty() ? null : BookCursor.parse(cursor);
+        BookSnapshot snapshot = orderManager.getSnapshot(symbol);
+        List<OrderResponse> page = new ArrayList<>(Math.min(bounded, snapshot.getOrderCount()));
+        BookCursor next = snapshot.page(after, bounded, collector(symbol, page));
+        return new OrderPage(page, next == null ? null : next.encode());
+    }
+
+    private BookSnapshot.Visitor collector(String symbol, List<OrderResponse> page) {
+        BigDecimal tickSize = tickSizes.tickSize(symbol);
+        return (side, level, i) -> page.add(new OrderResponse(level.id(i), symbol,
+                tickSize.multiply(BigDecimal.valueOf(level.getPrice())).doubleValue(),
+                level.quantity(i), side, level.status(i)));
+    }
+
+    @Override
+    public List<TradeResponse> getRecentTrades(String symbol, int limit) {
+        int bounded = Math.max(0, Math.min(limit, MAX_RECENT_TRADES));
+        return tradeRing.recentTrades(symbol, bounded).stream()
+                .map(trade -> TradeResponse.fromTrade(trade, tickSizes.tickSize(symbol)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public DepthResponse getDepth(String symbol, int levels) {
+        int bounded = Math.max(1, Math.min(levels, MAX_DEPTH_LEVELS));
+        return DepthResponse.fromSnapshot(orderManager.getSnapshot(symbol), bounded, tickSizes.tickSize(symbol));
+    }
+
+    private OrderResponse toResponse(Order order) {
+        return OrderResponse.fromOrder(order, tickSizes.tickSize(order.getSymbol()));
+    }
+
+    private void touch(int symbolId) {
+        touchedSymbols.get(shardFor(symbolId).getIndex()).add(symbolId);
+    }
+
+    private void publishBooks(TouchedSymbols touched) {
+        for (int i = 0; i < touched.count; i++) {
+            orderManager.publishSnapshot(touched.ids[i]);
+        }
+        touched.clear();
+    }
+
+    private void processOrder(Order order) {
+        int symbolId = order.getSymbolId();
+        Backlog backlog = backlogs[symbolId];
+        if (backlog != null) {
+            backlog.commands.add(() -> processOrder(order));
+            return;
+        }
+        // The order's timestamp is its creation time at ingress
+        long start = metrics.recordSince(Stage.QUEUE_WAIT, order.getTimestamp());
+        touch(symbolId);
+        attemptProcessing(order, 1, true);
+        metrics.recordSince(Stage.MATCH, start);
+    }
+
+    private void processBatch(List<Order> group) {
+        int symbolId = group.get(0).getSymbolId();
+        Backlog backlog = backlogs[symbolId];
+        if (backlog != null) {
+            backlog.commands.add(() -> processBatch(group));
+            return;
+        }
+        long start = System.nanoTime();
+        for (Order order : group) {
+            metrics.record(Stage.QUEUE_WAIT, start - order.getTimestamp());
+        }
+        continueBatch(group, 0, symbolId);
+        metrics.recordSince(Stage.MATCH, start);
+    }
+
+    /**
+     * Books the group from {@code from} on and matches once after the last order. If an order has to
+     * wait for a retry, the rest of the group waits behind it, ahead of anything queued later.
+     */
+    private void continueBatch(List<Order> group, int from, int symbolId) {
+        touch(symbolId);
+        for (int i = from; i < group.size(); i++) {
+            if (!attemptProcessing(group.get(i), 1, false)) {
+                int next = i + 1;
+                backlogs[symbolId].commands.addFirst(() -> continueBatch(group, next, symbolId));
+                return;
+            }
+        }
+        orderManager.matchOrders(symbolId);
+    }
+
+    /**
+     * Books the order, matching it on arrival if asked to; see {@link #book}. If that fails the
+     * order is tried again after a backoff on the shard's timer wheel, and the symbol is blocked
+     * meanwhile: its later commands wait in a {@link Backlog} while other symbols carry on. Once
+     * out of attempts the order is dead-lettered.
+     *
+     * @return false if the order is waiting for a retry
+     */
+    private boolean attemptProcessing(Order order, int attempt, boolean match) {
+        // Read up front: once matched, a filled pooled order may already be recycled
+        int id = order.getId();
+        int symbolId = order.getSymbolId();
+        long price = order.getPrice();
+        int quantity = order.getQuantity();
+        Order.Type type = order.getType();
+        PendingAck ack = match && !pendingAcks.isEmpty() ? pendingAcks.get(id) : null;
+        long firstTrade = ack == null ? 0 : tradeRing.getPublishedCount();
         try {
-            Thread.sleep(100L * attempt);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            book(order, match);
+        } catch (Exception e) {
+            logger.warn("Attempt {} failed for order {}: {}", attempt, id, e.getMessage());
+            if (attempt < maxRetryAttempts) {
+                Backlog backlog = backlogs[symbolId];
+                if (backlog == null) {
+                    backlog = new Backlog();
+                    backlogs[symbolId] = backlog;
+                }
+                backlog.retry = new Retry(order, symbolId, match, attempt + 1);
+                shardFor(symbolId).schedule(backlog.retry, RETRY_BACKOFF_NANOS * attempt);
+                return false;
+            }
+            deadLetters.add(new DeadLetterQueue.DeadLetter(order, attempt, e.toString(), System.currentTimeMillis()));
+            // So that recovery leaves the order out of its book as well
+            journal.append(JournalRecord.Kind.DEAD_LETTER, order);
+            recorder.append(JournalRecord.Kind.DEAD_LETTER, order);
+            logger.error("Moved to dead-letter queue: {}", order);
+            if (ack != null) {
+                ack.future.completeExceptionally(new IllegalStateException("Order " + id + " could not be matched: " + e.getMessage()));
+            }
+            return true;
+        }
+        events.info("Order processed (attempt {}): Order{id={}, symbol='{}', price={}, quantity={}, type={}}")
+                .arg(attempt).arg(id).arg(symbols.symbol(symbolId)).arg(price).arg(quantity).arg(type).log();
+        if (ack != null) {
+            completeAck(ack, id, firstTrade);
+        }
+        return true;
+    }
+
+    /**
+     * Sends a waiting submitter the outcome of matching its order; runs on the shard right after.
+     * The order object itself may already be recycled, so its state is looked up by id: a working
+     * order is still in the live map (or, off-heap, the book), a finished one is in the archive.
+     * Its trades are the ones published since matching began that name it.
+     */
+    private void completeAck(PendingAck ack, int id, long firstTrade) {
+        Order order = allOrders.get(id);
+        if (order == null || order.getId() != id) {
+            order = orderManager.findResting(id);
+        }
+        if (order == null) {
+            order = archive.find(id).orElse(null);
+        }
+        if (order == null) {
+            ack.future.complete(OrderResult.pending(ack.accepted));
+            return;
+        }
+        BigDecimal tickSize = tickSizes.tickSize(order.getSymbol());
+        List<TradeResponse> trades = new ArrayList<>();
+        Trade trade = new Trade();
+        long end = tradeRing.getPublishedCount();
+        for (long sequence = Math.max(firstTrade, end - tradeRing.capacity()); sequence < end; sequence++) {
+            // Other shards' trades are interleaved in the range
+            if (tradeRing.read(sequence, trade) && (trade.getBuyOrderId() == id || trade.getSellOrderId() == id)) {
+                trades.add(TradeResponse.fromTrade(trade, tickSize));
+            }
+        }
+        ack.future.complete(new OrderResult(OrderResponse.fromOrder(order, tickSize), true,
+                ack.accepted.getQuantity() - order.getQuantity(), order.isTerminal() ? 0 : order.getQuantity(), trades));
+    }
+
+    /**
+     * Single orders match on arrival, before they are booked. Within a batch only orders that must not
+     * rest, and stops, do; the rest are booked and matched together once the group is in.
+     */
+    private void book(Order order, boolean match) {
+        if (match || order.isMarket() || order.getTimeInForce() != Order.TimeInForce.GTC || order.getStopPrice() != 0) {
+            orderManager.matchIncoming(order);
+        } else {
+            orderManager.addOrder(order);
+        }
+    }
+
+    private void retry(Backlog backlog, Retry retry) {
+        touch(retry.symbolId);
+        if (attemptProcessing(retry.order, retry.attempt, retry.match)) {
+            resume(retry.symbolId, backlog);
+        }
+    }
+
+    /**
+     * Unblocks the symbol and runs, in arrival order, what queued up behind its retried order. If one
+     * of those blocks the symbol again, the rest moves behind it.
+     */
+    private void resume(int symbolId, Backlog backlog) {
+        backlogs[symbolId] = null;
+        Runnable command;
+        while ((command = backlog.commands.poll()) != null) {
+            command.run();
+            Backlog blocked = backlogs[symbolId];
+            if (blocked != null) {
+                blocked.commands.addAll(backlog.commands);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the symbol's pending retries now instead of after their backoff, along with everything
+     * queued behind them, until the symbol is no longer blocked.
+     */
+    private void settle(int symbolId) {
+        Backlog backlog;
+        while ((backlog = backlogs[symbolId]) != null) {
+            retry(backlog, backlog.retry);
+        }
+    }
+
+    /**
+     * Wraps a cancel, amend or other per-symbol task so it
+     * waits behind a pending retry for the symbol.
+     */
+    private Runnable inSymbolOrder(int symbolId, Runnable command) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                Backlog backlog = backlogs[symbolId];
+                if (backlog != null) {
+                    backlog.commands.add(this);
+                } else {
+                    command.run();
+                }
+            }
+        };
+    }
+
+    private static EventLog.Event withOrder(EventLog.Event event, Order order) {
+        return event.arg(order.getId()).arg(order.getSymbol()).arg(order.getPrice())
+                .arg(order.getQuantity()).arg(order.getType()).arg(order.getStatus());
+    }
+
+    @Override
+    public List<DeadLetterResponse> getDeadLetters(String symbol, int afterId, int limit) {
+        return toResponses(deadLetters.list(symbol, afterId, boundedBatch(limit)));
+    }
+
+    /**
+     * Queues the orders again with a fresh set of attempts. Each is journaled as a new order, since
+     * recovery skips the records from before it was dead-lettered.
+     */
+    @Override
+    public List<DeadLetterResponse> replayDeadLetters(String symbol, List<Integer> ids, int limit) {
+        List<DeadLetterQueue.DeadLetter> taken = deadLetters.take(symbol, ids, boundedBatch(limit));
+        List<DeadLetterResponse> responses = toResponses(taken);
+        for (DeadLetterQueue.DeadLetter letter : taken) {
+            Order order = letter.order();
+            int symbolId = order.getSymbolId();
+            sequence(symbolId, inSymbolOrder(symbolId, () -> {
+                touch(symbolId);
+                attemptProcessing(order, 1, true);
+            }), log -> log.append(JournalRecord.Kind.NEW_ORDER, order));
         }
+        logger.info("Replaying {} dead-lettered orders", taken.size());
+        return responses;
+    }
+
+    /**
+     * Cancels the orders for good. The cancel is journaled, so a restart does not leave them resting.
+     */
+    @Override
+    public List<DeadLetterResponse> discardDeadLetters(String symbol, List<Integer> ids, int limit) {
+        List<DeadLetterQueue.DeadLetter> taken = deadLetters.take(symbol, ids, boundedBatch(limit));
+        List<DeadLetterResponse> responses = toResponses(taken);
+        for (DeadLetterQueue.DeadLetter letter : taken) {
+            Order order = letter.order();
+            int id = order.getId();
+            String orderSymbol = order.getSymbol();
+            int symbolId = order.getSymbolId();
+            Order.Type type = order.getType();
+            long timestamp = System.nanoTime();
+            sequence(symbolId, inSymbolOrder(symbolId, () -> discard(order)), log -> log.append(JournalRecord.Kind.CANCEL, id,
+                    orderSymbol, type, OrderManager.KEEP_PRICE, OrderManager.KEEP_QUANTITY, timestamp));
+        }
+        logger.info("Discarded {} dead-lettered orders", taken.size());
+        return responses;
+    }
+
+    /**
+     * Takes order {@code id} out of the dead-letter queue and discards it, if it is there. Runs on
+     * the order's shard, after any dead-lettering of it.
+     */
+    private boolean discardDeadLetter(int id) {
+        List<DeadLetterQueue.DeadLetter> taken = deadLetters.take(null, List.of(id), 1);
+        taken.forEach(letter -> discard(letter.order()));
+        return !taken.isEmpty();
+    }
+
+    private void discard(Order order) {
+        order.setStatus(Order.Status.CANCELLED);
+        archive(order);
+    }
+
+    private List<DeadLetterResponse> toResponses(List<DeadLetterQueue.DeadLetter> letters) {
+        return letters.stream()
+                .map(letter -> DeadLetterResponse.fromDeadLetter(letter, tickSizes.tickSize(letter.order().getSymbol())))
+                .toList();
+    }
+
+    private static int boundedBatch(int limit) {
+        return Math.max(0, Math.min(limit, MAX_DEAD_LETTER_BATCH));
+    }
+
+    @Override
+    public int[] getQueueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].getQueueDepth();
+        }
+        return depths;
+    }
+
+    @Override
+    public int getDeadLetterCount() {
+        return deadLetters.size();
     }
 
     @PreDestroy
     public void shutdownExecutor() {
         logger.info("Shutting down order processor...");
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                logger.warn("Forced shutdown of order processor...");
-                executorService.shutdownNow();
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        for (MatchingShard shard : shards) {
+            try {
+                shard.stop(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                logger.error("Shutdown interrupted", e);
+                Thread.currentThread().interrupt();
+                return;
             }
-        } catch (InterruptedException e) {
-            logger.error("Shutdown interrupted", e);
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * What a blocked symbol is waiting on: one order's next
+     * attempt, and the commands that arrived since.
+     */
+    private static final class Backlog {
+        private final ArrayDeque<Runnable> commands = new ArrayDeque<>();
+        private Retry retry;
+    }
+
+    private final class Retry implements Runnable {
+        private final Order order;
+        private final int symbolId;
+        private final boolean match;
+        private final int attempt;
+
+        Retry(Order order, int symbolId, boolean match, int attempt) {
+            this.order = order;
+            this.symbolId = symbolId;
+            this.match = match;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            Backlog backlog = backlogs[symbolId];
+            // Stale if a snapshot barrier already settled it
+            if (backlog != null && backlog.retry == this) {
+                retry(backlog, this);
+            }
+        }
+    }
+
+    private static final class PendingAck {
+        private final CompletableFuture<OrderResult> future = new CompletableFuture<>();
+        private final OrderResponse accepted;
+
+        PendingAck(OrderResponse accepted) {
+            this.accepted = accepted;
+        }
+    }
+
+    /**
+     * Ids of the symbols one shard changed since it last published, each listed once.
+     */
+    private static final class TouchedSymbols {
+        private final BitSet marked = new BitSet();
+        private int[] ids = new int[16];
+        private int count;
+
+        void add(int symbolId) {
+            if (!marked.get(symbolId)) {
+                marked.set(symbolId);
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = symbolId;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++) {
+                marked.clear(ids[i]);
+            }
+            count = 0;
         }
     }
 }
@@ -0,0 +1,130 @@
+package com.example.engine.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps each symbol to a dense int id, handed out in registration order. Orders are stamped with
+ * the id once at ingress and from then on reach their book by array index instead of hashing the
+ * symbol; every order of a symbol shares the one string registered here.
+ * <p>
+ * Ids are never reused, so clients could otherwise fill the registry with made-up symbols. Orders
+ * go through {@link #admit}, which registers at most {@code maxUnlisted} symbols beyond the preloaded
+ * ones and rejects the rest. Recovery uses {@link #register}, because journaled orders were already
+ * admitted.
+ */
+@Component
+public class SymbolRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> symbols;
+    private final int listed;
+    private final int maxUnlisted;
+    private volatile int size;
+
+    /**
+     * A registry that admits any symbol while there is room.
+     */
+    public SymbolRegistry(int capacity, String preload) {
+        this(capacity, preload, capacity);
+    }
+
+    /**
+     * @param capacity    most symbols this engine will ever trade; books are arrays of this length
+     * @param preload     comma separated symbols to register up front, in id order
+     * @param maxUnlisted most symbols orders may add beyond
+     *                    {@code preload}; 0 admits only preloaded symbols
+     */
+    @Autowired
+    public SymbolRegistry(
+            @Value("${order.symbol.capacity:65536}") int capacity,
+            @Value("${order.symbol.preload:}") String preload,
+            @Value("${order.symbol.max-unlisted:1024}") int maxUnlisted
+    ) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Symbol capacity must be positive: " + capacity);
+        }
+        if (maxUnlisted < 0) {
+            throw new IllegalArgumentException("Unlisted symbol limit must not be negative: " + maxUnlisted);
+        }
+        this.symbols = new AtomicReferenceArray<>(capacity);
+        for (String symbol : preload.split(",")) {
+            if (!symbol.isBlank()) {
+                register(symbol.trim());
+            }
+        }
+        this.listed = size;
+        this.maxUnlisted = maxUnlisted;
+    }
+
+    /**
+     * The id of a symbol an order names, registering it first if it is new and the unlisted
+     * symbol limit leaves room.
+     *
+     * @throws IllegalArgumentException if the symbol is new and no more unlisted symbols are admitted
+     * @throws IllegalStateException    if the registry is full
+     */
+    public int admit(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : add(symbol, true);
+    }
+
+    /**
+     * The symbol's id, registering it first if it is new.
+     *
+     * @throws IllegalStateException if the registry is full
+     */
+    public int register(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : add(symbol, false);
+    }
+
+    private synchronized int add(String symbol, boolean limited) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        if (size == symbols.length()) {
+            throw new IllegalStateException("Symbol registry is full (" + symbols.length() + " symbols), cannot add " + symbol);
+        }
+        if (limited && size - listed >= maxUnlisted) {
+            throw new IllegalArgumentException("Unknown symbol " + symbol + ": no more than " + maxUnlisted
+                    + " symbols beyond order.symbol.preload are admitted");
+        }
+        int next = size;
+        symbols.set(next, symbol);
+        ids.put(symbol, next);
+        size = next + 1;
+        return next;
+    }
+
+    /**
+     * The symbol's id, or {@link #UNKNOWN} if it was never registered.
+     */
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String symbol(int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * Number of registered symbols; ids run from 0 to size - 1.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return symbols.length();
+    }
+}
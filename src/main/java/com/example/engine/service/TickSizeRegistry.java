@@ -0,0 +1,54 @@
+package com.example.engine.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-symbol tick sizes. Prices travel as decimals in the API and as a whole number of
+ * ticks everywhere inside the engine.
+ */
+@Component
+public class TickSizeRegistry {
+
+    private final BigDecimal defaultTickSize;
+    private final Map<String, BigDecimal> tickSizes = new ConcurrentHashMap<>();
+
+    /**
+     * @param overrides comma separated {@code SYMBOL:tick} pairs, e.g. {@code BRK.A:1,EURUSD:0.00001}
+     */
+    public TickSizeRegistry(
+            @Value("${order.tick-size.default:0.01}") BigDecimal defaultTickSize,
+            @Value("${order.tick-size.symbols:}") String overrides
+    ) {
+        this.defaultTickSize = requirePositive(defaultTickSize);
+        for (String entry : overrides.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid tick size override: " + entry);
+            }
+            tickSizes.put(entry.substring(0, colon).trim(), requirePositive(new BigDecimal(entry.substring(colon + 1).trim())));
+        }
+    }
+
+    public BigDecimal tickSize(String symbol) {
+        return tickSizes.getOrDefault(symbol, defaultTickSize);
+    }
+
+    public void setTickSize(String symbol, BigDecimal tickSize) {
+        tickSizes.put(symbol, requirePositive(tickSize));
+    }
+
+    private static BigDecimal requirePositive(BigDecimal tickSize) {
+        if (tickSize.signum() <= 0) {
+            throw new IllegalArgumentException("Tick size must be positive: " + tickSize);
+        }
+        return tickSize;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.engine.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for tasks a {@link MatchingShard} runs later on its own thread, such as order
+ * retries after a backoff. Deadlines are rounded up to whole ticks; a task due further out than one
+ * turn of the wheel stays in its slot until the turn it is due in.
+ * <p>
+ * Not thread-safe: only the owning thread schedules and advances it.
+ */
+final class TimerWheel {
+
+    private final long tickNanos;
+    private final Node[] slots;
+    private final int mask;
+    private final long origin;
+    // Next tick to expire
+    private long currentTick;
+    private boolean advancing;
+    private int size;
+
+    /**
+     * @param slots number of slots, rounded up to a power of two
+     */
+    TimerWheel(long tickNanos, int slots, long nowNanos) {
+        if (tickNanos <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Tick and slot count must be positive: " + tickNanos + ", " + slots);
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.slots = new Node[capacity];
+        this.mask = capacity - 1;
+        this.origin = nowNanos;
+    }
+
+    /**
+     * Runs {@code task} at the first {@link #advance} at or after {@code deadlineNanos}, a
+     * {@link System#nanoTime()} reading.
+     */
+    void schedule(Runnable task, long deadlineNanos) {
+        long tick = Math.floorDiv(deadlineNanos - origin + tickNanos - 1, tickNanos);
+        // Never into a tick already expired, nor into the one being expired right now
+        tick = Math.max(tick, advancing ? currentTick + 1 : currentTick);
+        int slot = (int) (tick & mask);
+        slots[slot] = new Node(task, tick, slots[slot]);
+        size++;
+    }
+
+    /**
+     * Hands every task due by {@code nowNanos} to {@code runner}, earliest tick first. The runner
+     * must not throw, or tasks sharing the failing task's slot are lost.
+     *
+     * @return how many tasks ran
+     */
+    int advance(long nowNanos, Consumer<Runnable> runner) {
+        long target = Math.floorDiv(nowNanos - origin, tickNanos);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target + 1);
+            return 0;
+        }
+        int ran = 0;
+        advancing = true;
+        try {
+            for (; currentTick <= target && size > 0; currentTick++) {
+                int slot = (int) (currentTick & mask);
+                Node node = slots[slot];
+                slots[slot] = null;
+                while (node != null) {
+                    Node next = node.next;
+                    if (node.tick <= currentTick) {
+                        size--;
+                        ran++;
+                        runner.accept(node.task);
+                    } else {
+                        // Due in a later turn of the wheel
+                        node.next = slots[slot];
+                        slots[slot] = node;
+                    }
+                    node = next;
+                }
+            }
+            currentTick = Math.max(currentTick, target + 1);
+        } finally {
+            advancing = false;
+        }
+        return ran;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static final class Node {
+        private final Runnable task;
+        private final long tick;
+        private Node next;
+
+        Node(Runnable task, long tick, Node next) {
+            this.task = task;
+            this.tick = tick;
+            this.next = next;
+        }
+    }
+}
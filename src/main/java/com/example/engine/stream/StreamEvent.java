@@ -0,0 +1,43 @@
+package com.example.engine.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One event as every subscriber of a stream receives it. The same instance is queued to each of
+ * them, and its JSON is encoded once by whichever sender gets to it first.
+ */
+public final class StreamEvent {
+
+    // Tells the sender to complete the stream once everything queued before it was sent
+    static final StreamEvent END = new StreamEvent("end", null);
+    // An SSE comment that makes dead connections fail their next write
+    static final StreamEvent HEARTBEAT = new StreamEvent("heartbeat", null);
+
+    private final String name;
+    private final Object data;
+    // Racing senders may both encode; they produce the same text
+    private volatile String json;
+
+    public StreamEvent(String name, Object data) {
+        this.name = name;
+        this.data = data;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    String json(ObjectMapper mapper) throws JsonProcessingException {
+        String encoded = json;
+        if (encoded == null) {
+            encoded = mapper.writeValueAsString(data);
+            json = encoded;
+        }
+        return encoded;
+    }
+}
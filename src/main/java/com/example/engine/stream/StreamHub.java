@@ -0,0 +1,330 @@
+package com.example.engine.stream;
+
+import com.example.engine.concurrent.ConcurrentIntMap;
+import com.example.engine.depth.DepthPublisher;
+import com.example.engine.dto.DepthUpdate;
+import com.example.engine.dto.OrderUpdate;
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.model.Order;
+import com.example.engine.service.ExecutionListener;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.Trade;
+import com.example.engine.trade.TradeRing;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes executions per symbol, status changes per order and book changes per symbol to streaming
+ * subscribers, decoupled from matching:
+ * <ul>
+ *     <li>Trades are read from the {@link TradeRing} by the hub's own thread, at its own pace.</li>
+ *     <li>Order updates are offered from the matching thread, but only for orders someone watches;
+ *     for every other fill the cost is one volatile read.</li>
+ *     <li>Book changes come from {@link DepthPublisher}, already conflated per interval.</li>
+ * </ul>
+ * Each subscriber has a bounded buffer drained by a small sender pool, so a slow connection only
+ * ever delays itself. A trade or order subscriber whose buffer is full is disconnected, since it
+ * would otherwise silently miss executions; a depth subscriber is conflated instead, skipping
+ * deltas until its buffer has room for a full book again. A producer only marks the subscriber
+ * disconnected; failing the connection and unregistering it happen on the hub thread, so neither
+ * runs on a matching thread.
+ */
+@Component
+public class StreamHub implements ExecutionListener, Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamHub.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TickSizeRegistry tickSizes;
+    private final DepthPublisher depthPublisher;
+    private final ObjectMapper mapper;
+    private final int bufferCapacity;
+    private final long heartbeatNanos;
+    private final TradeRing.Cursor cursor;
+    private final Executor senders;
+    private final Map<String, List<StreamSubscriber>> tradeFeeds = new ConcurrentHashMap<>();
+    // Copied on change, so the matching thread reads them without locking
+    private final ConcurrentIntMap<StreamSubscriber[]> orderFeeds = new ConcurrentIntMap<>(64);
+    private final List<StreamSubscriber> all = new CopyOnWriteArrayList<>();
+    private final AtomicInteger watchedOrders = new AtomicInteger();
+    private final AtomicLong slowConsumers = new AtomicLong();
+    // Marked disconnected by producers, waiting for the hub thread to fail and unregister them
+    private final Queue<StreamSubscriber> disconnected = new ConcurrentLinkedQueue<>();
+    private final String slowConsumerReason;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public StreamHub(OrderManager orderManager, TradeRing tradeRing, TickSizeRegistry tickSizes,
+                     DepthPublisher depthPublisher, ObjectMapper mapper,
+                     @Value("${order.stream.buffer:1024}") int bufferCapacity,
+                     @Value("${order.stream.sender-threads:4}") int senderThreads,
+                     @Value("${order.stream.heartbeat:15s}") Duration heartbeat,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.tickSizes = tickSizes;
+        this.depthPublisher = depthPublisher;
+        this.mapper = mapper;
+        this.bufferCapacity = bufferCapacity;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.slowConsumerReason = "slow consumer, " + bufferCapacity + " events behind";
+        this.cursor = tradeRing.newCursor();
+        // With virtual threads each drain gets a thread of its own, so a write blocked on a full
+        // socket parks a virtual thread instead of holding one of a few pool threads
+        this.senders = virtualThreads && Runtime.version().feature() >= 21
+                ? new VirtualThreadTaskExecutor("stream-sender-") : newSenderPool(senderThreads);
+        orderManager.addExecutionListener(this);
+        this.thread = new Thread(this, "stream-hub");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private static ExecutorService newSenderPool(int senderThreads) {
+        AtomicInteger senderIds = new AtomicInteger();
+        return Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread sender = new Thread(r, "stream-sender-" + senderIds.getAndIncrement());
+            sender.setDaemon(true);
+            return sender;
+        });
+    }
+
+    /**
+     * Every execution of the symbol from now on, as {@code trade} events.
+     */
+    public StreamSubscriber subscribeTrades(String symbol, StreamSubscriber.Sink sink) {
+        StreamSubscriber subscriber = newSubscriber("trades " + symbol, sink);
+        List<StreamSubscriber> feed = tradeFeeds.computeIfAbsent(symbol, s -> new CopyOnWriteArrayList<>());
+        feed.add(subscriber);
+        subscriber.onClose(() -> {
+            feed.remove(subscriber);
+            all.remove(subscriber);
+        });
+        return subscriber;
+    }
+
+    /**
+     * Fills and the cancel of one order, as {@code fill} and {@code cancel} events; the stream
+     * completes once the order is filled or cancelled. The caller sends the order's current state
+     * after subscribing, so no change between the two is lost.
+     */
+    public StreamSubscriber subscribeOrder(int orderId, StreamSubscriber.Sink sink) {
+        StreamSubscriber subscriber = newSubscriber("order " + orderId, sink);
+        synchronized (orderFeeds) {
+            StreamSubscriber[] current = orderFeeds.get(orderId);
+            StreamSubscriber[] subscribers = current == null ? new StreamSubscriber[1] : Arrays.copyOf(current, current.length + 1);
+            subscribers[subscribers.length - 1] = subscriber;
+            orderFeeds.put(orderId, subscribers);
+            watchedOrders.incrementAndGet();
+        }
+        subscriber.onClose(() -> {
+            synchronized (orderFeeds) {
+                StreamSubscriber[] current = orderFeeds.get(orderId);
+                if (current != null) {
+                    StreamSubscriber[] remaining = Arrays.stream(current).filter(s -> s != subscriber).toArray(StreamSubscriber[]::new);
+                    if (remaining.length == 0) {
+                        orderFeeds.remove(orderId);
+                    } else {
+                        orderFeeds.put(orderId, remaining);
+                    }
+                    watchedOrders.addAndGet(remaining.length - current.length);
+                }
+            }
+            all.remove(subscriber);
+        });
+        return subscriber;
+    }
+
+    /**
+     * The symbol's book as {@code depth} events: a full book first, then conflated level changes.
+     */
+    public StreamSubscriber subscribeDepth(String symbol, StreamSubscriber.Sink sink) {
+        StreamSubscriber subscriber = newSubscriber("depth " + symbol, sink);
+        DepthPublisher.Subscriber feed = new DepthPublisher.Subscriber() {
+            @Override
+            public void accept(DepthUpdate update) {
+                if (!subscriber.offer(new StreamEvent("depth", update))) {
+                    // Skip deltas until a full book fits again; it replaces whatever the client missed
+                    depthPublisher.resync(symbol, this);
+                }
+            }
+        };
+        subscriber.onClose(() -> {
+            depthPublisher.unsubscribe(symbol, feed);
+            all.remove(subscriber);
+        });
+        depthPublisher.subscribe(symbol, feed);
+        return subscriber;
+    }
+
+    /**
+     * Queues an event for one subscriber, e.g. the current state it starts from.
+     */
+    public void send(StreamSubscriber subscriber, StreamEvent event) {
+        offerOrDisconnect(subscriber, event);
+    }
+
+    /**
+     * Completes a stream once its queued events are sent.
+     */
+    public void finish(StreamSubscriber subscriber) {
+        subscriber.finish();
+    }
+
+    public int getSubscriberCount() {
+        return all.size();
+    }
+
+    public long getSlowConsumerDisconnects() {
+        return slowConsumers.get();
+    }
+
+    private StreamSubscriber newSubscriber(String description, StreamSubscriber.Sink sink) {
+        StreamSubscriber subscriber = new StreamSubscriber(description, sink, bufferCapacity, senders, mapper);
+        all.add(subscriber);
+        return subscriber;
+    }
+
+    @Override
+    public void onFill(Order order, long price, int quantity) {
+        if (watchedOrders.get() == 0) {
+            return;
+        }
+        StreamSubscriber[] subscribers = orderFeeds.get(order.getId());
+        if (subscribers != null) {
+            // The order may be a reused view, so everything is copied out before returning
+            publishOrder(subscribers, "fill",
+                    OrderUpdate.fromOrder(order, price, quantity, tickSizes.tickSize(order.getSymbol())), order.isTerminal());
+        }
+    }
+
+    @Override
+    public void onCancel(Order order) {
+        if (watchedOrders.get() == 0) {
+            return;
+        }
+        StreamSubscriber[] subscribers = orderFeeds.get(order.getId());
+        if (subscribers != null) {
+            publishOrder(subscribers, "cancel", OrderUpdate.fromOrder(order, 0, 0, tickSizes.tickSize(order.getSymbol())), true);
+        }
+    }
+
+    private void publishOrder(StreamSubscriber[] subscribers, String name, OrderUpdate update, boolean terminal) {
+        StreamEvent event = new StreamEvent(name, update);
+        for (StreamSubscriber subscriber : subscribers) {
+            // Like StreamSubscriber.finish(), but leaves a disconnect to the hub thread
+            if (offerOrDisconnect(subscriber, event) && terminal && !subscriber.offer(StreamEvent.END)) {
+                disconnectLater(subscriber, "buffer full");
+            }
+        }
+    }
+
+    private boolean offerOrDisconnect(StreamSubscriber subscriber, StreamEvent event) {
+        if (subscriber.offer(event)) {
+            return true;
+        }
+        if (disconnectLater(subscriber, slowConsumerReason)) {
+            slowConsumers.incrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the subscriber was closed already
+     */
+    private boolean disconnectLater(StreamSubscriber subscriber, String reason) {
+        if (!subscriber.markDisconnected(reason)) {
+            return false;
+        }
+        disconnected.add(subscriber);
+        return true;
+    }
+
+    private void releaseDisconnected() {
+        StreamSubscriber subscriber;
+        while ((subscriber = disconnected.poll()) != null) {
+            try {
+                subscriber.release();
+            } catch (Exception e) {
+                logger.warn("Failed to disconnect {} stream", subscriber, e);
+            }
+        }
+    }
+
+    /**
+     * Reads trades off the ring and fans them out; also sends heartbeats and disconnects slow
+     * subscribers. Runs on the hub thread.
+     */
+    @Override
+    public void run() {
+        Trade trade = new Trade();
+        long reportedMissed = 0;
+        long nextHeartbeat = System.nanoTime() + heartbeatNanos;
+        while (running) {
+            try {
+                releaseDisconnected();
+                if (!cursor.poll(trade)) {
+                    if (System.nanoTime() - nextHeartbeat >= 0) {
+                        heartbeat();
+                        nextHeartbeat = System.nanoTime() + heartbeatNanos;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                if (cursor.getMissed() != reportedMissed) {
+                    logger.warn("Trade streams fell behind, {} trades were overwritten before being read",
+                            cursor.getMissed() - reportedMissed);
+                    reportedMissed = cursor.getMissed();
+                }
+                List<StreamSubscriber> feed = tradeFeeds.get(trade.getSymbol());
+                if (feed != null && !feed.isEmpty()) {
+                    StreamEvent event = new StreamEvent("trade", TradeResponse.fromTrade(trade, tickSizes.tickSize(trade.getSymbol())));
+                    for (StreamSubscriber subscriber : feed) {
+                        offerOrDisconnect(subscriber, event);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Trade streaming failed", e);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (StreamSubscriber subscriber : all) {
+            // A full buffer means the subscriber has something to send anyway
+            subscriber.offer(StreamEvent.HEARTBEAT);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        for (StreamSubscriber subscriber : all) {
+            subscriber.finish();
+        }
+        releaseDisconnected();
+        if (senders instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+}
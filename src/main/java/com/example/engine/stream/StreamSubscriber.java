@@ -0,0 +1,180 @@
+package com.example.engine.stream;
+
+import com.example.engine.concurrent.MpscRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One streaming connection: a bounded buffer that producers offer events to without blocking, and
+ * a sender task that drains it to the connection on the hub's sender pool. The task is scheduled
+ * only while events are waiting, so idle subscribers cost no thread.
+ */
+public final class StreamSubscriber implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamSubscriber.class);
+    // Events sent per turn on a sender thread, so one busy subscriber does not hold it forever
+    private static final int DRAIN_BATCH = 64;
+
+    /**
+     * Where a subscriber's events go, e.g. an SSE response.
+     */
+    public interface Sink {
+        void send(String event, String json) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void complete();
+
+        /**
+         * Ends the stream early, e.g. because the subscriber could not keep up.
+         */
+        void fail(String reason);
+    }
+
+    private final String description;
+    private final Sink sink;
+    private final MpscRingBuffer<StreamEvent> buffer;
+    private final Executor sender;
+    private final ObjectMapper mapper;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Runnable onClose = () -> { };
+    // Why the stream was marked disconnected, for release() to report
+    private volatile String failure;
+
+    StreamSubscriber(String description, Sink sink, int bufferCapacity, Executor sender, ObjectMapper mapper) {
+        this.description = description;
+        this.sink = sink;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.sender = sender;
+        this.mapper = mapper;
+    }
+
+    void onClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    /**
+     * Queues an event without blocking.
+     *
+     * @return false if the buffer is full or the stream is closed
+     */
+    boolean offer(StreamEvent event) {
+        if (closed.get() || !buffer.offer(event)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Completes the stream once the events already queued are sent. If the buffer is full the stream
+     * is failed instead, since the subscriber would otherwise miss its last events.
+     */
+    void finish() {
+        if (!offer(StreamEvent.END)) {
+            disconnect("buffer full");
+        }
+    }
+
+    /**
+     * Drops a subscriber that cannot keep up; the events it would have missed are not sent at all.
+     */
+    void disconnect(String reason) {
+        if (close()) {
+            logger.info("Disconnecting {} stream: {}", description, reason);
+            sink.fail(reason);
+        }
+    }
+
+    /**
+     * Stops taking events without touching the connection or running the close hook, so a matching
+     * thread can call it; {@link #release} finishes the disconnect later, on another thread.
+     *
+     * @return false if the stream was closed already
+     */
+    boolean markDisconnected(String reason) {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        failure = reason;
+        return true;
+    }
+
+    /**
+     * Unregisters a subscriber marked disconnected and fails its connection.
+     */
+    void release() {
+        logger.info("Disconnecting {} stream: {}", description, failure);
+        onClose.run();
+        sink.fail(failure);
+    }
+
+    /**
+     * Unregisters the subscriber, e.g. once its connection ended.
+     *
+     * @return false if it was closed already
+     */
+    public boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        onClose.run();
+        return true;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public int pending() {
+        return buffer.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < DRAIN_BATCH && !closed.get(); i++) {
+                StreamEvent event = buffer.poll();
+                if (event == null) {
+                    break;
+                }
+                if (event == StreamEvent.END) {
+                    close();
+                    sink.complete();
+                } else if (event == StreamEvent.HEARTBEAT) {
+                    sink.heartbeat();
+                } else {
+                    sink.send(event.getName(), event.json(mapper));
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Dropping {} stream: {}", description, e.getMessage());
+            if (close()) {
+                sink.fail(e.getMessage());
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // An offer made while this turn was finishing may have found the task still scheduled
+        if (!buffer.isEmpty() && !closed.get()) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            sender.execute(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
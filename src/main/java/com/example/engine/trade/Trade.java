@@ -0,0 +1,35 @@
+package com.example.engine.trade;
+
+import com.example.engine.model.Order;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One execution read back from the {@link TradeRing}. Consumers keep a single instance and
+ * let the ring overwrite it on every read, so draining the ring does not allocate.
+ */
+@Data
+@NoArgsConstructor
+public class Trade {
+    private long sequence;
+    private String symbol;
+    private long price;
+    private int quantity;
+    private Order.Type aggressor;
+    private int buyOrderId;
+    private int sellOrderId;
+    private long timestamp;
+
+    public Trade copy() {
+        Trade copy = new Trade();
+        copy.sequence = sequence;
+        copy.symbol = symbol;
+        copy.price = price;
+        copy.quantity = quantity;
+        copy.aggressor = aggressor;
+        copy.buyOrderId = buyOrderId;
+        copy.sellOrderId = sellOrderId;
+        copy.timestamp = timestamp;
+        return copy;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.engine.trade;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Example downstream consumer: writes every execution to the audit log from its own thread,
+ * reading the {@link TradeRing} at its own pace.
+ */
+@Component
+public class TradeAuditLog implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeAuditLog.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TradeRing.Cursor cursor;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public TradeAuditLog(TradeRing tradeRing) {
+        this.cursor = tradeRing.newCursor();
+        this.thread = new Thread(this, "trade-audit");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void run() {
+        Trade trade = new Trade();
+        long reportedMissed = 0;
+        while (running) {
+            if (!cursor.poll(trade)) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            if (cursor.getMissed() != reportedMissed) {
+                logger.warn("Audit log fell behind, {} trades were overwritten before being read",
+                        cursor.getMissed() - reportedMissed);
+                reportedMissed = cursor.getMissed();
+            }
+            logger.info("Trade executed: seq={}, symbol='{}', price={}, quantity={}, aggressor={}, buyId={}, sellId={}",
+                    trade.getSequence(), trade.getSymbol(), trade.getPrice(), trade.getQuantity(),
+                    trade.getAggressor(), trade.getBuyOrderId(), trade.getSellOrderId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.engine.trade;
+
+import com.example.engine.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated, lock-free ring of trade executions.
+ * <p>
+ * Matching threads claim a sequence and write the trade into column arrays, so publishing never
+ * allocates and never waits for readers. Readers poll at their own pace through a {@link Cursor};
+ * one that falls more than a ring behind skips ahead and counts what it missed. Each slot is
+ * guarded by its sequence number like a seqlock, so a read racing an overwrite is detected.
+ */
+@Component
+public class TradeRing {
+
+    private static final long WRITING = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray slotSequences;
+    private final String[] symbols;
+    private final long[] prices;
+    private final int[] quantities;
+    private final Order.Type[] aggressors;
+    private final int[] buyOrderIds;
+    private final int[] sellOrderIds;
+    private final long[] timestamps;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public TradeRing(@Value("${order.trades.ring-capacity:65536}") int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slotSequences.set(i, WRITING);
+        }
+        this.symbols = new String[capacity];
+        this.prices = new long[capacity];
+        this.quantities = new int[capacity];
+        this.aggressors = new Order.Type[capacity];
+        this.buyOrderIds = new int[capacity];
+        this.sellOrderIds = new int[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * @return the sequence assigned to the trade
+     */
+    public long publish(String symbol, long price, int quantity, Order.Type aggressor,
+                        int buyOrderId, int sellOrderId, long timestamp) {
+        long sequence = nextSequence.getAndIncrement();
+        int index = (int) (sequence & mask);
+        slotSequences.set(index, WRITING);
+        VarHandle.storeStoreFence();
+        symbols[index] = symbol;
+        prices[index] = price;
+        quantities[index] = quantity;
+        aggressors[index] = aggressor;
+        buyOrderIds[index] = buyOrderId;
+        sellOrderIds[index] = sellOrderId;
+        timestamps[index] = timestamp;
+        slotSequences.lazySet(index, sequence);
+        return sequence;
+    }
+
+    /**
+     * Copies the trade with the given sequence into {@code into}.
+     *
+     * @return false if that trade is not published yet or has already been overwritten
+     */
+    public boolean read(long sequence, Trade into) {
+        int index = (int) (sequence & mask);
+        if (slotSequences.get(index) != sequence) {
+            return false;
+        }
+        into.setSequence(sequence);
+        into.setSymbol(symbols[index]);
+        into.setPrice(prices[index]);
+        into.setQuantity(quantities[index]);
+        into.setAggressor(aggressors[index]);
+        into.setBuyOrderId(buyOrderIds[index]);
+        into.setSellOrderId(sellOrderIds[index]);
+        into.setTimestamp(timestamps[index]);
+        VarHandle.loadLoadFence();
+        return slotSequences.get(index) == sequence;
+    }
+
+    /**
+     * Newest trades for a symbol, newest first. Only trades still held in the ring are visible.
+     */
+    public List<Trade> recentTrades(String symbol, int limit) {
+        List<Trade> trades = new ArrayList<>(Math.min(limit, 64));
+        Trade trade = new Trade();
+        long newest = nextSequence.get() - 1;
+        long oldest = Math.max(0, newest - capacity + 1);
+        for (long sequence = newest; sequence >= oldest && trades.size() < limit; sequence--) {
+            if (read(sequence, trade) && trade.getSymbol().equals(symbol)) {
+                trades.add(trade.copy());
+            }
+        }
+        return trades;
+    }
+
+    /**
+     * A reader starting at the next trade to be published.
+     */
+    public Cursor newCursor() {
+        return new Cursor(nextSequence.get());
+    }
+
+    /**
+     * Number of trades published so far.
+     */
+    public long getPublishedCount() {
+        return nextSequence.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Single-threaded read position in the ring.
+     */
+    public final class Cursor {
+
+        private long next;
+        private long missed;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * @return true if a trade was copied into {@code into}, false if the reader is caught up
+         */
+        public boolean poll(Trade into) {
+            while (true) {
+                if (read(next, into)) {
+                    next++;
+                    return true;
+                }
+                long claimed = nextSequence.get();
+                if (claimed - next <= capacity) {
+                    // Not yet published (or being written): caught up for now
+                    return false;
+                }
+                // Lapped by producers: skip to the oldest trade still in the ring
+                long oldest = claimed - capacity;
+                missed += oldest - next;
+                next = oldest;
+            }
+        }
+
+        public long getNextSequence() {
+            return next;
+        }
+
+        public long getMissed() {
+            return missed;
+        }
+    }
+}
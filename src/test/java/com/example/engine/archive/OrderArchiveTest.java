@@ -0,0 +1,102 @@
+package com.example.engine.archive;
+
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchiveTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now.get());
+        }
+    };
+
+    private static Order terminal(int id, String symbol, Order.Status status) {
+        Order order = new Order(id, symbol, 100 + id, status == Order.Status.FILLED ? 0 : 3, Order.Type.SELL, id * 10L);
+        order.setStatus(status);
+        return order;
+    }
+
+    @Test
+    void testFindRebuildsArchivedOrder() {
+        OrderArchive archive = new OrderArchive(8, Duration.ofHours(1), clock);
+        archive.add(terminal(1, "AAPL", Order.Status.FILLED));
+        archive.add(terminal(2, "MSFT", Order.Status.CANCELLED));
+
+        Order cancelled = archive.find(2).orElseThrow();
+        assertEquals("MSFT", cancelled.getSymbol());
+        assertEquals(102, cancelled.getPrice());
+        assertEquals(3, cancelled.getQuantity());
+        assertEquals(Order.Type.SELL, cancelled.getType());
+        assertEquals(20, cancelled.getTimestamp());
+        assertEquals(Order.Status.CANCELLED, cancelled.getStatus());
+        assertEquals(Order.Status.FILLED, archive.find(1).orElseThrow().getStatus());
+        assertTrue(archive.find(3).isEmpty());
+    }
+
+    @Test
+    void testOldestRowsAreOverwrittenWhenFull() {
+        OrderArchive archive = new OrderArchive(4, Duration.ofHours(1), clock);
+        for (int id = 1; id <= 10; id++) {
+            archive.add(terminal(id, "AAPL", Order.Status.FILLED));
+        }
+
+        assertEquals(4, archive.size());
+        for (int id = 1; id <= 6; id++) {
+            assertTrue(archive.find(id).isEmpty());
+        }
+        for (int id = 7; id <= 10; id++) {
+            assertEquals(id, archive.find(id).orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void testOrdersOutsideRetentionAreDropped() {
+        OrderArchive archive = new OrderArchive(16, Duration.ofSeconds(10), clock);
+        archive.add(terminal(1, "AAPL", Order.Status.FILLED));
+        now.addAndGet(6_000);
+        archive.add(terminal(2, "AAPL", Order.Status.FILLED));
+        now.addAndGet(6_000);
+
+        assertTrue(archive.find(1).isEmpty());
+        assertTrue(archive.find(2).isPresent());
+
+        archive.add(terminal(3, "AAPL", Order.Status.FILLED));
+        assertEquals(2, archive.size());
+    }
+
+    @Test
+    void testIndexStaysConsistentAcrossManyWraps() {
+        OrderArchive archive = new OrderArchive(1000, Duration.ofHours(1), clock);
+        for (int id = 1; id <= 100_000; id++) {
+            archive.add(terminal(id, id % 2 == 0 ? "AAPL" : "MSFT", Order.Status.FILLED));
+        }
+
+        assertEquals(1000, archive.size());
+        assertTrue(archive.find(99_000).isEmpty());
+        for (int id = 99_001; id <= 100_000; id++) {
+            assertEquals(id % 2 == 0 ? "AAPL" : "MSFT", archive.find(id).orElseThrow().getSymbol());
+        }
+    }
+}
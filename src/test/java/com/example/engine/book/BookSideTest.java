@@ -0,0 +1,141 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSideTest {
+
+    @Test
+    void testSellLevelsAreAscendingAndBestIsCached() {
+        BookSide sells = new BookSide(Order.Type.SELL);
+        Order o1 = new Order("AAPL", 102, 1, Order.Type.SELL);
+        Order o2 = new Order("AAPL", 100, 2, Order.Type.SELL);
+        Order o3 = new Order("AAPL", 101, 3, Order.Type.SELL);
+        sells.add(o1);
+        sells.add(o2);
+        sells.add(o3);
+
+        assertEquals(100, sells.bestLevel().getPrice());
+        assertEquals(101, sells.bestLevel().getNext().getPrice());
+        assertEquals(102, sells.bestLevel().getNext().getNext().getPrice());
+        assertEquals(List.of(o2, o3, o1), sells.stream().toList());
+        assertEquals(3, sells.size());
+    }
+
+    @Test
+    void testBuyLevelsAreDescending() {
+        BookSide buys = new BookSide(Order.Type.BUY);
+        buys.add(new Order("AAPL", 100, 1, Order.Type.BUY));
+        buys.add(new Order("AAPL", 102, 1, Order.Type.BUY));
+
+        assertEquals(102, buys.bestLevel().getPrice());
+        assertEquals(100, buys.bestLevel().getNext().getPrice());
+    }
+
+    @Test
+    void testLevelKeepsFifoAndAggregates() {
+        BookSide buys = new BookSide(Order.Type.BUY);
+        Order first = new Order("AAPL", 100, 4, Order.Type.BUY);
+        Order second = new Order("AAPL", 100, 6, Order.Type.BUY);
+        buys.add(first);
+        buys.add(second);
+
+        PriceLevel level = buys.bestLevel();
+        assertEquals(2, level.getOrderCount());
+        assertEquals(10, level.getTotalQuantity());
+        OrderStore orders = buys.orders();
+        assertSame(first, orders.order(level.getHead()));
+        assertSame(second, orders.order(orders.next(level.getHead())));
+    }
+
+    @Test
+    void testFillRemovesOrderAndEmptiedLevel() {
+        BookSide sells = new BookSide(Order.Type.SELL);
+        Order best = new Order("AAPL", 100, 5, Order.Type.SELL);
+        Order next = new Order("AAPL", 101, 5, Order.Type.SELL);
+        int handle = sells.add(best);
+        sells.add(next);
+
+        assertFalse(sells.fill(handle, 2));
+        assertEquals(3, best.getQuantity());
+        assertEquals(3, sells.bestLevel().getTotalQuantity());
+
+        assertTrue(sells.fill(handle, 3));
+        assertEquals(1, sells.levelCount());
+        assertSame(next, sells.peek());
+    }
+
+    @Test
+    void testReduceKeepsPlaceAndUpdatesLevel() {
+        BookSide buys = new BookSide(Order.Type.BUY);
+        Order first = new Order("AAPL", 100, 5, Order.Type.BUY);
+        Order second = new Order("AAPL", 100, 5, Order.Type.BUY);
+        int handle = buys.add(first);
+        buys.add(second);
+
+        buys.reduce(handle, 2);
+
+        assertEquals(List.of(first, second), buys.stream().toList());
+        assertEquals(7, buys.bestLevel().getTotalQuantity());
+        assertThrows(IllegalArgumentException.class, () -> buys.reduce(handle, 3));
+        assertThrows(IllegalArgumentException.class, () -> buys.reduce(handle, 0));
+    }
+
+    @Test
+    void testRemoveFromMiddleOfLevel() {
+        BookSide buys = new BookSide(Order.Type.BUY);
+        Order a = new Order("AAPL", 100, 1, Order.Type.BUY);
+        Order b = new Order("AAPL", 100, 2, Order.Type.BUY);
+        Order c = new Order("AAPL", 100, 3, Order.Type.BUY);
+        buys.add(a);
+        int middle = buys.add(b);
+        buys.add(c);
+
+        buys.unlink(middle);
+        buys.release(middle);
+
+        assertEquals(List.of(a, c), buys.stream().toList());
+        assertEquals(4, buys.bestLevel().getTotalQuantity());
+        assertEquals(2, buys.size());
+    }
+
+    @Test
+    void testLevelsStaySortedWhenOpenedAndClosedAtAnyDepth() {
+        // One order per level, so unlinking an order closes its level wherever it sits
+        BookSide sells = new BookSide(Order.Type.SELL);
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long price = 100 + random.nextInt(200);
+            Integer handle = expected.remove(price);
+            if (handle != null) {
+                sells.unlink(handle);
+                sells.release(handle);
+            } else {
+                expected.put(price, sells.add(new Order("AAPL", price, 1, Order.Type.SELL)));
+            }
+        }
+        List<Long> prices = new ArrayList<>();
+        for (PriceLevel level = sells.bestLevel(); level != null; level = level.getNext()) {
+            prices.add(level.getPrice());
+        }
+        assertEquals(List.copyOf(expected.keySet()), prices);
+        assertEquals(expected.size(), sells.levelCount());
+    }
+
+    @Test
+    void testEmptySide() {
+        BookSide buys = new BookSide(Order.Type.BUY);
+        assertTrue(buys.isEmpty());
+        assertNull(buys.peek());
+        assertNull(buys.bestLevel());
+        assertFalse(buys.iterator().hasNext());
+    }
+}
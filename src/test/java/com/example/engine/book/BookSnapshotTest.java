@@ -0,0 +1,97 @@
+package com.example.engine.book;
+
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSnapshotTest {
+
+    private static List<Integer> ids(BookSnapshot snapshot, BookCursor after, int limit, BookCursor[] next) {
+        List<Integer> ids = new ArrayList<>();
+        next[0] = snapshot.page(after, limit, (side, level, i) -> ids.add(level.id(i)));
+        return ids;
+    }
+
+    @Test
+    void testPublishCopiesOnlyChangedLevels() {
+        OrderBook book = new OrderBook("AAPL");
+        book.add(new Order("AAPL", 100, 1, Order.Type.BUY));
+        int changed = book.add(new Order("AAPL", 101, 5, Order.Type.BUY));
+        BookSnapshot first = book.publish();
+
+        assertSame(first, book.publish());
+        book.reduce(changed, 2);
+        BookSnapshot second = book.publish();
+
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertSame(first.levels(Order.Type.BUY)[1], second.levels(Order.Type.BUY)[1]);
+        assertNotSame(first.levels(Order.Type.BUY)[0], second.levels(Order.Type.BUY)[0]);
+        // The earlier snapshot is unaffected by the change
+        assertEquals(5, first.levels(Order.Type.BUY)[0].quantity(0));
+        assertEquals(2, second.levels(Order.Type.BUY)[0].quantity(0));
+    }
+
+    @Test
+    void testListsBidsThenAsksInPriority() {
+        OrderBook book = new OrderBook("AAPL");
+        Order bid1 = new Order("AAPL", 99, 1, Order.Type.BUY);
+        Order ask1 = new Order("AAPL", 102, 1, Order.Type.SELL);
+        Order bid2 = new Order("AAPL", 100, 1, Order.Type.BUY);
+        Order ask2 = new Order("AAPL", 101, 1, Order.Type.SELL);
+        List.of(bid1, ask1, bid2, ask2).forEach(book::add);
+
+        BookCursor[] next = new BookCursor[1];
+        assertEquals(List.of(bid2.getId(), bid1.getId(), ask2.getId(), ask1.getId()),
+                ids(book.publish(), null, 10, next));
+        assertNull(next[0]);
+        assertEquals(4, book.snapshot().getOrderCount());
+    }
+
+    @Test
+    void testCursorStaysStableWhileBookChanges() {
+        OrderBook book = new OrderBook("AAPL");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Order order = new Order("AAPL", 100 + i / 2, 1, Order.Type.SELL);
+            orders.add(order);
+            book.add(order);
+        }
+        BookCursor[] next = new BookCursor[1];
+        assertEquals(List.of(orders.get(0).getId(), orders.get(1).getId(), orders.get(2).getId()),
+                ids(book.publish(), null, 3, next));
+
+        // The last order returned and an earlier one leave; paging continues where it stopped
+        book.remove(orders.get(2).getId());
+        book.remove(orders.get(0).getId());
+        assertEquals(List.of(orders.get(3).getId(), orders.get(4).getId()), ids(book.publish(), next[0], 2, next));
+        assertEquals(List.of(orders.get(5).getId()), ids(book.snapshot(), next[0], 2, next));
+        assertNull(next[0]);
+    }
+
+    @Test
+    void testOffsetPagingSkipsWholeLevels() {
+        OrderBook book = new OrderBook("AAPL");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            expected.add(book.orders().id(book.add(new Order("AAPL", 100 - i / 3, 1, Order.Type.BUY))));
+        }
+        List<Integer> page = new ArrayList<>();
+        BookCursor next = book.publish().page(4, 3, (side, level, i) -> page.add(level.id(i)));
+
+        assertEquals(expected.subList(4, 7), page);
+        assertEquals(expected.get(6), next.orderId());
+        assertNull(book.snapshot().page(9, 3, (side, level, i) -> fail()));
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        BookCursor cursor = new BookCursor(Order.Type.SELL, 10100, 123456789L, 42);
+        assertEquals(cursor, BookCursor.parse(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.parse("SELL:1:2"));
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.parse("HOLD:1:2:3"));
+    }
+}
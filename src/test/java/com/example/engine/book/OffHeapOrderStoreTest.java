@@ -0,0 +1,72 @@
+package com.example.engine.book;
+
+import com.example.engine.concurrent.ConcurrentIntLongMap;
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+
+    private final ConcurrentIntLongMap directory = new ConcurrentIntLongMap();
+
+    @Test
+    void testBookKeepsCopiesInPriceTimePriority() {
+        OffHeapOrderStore store = new OffHeapOrderStore("AAPL", 3, 4, directory);
+        OrderBook book = new OrderBook("AAPL", store);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order(i + 1, "AAPL", 100 + i % 3, 1 + i, Order.Type.SELL, i);
+            order.setSymbolId(3);
+            orders.add(order);
+            book.add(order);
+        }
+        orders.sort(Order::compareTo);
+
+        assertEquals(orders, book.getSells().stream().toList());
+        assertNotSame(orders.get(0), book.getSells().peek());
+        assertEquals(3 * 4 * OffHeapOrderStore.SLOT_BYTES, store.reservedBytes());
+        assertEquals(10, directory.size());
+    }
+
+    @Test
+    void testFreedSlotsAreReused() {
+        OffHeapOrderStore store = new OffHeapOrderStore("AAPL", 0, 4, directory);
+        OrderBook book = new OrderBook("AAPL", store);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 1; i <= 4; i++) {
+                book.add(new Order(round * 4 + i, "AAPL", 100 + i, 5, Order.Type.BUY, i));
+            }
+            for (int i = 1; i <= 4; i++) {
+                assertNotNull(book.remove(round * 4 + i));
+            }
+        }
+        assertEquals(0, store.size());
+        assertEquals(4 * OffHeapOrderStore.SLOT_BYTES, store.reservedBytes());
+        assertTrue(directory.isEmpty());
+    }
+
+    @Test
+    void testFillsUpdateSlotsAndReadChecksTheId() {
+        OffHeapOrderStore store = new OffHeapOrderStore("AAPL", 0, 16, directory);
+        OrderBook book = new OrderBook("AAPL", store);
+        int handle = book.add(new Order(7, "AAPL", 100, 5, Order.Type.BUY, 1));
+
+        assertFalse(book.fill(handle, 2));
+        Order read = store.read(handle, 7);
+        assertEquals(3, read.getQuantity());
+        assertEquals(Order.Status.PARTIALLY_FILLED, read.getStatus());
+        assertEquals(3, book.getBuys().bestLevel().getTotalQuantity());
+        assertNull(store.read(handle, 8));
+
+        assertTrue(book.fill(handle, 3));
+        assertEquals(Order.Status.FILLED, store.order(handle).getStatus());
+        book.release(handle);
+        assertNull(store.read(handle, 7));
+        assertTrue(book.getBuys().isEmpty());
+        assertEquals(-1, directory.get(7, -1));
+    }
+}
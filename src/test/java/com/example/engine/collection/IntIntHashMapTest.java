@@ -0,0 +1,47 @@
+package com.example.engine.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        map.put(7, 0);
+        map.put(7, 3);
+        assertEquals(3, map.get(7));
+        assertEquals(IntIntHashMap.MISSING, map.get(8));
+        assertEquals(1, map.size());
+
+        assertEquals(3, map.remove(7));
+        assertEquals(IntIntHashMap.MISSING, map.remove(7));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        // Growth and backward-shift deletion must never lose an entry
+        IntIntHashMap map = new IntIntHashMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map.put(key, i);
+            } else {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? IntIntHashMap.MISSING : removed, map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}
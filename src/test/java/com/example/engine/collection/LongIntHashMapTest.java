@@ -0,0 +1,32 @@
+package com.example.engine.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        // Keys far apart in the high bits must still spread and survive growth and deletion
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = (random.nextInt(2_500) - 100) * (random.nextBoolean() ? 1L : 1L << 40);
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map.put(key, i);
+            } else {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? LongIntHashMap.MISSING : removed, map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}
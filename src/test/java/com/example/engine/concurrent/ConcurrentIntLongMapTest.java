@@ -0,0 +1,51 @@
+package com.example.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIntLongMapTest {
+
+    @Test
+    void testPutGetConditionalRemove() {
+        ConcurrentIntLongMap map = new ConcurrentIntLongMap(4);
+        assertTrue(map.isEmpty());
+        map.put(1, 0);
+        assertEquals(0, map.get(1, -1));
+        map.put(1, 7);
+        assertEquals(7, map.get(1, -1));
+        assertEquals(-1, map.get(2, -1));
+        assertEquals(1, map.size());
+
+        assertFalse(map.remove(1, 8));
+        assertTrue(map.remove(1, 7));
+        assertFalse(map.remove(1, 7));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        ConcurrentIntLongMap map = new ConcurrentIntLongMap(2);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (long i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map.put(key, i);
+            } else {
+                Long value = expected.get(key);
+                if (value != null) {
+                    assertTrue(map.remove(key, value));
+                    expected.remove(key);
+                }
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, -1)));
+    }
+}
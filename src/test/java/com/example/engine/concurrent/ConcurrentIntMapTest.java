@@ -0,0 +1,84 @@
+package com.example.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIntMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<>(4);
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        assertEquals("b", map.get(1));
+        assertNull(map.get(2));
+        assertEquals(1, map.size());
+
+        assertEquals("b", map.remove(1));
+        assertNull(map.remove(1));
+        assertTrue(map.isEmpty());
+        assertThrows(NullPointerException.class, () -> map.put(3, null));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        // Growth and backward-shift deletion must never lose an entry
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void testRemoveIf() {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i);
+        }
+        map.removeIf(value -> value % 2 == 0);
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i));
+        }
+    }
+
+    @Test
+    void testConcurrentWritersOnDisjointKeys() throws Exception {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int offset = t;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < 40_000; i += writers.length) {
+                    map.put(i, i);
+                    if (i % 3 == 0) {
+                        map.remove(i);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        for (int i = 0; i < 40_000; i++) {
+            assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), map.get(i));
+        }
+        assertEquals(40_000 - 13_334, map.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.model.Order.Type;
+import com.example.engine.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DeadLetterController.class)
+class DeadLetterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    private final DeadLetterResponse letter = new DeadLetterResponse(42, "AAPL", 150.0, 10, Type.BUY, 3,
+            "java.lang.IllegalStateException: boom", Instant.parse("2026-01-02T03:04:05Z"));
+
+    @Test
+    void getDeadLetters_ShouldFilterBySymbol() throws Exception {
+        when(orderService.getDeadLetters("AAPL", 0, 100)).thenReturn(List.of(letter));
+
+        mockMvc.perform(get("/api/admin/dead-letters").param("symbol", "AAPL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].orderId", is(42)))
+                .andExpect(jsonPath("$[0].attempts", is(3)))
+                .andExpect(jsonPath("$[0].deadLetteredAt", is("2026-01-02T03:04:05Z")));
+    }
+
+    @Test
+    void replay_ShouldTakeTheGivenIds() throws Exception {
+        when(orderService.replayDeadLetters(null, List.of(42, 43), 100)).thenReturn(List.of(letter));
+
+        mockMvc.perform(post("/api/admin/dead-letters/replay").param("ids", "42", "43"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderId", is(42)));
+    }
+
+    @Test
+    void discard_ShouldTakeABatchForTheSymbol() throws Exception {
+        when(orderService.discardDeadLetters("AAPL", null, 500)).thenReturn(List.of(letter));
+
+        mockMvc.perform(post("/api/admin/dead-letters/discard").param("symbol", "AAPL").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.DepthLevel;
+import com.example.engine.dto.DepthResponse;
+import com.example.engine.service.OrderService;
+import com.example.engine.stream.StreamHub;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DepthController.class)
+class DepthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private StreamHub streamHub;
+
+    @Test
+    void getDepth_ShouldReturnAggregatedLevels() throws Exception {
+        DepthResponse depth = new DepthResponse("AAPL", 12,
+                List.of(new DepthLevel(150.0, 30, 2), new DepthLevel(149.5, 10, 1)),
+                List.of(new DepthLevel(150.5, 7, 1)));
+        when(orderService.getDepth("AAPL", 2)).thenReturn(depth);
+
+        mockMvc.perform(get("/api/depth/{symbol}", "AAPL").param("levels", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(12)))
+                .andExpect(jsonPath("$.bids", hasSize(2)))
+                .andExpect(jsonPath("$.bids[0].quantity", is(30)))
+                .andExpect(jsonPath("$.asks[0].orders", is(1)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.BookDepth;
+import com.example.engine.dto.EngineStatsResponse;
+import com.example.engine.dto.StageLatency;
+import com.example.engine.metrics.EngineStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(EngineController.class)
+class EngineControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EngineStats engineStats;
+
+    @Test
+    void getStats_ShouldReturnRatesLatenciesAndLargestBooks() throws Exception {
+        EngineStatsResponse stats = new EngineStatsResponse(1200.0, 300.0, 5000, 900, new int[]{3, 0}, 1000, 500, 7, 2, 1,
+                Map.of("match", new StageLatency(5000, 1.2, 1.0, 4.5, 9.8, 20.1)),
+                List.of(new BookDepth("AAPL", 12, 10, 40, 33)));
+        when(engineStats.snapshot(5)).thenReturn(stats);
+
+        mockMvc.perform(get("/api/engine/stats").param("books", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ordersPerSecond", is(1200.0)))
+                .andExpect(jsonPath("$.queueDepths", hasSize(2)))
+                .andExpect(jsonPath("$.queueHighWatermark", is(1000)))
+                .andExpect(jsonPath("$.rateLimited", is(7)))
+                .andExpect(jsonPath("$.deadLetters", is(1)))
+                .andExpect(jsonPath("$.latency.match.p99", is(4.5)))
+                .andExpect(jsonPath("$.books[0].symbol", is("AAPL")))
+                .andExpect(jsonPath("$.books[0].bidOrders", is(40)));
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.engine.controller;
 
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.BatchOrderResult;
+import com.example.engine.dto.OrderBatchRequest;
+import com.example.engine.dto.OrderPage;
 import com.example.engine.dto.OrderRequest;
 import com.example.engine.dto.OrderResponse;
+import com.example.engine.dto.OrderResult;
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.model.Order.Status;
 import com.example.engine.model.Order.Type;
+import com.example.engine.service.OrderRejectedException;
 import com.example.engine.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,16 +21,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(OrderController.class)
@@ -40,7 +56,7 @@ class OrderControllerTest {
     @Test
     void addOrder_ShouldReturnCreatedOrder() throws Exception {
         OrderRequest request = new OrderRequest("AAPL", 150.0, 10, Type.BUY);
-        OrderResponse response = new OrderResponse(1, "AAPL", 150.0, 10, Type.BUY);
+        OrderResponse response = new OrderResponse(1, "AAPL", 150.0, 10, Type.BUY, Status.NEW);
 
         when(orderService.addOrder(Mockito.any(OrderRequest.class))).thenReturn(response);
 
@@ -53,10 +69,124 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.type", is("BUY")));
     }
 
+    @Test
+    void addOrderAwaitingMatch_ShouldReturnFillsOnceMatched() throws Exception {
+        OrderRequest request = new OrderRequest("AAPL", 150.0, 10, Type.BUY);
+        OrderResult result = new OrderResult(new OrderResponse(1, "AAPL", 150.0, 4, Type.BUY, Status.PARTIALLY_FILLED),
+                true, 6, 4, List.of(new TradeResponse(3, "AAPL", 149.5, 6, Type.BUY, 1, 2)));
+        when(orderService.addOrderAwaitingMatch(Mockito.any(OrderRequest.class), Mockito.eq(Duration.ofSeconds(1))))
+                .thenReturn(CompletableFuture.completedFuture(result));
+
+        MvcResult pending = mockMvc.perform(post("/api/orders").param("ack", "match")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.status", is("PARTIALLY_FILLED")))
+                .andExpect(jsonPath("$.filledQuantity", is(6)))
+                .andExpect(jsonPath("$.remainingQuantity", is(4)))
+                .andExpect(jsonPath("$.trades[0].price", is(149.5)));
+    }
+
+    @Test
+    void addOrderAwaitingMatch_ShouldReturnAcceptedWhenMatchingTakesTooLong() throws Exception {
+        OrderRequest request = new OrderRequest("AAPL", 150.0, 10, Type.BUY);
+        OrderResult result = OrderResult.pending(new OrderResponse(1, "AAPL", 150.0, 10, Type.BUY, Status.NEW));
+        when(orderService.addOrderAwaitingMatch(Mockito.any(OrderRequest.class), Mockito.any(Duration.class)))
+                .thenReturn(CompletableFuture.completedFuture(result));
+
+        MvcResult pending = mockMvc.perform(post("/api/orders").param("ack", "match")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.matched", is(false)))
+                .andExpect(jsonPath("$.order.id", is(1)));
+    }
+
+    @Test
+    void addOrder_ShouldReturnBadRequestForPriceOffTick() throws Exception {
+        OrderRequest request = new OrderRequest("AAPL", 150.005, 10, Type.BUY);
+
+        when(orderService.addOrder(Mockito.any(OrderRequest.class)))
+                .thenThrow(new IllegalArgumentException("Price 150.005 is not a multiple of tick size 0.01 for AAPL"));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Price 150.005 is not a multiple of tick size 0.01 for AAPL")));
+    }
+
+    @Test
+    void addOrder_ShouldReturnTooManyRequestsWithRetryAfterWhenRateLimited() throws Exception {
+        OrderRequest request = new OrderRequest("AAPL", 150.0, 10, Type.BUY);
+
+        when(orderService.addOrder(Mockito.any(OrderRequest.class))).thenThrow(new OrderRejectedException(
+                OrderRejectedException.Reason.RATE_LIMITED, "Symbol AAPL is over its rate limit", 1500));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.retryAfterMillis", is("1500")));
+    }
+
+    @Test
+    void addOrder_ShouldReturnServiceUnavailableWhenOverloaded() throws Exception {
+        OrderRequest request = new OrderRequest("AAPL", 150.0, 10, Type.BUY);
+
+        when(orderService.addOrder(Mockito.any(OrderRequest.class))).thenThrow(new OrderRejectedException(
+                OrderRejectedException.Reason.OVERLOADED, "Engine overloaded", 200));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error", is("Engine overloaded")));
+    }
+
+    @Test
+    void addOrders_ShouldReturnResultsInRequestOrder() throws Exception {
+        OrderBatchRequest request = new OrderBatchRequest(List.of(
+                new OrderRequest("AAPL", 150.0, 10, Type.BUY),
+                new OrderRequest("AAPL", 150.005, 1, Type.SELL)));
+        when(orderService.addOrders(Mockito.anyList())).thenReturn(List.of(
+                BatchOrderResult.accepted(new OrderResponse(1, "AAPL", 150.0, 10, Type.BUY, Status.NEW)),
+                BatchOrderResult.rejected("Price 150.005 is not a multiple of tick size 0.01 for AAPL")));
+
+        mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].order.id", is(1)))
+                .andExpect(jsonPath("$[1].error", is("Price 150.005 is not a multiple of tick size 0.01 for AAPL")));
+    }
+
+    @Test
+    void addOrders_ShouldRejectInvalidOrderInBatch() throws Exception {
+        OrderBatchRequest request = new OrderBatchRequest(List.of(
+                new OrderRequest("AAPL", 150.0, 10, Type.BUY),
+                new OrderRequest("AAPL", 150.0, 0, Type.SELL)));
+
+        mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getOrderById_ShouldReturnOrderIfFound() throws Exception {
         int orderId = 42;
-        OrderResponse response = new OrderResponse(orderId, "GOOG", 2000.0, 5, Type.SELL);
+        OrderResponse response = new OrderResponse(orderId, "GOOG", 2000.0, 5, Type.SELL, Status.NEW);
 
         when(orderService.getOrderById(orderId)).thenReturn(Optional.of(response));
 
@@ -75,11 +205,59 @@ class OrderControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void cancelOrder_ShouldReturnAccepted() throws Exception {
+        OrderResponse response = new OrderResponse(7, "AAPL", 150.0, 10, Type.BUY, Status.NEW);
+        when(orderService.cancelOrder(7)).thenReturn(Optional.of(response));
+
+        mockMvc.perform(delete("/api/orders/{id}", 7))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", is(7)));
+    }
+
+    @Test
+    void cancelOrder_ShouldReturnNotFoundIfMissing() throws Exception {
+        when(orderService.cancelOrder(99)).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/orders/{id}", 99))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelOrder_ShouldReturnConflictIfAlreadyFilled() throws Exception {
+        when(orderService.cancelOrder(5)).thenThrow(new IllegalStateException("Order 5 is already FILLED"));
+
+        mockMvc.perform(delete("/api/orders/{id}", 5))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is("Order 5 is already FILLED")));
+    }
+
+    @Test
+    void amendOrder_ShouldReturnAccepted() throws Exception {
+        AmendRequest request = new AmendRequest(151.0, 4);
+        OrderResponse response = new OrderResponse(7, "AAPL", 150.0, 10, Type.BUY, Status.PARTIALLY_FILLED);
+        when(orderService.amendOrder(Mockito.eq(7), Mockito.any(AmendRequest.class))).thenReturn(Optional.of(response));
+
+        mockMvc.perform(patch("/api/orders/{id}", 7)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status", is("PARTIALLY_FILLED")));
+    }
+
+    @Test
+    void amendOrder_ShouldRejectZeroQuantity() throws Exception {
+        mockMvc.perform(patch("/api/orders/{id}", 7)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AmendRequest(null, 0))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getOrdersBySymbol_ShouldReturnPagedOrders() throws Exception {
         String symbol = "TSLA";
-        OrderResponse o1 = new OrderResponse(1, symbol, 300.0, 20, Type.BUY);
-        OrderResponse o2 = new OrderResponse(2, symbol, 310.0, 15, Type.SELL);
+        OrderResponse o1 = new OrderResponse(1, symbol, 300.0, 20, Type.BUY, Status.NEW);
+        OrderResponse o2 = new OrderResponse(2, symbol, 310.0, 15, Type.SELL, Status.NEW);
         List<OrderResponse> mockList = List.of(o1, o2);
 
         when(orderService.getOrdersBySymbol(symbol, PageRequest.of(0, 10))).thenReturn(mockList);
@@ -92,4 +270,27 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$[0].symbol", is("TSLA")))
                 .andExpect(jsonPath("$[1].symbol", is("TSLA")));
     }
+
+    @Test
+    void getOrdersBySymbol_WithCursorShouldReturnNextCursorHeader() throws Exception {
+        OrderResponse o1 = new OrderResponse(3, "TSLA", 300.0, 20, Type.BUY, Status.NEW);
+        when(orderService.getOrdersBySymbol("TSLA", "BUY:30000:5:2", 1))
+                .thenReturn(new OrderPage(List.of(o1), "BUY:30000:6:3"));
+        when(orderService.getOrdersBySymbol("TSLA", "BUY:30000:6:3", 1))
+                .thenReturn(new OrderPage(List.of(), null));
+
+        mockMvc.perform(get("/api/orders/symbol/{symbol}", "TSLA")
+                        .param("cursor", "BUY:30000:5:2")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "BUY:30000:6:3"))
+                .andExpect(jsonPath("$[0].id", is(3)));
+
+        mockMvc.perform(get("/api/orders/symbol/{symbol}", "TSLA")
+                        .param("cursor", "BUY:30000:6:3")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
 }
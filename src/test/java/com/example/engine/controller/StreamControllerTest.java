@@ -0,0 +1,77 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.OrderResponse;
+import com.example.engine.model.Order.Status;
+import com.example.engine.model.Order.Type;
+import com.example.engine.service.OrderService;
+import com.example.engine.stream.StreamEvent;
+import com.example.engine.stream.StreamHub;
+import com.example.engine.stream.StreamSubscriber;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StreamController.class)
+class StreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private StreamHub streamHub;
+
+    @Test
+    void streamOrder_ShouldStartWithCurrentState() throws Exception {
+        StreamSubscriber subscriber = mock(StreamSubscriber.class);
+        when(streamHub.subscribeOrder(eq(1), any())).thenReturn(subscriber);
+        when(orderService.getOrderById(1)).thenReturn(Optional.of(new OrderResponse(1, "AAPL", 150.0, 10, Type.BUY, Status.NEW)));
+
+        mockMvc.perform(get("/api/stream/orders/{id}", 1))
+                .andExpect(request().asyncStarted());
+
+        verify(streamHub).send(eq(subscriber), argThat((StreamEvent event) -> event.getName().equals("order")));
+        verify(streamHub, never()).finish(subscriber);
+    }
+
+    @Test
+    void streamOrder_ShouldCompleteAfterStateOfFinishedOrder() throws Exception {
+        StreamSubscriber subscriber = mock(StreamSubscriber.class);
+        when(streamHub.subscribeOrder(eq(2), any())).thenReturn(subscriber);
+        when(orderService.getOrderById(2)).thenReturn(Optional.of(new OrderResponse(2, "AAPL", 150.0, 0, Type.BUY, Status.FILLED)));
+
+        mockMvc.perform(get("/api/stream/orders/{id}", 2))
+                .andExpect(request().asyncStarted());
+
+        verify(streamHub).finish(subscriber);
+    }
+
+    @Test
+    void streamOrder_ShouldReturnNotFoundAndUnsubscribe() throws Exception {
+        StreamSubscriber subscriber = mock(StreamSubscriber.class);
+        when(streamHub.subscribeOrder(eq(3), any())).thenReturn(subscriber);
+        when(orderService.getOrderById(3)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/stream/orders/{id}", 3))
+                .andExpect(status().isNotFound());
+
+        verify(subscriber).close();
+    }
+}
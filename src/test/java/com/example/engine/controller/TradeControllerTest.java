@@ -0,0 +1,42 @@
+package com.example.engine.controller;
+
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.model.Order.Type;
+import com.example.engine.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TradeController.class)
+class TradeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @Test
+    void getRecentTrades_ShouldReturnTrades() throws Exception {
+        TradeResponse trade = new TradeResponse(7, "AAPL", 150.0, 10, Type.BUY, 1, 2);
+        when(orderService.getRecentTrades("AAPL", 5)).thenReturn(List.of(trade));
+
+        mockMvc.perform(get("/api/trades/{symbol}", "AAPL").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].sequence", is(7)))
+                .andExpect(jsonPath("$[0].aggressor", is("BUY")))
+                .andExpect(jsonPath("$[0].buyOrderId", is(1)));
+    }
+}
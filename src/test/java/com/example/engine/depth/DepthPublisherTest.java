@@ -0,0 +1,101 @@
+package com.example.engine.depth;
+
+import com.example.engine.dto.DepthLevel;
+import com.example.engine.dto.DepthUpdate;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.TradeRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepthPublisherTest {
+
+    private final OrderManager orderManager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+    // Long interval: the test drives publishing rounds itself
+    private final DepthPublisher publisher = new DepthPublisher(orderManager,
+            new TickSizeRegistry(new BigDecimal("0.01"), ""), Duration.ofHours(1));
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    void testNewSubscriberGetsFullBookThenConflatedDeltas() {
+        orderManager.addOrder(new Order("AAPL", 10000, 5, Order.Type.BUY));
+        orderManager.addOrder(new Order("AAPL", 10100, 7, Order.Type.SELL));
+        orderManager.addOrder(new Order("AAPL", 10200, 1, Order.Type.SELL));
+        orderManager.publishSnapshots();
+        List<DepthUpdate> received = new ArrayList<>();
+        publisher.subscribe("AAPL", received::add);
+
+        publisher.publish();
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).isFull());
+        assertEquals(List.of(new DepthLevel(100.00, 5, 1)), received.get(0).getBids());
+        assertEquals(2, received.get(0).getAsks().size());
+
+        // Three fills against the 101.00 level and a new bid, all before the next round
+        for (int i = 0; i < 3; i++) {
+            orderManager.addOrder(new Order("AAPL", 10100, 2, Order.Type.BUY));
+            orderManager.matchOrders("AAPL");
+        }
+        orderManager.addOrder(new Order("AAPL", 9900, 4, Order.Type.BUY));
+        orderManager.publishSnapshots();
+        publisher.publish();
+
+        assertEquals(2, received.size());
+        DepthUpdate delta = received.get(1);
+        assertFalse(delta.isFull());
+        assertEquals(List.of(new DepthLevel(99.00, 4, 1)), delta.getBids());
+        assertEquals(List.of(new DepthLevel(101.00, 1, 1)), delta.getAsks());
+
+        // Nothing changed: no update
+        publisher.publish();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    void testRemovedLevelIsSentWithZeroQuantity() {
+        Order sell = new Order("MSFT", 30000, 3, Order.Type.SELL);
+        orderManager.addOrder(sell);
+        orderManager.publishSnapshots();
+        List<DepthUpdate> received = new ArrayList<>();
+        publisher.subscribe("MSFT", received::add);
+        publisher.publish();
+
+        orderManager.cancelOrder("MSFT", sell.getId());
+        orderManager.publishSnapshots();
+        publisher.publish();
+
+        assertEquals(List.of(new DepthLevel(300.00, 0, 0)), received.get(1).getAsks());
+        assertTrue(received.get(1).getBids().isEmpty());
+    }
+
+    @Test
+    void testFailingSubscriberIsDropped() {
+        orderManager.addOrder(new Order("IBM", 100, 1, Order.Type.BUY));
+        orderManager.publishSnapshots();
+        int[] calls = {0};
+        publisher.subscribe("IBM", update -> {
+            calls[0]++;
+            throw new IllegalStateException("client went away");
+        });
+
+        publisher.publish();
+        orderManager.addOrder(new Order("IBM", 101, 1, Order.Type.BUY));
+        orderManager.publishSnapshots();
+        publisher.publish();
+
+        assertEquals(1, calls[0]);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.engine.gateway;
+
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.journal.DisabledOrderJournal;
+import com.example.engine.journal.Durability;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.service.IntakeControl;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.service.OrderServiceImpl;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.TradeRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryGatewayTest {
+
+    private final SymbolRegistry symbols = new SymbolRegistry(1024, "");
+    private final OrderManager orderManager = new OrderManager(new TradeRing(1024), symbols);
+    private OrderServiceImpl orderService;
+    private BinaryGateway gateway;
+    private Socket socket;
+
+    @BeforeEach
+    void setup() throws IOException {
+        orderService = new OrderServiceImpl(orderManager, new TickSizeRegistry(new BigDecimal("0.01"), ""),
+                new TradeRing(1024), new DisabledOrderJournal(), OrderFlowRecorder.disabled(), new SnapshotStore(false, "snapshots", 2, Duration.ofMinutes(5)),
+                new OrderArchive(1024, Duration.ofHours(1)), new OrderPool(1024, 64), new EngineMetrics(), IntakeControl.unlimited(), 1, 1024, 1);
+        gateway = new BinaryGateway(orderService, orderManager, 0, DataSize.ofKilobytes(64), false, Durability.ASYNC);
+        socket = new Socket("localhost", gateway.getPort());
+        socket.setSoTimeout(5_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        socket.close();
+        gateway.stop();
+        orderService.shutdownExecutor();
+    }
+
+    private void send(ByteBuffer frame) throws IOException {
+        socket.getOutputStream().write(frame.array(), 0, frame.position());
+    }
+
+    private void sendNewOrder(long clientOrderId, byte side, int quantity, long price) throws IOException {
+        sendNewOrder(clientOrderId, side, quantity, price, "AAPL");
+    }
+
+    private void sendNewOrder(long clientOrderId, byte side, int quantity, long price, String symbol) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(NewOrderMessage.LENGTH).order(Protocol.BYTE_ORDER);
+        NewOrderMessage.encode(frame, clientOrderId, side, quantity, price, symbol);
+        send(frame);
+    }
+
+    private ByteBuffer receive() throws IOException {
+        InputStream in = socket.getInputStream();
+        byte[] header = in.readNBytes(Protocol.HEADER_LENGTH);
+        assertEquals(Protocol.HEADER_LENGTH, header.length, "connection closed");
+        int length = ByteBuffer.wrap(header).order(Protocol.BYTE_ORDER).getShort(Protocol.LENGTH_OFFSET) & 0xFFFF;
+        ByteBuffer frame = ByteBuffer.allocate(length).order(Protocol.BYTE_ORDER).put(header);
+        frame.put(in.readNBytes(length - Protocol.HEADER_LENGTH));
+        return frame;
+    }
+
+    private int receiveAck(long clientOrderId) throws IOException {
+        ByteBuffer frame = receive();
+        assertEquals(Protocol.ACK, frame.get(Protocol.TYPE_OFFSET));
+        AckMessage ack = new AckMessage().wrap(frame, 0);
+        assertEquals(clientOrderId, ack.clientOrderId());
+        return ack.orderId();
+    }
+
+    private ExecutionReport receiveExecution() throws IOException {
+        ByteBuffer frame = receive();
+        assertEquals(Protocol.EXECUTION, frame.get(Protocol.TYPE_OFFSET));
+        return new ExecutionReport().wrap(frame, 0);
+    }
+
+    private void assertReject(long clientOrderId, byte reason) throws IOException {
+        ByteBuffer frame = receive();
+        assertEquals(Protocol.REJECT, frame.get(Protocol.TYPE_OFFSET));
+        RejectMessage reject = new RejectMessage().wrap(frame, 0);
+        assertEquals(clientOrderId, reject.clientOrderId());
+        assertEquals(reason, reject.reason());
+    }
+
+    @Test
+    void testOrdersAreAckedThenReportedOnTheSameConnection() throws IOException {
+        sendNewOrder(1, Protocol.SIDE_SELL, 5, 10000);
+        int sellId = receiveAck(1);
+        sendNewOrder(2, Protocol.SIDE_BUY, 3, 10100);
+        int buyId = receiveAck(2);
+
+        // The buy fills first within the trade, at the resting sell's price
+        ExecutionReport buy = receiveExecution();
+        assertEquals(2, buy.clientOrderId());
+        assertEquals(buyId, buy.orderId());
+        assertEquals(Order.Status.FILLED.ordinal(), buy.status());
+        assertEquals(10000, buy.price());
+        assertEquals(3, buy.quantity());
+        assertEquals(0, buy.leavesQuantity());
+
+        ExecutionReport sell = receiveExecution();
+        assertEquals(1, sell.clientOrderId());
+        assertEquals(sellId, sell.orderId());
+        assertEquals(Order.Status.PARTIALLY_FILLED.ordinal(), sell.status());
+        assertEquals(2, sell.leavesQuantity());
+        assertEquals(2, orderService.getOrderById(sellId).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void testCancelIsConfirmedByExecutionReport() throws IOException {
+        sendNewOrder(7, Protocol.SIDE_BUY, 4, 9900);
+        int orderId = receiveAck(7);
+
+        ByteBuffer cancel = ByteBuffer.allocate(2 * CancelMessage.LENGTH).order(Protocol.BYTE_ORDER);
+        CancelMessage.encode(cancel, 8, orderId);
+        CancelMessage.encode(cancel, 9, orderId + 1000);
+        send(cancel);
+
+        // The shard may apply the first cancel before the gateway rejects the second
+        ByteBuffer first = receive();
+        ByteBuffer second = receive();
+        boolean rejectFirst = first.get(Protocol.TYPE_OFFSET) == Protocol.REJECT;
+        RejectMessage reject = new RejectMessage().wrap(rejectFirst ? first : second, 0);
+        assertEquals(9, reject.clientOrderId());
+        assertEquals(Protocol.UNKNOWN_ORDER, reject.reason());
+        ByteBuffer execution = rejectFirst ? second : first;
+        assertEquals(Protocol.EXECUTION, execution.get(Protocol.TYPE_OFFSET));
+        ExecutionReport cancelled = new ExecutionReport().wrap(execution, 0);
+        assertEquals(7, cancelled.clientOrderId());
+        assertEquals(Order.Status.CANCELLED.ordinal(), cancelled.status());
+        assertEquals(0, cancelled.quantity());
+        assertEquals(4, cancelled.leavesQuantity());
+    }
+
+    @Test
+    void testInvalidOrderIsRejectedAndMalformedFrameCloses() throws IOException {
+        sendNewOrder(3, Protocol.SIDE_BUY, 0, 10000);
+        assertReject(3, Protocol.INVALID_MESSAGE);
+
+        ByteBuffer frame = ByteBuffer.allocate(Protocol.HEADER_LENGTH).order(Protocol.BYTE_ORDER);
+        frame.putShort((short) Protocol.HEADER_LENGTH).put((byte) 'X');
+        send(frame);
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    @Test
+    void testOrderTheEngineFailsOnIsRejectedAndTheGatewayKeepsServing() throws IOException {
+        symbols.register("AAPL");
+        while (symbols.size() < symbols.getCapacity()) {
+            symbols.register("S" + symbols.size());
+        }
+
+        // The registry has no room for a new symbol; that order alone is turned away
+        sendNewOrder(4, Protocol.SIDE_BUY, 1, 10000, "NEWSYM");
+        assertReject(4, Protocol.UNAVAILABLE);
+        sendNewOrder(5, Protocol.SIDE_BUY, 1, 10000);
+        receiveAck(5);
+    }
+
+    @Test
+    void testSyncJournalDurabilityIsRefused() {
+        assertThrows(IllegalStateException.class,
+                () -> new BinaryGateway(orderService, orderManager, 0, DataSize.ofKilobytes(64), true, Durability.SYNC));
+    }
+
+    @Test
+    void testSymbolPacking() {
+        long key = NewOrderMessage.symbolKey("BRK.A");
+        assertEquals("BRK.A", NewOrderMessage.symbol(key));
+        assertNull(NewOrderMessage.symbol(key | 1L << 56));
+        assertThrows(IllegalArgumentException.class, () -> NewOrderMessage.symbolKey("TOOLONGSYM"));
+    }
+}
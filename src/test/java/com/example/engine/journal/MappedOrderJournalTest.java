@@ -0,0 +1,160 @@
+package com.example.engine.journal;
+
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedOrderJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private MappedOrderJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private MappedOrderJournal open(long segmentBytes, Durability durability) throws IOException {
+        journal = new MappedOrderJournal(dir.toString(), DataSize.ofBytes(segmentBytes), durability, Duration.ofMillis(1));
+        return journal;
+    }
+
+    private List<Order> replayAll(MappedOrderJournal journal) {
+        List<Order> orders = new ArrayList<>();
+        journal.replay(0, record -> orders.add(record.toOrder()));
+        return orders;
+    }
+
+    @Test
+    void testAppendAndReplayRoundTrip() throws IOException {
+        open(4096, Durability.ASYNC);
+        Order buy = new Order(7, "AAPL", 15000, 10, Order.Type.BUY, 123L);
+        Order sell = new Order(8, "MSFT", 30050, 3, Order.Type.SELL, 456L);
+
+        long afterFirst = journal.append(buy);
+        long afterSecond = journal.append(sell);
+
+        assertTrue(afterSecond > afterFirst);
+        assertEquals(afterSecond, journal.getPosition());
+        assertEquals(List.of(buy, sell), replayAll(journal));
+    }
+
+    @Test
+    void testOrderTypesSurviveReplay() throws IOException {
+        open(4096, Durability.ASYNC);
+        Order fok = new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 1L);
+        fok.setTimeInForce(Order.TimeInForce.FOK);
+        Order market = new Order(2, "AAPL", 0, 5, Order.Type.SELL, 2L);
+        market.setTimeInForce(Order.TimeInForce.IOC);
+        market.setMarket(true);
+        Order stopLimit = new Order(3, "AAPL", 14900, 5, Order.Type.SELL, 3L);
+        stopLimit.setStopPrice(14950);
+
+        journal.append(fok);
+        journal.append(market);
+        journal.append(stopLimit);
+
+        assertEquals(List.of(fok, market, stopLimit), replayAll(journal));
+    }
+
+    @Test
+    void testSegmentsRollAndReplayAcrossThem() throws IOException {
+        open(256, Durability.ASYNC);
+        List<Order> appended = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Order order = new Order(i, "AAPL", 100 + i, i, i % 2 == 0 ? Order.Type.BUY : Order.Type.SELL, i);
+            journal.append(order);
+            appended.add(order);
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 3);
+        }
+        assertEquals(appended, replayAll(journal));
+    }
+
+    @Test
+    void testReopenContinuesAfterLastRecord() throws IOException {
+        open(256, Durability.ASYNC);
+        for (int i = 1; i <= 7; i++) {
+            journal.append(new Order(i, "GOOG", 100, 1, Order.Type.BUY, i));
+        }
+        long position = journal.getPosition();
+        journal.close();
+
+        open(256, Durability.ASYNC);
+        assertEquals(position, journal.getPosition());
+        journal.append(new Order(8, "GOOG", 101, 1, Order.Type.SELL, 8));
+
+        List<Order> replayed = replayAll(journal);
+        assertEquals(8, replayed.size());
+        assertEquals(8, replayed.get(7).getId());
+    }
+
+    @Test
+    void testTornTailIsDiscardedOnReopen() throws IOException {
+        open(4096, Durability.NONE);
+        journal.append(new Order(1, "AAPL", 100, 1, Order.Type.BUY, 1));
+        long tornAt = journal.append(new Order(2, "AAPL", 101, 1, Order.Type.BUY, 2));
+        journal.close();
+        journal = null;
+
+        // Corrupt the second record's price as if the crash happened mid-write
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> MappedOrderJournal.baseOf(p) == 0).findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(tornAt - 48 + 20);
+            file.writeLong(-1L);
+        }
+
+        open(4096, Durability.ASYNC);
+        List<Order> replayed = replayAll(journal);
+        assertEquals(1, replayed.size());
+        assertEquals(1, replayed.get(0).getId());
+        assertEquals(tornAt - 48, journal.getPosition());
+    }
+
+    @Test
+    void testSyncDurabilityWaitsForGroupCommit() throws Exception {
+        open(4096, Durability.SYNC);
+        long position = journal.append(new Order(1, "AAPL", 100, 1, Order.Type.BUY, 1));
+
+        journal.awaitDurable(position);
+
+        assertTrue(journal.getDurablePosition() >= position);
+    }
+
+    @Test
+    void testReplayFromPositionSkipsEarlierRecords() throws IOException {
+        open(256, Durability.ASYNC);
+        long from = 0;
+        for (int i = 1; i <= 10; i++) {
+            long end = journal.append(new Order(i, "AAPL", 100, 1, Order.Type.BUY, i));
+            if (i == 6) {
+                from = end;
+            }
+        }
+        List<Integer> ids = new ArrayList<>();
+        journal.replay(from, record -> ids.add(record.getOrderId()));
+        assertEquals(List.of(7, 8, 9, 10), ids);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.engine.journal;
+
+import com.example.engine.book.OrderBook;
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private SnapshotStore store(int retain) {
+        return new SnapshotStore(true, dir.toString(), retain, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testWriteAndLoadRoundTrip() throws Exception {
+        SnapshotStore store = store(2);
+        BookImage first = new BookImage(1);
+        Order a = new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 11L);
+        Order b = new Order(2, "MSFT", 30000, 5, Order.Type.SELL, 12L);
+        first.add(a);
+        first.add(b);
+        BookImage second = new BookImage(1);
+        Order c = new Order(3, "AAPL", 15100, 1, Order.Type.SELL, 13L);
+        second.add(c);
+
+        store.write(4096, 42, List.of(first, second));
+
+        List<Order> loaded = new ArrayList<>();
+        SnapshotStore.Snapshot snapshot = store.loadLatest(loaded::add);
+        assertEquals(4096, snapshot.journalPosition());
+        assertEquals(42, snapshot.orderCounter());
+        assertEquals(3, snapshot.orderCount());
+        assertEquals(List.of(a, b, c), loaded);
+    }
+
+    @Test
+    void testStopsAndLastTradePricesRoundTrip() throws Exception {
+        SnapshotStore store = store(2);
+        BookImage image = new BookImage(1);
+        image.addSymbol("AAPL", 15050);
+        image.addSymbol("MSFT", OrderBook.NO_TRADE);
+        Order stop = new Order(1, "AAPL", 0, 10, Order.Type.BUY, 11L);
+        stop.setStopPrice(15200);
+        stop.setMarket(true);
+        stop.setTimeInForce(Order.TimeInForce.IOC);
+        image.add(stop);
+
+        store.write(64, 1, List.of(image));
+
+        List<Order> loaded = new ArrayList<>();
+        Map<String, Long> lastTradePrices = new HashMap<>();
+        store.loadLatest(loaded::add, lastTradePrices::put);
+        assertEquals(List.of(stop), loaded);
+        assertEquals(Map.of("AAPL", 15050L, "MSFT", OrderBook.NO_TRADE), lastTradePrices);
+    }
+
+    @Test
+    void testDeadLettersLoadApartFromBookOrders() throws Exception {
+        SnapshotStore store = store(2);
+        BookImage image = new BookImage(1);
+        Order resting = new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 11L);
+        Order deadLettered = new Order(2, "AAPL", 15100, 7, Order.Type.SELL, 12L);
+        deadLettered.setTimeInForce(Order.TimeInForce.IOC);
+        image.add(resting);
+        image.addDeadLetter(deadLettered);
+
+        store.write(64, 2, List.of(image));
+
+        List<Order> loaded = new ArrayList<>();
+        List<Order> deadLetters = new ArrayList<>();
+        SnapshotStore.Snapshot snapshot = store.loadLatest(loaded::add, (symbol, price) -> { }, deadLetters::add);
+        assertEquals(2, snapshot.orderCount());
+        assertEquals(List.of(resting), loaded);
+        assertEquals(List.of(deadLettered), deadLetters);
+        assertEquals(Order.TimeInForce.IOC, deadLetters.get(0).getTimeInForce());
+    }
+
+    @Test
+    void testImagesLargerThanTheIoBufferRoundTrip() throws Exception {
+        SnapshotStore store = store(1);
+        BookImage image = new BookImage(16);
+        for (int i = 0; i < 100_000; i++) {
+            image.add(new Order(i, "SYM" + (i % 7), i, 1 + i % 100, i % 2 == 0 ? Order.Type.BUY : Order.Type.SELL, i));
+        }
+        store.write(1, 100_000, List.of(image));
+
+        long[] checksum = {0};
+        SnapshotStore.Snapshot snapshot = store.loadLatest(o -> checksum[0] += o.getId() + o.getQuantity());
+        assertEquals(100_000, snapshot.orderCount());
+        long expected = 0;
+        for (int i = 0; i < 100_000; i++) {
+            expected += i + 1 + i % 100;
+        }
+        assertEquals(expected, checksum[0]);
+    }
+
+    @Test
+    void testSectionHeaderOnTheIoBufferBoundaryRoundTrips() throws Exception {
+        SnapshotStore store = store(1);
+        // Header, symbol table and 26,885 orders fill the first shard's section to 3 bytes short of
+        // 1 MB, so the second section's symbol count is the first write that does not fit
+        BookImage first = new BookImage(26_885);
+        for (int i = 0; i < 26_885; i++) {
+            first.add(new Order(i, "ABCDEFGH", 100 + i, 1, Order.Type.BUY, i));
+        }
+        BookImage second = new BookImage(1);
+        Order last = new Order(26_885, "IJKLMNOP", 200, 7, Order.Type.SELL, 26_885);
+        second.add(last);
+
+        store.write(1, 26_885, List.of(first, second));
+
+        List<Order> loaded = new ArrayList<>();
+        SnapshotStore.Snapshot snapshot = store.loadLatest(loaded::add);
+        assertEquals(26_886, snapshot.orderCount());
+        assertEquals(first.id(26_884), loaded.get(26_884).getId());
+        assertEquals(last, loaded.get(26_885));
+    }
+
+    @Test
+    void testRetentionKeepsNewestSnapshots() throws Exception {
+        SnapshotStore store = store(2);
+        store.write(100, 1, List.of(new BookImage(1)));
+        store.write(200, 2, List.of(new BookImage(1)));
+        store.write(300, 3, List.of(new BookImage(1)));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+        assertEquals(200, store.oldestRetainedPosition());
+        assertEquals(300, store.loadLatest(o -> { }).journalPosition());
+    }
+
+    @Test
+    void testNoSnapshot() throws Exception {
+        assertNull(store(2).loadLatest(o -> fail("No orders expected")));
+        assertEquals(0, store(2).oldestRetainedPosition());
+    }
+}
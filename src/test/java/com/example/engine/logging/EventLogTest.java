@@ -0,0 +1,62 @@
+package com.example.engine.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(EventLogTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final EventLog events = EventLog.getLog(EventLogTest.class);
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void testFormatsPrimitiveAndReferenceArgumentsInOrder() {
+        events.info("Order {} {} at {}").arg(7).arg("BUY").arg(150L).log();
+        events.warn("Slow: {}").arg(-1).log();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> appender.list.size() == 2);
+        List<ILoggingEvent> logged = appender.list;
+        assertEquals("Order 7 BUY at 150", logged.get(0).getFormattedMessage());
+        assertEquals(Level.INFO, logged.get(0).getLevel());
+        assertEquals("Slow: -1", logged.get(1).getFormattedMessage());
+        assertEquals(Level.WARN, logged.get(1).getLevel());
+    }
+
+    @Test
+    void testDisabledLevelSkipsTheRing() {
+        logger.setLevel(Level.WARN);
+        EventLog.Event event = events.info("Ignored {}");
+        assertSame(event, event.arg(1).arg("x"));
+        event.log();
+        events.warn("Kept").log();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> appender.list.size() == 1);
+        assertEquals("Kept", appender.list.get(0).getFormattedMessage());
+    }
+}
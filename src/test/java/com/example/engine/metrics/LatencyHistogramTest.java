@@ -0,0 +1,63 @@
+package com.example.engine.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValueWithinThreePercent() {
+        assertEquals(63, LatencyHistogram.highestValue(LatencyHistogram.bucket(63)));
+        int previous = -1;
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 / 2 + 1) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(bucket >= previous, "buckets must grow with the value");
+            previous = bucket;
+            long high = LatencyHistogram.highestValue(bucket);
+            assertTrue(high >= value, value + " reported as " + high);
+            assertTrue(high - value <= value / 32, value + " reported as " + high);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(500_000, snapshot.percentile(50), 500_000 / 32);
+        assertEquals(990_000, snapshot.percentile(99), 990_000 / 32);
+        assertEquals(1_000_000, snapshot.getMax(), 1_000_000 / 32);
+        assertEquals(0, snapshot.percentile(0));
+        assertEquals(500_000, snapshot.getMean(), 500_000 / 32);
+        assertEquals(0, new LatencyHistogram().snapshot().percentile(99));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 5_000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.snapshot().getCount());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.engine.recorder;
+
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFlowRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    private OrderFlowRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.close();
+        }
+    }
+
+    private OrderFlowRecorder open() throws IOException {
+        // A small buffer, so records also reach the file by filling it
+        recorder = new OrderFlowRecorder(true, dir.toString(), DataSize.ofKilobytes(1), Duration.ofHours(1));
+        return recorder;
+    }
+
+    private List<JournalRecord> readAll(Path file) {
+        List<JournalRecord> records = new ArrayList<>();
+        OrderFlowRecorder.read(file, records::add);
+        return records;
+    }
+
+    @Test
+    void testCommandsRoundTripInArrivalOrder() throws IOException {
+        open();
+        Order stop = new Order(7, "AAPL", 15000, 10, Order.Type.BUY, 123L);
+        stop.setTimeInForce(Order.TimeInForce.IOC);
+        stop.setStopPrice(14900);
+        Order market = new Order(8, "BRK.B", 0, 3, Order.Type.SELL, 456L);
+        market.setMarket(true);
+
+        assertEquals(1, recorder.append(stop));
+        assertEquals(2, recorder.append(JournalRecord.Kind.BATCH_ORDER, market));
+        recorder.append(JournalRecord.Kind.AMEND, 7, "AAPL", Order.Type.BUY, 15010, 4, 789L);
+        recorder.append(JournalRecord.Kind.CANCEL, 8, "BRK.B", Order.Type.SELL, -1, 0, 790L);
+        for (int i = 0; i < 100; i++) {
+            recorder.append(new Order(100 + i, "MSFT", 30000 + i, 1, Order.Type.BUY, i));
+        }
+        recorder.close();
+
+        List<JournalRecord> records = readAll(recorder.getFile());
+        assertEquals(104, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i, records.get(i).getPosition());
+        }
+        assertEquals(stop, records.get(0).toOrder());
+        assertEquals(Order.TimeInForce.IOC, records.get(0).getTimeInForce());
+        assertEquals(14900, records.get(0).getStopPrice());
+        assertEquals(JournalRecord.Kind.BATCH_ORDER, records.get(1).getKind());
+        assertTrue(records.get(1).isMarket());
+        assertEquals("BRK.B", records.get(1).getSymbol());
+        JournalRecord amend = records.get(2);
+        assertEquals(JournalRecord.Kind.AMEND, amend.getKind());
+        assertEquals(15010, amend.getPrice());
+        assertEquals(4, amend.getQuantity());
+        assertEquals(789L, amend.getTimestamp());
+        assertEquals(JournalRecord.Kind.CANCEL, records.get(3).getKind());
+        assertEquals(30099, records.get(103).getPrice());
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws IOException {
+        open();
+        recorder.append(new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 1L));
+        recorder.append(new Order(2, "AAPL", 15000, 10, Order.Type.SELL, 2L));
+        recorder.close();
+        Path file = recorder.getFile();
+        long complete = Files.size(file);
+        // Keep only part of the second record, as a crash mid-write would
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(complete - 10);
+        }
+
+        List<JournalRecord> records = readAll(file);
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).getOrderId());
+    }
+
+    @Test
+    void testWriteFailureStopsRecordingWithoutFailingCallers() throws IOException {
+        open();
+        recorder.append(new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 1L));
+        recorder.flush();
+        // Every later write fails, as on a failing disk
+        recorder.getChannel().close();
+
+        for (int i = 0; i < 100; i++) {
+            Order order = new Order(2 + i, "AAPL", 15000, 1, Order.Type.SELL, i);
+            assertDoesNotThrow(() -> recorder.append(order));
+        }
+        recorder.flush();
+
+        assertFalse(recorder.isEnabled());
+        assertEquals(0, recorder.append(new Order(200, "AAPL", 15000, 1, Order.Type.BUY, 200L)));
+        List<JournalRecord> records = readAll(recorder.getFile());
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).getOrderId());
+    }
+
+    @Test
+    void testOtherFilesAreRejected() throws IOException {
+        Path file = dir.resolve("other.rec");
+        Files.writeString(file, "not a recording at all");
+
+        assertThrows(IllegalArgumentException.class, () -> readAll(file));
+    }
+
+    @Test
+    void testDisabledRecorderWritesNothing() {
+        OrderFlowRecorder disabled = OrderFlowRecorder.disabled();
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(0, disabled.append(new Order(1, "AAPL", 15000, 10, Order.Type.BUY, 1L)));
+        assertNull(disabled.getFile());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.engine.recorder;
+
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.OrderRequest;
+import com.example.engine.journal.DisabledOrderJournal;
+import com.example.engine.journal.JournalRecord;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.service.IntakeControl;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.OrderServiceImpl;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.TradeRing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFlowReplayTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayReproducesTheRecordedSessionOnEveryRun() throws Exception {
+        TradeRing tradeRing = new TradeRing(1024);
+        OrderManager live = new OrderManager(tradeRing, new SymbolRegistry(1024, ""));
+        OrderFlowRecorder recorder = new OrderFlowRecorder(true, dir.toString(), DataSize.ofKilobytes(4), Duration.ofHours(1));
+        OrderServiceImpl service = new OrderServiceImpl(live, new TickSizeRegistry(new BigDecimal("0.01"), ""), tradeRing,
+                new DisabledOrderJournal(), recorder, new SnapshotStore(false, "snapshots", 2, Duration.ofMinutes(5)),
+                new OrderArchive(1024, Duration.ofHours(1)), new OrderPool(0, 0), new EngineMetrics(),
+                IntakeControl.unlimited(), 2, 1024, 1);
+        try {
+            Random random = new Random(42);
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                String symbol = i % 3 == 0 ? "MSFT" : "AAPL";
+                Order.Type side = random.nextBoolean() ? Order.Type.BUY : Order.Type.SELL;
+                OrderRequest request = new OrderRequest(symbol, 100 + random.nextInt(5) * 0.01, 1 + random.nextInt(9), side);
+                if (i % 25 == 0) {
+                    service.addOrders(List.of(request, new OrderRequest(symbol, 100.02, 5, side)));
+                    continue;
+                }
+                ids.add(service.addOrder(request).getId());
+                if (i % 7 == 0) {
+                    cancelIfLive(service, ids.get(random.nextInt(ids.size())));
+                } else if (i % 11 == 0) {
+                    amendIfLive(service, ids.get(random.nextInt(ids.size())), 1 + random.nextInt(3));
+                }
+            }
+            // Completes once its shard got to it, after everything queued for the symbol before it
+            service.addOrderAwaitingMatch(new OrderRequest("AAPL", 1.00, 1, Order.Type.BUY), Duration.ofSeconds(5))
+                    .get(5, TimeUnit.SECONDS);
+            service.addOrderAwaitingMatch(new OrderRequest("MSFT", 1.00, 1, Order.Type.BUY), Duration.ofSeconds(5))
+                    .get(5, TimeUnit.SECONDS);
+        } finally {
+            service.shutdownExecutor();
+            recorder.close();
+        }
+
+        OrderFlowReplay replay = OrderFlowReplay.load(recorder.getFile());
+        OrderFlowReplay.Result first = replay.run();
+        OrderFlowReplay.Result second = replay.run();
+
+        assertTrue(replay.getCommandCount() > 300);
+        assertEquals(replay.getCommandCount(), first.commands());
+        assertTrue(first.trades() > 0);
+        assertEquals(tradeRing.getPublishedCount(), first.trades());
+        assertTrue(first.sameOutcome(second));
+        assertEquals(OrderFlowReplay.digestBooks(live), first.bookDigest());
+        assertEquals(first.commands(), first.latency().getCount());
+    }
+
+    @Test
+    void testDifferentFlowsGiveDifferentDigests() {
+        List<JournalRecord> commands = new ArrayList<>();
+        commands.add(newOrder(1, Order.Type.SELL, 10000, 5));
+        commands.add(newOrder(2, Order.Type.BUY, 10000, 3));
+        OrderFlowReplay.Result filled = new OrderFlowReplay(commands).run();
+        commands.set(1, newOrder(2, Order.Type.BUY, 10000, 2));
+        OrderFlowReplay.Result lessFilled = new OrderFlowReplay(commands).run();
+
+        assertEquals(1, filled.trades());
+        assertNotEquals(filled.tradeDigest(), lessFilled.tradeDigest());
+        assertNotEquals(filled.bookDigest(), lessFilled.bookDigest());
+    }
+
+    private static JournalRecord newOrder(int id, Order.Type side, long price, int quantity) {
+        JournalRecord record = new JournalRecord();
+        record.setKind(JournalRecord.Kind.NEW_ORDER);
+        record.setOrderId(id);
+        record.setSymbol("AAPL");
+        record.setSide(side);
+        record.setPrice(price);
+        record.setQuantity(quantity);
+        record.setTimestamp(id);
+        return record;
+    }
+
+    private static void cancelIfLive(OrderServiceImpl service, int id) {
+        try {
+            service.cancelOrder(id);
+        } catch (IllegalStateException e) {
+            // Already filled or cancelled
+        }
+    }
+
+    private static void amendIfLive(OrderServiceImpl service, int id, int quantity) {
+        try {
+            service.amendOrder(id, new AmendRequest(null, quantity));
+        } catch (IllegalStateException e) {
+            // Already filled or cancelled
+        }
+    }
+}
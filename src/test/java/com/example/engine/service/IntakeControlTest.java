@@ -0,0 +1,79 @@
+package com.example.engine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntakeControlTest {
+
+    private long now = 1_000;
+    private final MatchingShard shard = new MatchingShard(0, 16, order -> { });
+
+    private IntakeControl intake(int rate, int burst, int high, int low) {
+        return new IntakeControl(16, rate, burst, high, low, Duration.ofMillis(250), () -> now);
+    }
+
+    @Test
+    void testTokenBucketAllowsBurstThenRefillsAtRate() {
+        IntakeControl intake = intake(10, 3, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            intake.admit(0, "AAPL", shard);
+        }
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class, () -> intake.admit(0, "AAPL", shard));
+        assertEquals(OrderRejectedException.Reason.RATE_LIMITED, rejected.getReason());
+        assertEquals(100, rejected.getRetryAfterMillis());
+        // Other symbols have their own bucket
+        intake.admit(1, "MSFT", shard);
+
+        now += TimeUnit.MILLISECONDS.toNanos(100);
+        intake.admit(0, "AAPL", shard);
+        assertThrows(OrderRejectedException.class, () -> intake.admit(0, "AAPL", shard));
+        now += TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            intake.admit(0, "AAPL", shard);
+        }
+        assertEquals(2, intake.getRateLimitedCount());
+    }
+
+    @Test
+    void testOverloadedShardRejectsUntilDrained() throws InterruptedException {
+        IntakeControl intake = intake(0, 0, 8, 4);
+        MatchingShard stopped = new MatchingShard(0, 16, order -> { });
+        for (int i = 0; i < 8; i++) {
+            intake.admit(0, "AAPL", stopped);
+            stopped.execute(() -> { });
+        }
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class, () -> intake.admit(0, "AAPL", stopped));
+        assertEquals(OrderRejectedException.Reason.OVERLOADED, rejected.getReason());
+        assertEquals(250, rejected.getRetryAfterMillis());
+
+        // Once the shard catches up, orders are admitted again
+        stopped.start();
+        while (stopped.getQueueDepth() > 0) {
+            Thread.onSpinWait();
+        }
+        stopped.stop(1, TimeUnit.SECONDS);
+        intake.admit(0, "AAPL", stopped);
+        assertEquals(1, intake.getOverloadedCount());
+    }
+
+    @Test
+    void testSheddingHasHysteresis() {
+        MatchingShard stopped = new MatchingShard(0, 16, order -> { });
+        for (int i = 0; i < 8; i++) {
+            assertDoesNotThrow(() -> stopped.execute(() -> { }));
+        }
+        assertTrue(stopped.isShedding(8, 4));
+        assertTrue(stopped.isShedding(16, 4), "still shedding above the low watermark");
+        assertFalse(stopped.isShedding(16, 8));
+    }
+
+    @Test
+    void testRejectsInvalidWatermarks() {
+        assertThrows(IllegalArgumentException.class, () -> intake(0, 0, 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> intake(-1, 0, 0, 0));
+    }
+}
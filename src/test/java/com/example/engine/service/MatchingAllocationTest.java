@@ -0,0 +1,167 @@
+package com.example.engine.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.concurrent.ConcurrentIntMap;
+import com.example.engine.logging.EventLog;
+import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.trade.TradeRing;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs what a matching shard does per order (match on arrival, or book a batch and match it once;
+ * fill or cancel, archive, recycle, log) and checks that, once warmed up, it allocates nothing.
+ * <p>
+ * The workload runs in a fresh JVM: once any test mocks {@link OrderManager}, Mockito's inline mock
+ * maker has instrumented the class for the rest of the test JVM, and its hooks allocate on every call.
+ */
+class MatchingAllocationTest {
+
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int MEASURED_ROUNDS = 50_000;
+    // Slack for one-off allocations while the JIT settles; far below one byte per order
+    private static final long ALLOCATION_BUDGET = 1024;
+
+    @Test
+    void matchingAllocatesNothingInSteadyState() throws IOException, InterruptedException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MatchingAllocationTest.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "workload did not finish");
+        assertEquals(0, process.exitValue(), output);
+
+        String[] result = output.lines().filter(line -> line.startsWith("allocated=")).findFirst()
+                .orElseThrow(() -> new AssertionError("no result in: " + output)).split("[=,]");
+        long allocated = Long.parseLong(result[1]);
+        long logged = Long.parseLong(result[3]);
+        assertTrue(allocated < ALLOCATION_BUDGET, allocated + " bytes allocated over " + MEASURED_ROUNDS * 6 + " orders");
+        // Logging went through the ring instead of being skipped
+        assertTrue(logged > 0, output);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            throw new IllegalStateException("Per-thread allocation counting is not available in this JVM");
+        }
+        Workload workload = new Workload();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            workload.round(i);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            workload.round(i);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        workload.verifyEmpty();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (workload.logged.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        System.out.println("allocated=" + allocated + ",logged=" + workload.logged.get());
+    }
+
+    private static final class Workload {
+
+        private final AtomicLong logged = new AtomicLong();
+        private final EventLog events = EventLog.getLog(MatchingAllocationTest.class);
+        private final SymbolRegistry symbols = new SymbolRegistry(16, "AAPL");
+        private final int symbolId = symbols.idOf("AAPL");
+        private final OrderManager orderManager = new OrderManager(new TradeRing(1024), symbols);
+        private final OrderPool pool = new OrderPool(1024, 1024);
+        private final ConcurrentIntMap<Order> live = new ConcurrentIntMap<>(1024);
+
+        Workload() {
+            // Counted instead of printed, so the result line is easy to find
+            Logger logger = (Logger) LoggerFactory.getLogger(MatchingAllocationTest.class);
+            AppenderBase<ILoggingEvent> counter = new AppenderBase<>() {
+                @Override
+                protected void append(ILoggingEvent event) {
+                    logged.incrementAndGet();
+                }
+            };
+            counter.start();
+            logger.addAppender(counter);
+            logger.setAdditive(false);
+
+            OrderArchive archive = new OrderArchive(4096, Duration.ofHours(1));
+            orderManager.setTerminalListener(order -> {
+                archive.add(order);
+                live.remove(order.getId());
+                pool.release(order);
+            });
+        }
+
+        /**
+         * One resting buy filled by two incoming sells, one of them partial, a buy at a new level
+         * that is cancelled, and a crossing pair booked as a batch and matched once.
+         */
+        void round(int i) {
+            long price = 10_000 + (i & 7);
+            process(Order.Type.BUY, price, 10);
+            process(Order.Type.SELL, price, 4);
+            process(Order.Type.SELL, price - 1, 6);
+            int passiveId = process(Order.Type.BUY, price - 100, 5).getId();
+            if (orderManager.cancelOrder("AAPL", passiveId) == null) {
+                throw new AssertionError("order " + passiveId + " should have been resting");
+            }
+            book(Order.Type.SELL, price + 1, 3);
+            book(Order.Type.BUY, price + 1, 3);
+            orderManager.matchOrders(symbolId);
+        }
+
+        /**
+         * As the shard handles a single order: matched on arrival, the remainder booked.
+         */
+        private Order process(Order.Type type, long price, int quantity) {
+            Order order = accept(type, price, quantity);
+            orderManager.matchIncoming(order);
+            logProcessed(order.getId(), type, price, quantity);
+            return order;
+        }
+
+        /**
+         * As the shard handles an order of a batch: booked now, matched with the rest of the group.
+         */
+        private void book(Order.Type type, long price, int quantity) {
+            Order order = accept(type, price, quantity);
+            orderManager.addOrder(order);
+            logProcessed(order.getId(), type, price, quantity);
+        }
+
+        private Order accept(Order.Type type, long price, int quantity) {
+            Order order = pool.acquire(symbols.symbol(symbolId), symbolId, price, quantity, type);
+            live.put(order.getId(), order);
+            return order;
+        }
+
+        private void logProcessed(int id, Order.Type type, long price, int quantity) {
+            events.info("Order processed: id={}, price={}, quantity={}, type={}")
+                    .arg(id).arg(price).arg(quantity).arg(type).log();
+        }
+
+        void verifyEmpty() {
+            if (!live.isEmpty() || !orderManager.getBuyOrders("AAPL").isEmpty() || !orderManager.getSellOrders("AAPL").isEmpty()) {
+                throw new AssertionError("every order should have been filled or cancelled");
+            }
+        }
+    }
+}
@@ -1,52 +1,61 @@
 package com.example.engine.service;
 
+import com.example.engine.book.BookSide;
+import com.example.engine.book.BookStorage;
 import com.example.engine.model.Order;
+import com.example.engine.trade.Trade;
+import com.example.engine.trade.TradeRing;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderManagerTest {
 
     private OrderManager orderManager;
+    private TradeRing tradeRing;
 
     @BeforeEach
     void setUp() {
-        orderManager = new OrderManager();
+        tradeRing = new TradeRing(1024);
+        orderManager = new OrderManager(tradeRing, new SymbolRegistry(1024, ""));
     }
 
     @Test
     void testAddBuyOrderAndRetrieve() {
-        Order order = new Order("AAPL", 150.0, 10, Order.Type.BUY);
+        Order order = new Order("AAPL", 150, 10, Order.Type.BUY);
         orderManager.addOrder(order);
 
-        PriorityQueue<Order> buyOrders = orderManager.getBuyOrders("AAPL");
+        BookSide buyOrders = orderManager.getBuyOrders("AAPL");
         assertEquals(1, buyOrders.size());
         assertEquals(order, buyOrders.peek());
 
-        PriorityQueue<Order> sellOrders = orderManager.getSellOrders("AAPL");
+        BookSide sellOrders = orderManager.getSellOrders("AAPL");
         assertTrue(sellOrders.isEmpty());
     }
 
     @Test
     void testAddSellOrderAndRetrieve() {
-        Order order = new Order("AAPL", 155.0, 5, Order.Type.SELL);
+        Order order = new Order("AAPL", 155, 5, Order.Type.SELL);
         orderManager.addOrder(order);
 
-        PriorityQueue<Order> sellOrders = orderManager.getSellOrders("AAPL");
+        BookSide sellOrders = orderManager.getSellOrders("AAPL");
         assertEquals(1, sellOrders.size());
         assertEquals(order, sellOrders.peek());
 
-        PriorityQueue<Order> buyOrders = orderManager.getBuyOrders("AAPL");
+        BookSide buyOrders = orderManager.getBuyOrders("AAPL");
         assertTrue(buyOrders.isEmpty());
     }
 
     @Test
     void testMatchOrdersExactPriceAndQuantity() {
-        Order buy = new Order("GOOG", 100.0, 10, Order.Type.BUY);
-        Order sell = new Order("GOOG", 100.0, 10, Order.Type.SELL);
+        Order buy = new Order("GOOG", 100, 10, Order.Type.BUY);
+        Order sell = new Order("GOOG", 100, 10, Order.Type.SELL);
 
         orderManager.addOrder(buy);
         orderManager.addOrder(sell);
@@ -59,8 +68,8 @@ class OrderManagerTest {
 
     @Test
     void testMatchOrdersPartialMatch() {
-        Order buy = new Order("TSLA", 200.0, 15, Order.Type.BUY);
-        Order sell = new Order("TSLA", 195.0, 10, Order.Type.SELL);
+        Order buy = new Order("TSLA", 200, 15, Order.Type.BUY);
+        Order sell = new Order("TSLA", 195, 10, Order.Type.SELL);
 
         orderManager.addOrder(buy);
         orderManager.addOrder(sell);
@@ -77,8 +86,8 @@ class OrderManagerTest {
 
     @Test
     void testMatchOrdersNoMatchDueToPrice() {
-        Order buy = new Order("NFLX", 90.0, 10, Order.Type.BUY);
-        Order sell = new Order("NFLX", 100.0, 10, Order.Type.SELL);
+        Order buy = new Order("NFLX", 90, 10, Order.Type.BUY);
+        Order sell = new Order("NFLX", 100, 10, Order.Type.SELL);
 
         orderManager.addOrder(buy);
         orderManager.addOrder(sell);
@@ -91,10 +100,10 @@ class OrderManagerTest {
 
     @Test
     void testMatchOrdersWithMultipleBuysAndSells() {
-        Order buy1 = new Order("MSFT", 300.0, 5, Order.Type.BUY);
-        Order buy2 = new Order("MSFT", 310.0, 5, Order.Type.BUY);
-        Order sell1 = new Order("MSFT", 295.0, 4, Order.Type.SELL);
-        Order sell2 = new Order("MSFT", 305.0, 6, Order.Type.SELL);
+        Order buy1 = new Order("MSFT", 300, 5, Order.Type.BUY);
+        Order buy2 = new Order("MSFT", 310, 5, Order.Type.BUY);
+        Order sell1 = new Order("MSFT", 295, 4, Order.Type.SELL);
+        Order sell2 = new Order("MSFT", 305, 6, Order.Type.SELL);
 
         orderManager.addOrder(buy1);
         orderManager.addOrder(buy2);
@@ -103,8 +112,8 @@ class OrderManagerTest {
 
         orderManager.matchOrders("MSFT");
 
-        PriorityQueue<Order> buys = orderManager.getBuyOrders("MSFT");
-        PriorityQueue<Order> sells = orderManager.getSellOrders("MSFT");
+        BookSide buys = orderManager.getBuyOrders("MSFT");
+        BookSide sells = orderManager.getSellOrders("MSFT");
 
         int remainingBuyQty = buys.stream().mapToInt(Order::getQuantity).sum();
         int remainingSellQty = sells.stream().mapToInt(Order::getQuantity).sum();
@@ -112,10 +121,485 @@ class OrderManagerTest {
         assertTrue(remainingBuyQty > 0 || remainingSellQty > 0);
     }
 
+    @Test
+    void testMatchOrdersWalksLevelsInPriceTimePriority() {
+        Order sell1 = new Order("AMZN", 101, 5, Order.Type.SELL);
+        Order sell2 = new Order("AMZN", 100, 5, Order.Type.SELL);
+        Order sell3 = new Order("AMZN", 100, 5, Order.Type.SELL);
+        Order buy = new Order("AMZN", 101, 12, Order.Type.BUY);
+
+        orderManager.addOrder(sell1);
+        orderManager.addOrder(sell2);
+        orderManager.addOrder(sell3);
+        orderManager.addOrder(buy);
+
+        orderManager.matchOrders("AMZN");
+
+        // Both orders at 100 fill first (oldest first), then the 101 level is partially filled
+        assertTrue(orderManager.getBuyOrders("AMZN").isEmpty());
+        BookSide sells = orderManager.getSellOrders("AMZN");
+        assertEquals(List.of(sell1), sells.stream().toList());
+        assertEquals(3, sell1.getQuantity());
+        assertEquals(1, sells.levelCount());
+        assertEquals(3, sells.bestLevel().getTotalQuantity());
+    }
+
+    @Test
+    void testMatchOrdersPublishesTradesAtRestingPrice() {
+        Order sell1 = new Order("ORCL", 100, 5, Order.Type.SELL);
+        Order sell2 = new Order("ORCL", 101, 5, Order.Type.SELL);
+        Order buy = new Order("ORCL", 102, 8, Order.Type.BUY);
+
+        orderManager.addOrder(sell1);
+        orderManager.addOrder(sell2);
+        orderManager.addOrder(buy);
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+
+        orderManager.matchOrders("ORCL");
+
+        Trade trade = new Trade();
+        assertTrue(cursor.poll(trade));
+        assertEquals(100, trade.getPrice());
+        assertEquals(5, trade.getQuantity());
+        assertEquals(Order.Type.BUY, trade.getAggressor());
+        assertEquals(buy.getId(), trade.getBuyOrderId());
+        assertEquals(sell1.getId(), trade.getSellOrderId());
+
+        assertTrue(cursor.poll(trade));
+        assertEquals(101, trade.getPrice());
+        assertEquals(3, trade.getQuantity());
+        assertEquals(sell2.getId(), trade.getSellOrderId());
+        assertFalse(cursor.poll(trade));
+    }
+
+    @Test
+    void testIncomingOrderMatchesBeforeBookingAndRestsRemainder() {
+        Order sell1 = new Order("ORCL", 100, 5, Order.Type.SELL);
+        Order sell2 = new Order("ORCL", 101, 5, Order.Type.SELL);
+        orderManager.addOrder(sell1);
+        orderManager.addOrder(sell2);
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+
+        Order buy = new Order("ORCL", 100, 8, Order.Type.BUY);
+        orderManager.matchIncoming(buy);
+
+        Trade trade = new Trade();
+        assertTrue(cursor.poll(trade));
+        assertEquals(100, trade.getPrice());
+        assertEquals(5, trade.getQuantity());
+        assertEquals(Order.Type.BUY, trade.getAggressor());
+        assertFalse(cursor.poll(trade));
+        // The remainder does not reach 101, so it rests at its limit
+        assertEquals(Order.Status.PARTIALLY_FILLED, buy.getStatus());
+        assertEquals(3, buy.getQuantity());
+        assertEquals(buy, orderManager.getBuyOrders("ORCL").peek());
+        assertEquals(sell2, orderManager.getSellOrders("ORCL").peek());
+    }
+
+    @Test
+    void testImmediateOrCancelRemainderIsCancelled() {
+        orderManager.addOrder(new Order("NVDA", 50, 4, Order.Type.BUY));
+        List<Order> terminal = new ArrayList<>();
+        orderManager.setTerminalListener(terminal::add);
+
+        Order sell = new Order("NVDA", 50, 10, Order.Type.SELL);
+        sell.setTimeInForce(Order.TimeInForce.IOC);
+        orderManager.matchIncoming(sell);
+
+        assertEquals(Order.Status.CANCELLED, sell.getStatus());
+        assertEquals(6, sell.getQuantity());
+        assertTrue(orderManager.getBuyOrders("NVDA").isEmpty());
+        assertTrue(orderManager.getSellOrders("NVDA").isEmpty());
+        assertEquals(2, terminal.size());
+        assertEquals(sell, terminal.get(1));
+    }
+
+    @Test
+    void testFillOrKillTradesInFullOrNotAtAll() {
+        orderManager.addOrder(new Order("AMD", 90, 3, Order.Type.SELL));
+        orderManager.addOrder(new Order("AMD", 91, 3, Order.Type.SELL));
+        orderManager.addOrder(new Order("AMD", 95, 10, Order.Type.SELL));
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+        Trade trade = new Trade();
+
+        // Only 6 are offered at 91 or better
+        Order tooLarge = new Order("AMD", 91, 7, Order.Type.BUY);
+        tooLarge.setTimeInForce(Order.TimeInForce.FOK);
+        orderManager.matchIncoming(tooLarge);
+        assertEquals(Order.Status.CANCELLED, tooLarge.getStatus());
+        assertEquals(7, tooLarge.getQuantity());
+        assertFalse(cursor.poll(trade));
+        assertEquals(3, orderManager.getSellOrders("AMD").size());
+
+        Order fits = new Order("AMD", 91, 6, Order.Type.BUY);
+        fits.setTimeInForce(Order.TimeInForce.FOK);
+        orderManager.matchIncoming(fits);
+        assertEquals(Order.Status.FILLED, fits.getStatus());
+        assertTrue(cursor.poll(trade));
+        assertTrue(cursor.poll(trade));
+        assertFalse(cursor.poll(trade));
+        assertEquals(95, orderManager.getSellOrders("AMD").peek().getPrice());
+        assertTrue(orderManager.getBuyOrders("AMD").isEmpty());
+    }
+
+    @Test
+    void testMarketOrderSweepsLevelsAndNeverRests() {
+        orderManager.addOrder(new Order("META", 300, 2, Order.Type.BUY));
+        orderManager.addOrder(new Order("META", 290, 2, Order.Type.BUY));
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+
+        Order sell = new Order("META", 0, 5, Order.Type.SELL);
+        sell.setMarket(true);
+        sell.setTimeInForce(Order.TimeInForce.IOC);
+        orderManager.matchIncoming(sell);
+
+        Trade trade = new Trade();
+        assertTrue(cursor.poll(trade));
+        assertEquals(300, trade.getPrice());
+        assertEquals(Order.Type.SELL, trade.getAggressor());
+        assertEquals(sell.getId(), trade.getSellOrderId());
+        assertTrue(cursor.poll(trade));
+        assertEquals(290, trade.getPrice());
+        assertFalse(cursor.poll(trade));
+        assertEquals(Order.Status.CANCELLED, sell.getStatus());
+        assertEquals(1, sell.getQuantity());
+        assertTrue(orderManager.getBuyOrders("META").isEmpty());
+        assertTrue(orderManager.getSellOrders("META").isEmpty());
+    }
+
+    @Test
+    void testStopWaitsOffTheBookUntilATradeReachesItsPrice() {
+        orderManager.addOrder(new Order("INTC", 30, 10, Order.Type.SELL));
+        orderManager.addOrder(new Order("INTC", 32, 10, Order.Type.SELL));
+        Order stop = new Order("INTC", 0, 4, Order.Type.BUY);
+        stop.setMarket(true);
+        stop.setTimeInForce(Order.TimeInForce.IOC);
+        stop.setStopPrice(31);
+        orderManager.matchIncoming(stop);
+
+        assertTrue(orderManager.getBuyOrders("INTC").isEmpty());
+        assertEquals(stop, orderManager.getStopOrders("INTC", Order.Type.BUY).peek());
+
+        // A trade at 30 does not reach 31
+        orderManager.matchIncoming(new Order("INTC", 30, 5, Order.Type.BUY));
+        assertEquals(Order.Status.NEW, stop.getStatus());
+        assertEquals(5, orderManager.getSellOrders("INTC").peek().getQuantity());
+
+        // Taking out the level at 30 trades at 32 and fires the stop, which buys what is left there
+        orderManager.matchIncoming(new Order("INTC", 32, 6, Order.Type.BUY));
+        assertEquals(Order.Status.FILLED, stop.getStatus());
+        assertEquals(0, stop.getStopPrice());
+        assertTrue(orderManager.getStopOrders("INTC", Order.Type.BUY).isEmpty());
+        // 1 of the 10 at 32 went to the order that triggered the stop, 4 to the stop
+        assertEquals(5, orderManager.getSellOrders("INTC").peek().getQuantity());
+    }
+
+    @Test
+    void testTriggeredStopsFireInTriggerPriceThenTimeOrderAndCascade() {
+        orderManager.addOrder(new Order("QCOM", 100, 1, Order.Type.BUY));
+        for (long price = 99; price >= 95; price--) {
+            orderManager.addOrder(new Order("QCOM", price, 1, Order.Type.BUY));
+        }
+        orderManager.matchIncoming(new Order("QCOM", 100, 1, Order.Type.SELL));
+        assertEquals(100, orderManager.getLastTradePrice("QCOM"));
+
+        Order lower = sellStop(98, 1);
+        Order first = sellStop(99, 1);
+        Order second = sellStop(99, 1);
+        List<Order> fired = new ArrayList<>();
+        orderManager.setTerminalListener(order -> {
+            if (order.isMarket()) {
+                fired.add(order);
+            }
+        });
+
+        // Trades at 99 fire both stops at 99 in time order;
+        // their trades reach 97, which fires the one at 98
+        orderManager.matchIncoming(new Order("QCOM", 99, 1, Order.Type.SELL));
+        assertEquals(List.of(first, second, lower), fired);
+        assertEquals(96, orderManager.getLastTradePrice("QCOM"));
+        assertEquals(95, orderManager.getBuyOrders("QCOM").peek().getPrice());
+    }
+
+    @Test
+    void testStopAlreadyTriggeredOnArrivalMatchesAndStopsCanBeCancelled() {
+        orderManager.addOrder(new Order("AVGO", 50, 2, Order.Type.SELL));
+        orderManager.addOrder(new Order("AVGO", 51, 2, Order.Type.SELL));
+        orderManager.matchIncoming(new Order("AVGO", 50, 1, Order.Type.BUY));
+
+        Order triggered = new Order("AVGO", 51, 2, Order.Type.BUY);
+        triggered.setStopPrice(50);
+        orderManager.matchIncoming(triggered);
+        assertEquals(Order.Status.FILLED, triggered.getStatus());
+
+        Order waiting = new Order("AVGO", 60, 2, Order.Type.BUY);
+        waiting.setStopPrice(55);
+        orderManager.matchIncoming(waiting);
+        assertEquals(waiting, orderManager.cancelOrder("AVGO", waiting.getId()));
+        assertEquals(Order.Status.CANCELLED, waiting.getStatus());
+        assertTrue(orderManager.getStopOrders("AVGO", Order.Type.BUY).isEmpty());
+        assertNull(orderManager.cancelOrder("AVGO", waiting.getId()));
+    }
+
+    private Order sellStop(long stopPrice, int quantity) {
+        Order stop = new Order("QCOM", 0, quantity, Order.Type.SELL);
+        stop.setMarket(true);
+        stop.setTimeInForce(Order.TimeInForce.IOC);
+        stop.setStopPrice(stopPrice);
+        orderManager.matchIncoming(stop);
+        return stop;
+    }
+
+    @Test
+    void testBookOrderingMatchesCompareTo() {
+        Order buy1 = new Order("IBM", 99, 1, Order.Type.BUY);
+        Order buy2 = new Order("IBM", 101, 1, Order.Type.BUY);
+        Order buy3 = new Order("IBM", 99, 1, Order.Type.BUY);
+        Order buy4 = new Order("IBM", 100, 1, Order.Type.BUY);
+
+        // Insert out of timestamp order at the 99 level
+        orderManager.addOrder(buy3);
+        orderManager.addOrder(buy2);
+        orderManager.addOrder(buy1);
+        orderManager.addOrder(buy4);
+
+        List<Order> expected = List.of(buy1, buy2, buy3, buy4).stream().sorted().toList();
+        assertEquals(expected, orderManager.getBuyOrders("IBM").stream().toList());
+        assertEquals(3, orderManager.getBuyOrders("IBM").levelCount());
+    }
+
+    @Test
+    void testCancelRemovesRestingOrder() {
+        Order a = new Order("CSCO", 50, 3, Order.Type.BUY);
+        Order b = new Order("CSCO", 50, 4, Order.Type.BUY);
+        orderManager.addOrder(a);
+        orderManager.addOrder(b);
+
+        assertSame(a, orderManager.cancelOrder("CSCO", a.getId()));
+        assertEquals(Order.Status.CANCELLED, a.getStatus());
+        assertEquals(List.of(b), orderManager.getBuyOrders("CSCO").stream().toList());
+        assertEquals(4, orderManager.getBuyOrders("CSCO").bestLevel().getTotalQuantity());
+
+        // A second cancel, or a cancel of a filled order, finds nothing resting
+        assertNull(orderManager.cancelOrder("CSCO", a.getId()));
+        assertNull(orderManager.cancelOrder("UNKNOWN", b.getId()));
+    }
+
+    @Test
+    void testFilledOrderCannotBeCancelled() {
+        Order buy = new Order("INTC", 30, 5, Order.Type.BUY);
+        Order sell = new Order("INTC", 30, 2, Order.Type.SELL);
+        orderManager.addOrder(buy);
+        orderManager.addOrder(sell);
+        orderManager.matchOrders("INTC");
+
+        assertEquals(Order.Status.PARTIALLY_FILLED, buy.getStatus());
+        assertEquals(Order.Status.FILLED, sell.getStatus());
+        assertNull(orderManager.cancelOrder("INTC", sell.getId()));
+    }
+
+    @Test
+    void testAmendDownKeepsTimePriority() {
+        Order first = new Order("AMD", 100, 10, Order.Type.SELL);
+        Order second = new Order("AMD", 100, 10, Order.Type.SELL);
+        orderManager.addOrder(first);
+        orderManager.addOrder(second);
+
+        orderManager.amendOrder("AMD", first.getId(), OrderManager.KEEP_PRICE, 4, System.nanoTime());
+
+        BookSide sells = orderManager.getSellOrders("AMD");
+        assertEquals(List.of(first, second), sells.stream().toList());
+        assertEquals(4, first.getQuantity());
+        assertEquals(14, sells.bestLevel().getTotalQuantity());
+    }
+
+    @Test
+    void testAmendUpOrRepriceLosesTimePriority() {
+        Order first = new Order("AMD", 100, 10, Order.Type.SELL);
+        Order second = new Order("AMD", 100, 10, Order.Type.SELL);
+        orderManager.addOrder(first);
+        orderManager.addOrder(second);
+
+        orderManager.amendOrder("AMD", first.getId(), OrderManager.KEEP_PRICE, 12, System.nanoTime());
+        assertEquals(List.of(second, first), orderManager.getSellOrders("AMD").stream().toList());
+        assertEquals(22, orderManager.getSellOrders("AMD").bestLevel().getTotalQuantity());
+
+        orderManager.amendOrder("AMD", second.getId(), 101, OrderManager.KEEP_QUANTITY, System.nanoTime());
+        assertEquals(List.of(first, second), orderManager.getSellOrders("AMD").stream().toList());
+        assertEquals(2, orderManager.getSellOrders("AMD").levelCount());
+    }
+
+    @Test
+    void testAmendIntoCrossingPriceMatches() {
+        Order buy = new Order("NVDA", 99, 5, Order.Type.BUY);
+        Order sell = new Order("NVDA", 101, 5, Order.Type.SELL);
+        orderManager.addOrder(buy);
+        orderManager.addOrder(sell);
+        TradeRing.Cursor cursor = tradeRing.newCursor();
+
+        orderManager.amendOrder("NVDA", buy.getId(), 101, OrderManager.KEEP_QUANTITY, System.nanoTime());
+
+        Trade trade = new Trade();
+        assertTrue(cursor.poll(trade));
+        assertEquals(101, trade.getPrice());
+        assertEquals(Order.Type.BUY, trade.getAggressor());
+        assertTrue(orderManager.getBuyOrders("NVDA").isEmpty());
+        assertTrue(orderManager.getSellOrders("NVDA").isEmpty());
+        assertNull(orderManager.amendOrder("NVDA", buy.getId(), 102, 1, System.nanoTime()));
+    }
+
+    @Test
+    void testExecutionListenerSeesEveryFillAndCancel() {
+        List<String> executions = new ArrayList<>();
+        ExecutionListener listener = new ExecutionListener() {
+            @Override
+            public void onFill(Order order, long price, int quantity) {
+                executions.add(order.getId() + " " + order.getStatus() + " " + quantity + "@" + price);
+            }
+
+            @Override
+            public void onCancel(Order order) {
+                executions.add(order.getId() + " " + order.getStatus());
+            }
+        };
+        orderManager.addExecutionListener(listener);
+        Order sell = new Order("AAPL", 100, 5, Order.Type.SELL);
+        Order buy = new Order("AAPL", 101, 2, Order.Type.BUY);
+        orderManager.addOrder(sell);
+        orderManager.addOrder(buy);
+        orderManager.matchOrders("AAPL");
+        orderManager.cancelOrder("AAPL", sell.getId());
+        orderManager.removeExecutionListener(listener);
+        orderManager.addOrder(new Order("AAPL", 100, 1, Order.Type.SELL));
+        orderManager.addOrder(new Order("AAPL", 100, 1, Order.Type.BUY));
+        orderManager.matchOrders("AAPL");
+
+        assertEquals(List.of(buy.getId() + " FILLED 2@100", sell.getId() + " PARTIALLY_FILLED 2@100",
+                sell.getId() + " CANCELLED"), executions);
+    }
+
+    @Test
+    void testOffHeapBooksTradeLikeHeapBooks() {
+        TradeRing offHeapTrades = new TradeRing(1 << 16);
+        TradeRing heapTrades = new TradeRing(1 << 16);
+        OrderManager offHeap = new OrderManager(offHeapTrades, new SymbolRegistry(16, ""), BookStorage.OFF_HEAP, 64);
+        OrderManager heap = new OrderManager(heapTrades, new SymbolRegistry(16, ""));
+        TradeRing.Cursor offHeapCursor = offHeapTrades.newCursor();
+        TradeRing.Cursor heapCursor = heapTrades.newCursor();
+        Random random = new Random(7);
+        for (int id = 1; id <= 20_000; id++) {
+            int action = random.nextInt(10);
+            int target = 1 + random.nextInt(id);
+            if (action == 0) {
+                assertEquals(heap.cancelOrder("AAPL", target) == null, offHeap.cancelOrder("AAPL", target) == null);
+            } else if (action == 1) {
+                long price = 95 + random.nextInt(11);
+                int quantity = 1 + random.nextInt(10);
+                assertEquals(heap.amendOrder("AAPL", target, price, quantity, id) == null,
+                        offHeap.amendOrder("AAPL", target, price, quantity, id) == null);
+            } else {
+                Order.Type type = random.nextBoolean() ? Order.Type.BUY : Order.Type.SELL;
+                long price = 95 + random.nextInt(11);
+                int quantity = 1 + random.nextInt(10);
+                heap.matchIncoming(new Order(id, "AAPL", price, quantity, type, id));
+                offHeap.matchIncoming(new Order(id, "AAPL", price, quantity, type, id));
+            }
+        }
+
+        Trade expected = new Trade();
+        Trade actual = new Trade();
+        int trades = 0;
+        while (heapCursor.poll(expected)) {
+            assertTrue(offHeapCursor.poll(actual));
+            assertEquals(expected.getPrice(), actual.getPrice());
+            assertEquals(expected.getQuantity(), actual.getQuantity());
+            assertEquals(expected.getAggressor(), actual.getAggressor());
+            assertEquals(expected.getBuyOrderId(), actual.getBuyOrderId());
+            assertEquals(expected.getSellOrderId(), actual.getSellOrderId());
+            trades++;
+        }
+        assertFalse(offHeapCursor.poll(actual));
+        assertTrue(trades > 1_000);
+        assertEquals(heap.getBuyOrders("AAPL").stream().toList(), offHeap.getBuyOrders("AAPL").stream().toList());
+        assertEquals(heap.getSellOrders("AAPL").stream().toList(), offHeap.getSellOrders("AAPL").stream().toList());
+    }
+
+    @Test
+    void testOffHeapRestingOrdersAreFoundById() {
+        OrderManager offHeap = new OrderManager(tradeRing, new SymbolRegistry(16, ""), BookStorage.OFF_HEAP, 4);
+        List<Order> rested = new ArrayList<>();
+        offHeap.setRestingListener(rested::add);
+        Order sell = new Order("AAPL", 100, 10, Order.Type.SELL);
+        offHeap.matchIncoming(sell);
+        assertEquals(List.of(sell), rested);
+
+        offHeap.matchIncoming(new Order("AAPL", 100, 4, Order.Type.BUY));
+        Order found = offHeap.findResting(sell.getId());
+        assertNotSame(sell, found);
+        assertEquals(6, found.getQuantity());
+        assertEquals(Order.Status.PARTIALLY_FILLED, found.getStatus());
+        assertEquals("AAPL", found.getSymbol());
+
+        // An amend that re-queues the order moves it to another slot
+        offHeap.amendOrder("AAPL", sell.getId(), 101, 8, System.nanoTime());
+        assertEquals(101, offHeap.findResting(sell.getId()).getPrice());
+
+        assertNotNull(offHeap.cancelOrder("AAPL", sell.getId()));
+        assertNull(offHeap.findResting(sell.getId()));
+        assertNull(orderManager.findResting(sell.getId()));
+    }
+
+    @Test
+    void testOrdersOfASymbolShareItsRegisteredIdAndString() {
+        SymbolRegistry symbols = new SymbolRegistry(2, "MSFT");
+        OrderManager manager = new OrderManager(tradeRing, symbols);
+        Order first = new Order(new String("AAPL"), 100, 1, Order.Type.BUY);
+        Order second = new Order(new String("AAPL"), 101, 1, Order.Type.SELL);
+        manager.addOrder(first);
+        manager.addOrder(second);
+
+        assertEquals(1, first.getSymbolId());
+        assertEquals(1, second.getSymbolId());
+        assertSame(first.getSymbol(), second.getSymbol());
+        assertEquals(0, symbols.idOf("MSFT"));
+        assertEquals(Set.of("AAPL"), manager.getSymbols());
+        assertThrows(IllegalStateException.class, () -> manager.addOrder(new Order("GOOG", 100, 1, Order.Type.BUY)));
+    }
+
+    @Test
+    void testRegistryAdmitsOnlyListedSymbolsOnceTheUnlistedLimitIsReached() {
+        SymbolRegistry symbols = new SymbolRegistry(8, "MSFT,AAPL", 2);
+
+        assertEquals(1, symbols.admit("AAPL"));
+        assertEquals(2, symbols.admit("GOOG"));
+        assertEquals(3, symbols.admit("AMZN"));
+        assertThrows(IllegalArgumentException.class, () -> symbols.admit("JUNK"));
+        assertEquals(SymbolRegistry.UNKNOWN, symbols.idOf("JUNK"));
+        // Symbols already admitted, listed or not, keep working; recovery may still register
+        assertEquals(2, symbols.admit("GOOG"));
+        assertEquals(0, symbols.admit("MSFT"));
+        assertEquals(4, symbols.register("NFLX"));
+        assertEquals(5, symbols.size());
+    }
+
+    @Test
+    void testFullRegistryRejectsNewSymbolsAndKeepsKnownOnes() {
+        SymbolRegistry symbols = new SymbolRegistry(2, "", 0);
+        SymbolRegistry open = new SymbolRegistry(2, "");
+
+        assertThrows(IllegalArgumentException.class, () -> symbols.admit("AAPL"));
+        assertEquals(0, open.admit("AAPL"));
+        assertEquals(1, open.admit("MSFT"));
+        assertThrows(IllegalStateException.class, () -> open.admit("GOOG"));
+        assertThrows(IllegalStateException.class, () -> open.register("GOOG"));
+        assertEquals(1, open.admit("MSFT"));
+        assertEquals(2, open.size());
+    }
+
     @Test
     void testGetOrdersWhenNoneExist() {
-        PriorityQueue<Order> buys = orderManager.getBuyOrders("UNKNOWN");
-        PriorityQueue<Order> sells = orderManager.getSellOrders("UNKNOWN");
+        BookSide buys = orderManager.getBuyOrders("UNKNOWN");
+        BookSide sells = orderManager.getSellOrders("UNKNOWN");
 
         assertNotNull(buys);
         assertNotNull(sells);
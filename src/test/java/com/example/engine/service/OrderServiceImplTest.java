@@ -1,17 +1,36 @@
 package com.example.engine.service;
 
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.book.OrderBook;
+import com.example.engine.dto.BatchOrderResult;
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.dto.OrderPage;
 import com.example.engine.dto.OrderRequest;
 import com.example.engine.dto.OrderResponse;
+import com.example.engine.dto.OrderResult;
+import com.example.engine.dto.TradeResponse;
+import com.example.engine.journal.DisabledOrderJournal;
+import com.example.engine.journal.OrderJournal;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.metrics.Stage;
 import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.trade.TradeRing;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
-import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,6 +43,14 @@ class OrderServiceImplTest {
     @Mock
     private OrderManager orderManager;
 
+    private final SymbolRegistry symbols = new SymbolRegistry(1024, "");
+    private final TickSizeRegistry tickSizes = new TickSizeRegistry(new BigDecimal("0.01"), "");
+    private final TradeRing tradeRing = new TradeRing(64);
+    private final OrderJournal journal = new DisabledOrderJournal();
+    private final SnapshotStore snapshotStore = new SnapshotStore(false, "snapshots", 2, Duration.ofMinutes(5));
+    private final OrderArchive archive = new OrderArchive(1024, Duration.ofHours(1));
+    private final EngineMetrics metrics = new EngineMetrics();
+
     private OrderServiceImpl orderService;
 
     private AutoCloseable mocks;
@@ -31,7 +58,22 @@ class OrderServiceImplTest {
     @BeforeEach
     void setup() {
         mocks = MockitoAnnotations.openMocks(this);
-        orderService = new OrderServiceImpl(orderManager, 1, 2);  // poolSize=1, retry=2
+        when(orderManager.getSymbolRegistry()).thenReturn(symbols);
+        orderService = newService();
+    }
+
+    private OrderServiceImpl newService() {
+        return newService(1, 1024);
+    }
+
+    private OrderServiceImpl newService(int shards, int ringCapacity) {
+        return newService(orderManager, journal, IntakeControl.unlimited(), shards, ringCapacity);
+    }
+
+    private OrderServiceImpl newService(OrderManager manager, OrderJournal journal, IntakeControl intake, int shards,
+            int ringCapacity) {
+        return new OrderServiceImpl(manager, tickSizes, tradeRing, journal, OrderFlowRecorder.disabled(), snapshotStore,
+                archive, new OrderPool(0, 0), metrics, intake, shards, ringCapacity, 2);  // retry=2
     }
 
     @AfterEach
@@ -56,6 +98,95 @@ class OrderServiceImplTest {
         assertEquals(response.getId(), fetched.get().getId());
     }
 
+    @Test
+    void testAddOrderConvertsPriceToTicks() {
+        tickSizes.setTickSize("BRK", new BigDecimal("0.05"));
+        OrderResponse response = orderService.addOrder(new OrderRequest("BRK", 101.35, 1, Order.Type.BUY));
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                verify(orderManager, atLeastOnce()).matchIncoming(captor.capture()));
+        assertEquals(2027, captor.getValue().getPrice());
+        assertEquals(101.35, response.getPrice());
+    }
+
+    @Test
+    void testAddOrderRejectsPriceOffTick() {
+        OrderRequest request = new OrderRequest("AAPL", 100.005, 1, Order.Type.BUY);
+        assertThrows(IllegalArgumentException.class, () -> orderService.addOrder(request));
+        verify(orderManager, never()).matchIncoming(any(Order.class));
+    }
+
+    @Test
+    void testMarketOrdersDefaultToImmediateOrCancelAndCannotRest() {
+        OrderRequest market = new OrderRequest("AAPL", 0, 5, Order.Type.BUY);
+        market.setMarket(true);
+        OrderResponse response = orderService.addOrder(market);
+        assertEquals(Order.TimeInForce.IOC, response.getTimeInForce());
+        assertTrue(response.isMarket());
+
+        market.setTimeInForce(Order.TimeInForce.GTC);
+        assertThrows(IllegalArgumentException.class, () -> orderService.addOrder(market));
+        market.setTimeInForce(Order.TimeInForce.FOK);
+        market.setPrice(100.0);
+        assertThrows(IllegalArgumentException.class, () -> orderService.addOrder(market));
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                verify(orderManager, times(1)).matchIncoming(captor.capture()));
+        assertTrue(captor.getValue().isMarket());
+        assertEquals(0, captor.getValue().getPrice());
+    }
+
+    @Test
+    void testAddOrdersMatchesOncePerSymbolAndKeepsRequestOrder() {
+        List<OrderRequest> requests = List.of(
+                new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY),
+                new OrderRequest("MSFT", 300.0, 2, Order.Type.SELL),
+                new OrderRequest("AAPL", 100.005, 3, Order.Type.BUY),
+                new OrderRequest("AAPL", 99.0, 4, Order.Type.SELL),
+                new OrderRequest("MSFT", 301.0, 5, Order.Type.BUY));
+
+        List<BatchOrderResult> results = orderService.addOrders(requests);
+
+        assertEquals(5, results.size());
+        assertEquals(List.of(1, 2, 4, 5), results.stream().filter(r -> r.getOrder() != null)
+                .map(r -> r.getOrder().getQuantity()).toList());
+        assertNull(results.get(2).getOrder());
+        assertTrue(results.get(2).getError().contains("tick size"));
+        assertTrue(orderService.getOrderById(results.get(3).getOrder().getId()).isPresent());
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(orderManager, times(4)).addOrder(captor.capture());
+            verify(orderManager, times(1)).matchOrders(symbols.idOf("AAPL"));
+            verify(orderManager, times(1)).matchOrders(symbols.idOf("MSFT"));
+        });
+        assertEquals(List.of(1, 4, 2, 5), captor.getAllValues().stream().map(Order::getQuantity).toList());
+    }
+
+    @Test
+    void testRateLimitedOrdersAreRejectedBeforeTakingAnId() {
+        orderService.shutdownExecutor();
+        orderService = newService(orderManager, journal,
+                new IntakeControl(symbols, 1, 2, 0, 0, Duration.ofSeconds(1)), 1, 1024);
+
+        List<BatchOrderResult> results = orderService.addOrders(List.of(
+                new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY),
+                new OrderRequest("AAPL", 100.0, 2, Order.Type.BUY),
+                new OrderRequest("AAPL", 100.0, 3, Order.Type.BUY),
+                new OrderRequest("MSFT", 300.0, 4, Order.Type.SELL)));
+
+        assertNotNull(results.get(1).getOrder());
+        assertNull(results.get(2).getOrder());
+        assertTrue(results.get(2).getError().contains("rate limit"));
+        assertEquals(results.get(1).getOrder().getId() + 1, results.get(3).getOrder().getId());
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class,
+                () -> orderService.addOrder(new OrderRequest("AAPL", 100.0, 5, Order.Type.BUY)));
+        assertEquals(OrderRejectedException.Reason.RATE_LIMITED, rejected.getReason());
+        assertTrue(rejected.getRetryAfterMillis() > 0 && rejected.getRetryAfterMillis() <= 1000);
+    }
+
     @Test
     void testGetOrderByIdFound() {
         OrderRequest request = new OrderRequest("GOOG", 1500.0, 5, Order.Type.SELL);
@@ -73,55 +204,262 @@ class OrderServiceImplTest {
     }
 
     @Test
-    void testGetOrdersBySymbol() {
-        String symbol = "TSLA";
+    @SuppressWarnings("unchecked")
+    void testTerminalOrdersMoveToArchive() {
+        ArgumentCaptor<Consumer<Order>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(orderManager).setTerminalListener(listener.capture());
+        OrderResponse added = orderService.addOrder(new OrderRequest("GOOG", 1500.0, 5, Order.Type.SELL));
+        Order order = new Order(added.getId(), "GOOG", 150000, 0, Order.Type.SELL, 1L);
+        order.setStatus(Order.Status.FILLED);
+
+        listener.getValue().accept(order);
 
-        Order buyOrder = new Order(symbol, 800, 2, Order.Type.BUY);
-        Order sellOrder = new Order(symbol, 805, 2, Order.Type.SELL);
+        assertEquals(1, archive.size());
+        OrderResponse fetched = orderService.getOrderById(added.getId()).orElseThrow();
+        assertEquals(Order.Status.FILLED, fetched.getStatus());
+        assertEquals(1500.0, fetched.getPrice());
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(added.getId()));
+    }
 
-        PriorityQueue<Order> buyQueue = new PriorityQueue<>();
-        buyQueue.add(buyOrder);
-        when(orderManager.getBuyOrders(symbol)).thenReturn(buyQueue);
+    @Test
+    void testGetOrdersBySymbol() {
+        String symbol = "TSLA";
 
-        PriorityQueue<Order> sellQueue = new PriorityQueue<>();
-        sellQueue.add(sellOrder);
-        when(orderManager.getSellOrders(symbol)).thenReturn(sellQueue);
+        OrderBook book = new OrderBook(symbol);
+        book.add(new Order(symbol, 800, 2, Order.Type.BUY));
+        book.add(new Order(symbol, 805, 2, Order.Type.SELL));
+        when(orderManager.getSnapshot(symbol)).thenReturn(book.publish());
 
         Pageable pageable = PageRequest.of(0, 10);
         List<OrderResponse> responses = orderService.getOrdersBySymbol(symbol, pageable);
 
         assertEquals(2, responses.size());
-        assertTrue(responses.stream().anyMatch(o -> o.getType() == Order.Type.BUY));
-        assertTrue(responses.stream().anyMatch(o -> o.getType() == Order.Type.SELL));
+        assertEquals(Order.Type.BUY, responses.get(0).getType());
+        assertEquals(8.00, responses.get(0).getPrice());
+        assertEquals(Order.Type.SELL, responses.get(1).getType());
+    }
+
+    @Test
+    void testGetOrdersBySymbolPagesWithCursor() {
+        String symbol = "TSLA";
+        OrderBook book = new OrderBook(symbol);
+        for (int i = 0; i < 5; i++) {
+            book.add(new Order(symbol, 800 + i, 1, Order.Type.SELL));
+        }
+        when(orderManager.getSnapshot(symbol)).thenReturn(book.publish());
+
+        OrderPage first = orderService.getOrdersBySymbol(symbol, null, 3);
+        assertEquals(3, first.getOrders().size());
+        assertNotNull(first.getNextCursor());
+
+        OrderPage second = orderService.getOrdersBySymbol(symbol, first.getNextCursor(), 3);
+        assertEquals(List.of(8.03, 8.04), second.getOrders().stream().map(OrderResponse::getPrice).toList());
+        assertNull(second.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersBySymbol(symbol, "nonsense", 3));
+    }
+
+    @Test
+    void testGetRecentTradesConvertsPrices() {
+        tradeRing.publish("TSLA", 80050, 3, Order.Type.BUY, 1, 2, 0);
+        tradeRing.publish("AAPL", 15000, 1, Order.Type.SELL, 3, 4, 0);
+
+        List<TradeResponse> trades = orderService.getRecentTrades("TSLA", 10);
+
+        assertEquals(1, trades.size());
+        assertEquals(800.50, trades.get(0).getPrice());
+        assertEquals(3, trades.get(0).getQuantity());
+        assertEquals(Order.Type.BUY, trades.get(0).getAggressor());
     }
 
     @Test
     void testOrderProcessingSuccess() {
         OrderRequest request = new OrderRequest("MSFT", 250.0, 5, Order.Type.BUY);
 
-        doNothing().when(orderManager).addOrder(any(Order.class));
-        doNothing().when(orderManager).matchOrders(anyString());
+        doNothing().when(orderManager).matchIncoming(any(Order.class));
 
         orderService.addOrder(request);
 
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
-            verify(orderManager, atLeastOnce()).addOrder(any(Order.class));
-            verify(orderManager, atLeastOnce()).matchOrders(eq("MSFT"));
+            verify(orderManager, atLeastOnce()).matchIncoming(any(Order.class));
+            assertEquals(1, metrics.histogram(Stage.MATCH).snapshot().getCount());
         });
+        assertEquals(1, metrics.getOrdersReceived());
+        assertEquals(1, metrics.histogram(Stage.INGRESS).snapshot().getCount());
+        assertEquals(1, metrics.histogram(Stage.QUEUE_WAIT).snapshot().getCount());
     }
 
     @Test
     void testOrderProcessingRetriesAndDeadLetterQueue() {
         OrderRequest request = new OrderRequest("NFLX", 600.0, 1, Order.Type.SELL);
 
-        doThrow(new RuntimeException("Simulated failure")).when(orderManager).addOrder(any(Order.class));
+        doThrow(new RuntimeException("Simulated failure")).when(orderManager).matchIncoming(any(Order.class));
 
         orderService.addOrder(request);
 
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
-            verify(orderManager, times(2)).addOrder(any(Order.class));
-            verify(orderManager, never()).matchOrders(anyString());
+            verify(orderManager, times(2)).matchIncoming(any(Order.class));
+            verify(orderManager, never()).matchOrders(anyInt());
+        });
+    }
+
+    @Test
+    void testRetryDoesNotHoldUpOtherSymbolsButLaterOrdersForItsOwn() {
+        doThrow(new RuntimeException("Simulated failure")).doNothing().when(orderManager).matchIncoming(any(Order.class));
+
+        int first = orderService.addOrder(new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY)).getId();
+        int other = orderService.addOrder(new OrderRequest("MSFT", 300.0, 1, Order.Type.BUY)).getId();
+        int second = orderService.addOrder(new OrderRequest("AAPL", 100.0, 2, Order.Type.BUY)).getId();
+        orderService.cancelOrder(second);
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(orderManager, times(4)).matchIncoming(captor.capture());
+            verify(orderManager).cancelOrder("AAPL", second);
+        });
+        assertEquals(List.of(first, other, first, second), captor.getAllValues().stream().map(Order::getId).toList());
+        assertEquals(0, orderService.getDeadLetterCount());
+    }
+
+    @Test
+    void testDeadLettersCanBeListedReplayedAndDiscarded() {
+        doThrow(new RuntimeException("Simulated failure")).when(orderManager).matchIncoming(any(Order.class));
+        int replayed = orderService.addOrder(new OrderRequest("NFLX", 600.0, 1, Order.Type.SELL)).getId();
+        int discarded = orderService.addOrder(new OrderRequest("NFLX", 601.0, 2, Order.Type.SELL)).getId();
+        orderService.addOrder(new OrderRequest("AMD", 90.0, 3, Order.Type.BUY));
+        await().atMost(3, TimeUnit.SECONDS).until(() -> orderService.getDeadLetterCount() == 3);
+
+        List<DeadLetterResponse> letters = orderService.getDeadLetters("NFLX", 0, 10);
+        assertEquals(List.of(replayed, discarded), letters.stream().map(DeadLetterResponse::getOrderId).toList());
+        assertEquals(2, letters.get(0).getAttempts());
+        assertEquals(600.0, letters.get(0).getPrice());
+        assertTrue(letters.get(0).getError().contains("Simulated failure"));
+        assertEquals(List.of(discarded), orderService.getDeadLetters(null, replayed, 1).stream()
+                .map(DeadLetterResponse::getOrderId).toList());
+
+        doNothing().when(orderManager).matchIncoming(any(Order.class));
+        assertEquals(1, orderService.replayDeadLetters(null, List.of(replayed), 10).size());
+        assertEquals(1, orderService.discardDeadLetters("NFLX", null, 10).size());
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(orderManager, times(7)).matchIncoming(any(Order.class));
+            assertEquals(Order.Status.CANCELLED, orderService.getOrderById(discarded).orElseThrow().getStatus());
+        });
+        assertEquals(1, orderService.getDeadLetterCount());
+        assertEquals("AMD", orderService.getDeadLetters(null, 0, 10).get(0).getSymbol());
+    }
+
+    @Test
+    void testOrdersForOneSymbolAreProcessedInSubmissionOrder() {
+        orderService.shutdownExecutor();
+        orderService = newService(4, 16);
+
+        int count = 200;
+        int[] submitted = new int[count];
+        for (int i = 0; i < count; i++) {
+            submitted[i] = orderService.addOrder(new OrderRequest("AMZN", 100.0 + i % 5, 1, Order.Type.BUY)).getId();
+        }
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                verify(orderManager, times(count)).matchIncoming(captor.capture()));
+        int[] processed = captor.getAllValues().stream().mapToInt(Order::getId).toArray();
+        assertArrayEquals(submitted, processed);
+    }
+
+    @Test
+    void testAddOrderAwaitingMatchReturnsFillsAndTrades() throws Exception {
+        orderService.shutdownExecutor();
+        orderService = newService(new OrderManager(tradeRing, symbols), journal, IntakeControl.unlimited(), 2, 1024);
+        int first = orderService.addOrder(new OrderRequest("AAPL", 100.0, 3, Order.Type.SELL)).getId();
+        int second = orderService.addOrder(new OrderRequest("AAPL", 101.0, 4, Order.Type.SELL)).getId();
+        orderService.addOrder(new OrderRequest("MSFT", 300.0, 4, Order.Type.SELL));
+        orderService.addOrder(new OrderRequest("MSFT", 300.0, 4, Order.Type.BUY));
+
+        OrderResult result = orderService.addOrderAwaitingMatch(new OrderRequest("AAPL", 101.0, 10, Order.Type.BUY),
+                Duration.ofSeconds(2)).get(2, TimeUnit.SECONDS);
+
+        assertTrue(result.isMatched());
+        assertEquals(Order.Status.PARTIALLY_FILLED, result.getOrder().getStatus());
+        assertEquals(7, result.getFilledQuantity());
+        assertEquals(3, result.getRemainingQuantity());
+        assertEquals(List.of(first, second), result.getTrades().stream().map(TradeResponse::getSellOrderId).toList());
+        assertEquals(List.of(100.0, 101.0), result.getTrades().stream().map(TradeResponse::getPrice).toList());
+
+        OrderRequest ioc = new OrderRequest("AAPL", 99.0, 5, Order.Type.SELL);
+        ioc.setTimeInForce(Order.TimeInForce.IOC);
+        result = orderService.addOrderAwaitingMatch(ioc, Duration.ofSeconds(2)).get(2, TimeUnit.SECONDS);
+        assertEquals(Order.Status.CANCELLED, result.getOrder().getStatus());
+        assertEquals(3, result.getFilledQuantity());
+        assertEquals(0, result.getRemainingQuantity());
+        assertEquals(1, result.getTrades().size());
+    }
+
+    @Test
+    void testAddOrderAwaitingMatchTimesOutWithOrderAsAccepted() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> released.await(2, TimeUnit.SECONDS)).when(orderManager).matchIncoming(any(Order.class));
+        orderService.addOrder(new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY));
+
+        OrderResult result = orderService.addOrderAwaitingMatch(new OrderRequest("AAPL", 100.0, 5, Order.Type.BUY),
+                Duration.ofMillis(50)).get(2, TimeUnit.SECONDS);
+        released.countDown();
+
+        assertFalse(result.isMatched());
+        assertEquals(Order.Status.NEW, result.getOrder().getStatus());
+        assertEquals(5, result.getRemainingQuantity());
+        assertTrue(result.getTrades().isEmpty());
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> verify(orderManager, times(2)).matchIncoming(any(Order.class)));
+    }
+
+    @Test
+    void testFullShardDoesNotHoldUpOtherShardsWhileJournaling() throws Exception {
+        orderService.shutdownExecutor();
+        OrderJournal journaling = mock(OrderJournal.class);
+        when(journaling.isEnabled()).thenReturn(true);
+        orderService = newService(orderManager, journaling, IntakeControl.unlimited(), 2, 4);
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> released.await(5, TimeUnit.SECONDS))
+                .when(orderManager).matchIncoming(argThat(order -> order.getSymbol().equals("AAPL")));
+
+        // AAPL's shard is stuck on its first order; the
+        // producer fills its ring and then waits for room
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                orderService.addOrder(new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY));
+            }
         });
+        producer.start();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> mockingDetails(journaling).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("append")).count() >= 5);
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(1),
+                    () -> orderService.addOrder(new OrderRequest("MSFT", 300.0, 1, Order.Type.BUY)));
+            await().atMost(2, TimeUnit.SECONDS).untilAsserted(() ->
+                    verify(orderManager).matchIncoming(argThat(order -> order.getSymbol().equals("MSFT"))));
+        } finally {
+            released.countDown();
+            producer.join(5000);
+        }
+    }
+
+    @Test
+    void testOrderForASymbolBeyondTheUnlistedLimitIsRejected() {
+        orderService.shutdownExecutor();
+        SymbolRegistry listed = new SymbolRegistry(1024, "AAPL", 0);
+        when(orderManager.getSymbolRegistry()).thenReturn(listed);
+        orderService = newService();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.addOrder(new OrderRequest("JUNK", 100.0, 1, Order.Type.BUY)));
+        List<BatchOrderResult> results = orderService.addOrders(List.of(
+                new OrderRequest("JUNK", 100.0, 1, Order.Type.BUY),
+                new OrderRequest("AAPL", 100.0, 1, Order.Type.BUY)));
+
+        assertNull(results.get(0).getOrder());
+        assertTrue(results.get(0).getError().contains("Unknown symbol"));
+        assertNotNull(results.get(1).getOrder());
+        assertEquals(1, listed.size());
     }
 
     @Test
@@ -0,0 +1,443 @@
+package com.example.engine.service;
+
+import com.example.engine.archive.OrderArchive;
+import com.example.engine.book.BookStorage;
+import com.example.engine.dto.DeadLetterResponse;
+import com.example.engine.dto.AmendRequest;
+import com.example.engine.dto.OrderRequest;
+import com.example.engine.journal.Durability;
+import com.example.engine.journal.MappedOrderJournal;
+import com.example.engine.journal.OrderJournal;
+import com.example.engine.journal.SnapshotStore;
+import com.example.engine.metrics.EngineMetrics;
+import com.example.engine.model.Order;
+import com.example.engine.model.OrderPool;
+import com.example.engine.recorder.OrderFlowRecorder;
+import com.example.engine.trade.TradeRing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class OrderServiceRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private final TickSizeRegistry tickSizes = new TickSizeRegistry(new BigDecimal("0.01"), "");
+
+    private MappedOrderJournal openJournal() throws Exception {
+        return new MappedOrderJournal(dir.resolve("journal").toString(), DataSize.ofBytes(512), Durability.SYNC,
+                Duration.ofMillis(1));
+    }
+
+    private SnapshotStore snapshots(boolean enabled) {
+        return new SnapshotStore(enabled, dir.resolve("snapshots").toString(), 2, Duration.ofHours(1));
+    }
+
+    private static OrderArchive archive() {
+        return new OrderArchive(1024, Duration.ofHours(1));
+    }
+
+    private OrderServiceImpl newService(OrderManager manager, OrderJournal journal, boolean snapshotting) {
+        return newService(manager, journal, snapshotting, new OrderPool(0, 0));
+    }
+
+    private OrderServiceImpl newService(OrderManager manager, OrderJournal journal, boolean snapshotting,
+            OrderPool pool) {
+        return new OrderServiceImpl(manager, tickSizes, new TradeRing(1024), journal, OrderFlowRecorder.disabled(),
+                snapshots(snapshotting), archive(), pool, new EngineMetrics(), IntakeControl.unlimited(), 2, 1024, 1);
+    }
+
+    private static String describe(OrderManager manager, String symbol) {
+        return List.of(manager.getBuyOrders(symbol).stream().toList(), manager.getSellOrders(symbol).stream().toList())
+                .toString();
+    }
+
+    @Test
+    void testJournalReplayRebuildsBooksAfterRestart() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 10, Order.Type.BUY));
+        service.addOrder(new OrderRequest("AAPL", 100.50, 5, Order.Type.SELL));
+        service.addOrder(new OrderRequest("AAPL", 99.50, 4, Order.Type.SELL));
+        service.addOrder(new OrderRequest("MSFT", 300.00, 7, Order.Type.SELL));
+        int lastId = service.addOrder(new OrderRequest("MSFT", 301.00, 2, Order.Type.BUY)).getId();
+
+        await().atMost(2, TimeUnit.SECONDS).until(() ->
+                manager.getBuyOrders("MSFT").isEmpty() && manager.getSellOrders("AAPL").size() == 1);
+        String aapl = describe(manager, "AAPL");
+        String msft = describe(manager, "MSFT");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            assertEquals(msft, describe(recovered, "MSFT"));
+            assertEquals(6, restarted.getOrderById(lastId - 4).orElseThrow().getQuantity());
+            // Recovered books are published before the service takes traffic
+            assertEquals(2, restarted.getOrdersBySymbol("AAPL", PageRequest.of(0, 10)).size());
+            assertTrue(restarted.addOrder(new OrderRequest("AAPL", 1.00, 1, Order.Type.BUY)).getId() > lastId);
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testJournalReplayAppliesCancelsAndAmends() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        int first = service.addOrder(new OrderRequest("AAPL", 100.00, 10, Order.Type.BUY)).getId();
+        int second = service.addOrder(new OrderRequest("AAPL", 100.00, 10, Order.Type.BUY)).getId();
+        int third = service.addOrder(new OrderRequest("AAPL", 99.00, 10, Order.Type.BUY)).getId();
+        service.cancelOrder(second);
+        service.amendOrder(first, new AmendRequest(null, 6));
+        service.amendOrder(third, new AmendRequest(100.00, null));
+        service.addOrder(new OrderRequest("AAPL", 100.00, 8, Order.Type.SELL));
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").isEmpty()
+                && manager.getBuyOrders("AAPL").size() == 1);
+        String aapl = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            // The amended first order kept priority and filled;
+            // the repriced third order has 8 of 10 left
+            assertEquals(Order.Status.FILLED, restarted.getOrderById(first).orElseThrow().getStatus());
+            assertEquals(Order.Status.CANCELLED, restarted.getOrderById(second).orElseThrow().getStatus());
+            assertEquals(8, restarted.getOrderById(third).orElseThrow().getQuantity());
+            assertThrows(IllegalStateException.class, () -> restarted.cancelOrder(first));
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testOffHeapBooksServeLookupsAndRecover() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""), BookStorage.OFF_HEAP, 16);
+        OrderServiceImpl service = newService(manager, journal, false, new OrderPool(16, 0));
+
+        int first = service.addOrder(new OrderRequest("AAPL", 100.00, 10, Order.Type.BUY)).getId();
+        int second = service.addOrder(new OrderRequest("AAPL", 100.00, 10, Order.Type.BUY)).getId();
+        int third = service.addOrder(new OrderRequest("AAPL", 99.00, 10, Order.Type.BUY)).getId();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getBuyOrders("AAPL").size() == 3);
+        // Resting orders have left the live map and are read back from their slots
+        assertEquals(10, service.getOrderById(second).orElseThrow().getQuantity());
+        service.cancelOrder(second);
+        service.amendOrder(first, new AmendRequest(null, 6));
+        service.amendOrder(third, new AmendRequest(100.00, null));
+        service.addOrder(new OrderRequest("AAPL", 100.00, 8, Order.Type.SELL));
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").isEmpty()
+                && manager.getBuyOrders("AAPL").size() == 1);
+        assertEquals(Order.Status.FILLED, service.getOrderById(first).orElseThrow().getStatus());
+        assertEquals(Order.Status.PARTIALLY_FILLED, service.getOrderById(third).orElseThrow().getStatus());
+        String aapl = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""), BookStorage.OFF_HEAP, 16);
+        OrderServiceImpl restarted = newService(recovered, reopened, false, new OrderPool(16, 0));
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            assertEquals(8, restarted.getOrderById(third).orElseThrow().getQuantity());
+            assertTrue(restarted.cancelOrder(third).isPresent());
+            await().atMost(2, TimeUnit.SECONDS).until(() -> recovered.getBuyOrders("AAPL").isEmpty());
+            assertEquals(Order.Status.CANCELLED, restarted.getOrderById(third).orElseThrow().getStatus());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testJournalReplayMatchesBatchesLikeLiveProcessing() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        // Within a batch the better-priced bid trades first, even though it comes later in the request
+        service.addOrders(List.of(
+                new OrderRequest("AAPL", 100.00, 5, Order.Type.BUY),
+                new OrderRequest("MSFT", 50.00, 1, Order.Type.SELL),
+                new OrderRequest("AAPL", 101.00, 5, Order.Type.BUY)));
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").isEmpty()
+                && manager.getSellOrders("MSFT").size() == 1);
+        String aapl = describe(manager, "AAPL");
+        assertEquals(10000, manager.getBuyOrders("AAPL").peek().getPrice());
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            assertEquals(1, recovered.getSellOrders("MSFT").size());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testJournalReplayCrossesABatchAsAWholeLikeLiveProcessing() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        // The closing bid must not trade ahead of the better bid booked before it in the same batch
+        service.addOrders(List.of(
+                new OrderRequest("AAPL", 101.00, 3, Order.Type.BUY),
+                new OrderRequest("AAPL", 100.50, 4, Order.Type.BUY)));
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").isEmpty());
+        String aapl = describe(manager, "AAPL");
+        assertEquals(10050, manager.getBuyOrders("AAPL").peek().getPrice());
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testDeadLetteredOrdersStayOutOfRecoveredBooksUntilReplayed() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = spy(new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, "")));
+        doThrow(new IllegalStateException("Book unavailable")).when(manager)
+                .matchIncoming(argThat(order -> order.getQuantity() == 7));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        int failed = service.addOrder(new OrderRequest("AAPL", 100.00, 7, Order.Type.BUY)).getId();
+        service.addOrder(new OrderRequest("AAPL", 99.00, 3, Order.Type.BUY));
+
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getBuyOrders("AAPL").size() == 1);
+        assertEquals(1, service.getDeadLetters(null, 0, 10).size());
+        String live = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        String replayed;
+        try {
+            assertEquals(live, describe(recovered, "AAPL"));
+            assertEquals(List.of(failed), restarted.getDeadLetters(null, 0, 10).stream().map(DeadLetterResponse::getOrderId).toList());
+
+            restarted.replayDeadLetters(null, List.of(failed), 10);
+            await().atMost(2, TimeUnit.SECONDS).until(() -> recovered.getSellOrders("AAPL").isEmpty());
+            replayed = describe(recovered, "AAPL");
+            assertTrue(restarted.getDeadLetters(null, 0, 10).isEmpty());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+
+        // The replay was journaled, so the next restart trades the order too
+        MappedOrderJournal again = openJournal();
+        OrderManager rebuilt = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl third = newService(rebuilt, again, false);
+        try {
+            assertEquals(replayed, describe(rebuilt, "AAPL"));
+            assertEquals(2, third.getOrderById(failed).orElseThrow().getQuantity());
+            assertTrue(third.getDeadLetters(null, 0, 10).isEmpty());
+        } finally {
+            third.shutdownExecutor();
+            again.close();
+        }
+    }
+
+    @Test
+    void testCancellingADeadLetteredOrderDiscardsItAcrossRestart() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = spy(new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, "")));
+        doThrow(new IllegalStateException("Book unavailable")).when(manager)
+                .matchIncoming(argThat(order -> order.getQuantity() == 7));
+        OrderServiceImpl service = newService(manager, journal, false);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        int failed = service.addOrder(new OrderRequest("AAPL", 100.00, 7, Order.Type.BUY)).getId();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> service.getDeadLetters(null, 0, 10).size() == 1);
+
+        assertTrue(service.cancelOrder(failed).isPresent());
+        await().atMost(2, TimeUnit.SECONDS).until(() -> service.getDeadLetters(null, 0, 10).isEmpty());
+        assertEquals(Order.Status.CANCELLED, service.getOrderById(failed).orElseThrow().getStatus());
+        String live = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, false);
+        try {
+            assertEquals(live, describe(recovered, "AAPL"));
+            assertTrue(restarted.getDeadLetters(null, 0, 10).isEmpty());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testDeadLettersSurviveSnapshotAndJournalTruncation() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = spy(new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, "")));
+        doThrow(new IllegalStateException("Book unavailable")).when(manager)
+                .matchIncoming(argThat(order -> order.getQuantity() == 7));
+        OrderServiceImpl service = newService(manager, journal, true);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        int failed = service.addOrder(new OrderRequest("AAPL", 100.00, 7, Order.Type.BUY)).getId();
+        for (int i = 0; i < 20; i++) {
+            service.addOrder(new OrderRequest("MSFT", 300.00 + i, 1, Order.Type.SELL));
+        }
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("MSFT").size() == 20);
+
+        service.takeSnapshot();
+        try (Stream<Path> segments = Files.list(dir.resolve("journal"))) {
+            // The DEAD_LETTER record went with the truncated segments
+            assertTrue(segments.count() <= 2);
+        }
+        String live = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, true);
+        try {
+            assertEquals(live, describe(recovered, "AAPL"));
+            assertEquals(List.of(failed), restarted.getDeadLetters(null, 0, 10).stream().map(DeadLetterResponse::getOrderId).toList());
+
+            restarted.replayDeadLetters(null, List.of(failed), 10);
+            await().atMost(2, TimeUnit.SECONDS).until(() -> recovered.getSellOrders("AAPL").isEmpty());
+            assertEquals(2, restarted.getOrderById(failed).orElseThrow().getQuantity());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testStartupLoadsSnapshotAndReplaysOnlyTheJournalTail() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, true);
+
+        for (int i = 0; i < 30; i++) {
+            service.addOrder(new OrderRequest(i % 2 == 0 ? "AAPL" : "MSFT", 100.00 + i % 3, 5, Order.Type.BUY));
+        }
+        service.addOrder(new OrderRequest("AAPL", 101.00, 12, Order.Type.SELL));
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").isEmpty()
+                && manager.getBuyOrders("AAPL").size() == 13);
+
+        SnapshotStore.Snapshot snapshot = service.takeSnapshot();
+        assertEquals(28, snapshot.orderCount());
+        assertEquals(journal.getPosition(), snapshot.journalPosition());
+        try (Stream<Path> segments = Files.list(dir.resolve("journal"))) {
+            // Everything before the snapshot is covered, so
+            // only the current segment (and its spare) remain
+            assertTrue(segments.count() <= 2);
+        }
+
+        int tailId = service.addOrder(new OrderRequest("MSFT", 99.00, 3, Order.Type.SELL)).getId();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("MSFT").isEmpty());
+        String aapl = describe(manager, "AAPL");
+        String msft = describe(manager, "MSFT");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, true);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            assertEquals(msft, describe(recovered, "MSFT"));
+            assertTrue(restarted.getOrderById(tailId).isPresent());
+            assertTrue(restarted.addOrder(new OrderRequest("AAPL", 1.00, 1, Order.Type.BUY)).getId() > tailId);
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testStopsAndLastTradePriceSurviveSnapshotAndReplay() throws Exception {
+        MappedOrderJournal journal = openJournal();
+        OrderManager manager = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl service = newService(manager, journal, true);
+
+        service.addOrder(new OrderRequest("AAPL", 100.00, 5, Order.Type.SELL));
+        service.addOrder(new OrderRequest("AAPL", 100.00, 1, Order.Type.BUY));
+        OrderRequest waiting = new OrderRequest("AAPL", 98.00, 3, Order.Type.SELL);
+        waiting.setStopPrice(99.00);
+        int waitingId = service.addOrder(waiting).getId();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getStopOrders("AAPL", Order.Type.SELL).size() == 1);
+        service.takeSnapshot();
+
+        // The last trade at 100 already reached this stop, so it goes straight to the book
+        OrderRequest triggered = new OrderRequest("AAPL", 101.00, 2, Order.Type.SELL);
+        triggered.setStopPrice(100.00);
+        int triggeredId = service.addOrder(triggered).getId();
+        await().atMost(2, TimeUnit.SECONDS).until(() -> manager.getSellOrders("AAPL").size() == 2);
+        String aapl = describe(manager, "AAPL");
+        service.shutdownExecutor();
+        journal.close();
+
+        MappedOrderJournal reopened = openJournal();
+        OrderManager recovered = new OrderManager(new TradeRing(1024), new SymbolRegistry(1024, ""));
+        OrderServiceImpl restarted = newService(recovered, reopened, true);
+        try {
+            assertEquals(aapl, describe(recovered, "AAPL"));
+            assertEquals(10000, recovered.getLastTradePrice("AAPL"));
+            assertEquals(waitingId, recovered.getStopOrders("AAPL", Order.Type.SELL).peek().getId());
+            assertEquals(triggeredId, recovered.getSellOrders("AAPL").stream().toList().get(1).getId());
+        } finally {
+            restarted.shutdownExecutor();
+            reopened.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.engine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private final List<String> ran = new ArrayList<>();
+    private final TimerWheel wheel = new TimerWheel(10, 4, 1_000);
+
+    private Runnable task(String name) {
+        return () -> ran.add(name);
+    }
+
+    @Test
+    void testTasksRunOnceDueInDeadlineOrder() {
+        wheel.schedule(task("c"), 1_035);
+        wheel.schedule(task("a"), 1_005);
+        wheel.schedule(task("b"), 1_020);
+
+        assertEquals(0, wheel.advance(1_009, Runnable::run));
+        assertEquals(2, wheel.advance(1_020, Runnable::run));
+        assertEquals(List.of("a", "b"), ran);
+        assertEquals(1, wheel.size());
+        assertEquals(1, wheel.advance(1_040, Runnable::run));
+        assertEquals(List.of("a", "b", "c"), ran);
+    }
+
+    @Test
+    void testTasksBeyondOneTurnWaitForTheirTurn() {
+        // Four slots of 10 ns: 1_100 shares a slot with 1_020 but is due two turns later
+        wheel.schedule(task("late"), 1_100);
+        wheel.schedule(task("early"), 1_020);
+
+        wheel.advance(1_060, Runnable::run);
+        assertEquals(List.of("early"), ran);
+        wheel.advance(1_099, Runnable::run);
+        assertEquals(List.of("early"), ran);
+        wheel.advance(1_100, Runnable::run);
+        assertEquals(List.of("early", "late"), ran);
+    }
+
+    @Test
+    void testTaskScheduledWhileRunningWaitsForTheNextTick() {
+        wheel.schedule(() -> wheel.schedule(task("again"), 0), 1_010);
+        wheel.advance(1_010, Runnable::run);
+        assertTrue(ran.isEmpty());
+        wheel.advance(1_020, Runnable::run);
+        assertEquals(List.of("again"), ran);
+        assertEquals(0, wheel.size());
+    }
+}
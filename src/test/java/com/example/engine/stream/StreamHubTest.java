@@ -0,0 +1,205 @@
+package com.example.engine.stream;
+
+import com.example.engine.depth.DepthPublisher;
+import com.example.engine.model.Order;
+import com.example.engine.service.OrderManager;
+import com.example.engine.service.SymbolRegistry;
+import com.example.engine.service.TickSizeRegistry;
+import com.example.engine.trade.TradeRing;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamHubTest {
+
+    private final TradeRing tradeRing = new TradeRing(1024);
+    private final OrderManager orderManager = new OrderManager(tradeRing, new SymbolRegistry(1024, ""));
+    private final TickSizeRegistry tickSizes = new TickSizeRegistry(new BigDecimal("0.01"), "");
+    // Long interval: the test drives publishing rounds itself
+    private final DepthPublisher depthPublisher = new DepthPublisher(orderManager, tickSizes, Duration.ofHours(1));
+    private StreamHub hub;
+
+    private StreamHub hub(int bufferCapacity) {
+        hub = new StreamHub(orderManager, tradeRing, tickSizes, depthPublisher, new ObjectMapper(),
+                bufferCapacity, 2, Duration.ofHours(1), false);
+        return hub;
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+        depthPublisher.stop();
+    }
+
+    /**
+     * Records what is sent; optionally blocks every send until released, like a stalled connection.
+     */
+    private static final class RecordingSink implements StreamSubscriber.Sink {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final AtomicInteger sending = new AtomicInteger();
+        final CountDownLatch released;
+        volatile boolean completed;
+        volatile String failure;
+        volatile String failedOn;
+
+        RecordingSink(boolean stalled) {
+            this.released = new CountDownLatch(stalled ? 1 : 0);
+        }
+
+        @Override
+        public void send(String event, String json) {
+            sending.incrementAndGet();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event + " " + json);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void fail(String reason) {
+            failedOn = Thread.currentThread().getName();
+            failure = reason;
+        }
+    }
+
+    private void cross(String symbol, long price, int quantity) {
+        orderManager.addOrder(new Order(symbol, price, quantity, Order.Type.SELL));
+        orderManager.addOrder(new Order(symbol, price, quantity, Order.Type.BUY));
+        orderManager.matchOrders(symbol);
+    }
+
+    @Test
+    void testTradesAreStreamedPerSymbol() {
+        hub(16);
+        RecordingSink aapl = new RecordingSink(false);
+        RecordingSink msft = new RecordingSink(false);
+        hub.subscribeTrades("AAPL", aapl);
+        hub.subscribeTrades("MSFT", msft);
+
+        cross("AAPL", 15000, 3);
+        cross("AAPL", 15001, 4);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> aapl.events.size() == 2);
+        assertTrue(aapl.events.get(0).startsWith("trade {"));
+        assertTrue(aapl.events.get(0).contains("\"price\":150.0"));
+        assertTrue(aapl.events.get(1).contains("\"quantity\":4"));
+        assertTrue(msft.events.isEmpty());
+    }
+
+    @Test
+    void testOrderStreamCompletesWhenOrderIsFilled() {
+        hub(16);
+        Order sell = new Order("AAPL", 15000, 5, Order.Type.SELL);
+        orderManager.addOrder(sell);
+        RecordingSink sink = new RecordingSink(false);
+        hub.subscribeOrder(sell.getId(), sink);
+        RecordingSink other = new RecordingSink(false);
+        hub.subscribeOrder(sell.getId() + 1000, other);
+
+        orderManager.addOrder(new Order("AAPL", 15000, 2, Order.Type.BUY));
+        orderManager.matchOrders("AAPL");
+        orderManager.addOrder(new Order("AAPL", 15000, 3, Order.Type.BUY));
+        orderManager.matchOrders("AAPL");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> sink.completed);
+        assertEquals(2, sink.events.size());
+        assertTrue(sink.events.get(0).contains("\"status\":\"PARTIALLY_FILLED\""));
+        assertTrue(sink.events.get(0).contains("\"quantity\":3"));
+        assertTrue(sink.events.get(1).contains("\"status\":\"FILLED\""));
+        assertTrue(other.events.isEmpty());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    void testSlowTradeSubscriberIsDisconnected() {
+        hub(4);
+        RecordingSink slow = new RecordingSink(true);
+        RecordingSink fast = new RecordingSink(false);
+        hub.subscribeTrades("AAPL", slow);
+        hub.subscribeTrades("AAPL", fast);
+
+        // Paced so the other subscriber keeps up; the stalled one falls behind by more than its buffer
+        for (int i = 1; i <= 20; i++) {
+            cross("AAPL", 15000, 1);
+            int sent = i;
+            await().atMost(Duration.ofSeconds(5)).until(() -> fast.events.size() == sent);
+        }
+
+        assertEquals(1, hub.getSlowConsumerDisconnects());
+        await().atMost(Duration.ofSeconds(5)).until(() -> slow.failure != null && hub.getSubscriberCount() == 1);
+        slow.released.countDown();
+    }
+
+    @Test
+    void testSlowOrderSubscriberIsDisconnectedOffTheMatchingThread() {
+        hub(4);
+        Order sell = new Order("AAPL", 15000, 20, Order.Type.SELL);
+        orderManager.addOrder(sell);
+        RecordingSink slow = new RecordingSink(true);
+        hub.subscribeOrder(sell.getId(), slow);
+
+        // This thread matches: one fill is stuck in the sink, four fill the buffer, the sixth overflows
+        for (int i = 0; i < 10; i++) {
+            orderManager.addOrder(new Order("AAPL", 15000, 1, Order.Type.BUY));
+            orderManager.matchOrders("AAPL");
+        }
+
+        assertEquals(1, hub.getSlowConsumerDisconnects());
+        await().atMost(Duration.ofSeconds(5)).until(() -> slow.failure != null);
+        assertEquals("stream-hub", slow.failedOn);
+        await().atMost(Duration.ofSeconds(5)).until(() -> hub.getSubscriberCount() == 0);
+        slow.released.countDown();
+    }
+
+    @Test
+    void testSlowDepthSubscriberSkipsToFullBook() {
+        hub(2);
+        orderManager.addOrder(new Order("AAPL", 10000, 5, Order.Type.BUY));
+        orderManager.publishSnapshots();
+        RecordingSink sink = new RecordingSink(true);
+        hub.subscribeDepth("AAPL", sink);
+
+        depthPublisher.publish();
+        await().atMost(Duration.ofSeconds(5)).until(() -> sink.sending.get() == 1);
+        // The full book is being sent and two deltas are buffered; the deltas after them do not fit
+        for (int i = 1; i <= 5; i++) {
+            orderManager.addOrder(new Order("AAPL", 10000 - i, 1, Order.Type.BUY));
+            orderManager.publishSnapshots();
+            depthPublisher.publish();
+        }
+        sink.released.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> sink.events.size() == 3);
+        depthPublisher.publish();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> sink.events.size() == 4);
+        assertTrue(sink.events.get(0).contains("\"full\":true"));
+        assertTrue(sink.events.get(1).contains("\"full\":false"));
+        // Instead of the deltas it missed, the subscriber gets the whole book again
+        assertTrue(sink.events.get(3).contains("\"full\":true"));
+        assertTrue(sink.events.get(3).contains("\"price\":99.95"));
+        assertNull(sink.failure);
+        assertEquals(0, hub.getSlowConsumerDisconnects());
+    }
+}
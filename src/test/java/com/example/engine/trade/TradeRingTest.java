@@ -0,0 +1,67 @@
+package com.example.engine.trade;
+
+import com.example.engine.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeRingTest {
+
+    @Test
+    void testPublishAndRead() {
+        TradeRing ring = new TradeRing(8);
+        long sequence = ring.publish("AAPL", 15000, 7, Order.Type.BUY, 1, 2, 123L);
+
+        Trade trade = new Trade();
+        assertTrue(ring.read(sequence, trade));
+        assertEquals("AAPL", trade.getSymbol());
+        assertEquals(15000, trade.getPrice());
+        assertEquals(7, trade.getQuantity());
+        assertEquals(Order.Type.BUY, trade.getAggressor());
+        assertEquals(1, trade.getBuyOrderId());
+        assertEquals(2, trade.getSellOrderId());
+        assertFalse(ring.read(sequence + 1, trade));
+    }
+
+    @Test
+    void testCursorReadsInOrderAndSkipsWhenLapped() {
+        TradeRing ring = new TradeRing(4);
+        TradeRing.Cursor cursor = ring.newCursor();
+        Trade trade = new Trade();
+
+        ring.publish("AAPL", 1, 1, Order.Type.SELL, 1, 2, 0);
+        assertTrue(cursor.poll(trade));
+        assertEquals(0, trade.getSequence());
+        assertFalse(cursor.poll(trade));
+
+        for (int i = 0; i < 10; i++) {
+            ring.publish("AAPL", 1, 1, Order.Type.SELL, 1, 2, 0);
+        }
+        // Trades 1..10 were published into a ring of 4, so 1..6 are gone
+        assertTrue(cursor.poll(trade));
+        assertEquals(7, trade.getSequence());
+        assertEquals(6, cursor.getMissed());
+        int remaining = 0;
+        while (cursor.poll(trade)) {
+            remaining++;
+        }
+        assertEquals(3, remaining);
+    }
+
+    @Test
+    void testRecentTradesFiltersBySymbolNewestFirst() {
+        TradeRing ring = new TradeRing(16);
+        ring.publish("AAPL", 100, 1, Order.Type.BUY, 1, 2, 0);
+        ring.publish("MSFT", 200, 1, Order.Type.BUY, 3, 4, 0);
+        ring.publish("AAPL", 101, 2, Order.Type.SELL, 5, 6, 0);
+
+        List<Trade> trades = ring.recentTrades("AAPL", 10);
+        assertEquals(2, trades.size());
+        assertEquals(101, trades.get(0).getPrice());
+        assertEquals(100, trades.get(1).getPrice());
+        assertEquals(1, ring.recentTrades("AAPL", 1).size());
+        assertTrue(ring.recentTrades("GOOG", 10).isEmpty());
+    }
+}